@@ -0,0 +1,77 @@
+package market.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import market.domain.store.Policies.DiscountPolicy;
+import market.domain.store.Policies.Discounts.DiscountPolicyFactory;
+import market.domain.store.Policies.Discounts.Conditions.ConditionFactory;
+import market.domain.store.Policies.Discounts.Conditions.DiscountCondition;
+import market.dto.PolicyDTO;
+
+/**
+ * DTO conversions of discount trees and conditions through {@link DiscountPolicyFactory} and
+ * {@link ConditionFactory}, as done when policies are listed, added and rehydrated from storage.
+ * Each round trip is checked once in setup to rebuild an equal tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyDtoRoundTripBenchmark {
+
+    /** Depth of the discount tree; it has up to 3^depth leaves. */
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private DiscountPolicy policy;
+    private PolicyDTO.AddDiscountRequest policyDto;
+    private DiscountCondition condition;
+    private PolicyDTO.DiscountCondition conditionDto;
+
+    @Setup
+    public void setUp() {
+        PolicyFixtures fixtures = new PolicyFixtures(42);
+        policy = fixtures.discountTree(depth);
+        policyDto = policy.toDTO();
+        condition = fixtures.condition(depth);
+        conditionDto = condition.toDTO();
+        if (!DiscountPolicyFactory.fromDTO(policyDto).toDTO().equals(policyDto)
+                || !ConditionFactory.fromDTO(conditionDto).toDTO().equals(conditionDto)) {
+            throw new IllegalStateException("DTO round trip does not rebuild an equal policy");
+        }
+    }
+
+    @Benchmark
+    public PolicyDTO.AddDiscountRequest discountToDTO() {
+        return policy.toDTO();
+    }
+
+    @Benchmark
+    public DiscountPolicy discountFromDTO() {
+        return DiscountPolicyFactory.fromDTO(policyDto);
+    }
+
+    @Benchmark
+    public DiscountPolicy discountRoundTrip() {
+        return DiscountPolicyFactory.fromDTO(policy.toDTO());
+    }
+
+    @Benchmark
+    public DiscountCondition conditionRoundTrip() {
+        return ConditionFactory.fromDTO(condition.toDTO());
+    }
+}
@@ -0,0 +1,153 @@
+package market.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IListingRepository;
+import market.domain.store.Listing;
+import market.domain.store.StoreProductManager;
+import market.domain.store.Policies.DiscountPolicy;
+import market.domain.store.Policies.PolicyHandler;
+import market.domain.store.Policies.Discounts.CompositeDiscountPolicy;
+import market.domain.store.Policies.Discounts.ConditionalDiscountPolicy;
+import market.domain.store.Policies.Discounts.DiscountCombinationType;
+import market.domain.store.Policies.Discounts.DiscountTargetType;
+import market.domain.store.Policies.Discounts.FixedDiscountPolicy;
+import market.domain.store.Policies.Discounts.PercentageTargetedDiscount;
+import market.domain.store.Policies.Discounts.Conditions.ConditionFactory;
+import market.domain.store.Policies.Discounts.Conditions.DiscountCondition;
+import market.domain.store.Policies.Policies.MaxItemsPurchasePolicy;
+import market.domain.store.Policies.Policies.MinItemsPurchasePolicy;
+import market.domain.store.Policies.Policies.MinPricePurchasePolicy;
+import market.infrastructure.ListingRepository;
+
+/**
+ * A synthetic store for the policy benchmarks: a catalog of {@link #CATALOG_SIZE} listings in an
+ * in-memory {@link StoreProductManager}, and seeded generators of bags and policy trees, so every
+ * run and fork benchmarks the same data.
+ * <p>
+ * Discount trees are composites of composites down to {@code depth}, alternating SUM and MAXIMUM,
+ * with about half of all nodes wrapped in a {@link ConditionalDiscountPolicy} whose condition is
+ * itself a small AND/OR/XOR tree. Thresholds are picked so that conditions hold for some bags and
+ * not others.
+ */
+final class PolicyFixtures {
+
+    static final String STORE_ID = "bench-store";
+    static final int CATALOG_SIZE = 500;
+
+    private static final int PRODUCTS = 100;
+    private static final String[] CATEGORIES = {
+        "dairy", "bakery", "fruit", "vegetables", "meat", "drinks", "snacks", "frozen", "cleaning", "toys"
+    };
+    private static final int FANOUT = 3;
+
+    private final Random random;
+    private final StoreProductManager productManager;
+    private final List<String> listingIds = new ArrayList<>();
+    private final List<Listing> listings = new ArrayList<>();
+
+    PolicyFixtures(long seed) {
+        random = new Random(seed);
+        IListingRepository repo = new ListingRepository();
+        productManager = new StoreProductManager(STORE_ID, repo);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            double price = 1 + random.nextInt(20_000) / 100.0;
+            Listing listing = new Listing(STORE_ID, "P" + (i % PRODUCTS), "Item " + i, CATEGORIES[i % CATEGORIES.length],
+                    "desc", 1_000, PurchaseType.REGULAR, price);
+            listingIds.add(productManager.addListing(listing));
+            listings.add(listing);
+        }
+    }
+
+    StoreProductManager productManager() {
+        return productManager;
+    }
+
+    List<Listing> listings() {
+        return listings;
+    }
+
+    /**
+     * @return A bag of {@code size} distinct listings of the catalog, 1 to 5 units each.
+     */
+    Map<String, Integer> bag(int size) {
+        if (size > CATALOG_SIZE) {
+            throw new IllegalArgumentException("Bags hold at most " + CATALOG_SIZE + " listings");
+        }
+        List<String> ids = new ArrayList<>(listingIds);
+        Collections.shuffle(ids, random);
+        Map<String, Integer> bag = new LinkedHashMap<>();
+        for (String id : ids.subList(0, size)) {
+            bag.put(id, 1 + random.nextInt(5));
+        }
+        return bag;
+    }
+
+    /**
+     * @return A handler with {@code trees} discount trees of the given depth and purchase
+     *         policies that every generated bag passes, so all of them are evaluated.
+     */
+    PolicyHandler handler(int trees, int depth) {
+        PolicyHandler handler = new PolicyHandler();
+        for (int i = 0; i < trees; i++) {
+            try {
+                handler.addDiscountPolicy(discountTree(depth));
+            } catch (IllegalArgumentException duplicate) {
+                // an equal tree was already added
+            }
+        }
+        handler.addPurchasePolicy(new MinItemsPurchasePolicy(1));
+        handler.addPurchasePolicy(new MaxItemsPurchasePolicy(CATALOG_SIZE * 5));
+        handler.addPurchasePolicy(new MinPricePurchasePolicy(1));
+        return handler;
+    }
+
+    DiscountPolicy discountTree(int depth) {
+        DiscountPolicy policy;
+        if (depth <= 0) {
+            policy = leaf();
+        } else {
+            CompositeDiscountPolicy composite = new CompositeDiscountPolicy(
+                    depth % 2 == 0 ? DiscountCombinationType.SUM : DiscountCombinationType.MAXIMUM);
+            for (int i = 0; i < FANOUT; i++) {
+                try {
+                    composite.addPolicy(discountTree(depth - 1));
+                } catch (IllegalArgumentException duplicate) {
+                    // equal policies are rejected by the composite itself
+                }
+            }
+            policy = composite;
+        }
+        return random.nextBoolean() ? new ConditionalDiscountPolicy(condition(2), policy) : policy;
+    }
+
+    DiscountCondition condition(int depth) {
+        return switch (random.nextInt(depth <= 0 ? 3 : 6)) {
+            case 0 -> ConditionFactory.basketTotalAtLeast(random.nextInt(2_000));
+            case 1 -> ConditionFactory.categoryQuantityAtLeast(CATEGORIES[random.nextInt(CATEGORIES.length)], 1 + random.nextInt(20));
+            // Product conditions are keyed by the bag's keys, i.e. listing IDs
+            case 2 -> ConditionFactory.productQuantityAtLeast(listingIds.get(random.nextInt(CATALOG_SIZE)), 1 + random.nextInt(3));
+            case 3 -> ConditionFactory.and(List.of(condition(depth - 1), condition(depth - 1)));
+            case 4 -> ConditionFactory.or(List.of(condition(depth - 1), condition(depth - 1)));
+            default -> ConditionFactory.xor(List.of(condition(depth - 1), condition(depth - 1), condition(depth - 1)));
+        };
+    }
+
+    private DiscountPolicy leaf() {
+        DiscountTargetType target = DiscountTargetType.values()[random.nextInt(3)];
+        String targetId = switch (target) {
+            case STORE -> null;
+            case PRODUCT -> "P" + random.nextInt(PRODUCTS);
+            case CATEGORY -> CATEGORIES[random.nextInt(CATEGORIES.length)];
+        };
+        return random.nextBoolean()
+                ? new PercentageTargetedDiscount(targetId, 1 + random.nextInt(30), target)
+                : new FixedDiscountPolicy(targetId, 1 + random.nextInt(20), target);
+    }
+}
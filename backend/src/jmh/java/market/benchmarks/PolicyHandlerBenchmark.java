@@ -0,0 +1,77 @@
+package market.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import market.domain.store.StoreProductManager;
+import market.domain.store.Policies.BasketSnapshot;
+import market.domain.store.Policies.PolicyHandler;
+
+/**
+ * Pricing hot path of a store bag: {@link PolicyHandler#calculateDiscount} and
+ * {@link PolicyHandler#isPurchaseAllowed} over synthetic discount trees (see {@link PolicyFixtures}).
+ * <p>
+ * The {@code Map} variants include resolving the bag's listings into a {@link BasketSnapshot}, as
+ * a checkout does; {@link #calculateDiscountOnSnapshot} measures the policy evaluation alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyHandlerBenchmark {
+
+    /** Distinct listings in the bag. */
+    @Param({"1", "10", "100", "500"})
+    public int bagSize;
+
+    /** Depth of each discount tree; a tree has up to 3^depth leaves. */
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private static final int TREES = 4;
+
+    private StoreProductManager productManager;
+    private PolicyHandler handler;
+    private Map<String, Integer> bag;
+    private BasketSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        PolicyFixtures fixtures = new PolicyFixtures(42);
+        productManager = fixtures.productManager();
+        handler = fixtures.handler(TREES, depth);
+        bag = fixtures.bag(bagSize);
+        snapshot = BasketSnapshot.of(bag, productManager);
+        // Compile the discount plan before measuring
+        handler.calculateDiscount(snapshot);
+    }
+
+    @Benchmark
+    public double calculateDiscount() {
+        return handler.calculateDiscount(bag, productManager);
+    }
+
+    @Benchmark
+    public double calculateDiscountOnSnapshot() {
+        return handler.calculateDiscount(snapshot);
+    }
+
+    @Benchmark
+    public boolean isPurchaseAllowed() {
+        return handler.isPurchaseAllowed(bag, productManager);
+    }
+}
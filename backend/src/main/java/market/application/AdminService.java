@@ -15,6 +15,8 @@ import market.domain.user.ISuspensionRepository;
 import market.domain.user.IUserRepository;
 import market.application.NotificationService;
 import market.domain.user.User;
+import market.infrastructure.ListingCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import utils.Logger;
 
 /**
@@ -29,6 +31,10 @@ public class AdminService {
     private final ISuspensionRepository suspensionRepository;
     private final NotificationService notificationService;
 
+    // Present only when listings are database-backed.
+    @Autowired(required = false)
+    private ListingCache listingCache;
+
     private static final Logger logger = Logger.getInstance();
 
     /**
@@ -228,6 +234,23 @@ public class AdminService {
         return result;
     }
 
+    /**
+     * Returns the listing cache counters, so DB round-trips per checkout can be measured.
+     *
+     * @return Map with hits, misses, evictions, current size and hit rate (all zero if no cache is configured)
+     */
+    public Map<String, Object> getListingCacheStats() {
+        ListingCache.Stats stats = listingCache == null ? new ListingCache.Stats(0, 0, 0, 0) : listingCache.stats();
+        long lookups = stats.hits() + stats.misses();
+        Map<String, Object> result = new HashMap<>();
+        result.put("hits", stats.hits());
+        result.put("misses", stats.misses());
+        result.put("evictions", stats.evictions());
+        result.put("size", stats.size());
+        result.put("hitRate", lookups == 0 ? 0.0 : (double) stats.hits() / lookups);
+        return result;
+    }
+
     /**
      * Retrieves all stores in the system for admin management purposes.
      *
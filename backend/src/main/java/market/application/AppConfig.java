@@ -14,7 +14,10 @@ import market.domain.store.IListingRepository;
 import market.domain.store.IStoreRepository;
 import market.domain.user.ISuspensionRepository;
 import market.domain.user.IUserRepository;
+import market.infrastructure.ListingCache;
 import market.infrastructure.NotificationRepository;
+import market.infrastructure.PolicyHandlerCache;
+import market.infrastructure.PriceSheetCache;
 import market.infrastructure.RoleRepository;
 import market.notification.INotifier;
 import market.notification.WebSocketBroadcastNotifier;
@@ -66,6 +69,22 @@ public class AppConfig {
         return new ShipmentService();
     }
 
+    @Bean
+    public ListingCache listingCache(@Value("${market.listing-cache.max-size:10000}") int maxSize,
+                                     @Value("${market.listing-cache.ttl-seconds:60}") long ttlSeconds) {
+        return new ListingCache(maxSize, java.time.Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Bean
+    public PolicyHandlerCache policyHandlerCache(@Value("${market.policy-cache.max-size:10000}") int maxSize) {
+        return new PolicyHandlerCache(maxSize);
+    }
+
+    @Bean
+    public PriceSheetCache priceSheetCache(@Value("${market.price-sheet-cache.max-size:10000}") int maxSize) {
+        return new PriceSheetCache(maxSize);
+    }
+
     @Bean
     public RestTemplate restTemplate() {
         return new RestTemplate();
@@ -77,8 +96,9 @@ public class AppConfig {
     }
 
     @Bean
-    public StorePoliciesService storePoliciesService(IStoreRepository storeRepository, ISuspensionRepository suspensionRepository) {
-        return new StorePoliciesService(storeRepository, suspensionRepository);
+    public StorePoliciesService storePoliciesService(IStoreRepository storeRepository, ISuspensionRepository suspensionRepository,
+                                                     PolicyHandlerCache policyHandlerCache, PriceSheetCache priceSheetCache) {
+        return new StorePoliciesService(storeRepository, suspensionRepository, policyHandlerCache, priceSheetCache);
     }
 
     @Bean
@@ -0,0 +1,105 @@
+package market.application;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import market.domain.purchase.CheckoutOrder;
+import utils.Logger;
+
+/**
+ * Runs the payment and shipment of placed orders on a bounded pool, so that a request thread
+ * only waits for the stock to be taken and not for the external services.
+ * <p>
+ * A checkout holds one permit from before its order is placed until it finishes. When all
+ * permits are taken (every worker busy and the queue full), {@link #submit} rejects the checkout
+ * before touching any stock, and the caller should answer with 429 Too Many Requests.
+ */
+@Service
+public class CheckoutDispatcher {
+
+    private static final long SHUTDOWN_GRACE_SECONDS = 10;
+
+    private final CheckoutSaga checkoutSaga;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore permits;
+    private final Logger logger = Logger.getInstance();
+
+    @Autowired
+    public CheckoutDispatcher(CheckoutSaga checkoutSaga,
+                              @Value("${market.checkout.async-threads:8}") int threads,
+                              @Value("${market.checkout.async-queue-capacity:64}") int queueCapacity) {
+        if (threads <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Checkout pool needs at least one thread and a non-negative queue");
+        }
+        this.checkoutSaga = checkoutSaga;
+        this.permits = new Semaphore(threads + queueCapacity);
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "checkout-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Places an order on the calling thread, then completes it in the background. Progress is
+     * published by the {@link CheckoutSaga} and can be read with {@link CheckoutSaga#getOrder}.
+     *
+     * @param placeOrder Takes the stock and begins the order; see {@link CheckoutSaga#place}.
+     * @return The placed order, still waiting for payment.
+     * @throws RejectedExecutionException if the pool is saturated; nothing was placed.
+     */
+    public CheckoutOrder submit(Supplier<CheckoutOrder> placeOrder, String paymentDetails) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many checkouts in progress, please try again shortly");
+        }
+        CheckoutOrder order;
+        try {
+            order = checkoutSaga.place(placeOrder);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    checkoutSaga.complete(order, paymentDetails);
+                } catch (RuntimeException e) {
+                    // Already recorded on the order and published to the buyer
+                    logger.error("Checkout " + order.getOrderId() + " failed: " + e.getMessage());
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only when shutting down; the payment timeout cancels the order and restores its stock
+            permits.release();
+            logger.error("Checkout " + order.getOrderId() + " not started, left to the payment timeout: " + e.getMessage());
+        }
+        return order;
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
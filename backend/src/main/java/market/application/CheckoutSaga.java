@@ -0,0 +1,434 @@
+package market.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.CheckoutOrder;
+import market.domain.purchase.CheckoutOutboxEvent;
+import market.domain.purchase.ICheckoutOrderRepository;
+import market.domain.purchase.ICheckoutOutboxRepository;
+import market.domain.purchase.IPurchaseRepository;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchasedProduct;
+import market.domain.purchase.RegularPurchase;
+import market.domain.store.IListingRepository;
+import market.domain.user.IUserRepository;
+import market.domain.user.User;
+import utils.ApiResponse;
+import utils.Logger;
+
+/**
+ * Runs a regular checkout as a sequence of short local transactions around the external calls.
+ * <ol>
+ *   <li>The caller takes the stock and {@link #begin begins} the order in one transaction.</li>
+ *   <li>{@link #complete} charges the payment with no transaction open, records the order as
+ *       paid together with the provider's transaction ID, ships it (again with no transaction open) and then saves the purchase.</li>
+ *   <li>If payment or shipment fails, the order is cancelled and its stock restored.</li>
+ * </ol>
+ * Each status change writes the next step that must not be lost to the outbox in the same
+ * transaction. A relay thread runs due outbox events, so a checkout that stopped half way (server
+ * restart, failed compensation) is finished or rolled back later. Events are claimed with a
+ * lease before they run, so the request thread and the relay never run the same step together.
+ * <p>
+ * The buyer is notified through {@link NotificationService} as the order is reserved, paid,
+ * shipped or fails.
+ */
+@Service
+public class CheckoutSaga {
+
+    private static final int RELAY_BATCH = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ICheckoutOrderRepository orderRepository;
+    private final ICheckoutOutboxRepository outboxRepository;
+    private final IListingRepository listingRepository;
+    private final IPurchaseRepository purchaseRepository;
+    private final IUserRepository userRepository;
+    private final IPaymentService paymentService;
+    private final IShipmentService shipmentService;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactions;
+    private final GroupCommitter groupCommitter;
+    private final long paymentTimeoutMillis;
+    private final long leaseMillis;
+    private final int maxShipmentAttempts;
+    private final long relayIntervalMillis;
+    private final LongSupplier clock;
+    private final Logger logger = Logger.getInstance();
+    private ScheduledExecutorService relay;
+
+    @Autowired
+    public CheckoutSaga(ICheckoutOrderRepository orderRepository, ICheckoutOutboxRepository outboxRepository,
+                        IListingRepository listingRepository, IPurchaseRepository purchaseRepository,
+                        IUserRepository userRepository, IPaymentService paymentService, IShipmentService shipmentService,
+                        NotificationService notificationService, TransactionTemplate transactions, GroupCommitter groupCommitter,
+                        @Value("${market.checkout.payment-timeout-seconds:120}") long paymentTimeoutSeconds,
+                        @Value("${market.checkout.lease-seconds:60}") long leaseSeconds,
+                        @Value("${market.checkout.max-shipment-attempts:5}") int maxShipmentAttempts,
+                        @Value("${market.checkout.outbox-interval-seconds:5}") long relayIntervalSeconds) {
+        this(orderRepository, outboxRepository, listingRepository, purchaseRepository, userRepository, paymentService,
+             shipmentService, notificationService, transactions, groupCommitter, paymentTimeoutSeconds, leaseSeconds, maxShipmentAttempts, relayIntervalSeconds,
+             System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a saga without transactions or relay thread, for the in-memory repositories.
+     */
+    public CheckoutSaga(ICheckoutOrderRepository orderRepository, ICheckoutOutboxRepository outboxRepository,
+                        IListingRepository listingRepository, IPurchaseRepository purchaseRepository,
+                        IUserRepository userRepository, IPaymentService paymentService, IShipmentService shipmentService,
+                        NotificationService notificationService) {
+        this(orderRepository, outboxRepository, listingRepository, purchaseRepository, userRepository, paymentService,
+             shipmentService, notificationService, null, null, 120, 60, 5, 0, System::currentTimeMillis);
+    }
+
+    CheckoutSaga(ICheckoutOrderRepository orderRepository, ICheckoutOutboxRepository outboxRepository,
+                 IListingRepository listingRepository, IPurchaseRepository purchaseRepository,
+                 IUserRepository userRepository, IPaymentService paymentService, IShipmentService shipmentService,
+                 NotificationService notificationService, TransactionTemplate transactions, GroupCommitter groupCommitter,
+                 long paymentTimeoutSeconds, long leaseSeconds,
+                 int maxShipmentAttempts, long relayIntervalSeconds, LongSupplier clock) {
+        this.orderRepository = orderRepository;
+        this.outboxRepository = outboxRepository;
+        this.listingRepository = listingRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.userRepository = userRepository;
+        this.paymentService = paymentService;
+        this.shipmentService = shipmentService;
+        this.notificationService = notificationService;
+        this.transactions = transactions;
+        this.groupCommitter = groupCommitter;
+        this.paymentTimeoutMillis = TimeUnit.SECONDS.toMillis(paymentTimeoutSeconds);
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.maxShipmentAttempts = maxShipmentAttempts;
+        this.relayIntervalMillis = TimeUnit.SECONDS.toMillis(relayIntervalSeconds);
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the outbox relay; a non-positive interval leaves it off.
+     */
+    @PostConstruct
+    public void start() {
+        if (relayIntervalMillis <= 0 || relay != null) {
+            return;
+        }
+        relay = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkout-outbox-relay");
+            t.setDaemon(true);
+            return t;
+        });
+        relay.scheduleWithFixedDelay(() -> {
+            try {
+                relayDue();
+            } catch (RuntimeException e) {
+                // An escaping exception would cancel the schedule; try again on the next run
+                logger.error("Checkout outbox relay failed: " + e.getMessage());
+            }
+        }, relayIntervalMillis, relayIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (relay != null) {
+            relay.shutdownNow();
+            relay = null;
+        }
+    }
+
+    /**
+     * Runs {@code work} in a new or the current transaction, or directly when there is no
+     * transaction manager (in-memory repositories).
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        return transactions == null ? work.get() : transactions.execute(status -> work.get());
+    }
+
+    /**
+     * Runs {@code placeOrder}, which takes the stock and {@link #begin begins} the order, in one
+     * transaction and tells the buyer the stock is reserved.
+     */
+    public CheckoutOrder place(Supplier<CheckoutOrder> placeOrder) {
+        CheckoutOrder order = inTransaction(placeOrder);
+        publish(order.getUserId(), order.getOrderId(), "stock reserved, awaiting payment");
+        return order;
+    }
+
+    /**
+     * Records a new order whose stock the caller has just taken. Must run in the transaction that
+     * took the stock; if the checkout never gets past payment, the payment timeout gives it back.
+     */
+    public CheckoutOrder begin(String userId, List<PurchasedProduct> items, double totalPrice,
+                               String shippingAddress, String contactInfo) {
+        long now = clock.getAsLong();
+        CheckoutOrder order = orderRepository.save(new CheckoutOrder(userId, items, totalPrice, shippingAddress, contactInfo, now));
+        outboxRepository.save(new CheckoutOutboxEvent(order.getOrderId(), CheckoutOutboxEvent.Type.PAYMENT_TIMEOUT, now + paymentTimeoutMillis));
+        return order;
+    }
+
+    /**
+     * Charges and ships a begun order. Must be called with no transaction open.
+     *
+     * @return The saved purchase.
+     * @throws RuntimeException if payment or shipment failed; the order is cancelled and its stock
+     *                          restored (or, if that fails too, left to the outbox relay).
+     */
+    public Purchase complete(CheckoutOrder order, String paymentDetails) {
+        String orderId = order.getOrderId();
+        String userId = order.getUserId();
+
+        ApiResponse<String> payment = call(() -> paymentService.processPayment(paymentDetails));
+        if (!succeeded(payment) || payment.getData() == null || payment.getData().isBlank()) {
+            String reason = "Payment failed: " + errorOf(payment);
+            try {
+                cancelUnpaidAndPublish(orderId, reason);
+            } catch (RuntimeException e) {
+                logger.error("Could not cancel order " + orderId + " after payment failure, left to the payment timeout: " + e.getMessage());
+            }
+            throw new RuntimeException("Payment failed for user: " + userId);
+        }
+        String paymentId = payment.getData();
+
+        CheckoutOutboxEvent ship;
+        try {
+            ship = inTransaction(() -> {
+                CheckoutOrder o = load(orderId);
+                o.markPaid(paymentId);
+                orderRepository.save(o);
+                outboxRepository.cancelPending(orderId, CheckoutOutboxEvent.Type.PAYMENT_TIMEOUT);
+                return outboxRepository.save(claimedEvent(orderId, CheckoutOutboxEvent.Type.SHIP));
+            });
+        } catch (RuntimeException e) {
+            // The payment timeout cancelled the order while the payment was in flight
+            cancelPaymentQuietly(orderId, paymentId);
+            throw new RuntimeException("Checkout timed out for user: " + userId);
+        }
+        publish(userId, orderId, "payment received");
+
+        Optional<Purchase> purchase = ship(orderId, ship.getEventId());
+        if (purchase.isPresent()) {
+            return purchase.get();
+        }
+        compensate(orderId, ship.getEventId(), "Shipment failed");
+        throw new RuntimeException("Shipment failed for user: " + userId);
+    }
+
+    public Optional<CheckoutOrder> getOrder(String orderId) {
+        return orderRepository.findById(orderId);
+    }
+
+    /**
+     * Runs the outbox events that are due. Called by the relay thread.
+     *
+     * @return The number of events run.
+     */
+    public int relayDue() {
+        long now = clock.getAsLong();
+        int ran = 0;
+        for (CheckoutOutboxEvent event : outboxRepository.findDue(now, RELAY_BATCH)) {
+            int attempt = event.getAttempts() + 1;
+            if (!outboxRepository.claim(event.getEventId(), now, now + leaseMillis)) {
+                continue;
+            }
+            try {
+                run(event, attempt);
+            } catch (RuntimeException e) {
+                logger.error("Checkout step " + event.getType() + " of order " + event.getOrderId() + " failed (attempt " + attempt + "): " + e.getMessage());
+                outboxRepository.reschedule(event.getEventId(), clock.getAsLong() + retryDelay(attempt), e.getMessage());
+            }
+            ran++;
+        }
+        return ran;
+    }
+
+    private void run(CheckoutOutboxEvent event, int attempt) {
+        String orderId = event.getOrderId();
+        switch (event.getType()) {
+            case PAYMENT_TIMEOUT:
+                cancelUnpaidAndPublish(orderId, "Payment timed out");
+                outboxRepository.markDone(event.getEventId());
+                break;
+            case SHIP:
+                if (ship(orderId, event.getEventId()).isEmpty()) {
+                    if (attempt >= maxShipmentAttempts) {
+                        compensate(orderId, event.getEventId(), "Shipment failed after " + attempt + " attempts");
+                    } else {
+                        outboxRepository.reschedule(event.getEventId(), clock.getAsLong() + retryDelay(attempt), "Shipment failed");
+                    }
+                }
+                break;
+            case COMPENSATE:
+                cancelPaid(orderId, event.getEventId(), "Shipment failed");
+                break;
+        }
+    }
+
+    /**
+     * Ships a paid order and completes it.
+     *
+     * @return The saved purchase, or empty if the shipment service failed.
+     */
+    private Optional<Purchase> ship(String orderId, String eventId) {
+        CheckoutOrder order = load(orderId);
+        if (order.getStatus() != CheckoutOrder.Status.PAID) {
+            outboxRepository.markDone(eventId);
+            return Optional.empty();
+        }
+        List<PurchasedProduct> items = new ArrayList<>(order.getItems());
+        ApiResponse<String> shipment = call(() -> shipmentService.ship(order.getShippingAddress(), order.getUserId(), RegularPurchase.calculateTotalWeight(items)));
+        if (!succeeded(shipment)) {
+            logger.error("Shipment failed for order " + orderId + ": " + errorOf(shipment));
+            return Optional.empty();
+        }
+        // Completions of concurrent checkouts may share one transaction; see GroupCommitter
+        Supplier<Purchase> complete = () -> {
+            CheckoutOrder o = load(orderId);
+            Purchase completed = new Purchase(o.getUserId(), items, o.getTotalPrice(), o.getShippingAddress(), o.getContactInfo());
+            o.markCompleted(completed.getPurchaseId());
+            orderRepository.save(o);
+            purchaseRepository.save(completed);
+            User user = userRepository.findById(o.getUserId());
+            if (user != null && !user.getShoppingCart().getAllStoreBags().isEmpty()) {
+                // Only what was bought: the buyer may have added to the cart since checkout
+                user.removePurchasedFromCart(o.toStockMap());
+                userRepository.save(user);
+            }
+            outboxRepository.markDone(eventId);
+            logger.info("Checkout " + orderId + " completed for user " + o.getUserId() + ", total: " + o.getTotalPrice());
+            return completed;
+        };
+        Purchase purchase = groupCommitter == null ? inTransaction(complete) : groupCommitter.commit(complete);
+        publish(order.getUserId(), orderId, "shipped");
+        return Optional.of(purchase);
+    }
+
+    // Replaces the SHIP event with a COMPENSATE event and runs it; the relay retries it if it fails.
+    private void compensate(String orderId, String shipEventId, String reason) {
+        CheckoutOutboxEvent compensation = inTransaction(() -> {
+            outboxRepository.markDone(shipEventId);
+            return outboxRepository.save(claimedEvent(orderId, CheckoutOutboxEvent.Type.COMPENSATE));
+        });
+        try {
+            cancelPaid(orderId, compensation.getEventId(), reason);
+        } catch (RuntimeException e) {
+            logger.error("Could not cancel order " + orderId + ", left to the outbox relay: " + e.getMessage());
+            outboxRepository.reschedule(compensation.getEventId(), clock.getAsLong() + retryDelay(1), e.getMessage());
+        }
+    }
+
+    private void cancelUnpaidAndPublish(String orderId, String reason) {
+        CheckoutOrder cancelled = inTransaction(() -> cancelUnpaid(orderId, reason));
+        if (cancelled != null) {
+            publish(cancelled.getUserId(), orderId, "failed (" + reason + ")");
+        }
+    }
+
+    // Returns the order if this call cancelled it
+    private CheckoutOrder cancelUnpaid(String orderId, String reason) {
+        CheckoutOrder order = load(orderId);
+        boolean cancel = order.getStatus() == CheckoutOrder.Status.PENDING_PAYMENT;
+        if (cancel) {
+            order.markCancelled(reason);
+            listingRepository.updateOrRestoreStock(order.toStockMap(), true);
+            orderRepository.save(order);
+            logger.info("Checkout " + orderId + " cancelled: " + reason);
+        }
+        outboxRepository.cancelPending(orderId, CheckoutOutboxEvent.Type.PAYMENT_TIMEOUT);
+        return cancel ? order : null;
+    }
+
+    private void cancelPaid(String orderId, String eventId, String reason) {
+        CheckoutOrder paid = load(orderId);
+        if (paid.getStatus() == CheckoutOrder.Status.PAID) {
+            cancelPaymentQuietly(orderId, paid.getPaymentId());
+        }
+        CheckoutOrder cancelled = inTransaction(() -> {
+            CheckoutOrder order = load(orderId);
+            boolean cancel = !order.getStatus().isFinal();
+            if (cancel) {
+                order.markCancelled(reason);
+                listingRepository.updateOrRestoreStock(order.toStockMap(), true);
+                orderRepository.save(order);
+                logger.info("Checkout " + orderId + " cancelled: " + reason);
+            }
+            outboxRepository.markDone(eventId);
+            return cancel ? order : null;
+        });
+        if (cancelled != null) {
+            publish(cancelled.getUserId(), orderId, "failed (" + reason + "), payment refunded");
+        }
+    }
+
+    // Progress is informational: a failed notification must not fail or roll back the checkout
+    private void publish(String userId, String orderId, String progress) {
+        if (notificationService == null) {
+            return;
+        }
+        try {
+            notificationService.sendNotification(userId, "Order " + orderId + ": " + progress);
+        } catch (RuntimeException e) {
+            logger.error("Could not notify " + userId + " about order " + orderId + ": " + e.getMessage());
+        }
+    }
+
+    // Cancels by the transaction ID the payment service returned when it charged the order
+    private void cancelPaymentQuietly(String orderId, String paymentId) {
+        if (paymentId == null) {
+            logger.error("Payment cancellation failed for order " + orderId + ": no payment ID recorded");
+            return;
+        }
+        ApiResponse<Void> response = call(() -> paymentService.cancelPayment(paymentId));
+        if (response == null || !response.isSuccess()) {
+            logger.error("Payment cancellation failed for order " + orderId + ": " + (response == null ? "no response" : response.getError()));
+        }
+    }
+
+    private CheckoutOutboxEvent claimedEvent(String orderId, CheckoutOutboxEvent.Type type) {
+        long now = clock.getAsLong();
+        CheckoutOutboxEvent event = new CheckoutOutboxEvent(orderId, type, now);
+        // Run by the current thread first; the relay only takes over if the lease runs out
+        event.claim(now + leaseMillis);
+        return event;
+    }
+
+    private CheckoutOrder load(String orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalStateException("Checkout order not found: " + orderId));
+    }
+
+    private long retryDelay(int attempt) {
+        return Math.min(MAX_RETRY_DELAY_MILLIS, TimeUnit.SECONDS.toMillis(1L << Math.min(attempt, 16)));
+    }
+
+    // External calls report failure in the response; an exception or missing response counts as one too
+    private static <T> ApiResponse<T> call(Supplier<ApiResponse<T>> externalCall) {
+        try {
+            return externalCall.get();
+        } catch (RuntimeException e) {
+            return ApiResponse.fail(e.getMessage());
+        }
+    }
+
+    private static boolean succeeded(ApiResponse<?> response) {
+        return response != null && response.isSuccess() && !Boolean.FALSE.equals(response.getData());
+    }
+
+    private static String errorOf(ApiResponse<?> response) {
+        return response == null ? "no response" : response.getError();
+    }
+}
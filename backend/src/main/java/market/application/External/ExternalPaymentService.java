@@ -36,7 +36,7 @@ public class ExternalPaymentService implements IPaymentService {
     }
     
     @Override
-    public ApiResponse<Boolean> processPayment(String paymentDetails) {
+    public ApiResponse<String> processPayment(String paymentDetails) {
         try {
             // Step 1: Perform handshake
             System.out.println("🤝 Performing handshake...");
@@ -85,11 +85,11 @@ public class ExternalPaymentService implements IPaymentService {
             System.out.println("💳 Transaction ID: " + transactionId);
             
             // Step 4: Parse response
-            // Check if response contains a transaction ID of exactly 5 digits
+            // Check if response contains a transaction ID of exactly 5 digits; cancel_pay takes that ID
             if (responseBody != null) {
                 java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("\\b\\d{5}\\b").matcher(responseBody);
                 if (matcher.find()) {
-                    return ApiResponse.ok(true);
+                    return ApiResponse.ok(matcher.group());
                 }
             }
             return ApiResponse.fail("Payment processing failed: " + responseBody);
@@ -3,8 +3,16 @@ package market.application.External;
 import utils.ApiResponse;
 
 public interface IPaymentService {
-    ApiResponse<Boolean> processPayment(String paymentDetails);
+    /**
+     * Charges a payment.
+     *
+     * @return The payment provider's transaction ID, which {@link #cancelPayment} takes.
+     */
+    ApiResponse<String> processPayment(String paymentDetails);
     //ApiResponse<Void> refundPayment(String paymentId);
     //ApiResponse<String> getPaymentStatus(String paymentId);
+    /**
+     * Cancels a charged payment by the transaction ID {@link #processPayment} returned for it.
+     */
     ApiResponse<Void> cancelPayment(String paymentId);
 }
\ No newline at end of file
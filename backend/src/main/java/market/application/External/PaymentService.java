@@ -1,5 +1,7 @@
 package market.application.External;
 
+import java.util.UUID;
+
 import utils.ApiResponse;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
@@ -12,10 +14,10 @@ public class PaymentService implements IPaymentService {
     // handle payment gateways, and manage transactions.
     
     @Override
-    public ApiResponse<Boolean> processPayment(String paymentDetails) {
+    public ApiResponse<String> processPayment(String paymentDetails) {
         // Logic to process payment
         System.out.println("Processing payment with details: " + paymentDetails);
-        return ApiResponse.ok(true);
+        return ApiResponse.ok("mock_" + UUID.randomUUID());
     }
 
     @Override
@@ -0,0 +1,173 @@
+package market.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import utils.Logger;
+
+/**
+ * Commits short units of work from concurrent callers together (group commit).
+ * <p>
+ * A caller hands its unit to {@link #commit} and waits. A single writer thread takes the first
+ * unit, keeps collecting for up to {@code market.checkout.group-commit-window-millis} (or until
+ * {@code group-commit-max-batch} units are waiting) and runs them all in one transaction, so
+ * their inserts are flushed in shared JDBC batches and the database syncs its log once for the
+ * whole group. If that transaction fails, every unit is run again in a transaction of its own,
+ * so one failing unit only fails its own caller.
+ * <p>
+ * With a non-positive window, or when the caller already runs in a transaction, the unit runs
+ * directly on the calling thread.
+ */
+@Service
+public class GroupCommitter {
+
+    private record Unit(Supplier<?> work, CompletableFuture<Object> result) {}
+
+    private final TransactionTemplate transactions;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Unit> pending = new LinkedBlockingQueue<>();
+    private final Logger logger = Logger.getInstance();
+    private volatile Thread writer;
+
+    @Autowired
+    public GroupCommitter(TransactionTemplate transactions,
+                          @Value("${market.checkout.group-commit-window-millis:0}") long windowMillis,
+                          @Value("${market.checkout.group-commit-max-batch:64}") int maxBatch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Group commit batch size must be positive");
+        }
+        this.transactions = transactions;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Starts the writer thread; a non-positive window leaves it off.
+     */
+    @PostConstruct
+    public void start() {
+        if (windowNanos <= 0 || writer != null) {
+            return;
+        }
+        Thread t = new Thread(this::writeLoop, "group-committer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = writer;
+        writer = null;
+        if (t != null) {
+            t.interrupt();
+        }
+        // Units still waiting are committed here, each in a transaction of its own
+        Unit unit;
+        while ((unit = pending.poll()) != null) {
+            runAlone(unit);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a transaction, possibly shared with units of other callers, and
+     * returns its result once that transaction committed. An exception thrown by {@code work}
+     * is thrown here.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T commit(Supplier<T> work) {
+        if (writer == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactions.execute(status -> work.get());
+        }
+        Unit unit = new Unit(work, new CompletableFuture<>());
+        pending.add(unit);
+        if (writer == null && pending.remove(unit)) {
+            // Stopped while adding; nobody is left to run it
+            return transactions.execute(status -> work.get());
+        }
+        try {
+            return (T) unit.result().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the commit");
+        }
+    }
+
+    private void writeLoop() {
+        List<Unit> batch = new ArrayList<>(maxBatch);
+        try {
+            while (writer != null) {
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    Unit next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopping: the units already taken still run, each on its own
+            batch.forEach(this::runAlone);
+        }
+    }
+
+    private void flush(List<Unit> batch) {
+        if (batch.size() == 1) {
+            runAlone(batch.get(0));
+            return;
+        }
+        List<Object> results;
+        try {
+            results = transactions.execute(status -> {
+                List<Object> done = new ArrayList<>(batch.size());
+                for (Unit unit : batch) {
+                    done.add(unit.work().get());
+                }
+                return done;
+            });
+        } catch (RuntimeException | Error e) {
+            logger.info("Group commit of " + batch.size() + " units failed, committing them one by one: " + e.getMessage());
+            batch.forEach(this::runAlone);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    private void runAlone(Unit unit) {
+        try {
+            unit.result().complete(transactions.execute(status -> unit.work().get()));
+        } catch (RuntimeException | Error e) {
+            unit.result().completeExceptionally(e);
+        }
+    }
+}
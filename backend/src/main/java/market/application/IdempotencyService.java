@@ -0,0 +1,235 @@
+package market.application;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import market.domain.purchase.IIdempotencyRepository;
+import market.domain.purchase.IdempotencyRecord;
+import utils.ApiResponse;
+import utils.Logger;
+
+/**
+ * Deduplicates retried requests that carry an {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key claims it in the {@link IIdempotencyRepository} and runs; its
+ * response is stored under the key. A retry with the same key gets the stored response back
+ * (marked with {@code Idempotent-Replayed: true}) without running again, so a client that timed
+ * out can retry a purchase without being charged twice. Completed outcomes are also kept in a
+ * bounded in-memory map, so most retries are answered without a database read.
+ * <p>
+ * Responses with a server error (5xx), 409 or 429 are not stored: the claim is dropped and a
+ * retry runs again. A retry while the first request still runs gets 409 Conflict, and a key
+ * reused for a different request body gets 422 Unprocessable Entity.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private record Outcome(String requestHash, int httpStatus, boolean success, String data, String error, long expiresAt) {}
+
+    private final IIdempotencyRepository repository;
+    private final long ttlMillis;
+    private final long lockMillis;
+    private final long sweepIntervalMillis;
+    private final int cacheSize;
+    private final LongSupplier clock;
+    private final Logger logger = Logger.getInstance();
+    private final LinkedHashMap<String, Outcome> completed;
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    public IdempotencyService(IIdempotencyRepository repository,
+                              @Value("${market.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${market.idempotency.lock-seconds:300}") long lockSeconds,
+                              @Value("${market.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${market.idempotency.sweep-interval-seconds:300}") long sweepIntervalSeconds) {
+        this(repository, ttlSeconds, lockSeconds, cacheSize, sweepIntervalSeconds, System::currentTimeMillis);
+    }
+
+    IdempotencyService(IIdempotencyRepository repository, long ttlSeconds, long lockSeconds, int cacheSize,
+                       long sweepIntervalSeconds, LongSupplier clock) {
+        if (ttlSeconds <= 0 || lockSeconds <= 0 || cacheSize < 0) {
+            throw new IllegalArgumentException("Idempotency TTL and lock time must be positive, and the cache size non-negative");
+        }
+        this.repository = repository;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.lockMillis = TimeUnit.SECONDS.toMillis(lockSeconds);
+        this.sweepIntervalMillis = TimeUnit.SECONDS.toMillis(sweepIntervalSeconds);
+        this.cacheSize = cacheSize;
+        this.clock = clock;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Outcome> eldest) {
+                return size() > IdempotencyService.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Starts the sweeper that deletes expired records; a non-positive interval leaves it off.
+     */
+    @PostConstruct
+    public void start() {
+        if (sweepIntervalMillis <= 0 || sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweepExpired();
+            } catch (RuntimeException e) {
+                // An escaping exception would cancel the schedule; try again on the next run
+                logger.error("Idempotency record sweep failed: " + e.getMessage());
+            }
+        }, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Runs {@code action} once per key, or replays its stored response.
+     *
+     * @param scope          The endpoint, so that the same key on two endpoints does not collide.
+     * @param userId         The caller; keys are per user.
+     * @param idempotencyKey The header value, or {@code null} to run {@code action} without deduplication.
+     * @param request        The request body; retries must send an equal one (compared by {@code toString()}).
+     * @param decode         Turns stored response data back into the endpoint's data type.
+     * @param action         The endpoint's work, returning its response.
+     */
+    public <T> ResponseEntity<ApiResponse<T>> execute(String scope, String userId, String idempotencyKey, Object request,
+                                                      Function<String, T> decode,
+                                                      Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(ApiResponse.fail(
+                    HEADER + " must be 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters"));
+        }
+        String recordKey = IdempotencyRecord.keyOf(scope, userId, idempotencyKey);
+        String requestHash = hash(String.valueOf(request));
+        long now = clock.getAsLong();
+
+        Outcome stored = cached(recordKey, now);
+        if (stored == null && !repository.claim(new IdempotencyRecord(recordKey, requestHash, now + lockMillis), now)) {
+            Optional<IdempotencyRecord> existing = repository.findById(recordKey).filter(r -> !r.isExpired(now));
+            if (existing.isEmpty() || !existing.get().isCompleted()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.fail(
+                        "A request with this " + HEADER + " is still in progress, please retry shortly"));
+            }
+            stored = remember(recordKey, existing.get());
+        }
+        if (stored != null) {
+            if (!stored.requestHash().equals(requestHash)) {
+                return mismatch();
+            }
+            return ResponseEntity.status(stored.httpStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(new ApiResponse<>(stored.success(), decode.apply(stored.data()), stored.error()));
+        }
+
+        ResponseEntity<ApiResponse<T>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            repository.release(recordKey);
+            throw e;
+        }
+        record(recordKey, requestHash, response);
+        return response;
+    }
+
+    /**
+     * Deletes the records that expired, and forgets their cached outcomes.
+     *
+     * @return The number of records deleted.
+     */
+    public int sweepExpired() {
+        long now = clock.getAsLong();
+        synchronized (completed) {
+            completed.values().removeIf(o -> o.expiresAt() <= now);
+        }
+        return repository.deleteExpired(now);
+    }
+
+    private <T> void record(String recordKey, String requestHash, ResponseEntity<ApiResponse<T>> response) {
+        int status = response.getStatusCode().value();
+        ApiResponse<T> body = response.getBody();
+        if (status >= 500 || status == HttpStatus.CONFLICT.value() || status == HttpStatus.TOO_MANY_REQUESTS.value() || body == null) {
+            repository.release(recordKey);
+            return;
+        }
+        String data = Objects.toString(body.getData(), null);
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        repository.complete(recordKey, status, body.isSuccess(), data, body.getError(), expiresAt);
+        synchronized (completed) {
+            completed.put(recordKey, new Outcome(requestHash, status, body.isSuccess(), data, body.getError(), expiresAt));
+        }
+    }
+
+    private Outcome cached(String recordKey, long now) {
+        synchronized (completed) {
+            Outcome outcome = completed.get(recordKey);
+            if (outcome != null && outcome.expiresAt() <= now) {
+                completed.remove(recordKey);
+                return null;
+            }
+            return outcome;
+        }
+    }
+
+    private Outcome remember(String recordKey, IdempotencyRecord record) {
+        Outcome outcome = new Outcome(record.getRequestHash(), record.getHttpStatus(), record.isSuccess(),
+                record.getResponseData(), record.getResponseError(), record.getExpiresAt());
+        synchronized (completed) {
+            completed.put(recordKey, outcome);
+        }
+        return outcome;
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> mismatch() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ApiResponse.fail(
+                HEADER + " was already used for a different request"));
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package market.application;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+import market.dto.ProductDTO;
+
+/**
+ * Reads listing rows one line at a time from a CSV or NDJSON stream, so an import never holds
+ * more than the current line in memory.
+ * <p>
+ * CSV input starts with a header naming the columns (any order, case-insensitive):
+ * {@code productId, productName, category, description, quantity, price, purchaseType}.
+ * Fields may be double-quoted, with {@code ""} for a literal quote; a quoted field cannot span lines.
+ * NDJSON input has one JSON object per line with the same field names.
+ * {@code purchaseType} is optional and defaults to {@code REGULAR}; unknown columns are ignored.
+ */
+public class ListingImportReader implements Closeable {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Picks the format from an explicit name or, failing that, from the request content type.
+         */
+        public static Format of(String format, String contentType) {
+            if (format != null && !format.isBlank()) {
+                try {
+                    return valueOf(format.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown import format: " + format);
+                }
+            }
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json") ? NDJSON : CSV;
+        }
+    }
+
+    /** A parsed line: either a listing ready to insert or the reason the line was rejected. */
+    public record Row(long line, Listing listing, String error) {
+        public boolean isValid() {
+            return listing != null;
+        }
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final String storeId;
+    private Map<String, Integer> columns;
+    private long lineNumber = 0;
+
+    public ListingImportReader(InputStream in, Format format, String storeId) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.storeId = storeId;
+    }
+
+    /**
+     * @return The next non-blank row, or {@code null} at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     * @throws IllegalArgumentException if the CSV header is missing a required column.
+     */
+    public Row next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = parseHeader(line.startsWith("\uFEFF") ? line.substring(1) : line);
+                continue;
+            }
+            try {
+                ProductDTO.ListingImportRow row = format == Format.CSV
+                        ? csvRow(line)
+                        : JSON.readValue(line, ProductDTO.ListingImportRow.class);
+                return new Row(lineNumber, toListing(row), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                return new Row(lineNumber, null, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Listing toListing(ProductDTO.ListingImportRow row) {
+        if (row == null) {
+            throw new IllegalArgumentException("Row is empty");
+        }
+        String productId = required(row.productId(), "productId");
+        String productName = required(row.productName(), "productName");
+        int quantity;
+        double price;
+        try {
+            quantity = Integer.parseInt(required(row.quantity(), "quantity").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity is not a whole number: " + row.quantity());
+        }
+        try {
+            price = Double.parseDouble(required(row.price(), "price").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + row.price());
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity cannot be negative");
+        }
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("price must be a non-negative number");
+        }
+        PurchaseType type = PurchaseType.REGULAR;
+        if (row.purchaseType() != null && !row.purchaseType().isBlank()) {
+            try {
+                type = PurchaseType.valueOf(row.purchaseType().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown purchaseType: " + row.purchaseType());
+            }
+        }
+        return new Listing(storeId, productId, productName, row.category(), row.description(), quantity, type, price);
+    }
+
+    private static String required(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("productid", "productname", "quantity", "price")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private ProductDTO.ListingImportRow csvRow(String line) {
+        List<String> fields = splitCsv(line);
+        return new ProductDTO.ListingImportRow(
+            field(fields, "productid"),
+            field(fields, "productname"),
+            field(fields, "category"),
+            field(fields, "description"),
+            field(fields, "quantity"),
+            field(fields, "price"),
+            field(fields, "purchasetype")
+        );
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    // RFC 4180 field splitting, limited to a single line.
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
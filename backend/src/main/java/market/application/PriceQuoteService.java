@@ -0,0 +1,139 @@
+package market.application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import market.domain.store.Listing;
+import market.domain.store.PriceQuote;
+
+/**
+ * Issues and checks signed {@link PriceQuote} tokens.
+ * <p>
+ * A token is {@code base64url(json) + "." + base64url(HMAC-SHA256(json))}. Clients get one when
+ * they price a bag and send it back at checkout; since only the server can sign, a token that
+ * verifies was issued here and its contents were not changed.
+ * <p>
+ * The MAC key is derived from {@code market.quotes.secret}. Deriving the key keeps quote
+ * signatures apart from any other use of the same secret. Without the secret this service is
+ * not created: stores issue no quotes and checkout prices every bag in full.
+ */
+@Service
+@ConditionalOnProperty(name = "market.quotes.secret")
+public class PriceQuoteService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String KEY_LABEL = "bgu-market/price-quote/v1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public PriceQuoteService(@Value("${market.quotes.secret}") String secret,
+                             @Value("${market.quotes.ttl-seconds:120}") long ttlSeconds) {
+        this(secret, ttlSeconds, System::currentTimeMillis);
+    }
+
+    PriceQuoteService(String secret, long ttlSeconds, LongSupplier clock) {
+        if (secret == null || secret.isBlank() || ttlSeconds <= 0) {
+            throw new IllegalArgumentException("Price quotes need market.quotes.secret and a positive TTL");
+        }
+        this.key = deriveKey(secret);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.clock = clock;
+    }
+
+    /**
+     * @param listings The bag's listings, as used to price it.
+     * @return A quote for the bag that expires after the configured TTL.
+     */
+    public PriceQuote quote(String storeId, Map<String, Integer> bag, Map<String, Listing> listings,
+                            long policyVersion, double discount, boolean allowed) {
+        return PriceQuote.of(storeId, bag, listings, policyVersion, discount, allowed, clock.getAsLong() + ttlMillis);
+    }
+
+    /**
+     * @return {@code true} if a verified quote still prices the bag; see {@link PriceQuote#holdsFor}.
+     */
+    public boolean holds(PriceQuote quote, String storeId, Map<String, Integer> bag, Map<String, Listing> listings,
+                         long policyVersion) {
+        return quote.holdsFor(storeId, bag, listings, policyVersion, clock.getAsLong());
+    }
+
+    public String sign(PriceQuote quote) {
+        try {
+            byte[] payload = mapper.writeValueAsBytes(quote);
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write price quote: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The quote in the token, or empty if the token is malformed, not signed by this
+     *         server or expired.
+     */
+    public Optional<PriceQuote> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, mac(payload))) {
+                return Optional.empty();
+            }
+            PriceQuote quote = mapper.readValue(payload, PriceQuote.class);
+            return clock.getAsLong() < quote.expiresAt() ? Optional.of(quote) : Optional.empty();
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    // HMAC of a fixed label under the configured secret, so the secret itself never signs quotes
+    private static SecretKeySpec deriveKey(String secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return new SecretKeySpec(mac.doFinal(KEY_LABEL.getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            // Mac instances are not thread-safe and cheap to create
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package market.application;
 
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import jakarta.transaction.Transactional;
 import market.domain.store.IListingRepository;
 import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.ListingFacets;
+import market.domain.store.ListingPriceQuery;
+import market.domain.store.ListingSearchQuery;
+import market.dto.ProductDTO;
 
 /**
  * Provides product-related search services across all stores.
@@ -35,11 +39,39 @@ public class ProductService {
         if (query == null || query.isBlank())
             return Collections.emptyList();
 
-        List<Listing> result = listingRepository.getAllListings().stream()
-                .filter(l -> l.getProductName().toLowerCase().contains(query.toLowerCase()))
-                .collect(Collectors.toList());
+        return listingRepository.searchListings(ListingSearchQuery.byName(query));
+    }
 
-        return result;
+    /**
+     * Ranked search over product name, description and category, with optional
+     * store, category and price filters and limit/offset paging.
+     */
+    public List<Listing> search(ListingSearchQuery query) {
+        if (query == null || query.text() == null || query.text().isBlank())
+            return Collections.emptyList();
+
+        return listingRepository.searchListings(query);
+    }
+
+    /**
+     * Returns category, store and price-bucket counts of the active listings in the catalog,
+     * optionally narrowed to one store and/or category. Served from incrementally maintained counters.
+     */
+    public ListingFacets getFacets(String storeId, String category) {
+        return listingRepository.getFacetCounts(storeId, category);
+    }
+
+    /**
+     * Returns facet counts over all results of a ranked search (its paging is ignored),
+     * counting only active listings.
+     */
+    public ListingFacets searchFacets(ListingSearchQuery query) {
+        if (query == null || query.text() == null || query.text().isBlank())
+            return ListingFacets.of(List.of());
+
+        ListingSearchQuery unpaged = new ListingSearchQuery(query.text(), query.nameOnly(), query.storeId(),
+                query.category(), query.minPrice(), query.maxPrice(), 0, 0);
+        return ListingFacets.of(listingRepository.searchListings(unpaged));
     }
 
     /**
@@ -65,22 +97,69 @@ public class ProductService {
         if (query == null || query.isBlank())
             return Collections.emptyList();
 
-        List<Listing> result = listingRepository.getListingsByStoreId(storeId).stream()
-                .filter(l -> l.getProductName().toLowerCase().contains(query.toLowerCase()))
-                .collect(Collectors.toList());
-
-        return result;
+        return listingRepository.searchListings(ListingSearchQuery.byNameInStore(query, storeId));
     }
 
     /**
      * Returns all listings sorted by price ascending.
      */
     public List<Listing> getAllSortedByPrice() {
-        List<Listing> result = listingRepository.getAllListings().stream()
-                .sorted(Comparator.comparingDouble(Listing::getPrice))
-                .collect(Collectors.toList());
+        return listingRepository.getListingsByPrice(ListingPriceQuery.all());
+    }
 
-        return result;
+    /**
+     * Returns listings whose price lies in the given range, cheapest first.
+     *
+     * @param storeId  Optional store filter.
+     * @param category Optional category filter (case-insensitive).
+     * @param minPrice Minimum price (inclusive), or {@code null} for no lower bound.
+     * @param maxPrice Maximum price (inclusive), or {@code null} for no upper bound.
+     * @param limit    The maximum number of listings, capped at {@link ListingCursor#MAX_PAGE_SIZE}.
+     */
+    public List<Listing> getByPriceRange(String storeId, String category, Double minPrice, Double maxPrice, int limit) {
+        return listingRepository.getListingsByPrice(
+            new ListingPriceQuery(storeId, category, minPrice, maxPrice, false, ListingCursor.pageSize(limit)));
+    }
+
+    /**
+     * Returns the {@code n} cheapest listings, optionally within one store and/or category.
+     */
+    public List<Listing> getCheapest(String storeId, String category, int n) {
+        return listingRepository.getListingsByPrice(ListingPriceQuery.cheapest(storeId, category, ListingCursor.pageSize(n)));
+    }
+
+    /**
+     * Returns the {@code n} most expensive listings, optionally within one store and/or category.
+     */
+    public List<Listing> getMostExpensive(String storeId, String category, int n) {
+        return listingRepository.getListingsByPrice(ListingPriceQuery.mostExpensive(storeId, category, ListingCursor.pageSize(n)));
+    }
+
+    /**
+     * Returns one page of listings sorted by price ascending (ties broken by listing ID).
+     *
+     * @param cursor The {@code nextCursor} of the previous page, or {@code null} for the first page.
+     * @param size   The requested page size, capped at {@link ListingCursor#MAX_PAGE_SIZE}.
+     */
+    public ProductDTO.ListingPage getSortedByPricePage(String cursor, int size) {
+        Slice<Listing> slice = listingRepository.getListingsPageByPrice(ListingCursor.decode(cursor), ListingCursor.pageSize(size));
+        return toPage(slice, true);
+    }
+
+    /**
+     * Returns one page of listings sorted by product name ascending (ties broken by listing ID).
+     */
+    public ProductDTO.ListingPage getSortedByNamePage(String cursor, int size) {
+        Slice<Listing> slice = listingRepository.getListingsPageByName(ListingCursor.decode(cursor), ListingCursor.pageSize(size));
+        return toPage(slice, false);
+    }
+
+    private static ProductDTO.ListingPage toPage(Slice<Listing> slice, boolean byPrice) {
+        List<Listing> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+            ? ListingCursor.after(content.get(content.size() - 1), byPrice).encode()
+            : null;
+        return new ProductDTO.ListingPage(content, next, slice.hasNext());
     }
 
     /**
@@ -5,15 +5,20 @@ import market.application.External.IShipmentService;
 import market.domain.purchase.*;
 import market.domain.user.*;
 import market.domain.store.*;
+import market.domain.store.Policies.BasketSnapshot;
+import market.infrastructure.CheckoutOrderRepository;
+import market.infrastructure.CheckoutOutboxRepository;
 import io.jsonwebtoken.Claims;
 import utils.Logger;
 import org.springframework.transaction.annotation.Transactional;
 import java.beans.Transient;
 import java.util.*;
+import java.util.function.Supplier;
 
 import javax.management.RuntimeErrorException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -29,9 +34,20 @@ public class PurchaseService {
     private final IShipmentService shipmentService;
     private final Logger logger = Logger.getInstance();
     private ISuspensionRepository suspensionRepository; 
+    private final StockReservationService reservationService;
+    private final CheckoutSaga checkoutSaga;
+    private final CheckoutDispatcher checkoutDispatcher;
+    private final PriceQuoteService priceQuoteService;
+    private final StoreBagEvaluator bagEvaluator;
 
-    @Autowired
+    // In-memory checkout state, no stock reservations, asynchronous checkout or price quotes
     public PurchaseService(IStoreRepository storeRepository, IPurchaseRepository purchaseRepository, IListingRepository listingRepository, IUserRepository userRepository, IPaymentService paymentService, IShipmentService shipmentService, ISuspensionRepository suspentionRepository, NotificationService notificationService, IAuctionRepository auctionRep, IBidRepository bidRep) {
+        this(storeRepository, purchaseRepository, listingRepository, userRepository, paymentService, shipmentService, suspentionRepository, notificationService, auctionRep, bidRep, null,
+             new CheckoutSaga(new CheckoutOrderRepository(), new CheckoutOutboxRepository(), listingRepository, purchaseRepository, userRepository, paymentService, shipmentService, notificationService), null, null, null);
+    }
+
+    @Autowired
+    public PurchaseService(IStoreRepository storeRepository, IPurchaseRepository purchaseRepository, IListingRepository listingRepository, IUserRepository userRepository, IPaymentService paymentService, IShipmentService shipmentService, ISuspensionRepository suspentionRepository, NotificationService notificationService, IAuctionRepository auctionRep, IBidRepository bidRep, StockReservationService reservationService, CheckoutSaga checkoutSaga, CheckoutDispatcher checkoutDispatcher, @Nullable PriceQuoteService priceQuoteService, StoreBagEvaluator bagEvaluator) {
         this.storeRepository = storeRepository;
         this.purchaseRepository = purchaseRepository;
         this.listingRepository=listingRepository;
@@ -42,90 +58,147 @@ public class PurchaseService {
         this.notificationService = notificationService;
         this.auctionRepository = auctionRep;
         this.bidRepository = bidRep;
+        this.reservationService = reservationService;
+        this.checkoutSaga = checkoutSaga;
+        this.checkoutDispatcher = checkoutDispatcher;
+        this.priceQuoteService = priceQuoteService;
+        this.bagEvaluator = bagEvaluator;
     }
 
-    // Regular Purchase
-    @Transactional
+    // Regular Purchase: the stock and the order are committed first, then payment and shipment
+    // run with no transaction (and no pooled connection) held; see CheckoutSaga.
     public Purchase executePurchase(String userId, ShoppingCart cart, String shippingAddress, String paymentDetails)  {
+            return executePurchase(userId, cart, shippingAddress, paymentDetails, List.of());
+    }
+
+    /**
+     * @param priceQuotes Quote tokens from {@code POST /api/stores/{storeID}/bag/quote}, at most one per store;
+     *                    a bag whose quote still holds is not priced again. Invalid quotes are ignored.
+     */
+    public Purchase executePurchase(String userId, ShoppingCart cart, String shippingAddress, String paymentDetails, List<String> priceQuotes)  {
+            CheckoutOrder order = checkoutSaga.place(prepareOrder(userId, cart, shippingAddress, paymentDetails, priceQuotes));
+            try {
+                Purchase finalPurchase = checkoutSaga.complete(order, paymentDetails);
+                logger.info("Purchase executed successfully for user: " + userId + ", total: " + finalPurchase.getTotalPrice());
+                return finalPurchase;
+            } catch (RuntimeException e) {
+                logger.error("Payment or shipment failed for user: " + userId + ". Reason: " + e.getMessage());
+                throw e;
+            }
+    }
+
+    /**
+     * Validates and prices the cart before any transaction is opened, and returns the step that
+     * takes its stock and records the order, to run in the checkout's transaction.
+     * <p>
+     * Bags are evaluated on the {@link StoreBagEvaluator} pool, where each worker needs its own
+     * pooled connection to load its store. Doing this while the checkout's transaction held a
+     * connection could take every connection of the pool with checkouts waiting on workers that
+     * cannot get one, so the checkout thread holds no connection while it waits for them.
+     */
+    private Supplier<CheckoutOrder> prepareOrder(String userId, ShoppingCart cart, String shippingAddress, String paymentDetails, List<String> priceQuotes) {
             suspensionRepository.checkNotSuspended(userId);// check if user is suspended
+            Map<String, PriceQuote> quotes = quotesByStore(priceQuotes);
             System.out.println("=====PurchaseService====\nExecuting purchase for user: " + userId);
-            Map<String, Map<String, Integer>> listForUpdateStock = new HashMap<>();
-            double totalDiscountPrice = 0.0;
-            List<PurchasedProduct> purchasedItems = new ArrayList<>();
             logger.info("Executing purchase for user: " + userId);
     
-            for (StoreBag bag : cart.getAllStoreBags()) {
-                String storeId = String.valueOf(bag.getStoreId());
-                logger.info("Looking up store with id: " + storeId);
-                Store store = storeRepository.getStoreByID(storeId);
-                if (store == null) {
-                    logger.error("Store not found for id: " + storeId);
-                    throw new RuntimeException("Store not found for id: " + storeId);
-                }
-                /*
-                 * Ensure transient fields are initialized (they are not persisted via JPA).
-                 * This prevents NullPointerExceptions when the store entity is reloaded from the database.
-                 */
-                if (store.getStoreProductsManager() == null) {
-                    store.setStoreProductsManager(new StoreProductManager(storeId, listingRepository));
-                }
-                if (store.getPolicyHandler() == null) {
-                    store.setPolicyHandler(new market.domain.store.Policies.PolicyHandler());
-                }
+            // Bags are evaluated independently (in parallel when there are several) and merged in store ID order
+            List<StoreBag> bags = new ArrayList<>(cart.getAllStoreBags());
+            bags.sort(Comparator.comparing(bag -> String.valueOf(bag.getStoreId())));
+            List<BagEvaluation> evaluations = bagEvaluator == null
+                    ? bags.stream().map(bag -> evaluateBag(bag, quotes)).toList()
+                    : bagEvaluator.evaluateAll(bags, bag -> evaluateBag(bag, quotes));
+            return () -> placeOrder(userId, evaluations, shippingAddress, paymentDetails);
+    }
 
-                listForUpdateStock.put(storeId, bag.getProducts());
-    
-                if (!store.isPurchaseAllowed(bag.getProducts())) {
-                    logger.debug("Invalid purchase bag for store: " + storeId);
-                    throw new IllegalArgumentException("Invalid purchase bag for store: " + storeId);
-                }
-    
-                totalDiscountPrice += store.calculateStoreBagWithDiscount(bag.getProducts());
-                for (Map.Entry<String, Integer> product : bag.getProducts().entrySet()) {
-                    String productId = product.getKey();
-                    double unitPrice;
-                    String productName;
-    
-                    try {
-                        logger.info("Retrieving product price for productId: " + productId + " in store: " + storeId);
-                        unitPrice = listingRepository.ProductPrice(productId);
-                        Listing listing = listingRepository.getListingById(productId);
-                        productName = (listing != null) ? listing.getProductName() : "";
-                    } catch (Exception e) {
-                        logger.debug("Product not found: " + productId);
-                        throw new RuntimeException("Product not found: " + productId);
-                    }
-    
-                    Integer quantity = product.getValue();
-                    PurchasedProduct purchasedProduct = new PurchasedProduct(productId, productName, storeId, quantity, unitPrice);
-                    purchasedItems.add(purchasedProduct);
-                }
+    // Takes the stock of the evaluated bags and records the order, all in the caller's transaction
+    private CheckoutOrder placeOrder(String userId, List<BagEvaluation> evaluations, String shippingAddress, String paymentDetails) {
+            Map<String, Map<String, Integer>> listForUpdateStock = new HashMap<>();
+            double totalDiscountPrice = 0.0;
+            List<PurchasedProduct> purchasedItems = new ArrayList<>();
+            for (BagEvaluation evaluation : evaluations) {
+                listForUpdateStock.put(evaluation.storeId(), evaluation.products());
+                totalDiscountPrice += evaluation.discount();
+                purchasedItems.addAll(evaluation.items());
             }
     
-            boolean updated = listingRepository.updateOrRestoreStock(listForUpdateStock, false);
+            // Stock held by a matching reservation was already taken when the cart was reserved
+            boolean reserved = reservationService != null && reservationService.confirm(userId, listForUpdateStock);
+            boolean updated = reserved || listingRepository.updateOrRestoreStock(listForUpdateStock, false);
             if (!updated) {
                 logger.error("Failed to update stock for purchased items.");
                 throw new RuntimeException("Failed to update stock for purchased items.");
             }
     
-            RegularPurchase regularPurchase = new RegularPurchase();
-            logger.info("Purchase executed successfully for user: " + userId + ", total: " + totalDiscountPrice);
-            try {
-                Purchase finalPurchase = regularPurchase.purchase(userId, purchasedItems, shippingAddress, paymentDetails, totalDiscountPrice, paymentService, shipmentService);
-                User user = userRepository.findById(userId);
-                // Persist cart clearing so that subsequent reads reflect the empty cart
-                user.clearCart();
-                userRepository.save(user);
-                purchaseRepository.save(finalPurchase);
-                return finalPurchase;
-            } catch (IllegalArgumentException e) {
-                logger.error("Invalid purchase details for user: " + userId + ". Reason: " + e.getMessage());
-                throw e;
-            } catch (RuntimeException e) {
-                logger.error("Payment or shipment failed for user: " + userId + ". Reason: " + e.getMessage());
-                listingRepository.updateOrRestoreStock(listForUpdateStock, true);
-                throw e;
+            return checkoutSaga.begin(userId, purchasedItems, RegularPurchase.total(purchasedItems, totalDiscountPrice), shippingAddress, paymentDetails);
+    }
+
+    private record BagEvaluation(String storeId, Map<String, Integer> products, double discount, List<PurchasedProduct> items) {}
+
+    // Loads the bag's store, checks its purchase policies and prices the bag; reads only, so bags can be evaluated concurrently
+    private BagEvaluation evaluateBag(StoreBag bag, Map<String, PriceQuote> quotes) {
+        String storeId = String.valueOf(bag.getStoreId());
+        logger.info("Looking up store with id: " + storeId);
+        Store store = storeRepository.getStoreByID(storeId);
+        if (store == null) {
+            logger.error("Store not found for id: " + storeId);
+            throw new RuntimeException("Store not found for id: " + storeId);
+        }
+        /*
+         * Ensure transient fields are initialized (they are not persisted via JPA).
+         * This prevents NullPointerExceptions when the store entity is reloaded from the database.
+         */
+        if (store.getStoreProductsManager() == null) {
+            store.setStoreProductsManager(new StoreProductManager(storeId, listingRepository));
+        }
+        if (store.getPolicyHandler() == null) {
+            store.setPolicyHandler(new market.domain.store.Policies.PolicyHandler());
+        }
+
+        // Resolve the whole bag in one round trip instead of one lookup per product
+        Map<String, Listing> bagListings = listingRepository.getListingsByIds(bag.getProducts().keySet());
+        PriceQuote quote = quotes.get(storeId);
+        double discount;
+        if (quote != null && priceQuoteService.holds(quote, storeId, bag.getProducts(), bagListings, store.getPolicyVersion())) {
+            logger.info("Using price quote for store: " + storeId);
+            discount = quote.discount();
+        } else {
+            // The purchase policies and the discounts all read the same snapshot of the bag
+            BasketSnapshot basket = store.snapshotBag(bag.getProducts(), bagListings);
+            if (!store.isPurchaseAllowed(basket)) {
+                logger.debug("Invalid purchase bag for store: " + storeId);
+                throw new IllegalArgumentException("Invalid purchase bag for store: " + storeId);
+            }
+
+            discount = store.calculateStoreBagWithDiscount(basket);
+        }
+        List<PurchasedProduct> items = new ArrayList<>();
+        for (Map.Entry<String, Integer> product : bag.getProducts().entrySet()) {
+            String productId = product.getKey();
+            Listing listing = bagListings.get(productId);
+            if (listing == null) {
+                logger.debug("Product not found: " + productId);
+                throw new RuntimeException("Product not found: " + productId);
+            }
+            double unitPrice = listing.getPrice();
+            String productName = listing.getProductName();
+    
+            Integer quantity = product.getValue();
+            items.add(new PurchasedProduct(productId, productName, storeId, quantity, unitPrice));
+        }
+        return new BagEvaluation(storeId, bag.getProducts(), discount, items);
+    }
+
+    // Verified quotes by store ID; tokens that are forged or expired are dropped, and the bag is priced as usual
+    private Map<String, PriceQuote> quotesByStore(List<String> priceQuotes) {
+            Map<String, PriceQuote> quotes = new HashMap<>();
+            if (priceQuoteService == null || priceQuotes == null) {
+                return quotes;
+            }
+            for (String token : priceQuotes) {
+                priceQuoteService.verify(token).ifPresent(q -> quotes.put(q.storeId(), q));
             }
+            return quotes;
     }
     
     // Overloaded method for simplified API access - automatically gets user's cart
@@ -452,6 +525,49 @@ public class PurchaseService {
 
     // New method to handle purchase using JWT token
     public String executePurchaseByUsername(String token, String paymentDetails, String shippingAddress) {
+            return executePurchaseByUsername(token, paymentDetails, shippingAddress, List.of());
+    }
+
+    public String executePurchaseByUsername(String token, String paymentDetails, String shippingAddress, List<String> priceQuotes) {
+            String username = usernameOf(token);
+            ShoppingCart cart = checkoutCartOf(username);
+            Purchase result = executePurchase(username, cart, shippingAddress, paymentDetails, priceQuotes);
+            return "Purchase completed successfully. Total: $" + result.getTotalPrice() + " at " + result.getTimestamp();
+    }
+
+    /**
+     * Places the order for the user's cart and returns once its stock is taken; payment and
+     * shipment run in the background. Progress is sent as notifications and can be read with
+     * {@link #getOrder}.
+     *
+     * @return The ID of the placed order.
+     * @throws java.util.concurrent.RejectedExecutionException if too many checkouts are in progress.
+     */
+    public String submitPurchaseByUsername(String token, String paymentDetails, String shippingAddress) {
+            return submitPurchaseByUsername(token, paymentDetails, shippingAddress, List.of());
+    }
+
+    public String submitPurchaseByUsername(String token, String paymentDetails, String shippingAddress, List<String> priceQuotes) {
+            if (checkoutDispatcher == null) {
+                throw new IllegalStateException("Asynchronous checkout is not available");
+            }
+            String username = usernameOf(token);
+            ShoppingCart cart = checkoutCartOf(username);
+            CheckoutOrder order = checkoutDispatcher.submit(prepareOrder(username, cart, shippingAddress, paymentDetails, priceQuotes), paymentDetails);
+            logger.info("Checkout " + order.getOrderId() + " submitted for user: " + username);
+            return order.getOrderId();
+    }
+
+    /**
+     * @return The checkout order, if it belongs to {@code userId}.
+     */
+    public CheckoutOrder getOrder(String userId, String orderId) {
+        return checkoutSaga.getOrder(orderId)
+                .filter(order -> order.getUserId().equals(userId))
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+    }
+
+    private String usernameOf(String token) {
             // Extract username from token (simplified approach without AuthService dependency)
             Claims claims = io.jsonwebtoken.Jwts.parserBuilder()
                 .setSigningKey(io.jsonwebtoken.security.Keys.hmacShaKeyFor(
@@ -464,8 +580,10 @@ public class PurchaseService {
             if (username == null) {
                 throw new IllegalArgumentException("Invalid token: no username found");
             }
-            
-            // Get user and execute purchase
+            return username;
+    }
+
+    private ShoppingCart checkoutCartOf(String username) {
             User user = userRepository.findById(username);
             if (user == null) {
                 throw new IllegalArgumentException("User not found: " + username);
@@ -477,9 +595,45 @@ public class PurchaseService {
             if (cart == null || cart.getAllStoreBags().isEmpty()) {
                 throw new IllegalArgumentException("Shopping cart is empty for user: " + username);
             }
-            
-            Purchase result = executePurchase(username, cart, shippingAddress, paymentDetails);
-            return "Purchase completed successfully. Total: $" + result.getTotalPrice() + " at " + result.getTimestamp();
+            return cart;
+    }
+
+    /**
+     * Holds the stock of the user's current cart until the reservation expires or a purchase
+     * confirms it.
+     *
+     * @param ttlSeconds How long to hold the stock, or {@code null} for the configured default.
+     */
+    public StockReservation reserveCart(String userId, Long ttlSeconds) {
+        suspensionRepository.checkNotSuspended(userId);// check if user is suspended
+        User user = userRepository.findById(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        ShoppingCart cart = user.getShoppingCart();
+        if (cart == null || cart.getAllStoreBags().isEmpty()) {
+            throw new IllegalArgumentException("Shopping cart is empty for user: " + userId);
+        }
+        Map<String, Map<String, Integer>> stockMap = new HashMap<>();
+        for (StoreBag bag : cart.getAllStoreBags()) {
+            stockMap.put(String.valueOf(bag.getStoreId()), new HashMap<>(bag.getProducts()));
+        }
+        return requireReservations().reserve(userId, stockMap, ttlSeconds);
+    }
+
+    public boolean releaseCartReservation(String userId) {
+        return requireReservations().releaseForUser(userId);
+    }
+
+    public Map<String, Integer> getReservedQuantities(String storeId) {
+        return requireReservations().getReservedQuantities(storeId);
+    }
+
+    private StockReservationService requireReservations() {
+        if (reservationService == null) {
+            throw new IllegalStateException("Stock reservations are not available");
+        }
+        return reservationService;
     }
 
     // Add new method to get current user's bids for a product
@@ -0,0 +1,230 @@
+package market.application;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import market.domain.purchase.IStockReservationRepository;
+import market.domain.purchase.StockReservation;
+import market.domain.store.IListingRepository;
+import utils.Logger;
+
+/**
+ * Holds stock for a cart while the buyer checks out.
+ * <p>
+ * {@link #reserve} takes the units from the listings through
+ * {@link IListingRepository#updateOrRestoreStock} and records who holds them until when.
+ * A purchase then {@link #confirm confirms} the reservation instead of taking the stock again,
+ * and a background sweeper gives the units of expired reservations back. Confirming and
+ * releasing both start by removing the reservation from the repository, which only one caller
+ * can do, so a reservation is never both sold and restored.
+ * <p>
+ * A release removes the reservation and restores its stock in one transaction, also when the
+ * sweeper or another method of this service calls it, so a failed restore keeps the reservation
+ * to be released again later instead of losing its units.
+ */
+@Service
+public class StockReservationService {
+
+    private final IStockReservationRepository reservationRepository;
+    private final IListingRepository listingRepository;
+    private final long defaultTtlMillis;
+    private final long maxTtlMillis;
+    private final long sweepIntervalMillis;
+    private final LongSupplier clock;
+    private final TransactionTemplate transactions;
+    private final Logger logger = Logger.getInstance();
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    public StockReservationService(IStockReservationRepository reservationRepository,
+                                   IListingRepository listingRepository,
+                                   @Value("${market.reservations.ttl-seconds:600}") long defaultTtlSeconds,
+                                   @Value("${market.reservations.max-ttl-seconds:1800}") long maxTtlSeconds,
+                                   @Value("${market.reservations.sweep-interval-seconds:5}") long sweepIntervalSeconds,
+                                   TransactionTemplate transactions) {
+        this(reservationRepository, listingRepository, defaultTtlSeconds, maxTtlSeconds, sweepIntervalSeconds, System::currentTimeMillis, transactions);
+    }
+
+    /**
+     * Creates a service without transactions, for the in-memory repositories.
+     */
+    StockReservationService(IStockReservationRepository reservationRepository, IListingRepository listingRepository,
+                            long defaultTtlSeconds, long maxTtlSeconds, long sweepIntervalSeconds, LongSupplier clock) {
+        this(reservationRepository, listingRepository, defaultTtlSeconds, maxTtlSeconds, sweepIntervalSeconds, clock, null);
+    }
+
+    StockReservationService(IStockReservationRepository reservationRepository, IListingRepository listingRepository,
+                            long defaultTtlSeconds, long maxTtlSeconds, long sweepIntervalSeconds, LongSupplier clock,
+                            TransactionTemplate transactions) {
+        this.reservationRepository = reservationRepository;
+        this.listingRepository = listingRepository;
+        this.defaultTtlMillis = TimeUnit.SECONDS.toMillis(defaultTtlSeconds);
+        this.maxTtlMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+        this.sweepIntervalMillis = TimeUnit.SECONDS.toMillis(sweepIntervalSeconds);
+        this.clock = clock;
+        this.transactions = transactions;
+    }
+
+    /**
+     * Starts the expiry sweeper; a non-positive sweep interval leaves it off.
+     */
+    @PostConstruct
+    public void start() {
+        if (sweepIntervalMillis <= 0 || sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-reservation-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweepExpired();
+            } catch (RuntimeException e) {
+                // An escaping exception would cancel the schedule; try again on the next run
+                logger.error("Stock reservation sweep failed: " + e.getMessage());
+            }
+        }, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Takes the stock of a cart and holds it for the user. A reservation the user already holds
+     * is released first, so a user holds at most one cart.
+     *
+     * @param userId     The user reserving.
+     * @param stockMap   Quantities per listing, grouped by store ID.
+     * @param ttlSeconds How long to hold the stock, or {@code null} for the configured default.
+     * @return The new reservation.
+     * @throws IllegalArgumentException if the cart is empty or the TTL is out of range.
+     * @throws RuntimeException if a listing does not have enough stock; nothing is held then.
+     */
+    @Transactional
+    public StockReservation reserve(String userId, Map<String, Map<String, Integer>> stockMap, Long ttlSeconds) {
+        if (stockMap == null || stockMap.values().stream().allMatch(m -> m == null || m.isEmpty())) {
+            throw new IllegalArgumentException("Nothing to reserve");
+        }
+        long ttlMillis = ttlSeconds == null ? defaultTtlMillis : TimeUnit.SECONDS.toMillis(ttlSeconds);
+        if (ttlMillis <= 0 || ttlMillis > maxTtlMillis) {
+            throw new IllegalArgumentException("Reservation TTL must be between 1 and " + maxTtlMillis / 1000 + " seconds");
+        }
+        releaseForUser(userId);
+        listingRepository.updateOrRestoreStock(stockMap, false);
+        StockReservation reservation = reservationRepository.save(new StockReservation(userId, stockMap, clock.getAsLong() + ttlMillis));
+        logger.info("Reserved stock for user " + userId + " until " + reservation.getExpiresAt() + ": " + stockMap);
+        return reservation;
+    }
+
+    /**
+     * Turns the user's reservation into sold stock if it covers exactly {@code stockMap}.
+     * A reservation that has expired or does not match the cart is released instead.
+     *
+     * @return {@code true} if the stock was already held and must not be taken again;
+     *         {@code false} if the caller has to take the stock itself.
+     */
+    @Transactional
+    public boolean confirm(String userId, Map<String, Map<String, Integer>> stockMap) {
+        Optional<StockReservation> held = reservationRepository.findByUserId(userId);
+        if (held.isEmpty()) {
+            return false;
+        }
+        StockReservation reservation = held.get();
+        if (reservation.isExpired(clock.getAsLong()) || !reservation.toStockMap().equals(stockMap)) {
+            release(reservation.getReservationId());
+            return false;
+        }
+        boolean confirmed = reservationRepository.remove(reservation.getReservationId()).isPresent();
+        if (confirmed) {
+            logger.info("Confirmed stock reservation " + reservation.getReservationId() + " for user " + userId);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Gives the stock of a reservation back to its listings.
+     *
+     * @return {@code false} if the reservation was already confirmed or released.
+     */
+    public boolean release(String reservationId) {
+        // Not @Transactional: the sweeper and this service's own methods call it without the proxy
+        return inTransaction(() -> {
+            Optional<StockReservation> removed = reservationRepository.remove(reservationId);
+            if (removed.isEmpty()) {
+                return false;
+            }
+            listingRepository.updateOrRestoreStock(removed.get().toStockMap(), true);
+            logger.info("Released stock reservation " + reservationId + " of user " + removed.get().getUserId());
+            return true;
+        });
+    }
+
+    /**
+     * Releases the reservation the user holds, if any.
+     *
+     * @return {@code true} if a reservation was released.
+     */
+    public boolean releaseForUser(String userId) {
+        return inTransaction(() -> reservationRepository.findByUserId(userId)
+                .map(r -> release(r.getReservationId()))
+                .orElse(false));
+    }
+
+    public Optional<StockReservation> getReservation(String userId) {
+        return reservationRepository.findByUserId(userId);
+    }
+
+    /**
+     * @return Units currently held per listing of the store.
+     */
+    public Map<String, Integer> getReservedQuantities(String storeId) {
+        return reservationRepository.getReservedQuantities(storeId);
+    }
+
+    /**
+     * Releases every expired reservation. Runs on the sweeper thread, each release in its own
+     * transaction: the reservation is removed before its stock is restored, so a purchase
+     * confirming it at the same moment either wins the removal or finds it gone, and a failed
+     * restore rolls the removal back for the next sweep.
+     *
+     * @return The number of reservations released.
+     */
+    public int sweepExpired() {
+        int released = 0;
+        for (String id : reservationRepository.findExpiredIds(clock.getAsLong())) {
+            try {
+                if (release(id)) {
+                    released++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to release expired stock reservation " + id + ": " + e.getMessage());
+            }
+        }
+        return released;
+    }
+
+    // Runs work in a new or the current transaction, or directly for the in-memory repositories
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactions == null ? work.get() : transactions.execute(status -> work.get());
+    }
+}
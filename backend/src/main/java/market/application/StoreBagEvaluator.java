@@ -0,0 +1,103 @@
+package market.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Evaluates the store bags of a cart in parallel on a bounded pool.
+ * <p>
+ * Bags of different stores do not depend on each other until their stock is taken, so loading
+ * each store and running its purchase policies and discounts can overlap. When the pool and its
+ * queue are full, the calling thread evaluates the bag itself, so a checkout is slowed down
+ * rather than rejected.
+ */
+@Service
+public class StoreBagEvaluator {
+
+    private final ThreadPoolExecutor workers;
+
+    @Autowired
+    public StoreBagEvaluator(@Value("${market.checkout.evaluation-threads:8}") int threads,
+                             @Value("${market.checkout.evaluation-queue-capacity:64}") int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Bag evaluation pool needs at least one thread and a positive queue");
+        }
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "bag-evaluator-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Applies {@code evaluate} to every bag and returns the results in the order of {@code bags}.
+     * A single bag is evaluated on the calling thread. When one evaluation fails, the others are
+     * cancelled and its exception is thrown as is.
+     */
+    public <T, R> List<R> evaluateAll(List<T> bags, Function<T, R> evaluate) {
+        List<R> results = new ArrayList<>(bags.size());
+        if (bags.size() <= 1) {
+            for (T bag : bags) {
+                results.add(evaluate.apply(bag));
+            }
+            return results;
+        }
+        CompletionService<R> completion = new ExecutorCompletionService<>(workers);
+        List<Future<R>> futures = new ArrayList<>(bags.size());
+        try {
+            for (T bag : bags) {
+                futures.add(completion.submit(() -> evaluate.apply(bag)));
+            }
+            // Wait in completion order, so the first failure is seen without waiting for slower bags
+            for (int i = 0; i < futures.size(); i++) {
+                completion.take().get();
+            }
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating the cart");
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+}
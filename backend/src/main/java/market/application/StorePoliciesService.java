@@ -11,17 +11,43 @@ import market.domain.store.Policies.Discounts.DiscountPolicyFactory;
 import market.domain.store.Policies.Policies.PurchasePolicyFactory;
 import market.domain.user.ISuspensionRepository;
 import market.dto.PolicyDTO;
+import market.infrastructure.PolicyHandlerCache;
+import market.infrastructure.PriceSheetCache;
 import utils.Logger;
 
 public class StorePoliciesService {
 
     private final IStoreRepository storeRepository;
     private final ISuspensionRepository suspensionRepository;
+    private final PolicyHandlerCache policyHandlerCache;
+    private final PriceSheetCache priceSheetCache;
     private Logger logger = Logger.getInstance();
 
     public StorePoliciesService(IStoreRepository storeRepo, ISuspensionRepository suspensionRepository) {
+        this(storeRepo, suspensionRepository, null, null);
+    }
+
+    /**
+     * @param policyHandlerCache Hydrated policy handlers of stores loaded from the database; a store's
+     *                           entry is dropped whenever its policies change. May be {@code null}.
+     * @param priceSheetCache    Price sheets of stores, dropped in the same way. May be {@code null}.
+     */
+    public StorePoliciesService(IStoreRepository storeRepo, ISuspensionRepository suspensionRepository,
+                                PolicyHandlerCache policyHandlerCache, PriceSheetCache priceSheetCache) {
         this.storeRepository = storeRepo;
         this.suspensionRepository = suspensionRepository;
+        this.policyHandlerCache = policyHandlerCache;
+        this.priceSheetCache = priceSheetCache;
+    }
+
+    // Called once a policy change is saved
+    private void policiesChanged(String storeId) {
+        if (policyHandlerCache != null) {
+            policyHandlerCache.invalidate(storeId);
+        }
+        if (priceSheetCache != null) {
+            priceSheetCache.invalidate(storeId);
+        }
     }
 
     /**
@@ -41,6 +67,7 @@ public class StorePoliciesService {
             if(success) {
                 logger.info("Discount added successfully for store: " + storeId + " by user: " + userId);
                 storeRepository.save(store); // Save the store after adding the discount
+                policiesChanged(storeId);
             } else {
                 logger.info("Failed to add discount for store: " + storeId + " by user: " + userId);
             }
@@ -68,6 +95,7 @@ public class StorePoliciesService {
             if(success) {
                 logger.info("Discount removed successfully for store: " + storeId + " by user: " + userId);
                 storeRepository.save(store); // Save the store after removing the discount
+                policiesChanged(storeId);
             } else {
                 logger.info("Failed to remove discount for store: " + storeId + " by user: " + userId);
             }
@@ -115,6 +143,7 @@ public class StorePoliciesService {
             if(success) {
                 logger.info("Purchase policy added successfully for store: " + storeId + " by user: " + userId);
                 storeRepository.save(store); // Save the store after adding the policy
+                policiesChanged(storeId);
             } else {
                 logger.info("Failed to add purchase policy for store: " + storeId + " by user: " + userId);
             }
@@ -143,6 +172,7 @@ public class StorePoliciesService {
             if(success) {
                 logger.info("Purchase policy removed successfully for store: " + storeId + " by user: " + userId);
                 storeRepository.save(store); // Save the store after removing the policy
+                policiesChanged(storeId);
             } else {
                 logger.info("Failed to remove purchase policy for store: " + storeId + " by user: " + userId);
             }
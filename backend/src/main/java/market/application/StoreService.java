@@ -1,6 +1,8 @@
 package market.application;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -8,20 +10,30 @@ import java.util.Set;
 import market.domain.notification.INotificationRepository;
 import javax.management.RuntimeErrorException;
 
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import market.domain.store.IListingRepository;
 import market.domain.store.IStoreRepository;
+import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.PriceQuote;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Store;
 import market.domain.store.StoreDTO;
 import market.domain.user.ISuspensionRepository;
 import market.domain.user.IUserRepository;
+import market.dto.ProductDTO;
 import utils.ApiResponse;
 import utils.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import market.domain.store.StoreProductManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import market.infrastructure.PriceSheetCache;
 
 
 
@@ -33,10 +45,27 @@ public class StoreService {
     private IListingRepository listingRepository;
     private final NotificationService notificationService;
     private String storeIDs ="1";
+    // Listings written per transaction by importListings, and cap on the row errors it reports.
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_IMPORT_ERRORS = 1000;
     private Logger logger = Logger.getInstance();
     private ISuspensionRepository suspentionRepository; 
-    @Autowired
+    private final PriceQuoteService priceQuoteService;
+
+    // Price sheets by store ID; a store's sheet is dropped whenever its listings are written
+    private static final int DEFAULT_PRICE_SHEET_CACHE_SIZE = 10_000;
+    private final PriceSheetCache priceSheets;
+
+    // Without price quotes
     public StoreService(IStoreRepository storeRepository, IUserRepository userRepository, IListingRepository listingRepository,ISuspensionRepository suspentionRepository, NotificationService notificationService) {
+        this(storeRepository, userRepository, listingRepository, suspentionRepository, notificationService, null, new PriceSheetCache(DEFAULT_PRICE_SHEET_CACHE_SIZE));
+    }
+
+    @Autowired
+    public StoreService(IStoreRepository storeRepository, IUserRepository userRepository, IListingRepository listingRepository,ISuspensionRepository suspentionRepository, NotificationService notificationService, @Nullable PriceQuoteService priceQuoteService,
+                        PriceSheetCache priceSheets) {
+        this.priceSheets = priceSheets;
+        this.priceQuoteService = priceQuoteService;
         this.storeRepository = storeRepository;
         this.userRepository = userRepository;
         storeIDs = storeIDs;
@@ -75,6 +104,22 @@ public class StoreService {
         }
     }
 
+    /**
+     * Drops the store's price sheet, and again once the current transaction completes, so that
+     * a sheet priced from the listings as they were before the write is not served after it.
+     */
+    private void listingsChanged(String storeID) {
+        priceSheets.invalidate(storeID);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    priceSheets.invalidate(storeID);
+                }
+            });
+        }
+    }
+
 
     /**
      * Closes a specific store.
@@ -106,6 +151,7 @@ public class StoreService {
 
             logger.info("Store closed: " + storeID + " by user: " + userName);
             storeRepository.save(s); // Save the store after closing it
+            listingsChanged(storeID);
             logger.info("Store status: " + s.isOpen());
             return storeID;
 
@@ -141,6 +187,7 @@ public class StoreService {
             // Notify all owners
             notifyAllOwners(storeID, "The store " + s.getName() + " has been reopened by " + userName + ".");
             storeRepository.save(s); // Save the store after reopening it
+            listingsChanged(storeID);
             return storeID;
 
         } catch (Exception e) {
@@ -518,6 +565,7 @@ public class StoreService {
             }
             storeRepository.save(s); // Save the store to ensure the StoreProductManager is initialized
             logger.info("Added new listing 2 " + productName);
+            listingsChanged(storeID);
             return s.addNewListing(userName, productId, productName, productCategory, productDescription, quantity, price, purchaseType);
         } catch (Exception e) {
             logger.error("Error adding listing: " + productName + " to store: " + storeID + ". Reason: " + e.getMessage());
@@ -525,6 +573,86 @@ public class StoreService {
         }
     }
 
+    /**
+     * Imports listings into a store from a CSV or NDJSON stream (see {@link ListingImportReader}).
+     * Rows are validated as they are read and written in chunks of {@value #IMPORT_CHUNK_SIZE},
+     * each chunk in its own transaction, so memory use does not depend on the size of the upload.
+     * Invalid rows are skipped and reported by line number; if a chunk fails to write, its rows
+     * are counted as failed and the import goes on with the next chunk.
+     *
+     * @return How many listings were imported and which lines failed.
+     */
+    public ProductDTO.ListingImportReport importListings(String userName, String storeID, InputStream in, ListingImportReader.Format format) {
+        try {
+            suspentionRepository.checkNotSuspended(userName); // check if user is suspended
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null)
+                throw new IllegalArgumentException("Store doesn't exist");
+            if (s.getStoreProductsManager() == null) {
+                s.setStoreProductsManager(new StoreProductManager(storeID, listingRepository));
+            }
+            s.checkCanManageListings(userName); // before reading the body
+            logger.info("User " + userName + " importing listings (" + format + ") into store " + storeID);
+
+            int imported = 0;
+            int failed = 0;
+            List<ProductDTO.ListingImportError> errors = new ArrayList<>();
+            List<Listing> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            long chunkFirstLine = 0;
+            long chunkLastLine = 0;
+            try (ListingImportReader reader = new ListingImportReader(in, format, storeID)) {
+                ListingImportReader.Row row;
+                while ((row = reader.next()) != null) {
+                    if (!row.isValid()) {
+                        failed++;
+                        if (errors.size() <= MAX_REPORTED_IMPORT_ERRORS)
+                            errors.add(new ProductDTO.ListingImportError(row.line(), row.error()));
+                        continue;
+                    }
+                    if (chunk.isEmpty())
+                        chunkFirstLine = row.line();
+                    chunkLastLine = row.line();
+                    chunk.add(row.listing());
+                    if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                        int written = writeImportChunk(s, userName, chunk, chunkFirstLine, chunkLastLine, errors);
+                        imported += written;
+                        failed += chunk.size() - written;
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                int written = writeImportChunk(s, userName, chunk, chunkFirstLine, chunkLastLine, errors);
+                imported += written;
+                failed += chunk.size() - written;
+            }
+            logger.info("Imported " + imported + " listings into store " + storeID + ", " + failed + " rows failed");
+            // One error past the cap is kept only to tell that the list was cut.
+            boolean truncated = errors.size() > MAX_REPORTED_IMPORT_ERRORS;
+            if (truncated)
+                errors = errors.subList(0, MAX_REPORTED_IMPORT_ERRORS);
+            return new ProductDTO.ListingImportReport(imported, failed, errors, truncated);
+        } catch (Exception e) {
+            logger.error("Error importing listings into store: " + storeID + ". Reason: " + e.getMessage());
+            throw new RuntimeException("Error importing listings: " + e.getMessage());
+        }
+    }
+
+    private int writeImportChunk(Store s, String userName, List<Listing> chunk, long firstLine, long lastLine,
+                                 List<ProductDTO.ListingImportError> errors) {
+        try {
+            return s.addNewListings(userName, chunk);
+        } catch (Exception e) {
+            if (errors.size() <= MAX_REPORTED_IMPORT_ERRORS)
+                errors.add(new ProductDTO.ListingImportError(firstLine,
+                    "Lines " + firstLine + "-" + lastLine + " were not imported: " + e.getMessage()));
+            return 0;
+        } finally {
+            // Each chunk commits on its own
+            listingsChanged(s.getStoreID());
+        }
+    }
+
 
     /**
      * Removes a listing from the specified store.
@@ -542,6 +670,7 @@ public class StoreService {
             if (s == null)
                 throw new IllegalArgumentException("Store doesn't exist");
             logger.info("Removed listing: " + listingId + " from store: " + storeID + ", by: " + userName);
+            listingsChanged(storeID);
             if (s.removeListing(userName, listingId)) {
                 storeRepository.save(s); // Save the store after removing the listing
                 return null;
@@ -565,6 +694,7 @@ public class StoreService {
             if (s == null)
                 throw new IllegalArgumentException("Store doesn't exist");
             logger.info("User " + userName + " editing price for listing " + listingId + " in store " + storeID);
+            listingsChanged(storeID);
             return s.editPriceForListing(userName, listingId, newPrice);
         } catch (Exception e) {
             logger.error("Error editing price for listing: " + listingId + ". Reason: " + e.getMessage());
@@ -572,6 +702,67 @@ public class StoreService {
         }
     }
 
+    /**
+     * Changes the price of all active listings in a store, or in one of its categories, by a percentage,
+     * using a single set-based update.
+     *
+     * @return The number of listings updated.
+     */
+    @Transactional
+    public int adjustListingPrices(String userName, String storeID, String category, double percent) {
+        try {
+            suspentionRepository.checkNotSuspended(userName);// check if user is suspended
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null)
+                throw new IllegalArgumentException("Store doesn't exist");
+            logger.info("User " + userName + " adjusting prices by " + percent + "% in store " + storeID
+                + (category == null ? "" : " for category " + category));
+            listingsChanged(storeID);
+            return s.adjustListingPrices(userName, category, percent);
+        } catch (Exception e) {
+            logger.error("Error adjusting prices in store: " + storeID + ". Reason: " + e.getMessage());
+            throw new RuntimeException("Error adjusting prices: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds (or removes) stock for all active listings in a store, or in one of its categories,
+     * using a single set-based update.
+     *
+     * @return The number of listings updated.
+     */
+    @Transactional
+    public int adjustListingQuantities(String userName, String storeID, String category, int delta) {
+        try {
+            suspentionRepository.checkNotSuspended(userName);// check if user is suspended
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null)
+                throw new IllegalArgumentException("Store doesn't exist");
+            logger.info("User " + userName + " adjusting stock by " + delta + " in store " + storeID
+                + (category == null ? "" : " for category " + category));
+            return s.adjustListingQuantities(userName, category, delta);
+        } catch (Exception e) {
+            logger.error("Error adjusting stock in store: " + storeID + ". Reason: " + e.getMessage());
+            throw new RuntimeException("Error adjusting stock: " + e.getMessage());
+        }
+    }
+
+    @Transactional
+    public boolean setListingStockShards(String userName, String storeID, String listingId, int shards) {
+        try {
+            suspentionRepository.checkNotSuspended(userName);// check if user is suspended
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null)
+                throw new IllegalArgumentException("Store doesn't exist");
+            logger.info("User " + userName + " setting " + shards + " stock shards for listing " + listingId + " in store " + storeID);
+            s.setListingStockShards(userName, listingId, shards);
+            return true;
+        } catch (Exception e) {
+            logger.error("Error setting stock shards for listing: " + listingId + ". Reason: " + e.getMessage());
+            throw new RuntimeException("Error setting stock shards: " + e.getMessage());
+        }
+    }
+
     @Transactional
     public boolean editListingProductName(String userName, String storeID, String listingId, String newName) {
         try {
@@ -580,6 +771,7 @@ public class StoreService {
             if (s == null)
                 throw new IllegalArgumentException("Store doesn't exist");
             logger.info("User " + userName + " editing name for listing " + listingId + " in store " + storeID);
+            listingsChanged(storeID);
             boolean success = s.editProductName(userName, listingId, newName);
             if(success) {
                 storeRepository.save(s); // Save the store after editing the product name
@@ -636,6 +828,7 @@ public class StoreService {
             if (s == null)
                 throw new IllegalArgumentException("Store doesn't exist");
             logger.info("User " + userName + " editing category for listing " + listingId + " in store " + storeID);
+            listingsChanged(storeID);
             boolean success = s.editProductCategory(userName, listingId, newCategory);
             if(success) {
                 storeRepository.save(s); // Save the store after editing the product category
@@ -715,6 +908,48 @@ public class StoreService {
         }
     }
 
+    /**
+     * Discounted unit prices of every active listing of a store, each priced as a bag of its own,
+     * computed together in one pass. The sheet is reused until a listing is added, removed or
+     * edited, or the store's policies change, without reading the store's listings again.
+     */
+    @Transactional
+    public ApiResponse<ProductDTO.PriceSheet> getPriceSheet(String storeID) {
+        try {
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null) {
+                return ApiResponse.fail("Store doesn't exist");
+            }
+            if (!s.isActive()) {
+                return ApiResponse.fail("Store is not active");
+            }
+
+            long policyVersion = s.getPolicyVersion();
+            ProductDTO.PriceSheet cached = priceSheets.get(storeID);
+            if (cached != null && cached.policyVersion() == policyVersion) {
+                return ApiResponse.ok(cached);
+            }
+
+            long stamp = priceSheets.stamp(storeID);
+            List<Listing> listings = s.getAllListings().stream().filter(Listing::isActive).toList();
+            double[] discounted = s.productPricesWithDiscount(listings);
+            List<ProductDTO.PriceSheetEntry> entries = new ArrayList<>(listings.size());
+            for (int i = 0; i < listings.size(); i++) {
+                Listing l = listings.get(i);
+                entries.add(new ProductDTO.PriceSheetEntry(l.getListingId(), l.getProductId(), l.getProductName(),
+                        l.getCategory(), l.getPrice(), discounted[i]));
+            }
+            ProductDTO.PriceSheet sheet = new ProductDTO.PriceSheet(storeID, policyVersion, List.copyOf(entries));
+            priceSheets.putIfUnchanged(storeID, sheet, stamp);
+
+            logger.info("Priced " + entries.size() + " listings for store: " + storeID);
+            return ApiResponse.ok(sheet);
+        } catch (Exception e) {
+            logger.error("Error getting price sheet for store: " + storeID + ". Reason: " + e.getMessage());
+            return ApiResponse.fail("Error getting price sheet: " + e.getMessage());
+        }
+    }
+
     @Transactional
     public ApiResponse<Double> getStoreBagPrice(String storeID, Map<String, Integer> productsToQuantity) {
         try {
@@ -759,6 +994,41 @@ public class StoreService {
         }
     }
 
+    /**
+     * Prices a bag like {@link #getStoreBagDiscountPrice} and returns a signed quote of the result.
+     * A checkout that sends the quote back skips the purchase policies and discounts of the bag
+     * while its listings and the store's policies are unchanged.
+     */
+    @Transactional
+    public ApiResponse<ProductDTO.BagQuoteResponse> getStoreBagQuote(String storeID, Map<String, Integer> productsToQuantity) {
+        try {
+            if (priceQuoteService == null) {
+                return ApiResponse.fail("Price quotes are not available");
+            }
+            Store s = storeRepository.getStoreByID(storeID);
+            if (s == null) {
+                return ApiResponse.fail("Store " + storeID + " doesn't exist");
+            }
+            if (!s.isActive()) {
+                return ApiResponse.fail("Store " + storeID + " is not active");
+            }
+
+            Map<String, Listing> listings = listingRepository.getListingsByIds(productsToQuantity.keySet());
+            BasketSnapshot basket = s.snapshotBag(productsToQuantity, listings);
+            double bagPrice = s.calculateStoreBagWithoutDiscount(basket);
+            double discount = s.calculateStoreBagWithDiscount(basket);
+            boolean allowed = s.isPurchaseAllowed(basket);
+            PriceQuote quote = priceQuoteService.quote(storeID, productsToQuantity, listings, s.getPolicyVersion(), discount, allowed);
+
+            logger.info("Quoted bag for store: " + storeID + " - Final price: " + (bagPrice - discount) + ", allowed: " + allowed);
+            return ApiResponse.ok(new ProductDTO.BagQuoteResponse(storeID, bagPrice, discount, bagPrice - discount,
+                    allowed, quote.expiresAt(), priceQuoteService.sign(quote)));
+        } catch (Exception e) {
+            logger.error("Error quoting bag for store: " + storeID + ". Reason: " + e.getMessage());
+            return ApiResponse.fail("Error quoting bag: " + e.getMessage());
+        }
+    }
+
     @Transactional
     public boolean isOwner(String storeID, String userID){
         Store s = storeRepository.getStoreByID(storeID);
@@ -927,24 +1197,60 @@ public class StoreService {
         List<Map<String, Object>> res = new ArrayList<>();
         for (Store s: storeRepository.getAllStores()){
             Map<String, Object> storeInfo = new HashMap<>();
-            StoreDTO storeDTO = new StoreDTO(s);
-            
-            // Create a proper store object structure
-            Map<String, Object> store = new HashMap<>();
-            store.put("storeID", storeDTO.getStoreID());
-            store.put("storeName", storeDTO.getName());
-            store.put("isActive", storeDTO.isActive());
-            store.put("founderId", s.getFounderID());
-            store.put("description", "Store description"); // Add default description
-            store.put("rating", 0); // Add default rating
-            
-            storeInfo.put("store", store);
+            storeInfo.put("store", storeSummary(s));
             storeInfo.put("listings", s.getAllListings());
             res.add(storeInfo);
         } 
         return res;
     }
 
+    /**
+     * Paginated variant of {@link #getInformationAboutStoresAndProducts()}.
+     * Pages over the catalog ordered by product name (keyset cursor), and groups each page's
+     * listings under their stores, so only the stores that appear on the page are loaded.
+     *
+     * @param cursor The {@code nextCursor} of the previous page, or {@code null} for the first page.
+     * @param size   The requested number of listings, capped at {@link ListingCursor#MAX_PAGE_SIZE}.
+     */
+    @Transactional
+    public market.dto.StoreDTO.StoreInfoPage getInformationAboutStoresAndProductsPage(String cursor, int size) {
+        Slice<Listing> slice = listingRepository.getListingsPageByName(ListingCursor.decode(cursor), ListingCursor.pageSize(size));
+        Map<String, List<Listing>> byStore = new LinkedHashMap<>();
+        for (Listing l : slice.getContent()) {
+            byStore.computeIfAbsent(l.getStoreId(), k -> new ArrayList<>()).add(l);
+        }
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (Map.Entry<String, List<Listing>> entry : byStore.entrySet()) {
+            Store s = storeRepository.getStoreByID(entry.getKey());
+            if (s == null) {
+                continue;
+            }
+            Map<String, Object> storeInfo = new HashMap<>();
+            storeInfo.put("store", storeSummary(s));
+            storeInfo.put("listings", entry.getValue());
+            res.add(storeInfo);
+        }
+        List<Listing> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+            ? ListingCursor.after(content.get(content.size() - 1), false).encode()
+            : null;
+        return new market.dto.StoreDTO.StoreInfoPage(res, next, slice.hasNext());
+    }
+
+    private Map<String, Object> storeSummary(Store s) {
+        StoreDTO storeDTO = new StoreDTO(s);
+
+        // Create a proper store object structure
+        Map<String, Object> store = new HashMap<>();
+        store.put("storeID", storeDTO.getStoreID());
+        store.put("storeName", storeDTO.getName());
+        store.put("isActive", storeDTO.isActive());
+        store.put("founderId", s.getFounderID());
+        store.put("description", "Store description"); // Add default description
+        store.put("rating", 0); // Add default rating
+        return store;
+    }
+
         /**
      * Allows a user to send a message to a store. All store owners will receive a notification.
      *
@@ -0,0 +1,40 @@
+package market.config;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * Applies the versioned migrations under {@code classpath:db/migration}.
+ * <p>
+ * Tables are still created by Hibernate ({@code ddl-auto=update}); the migrations only add what
+ * Hibernate does not manage, such as the secondary indexes behind the hot repository queries.
+ * That is why Flyway runs after the entity manager factory instead of through Boot's
+ * auto-configuration, which would run it against an empty schema. The bean is the migration
+ * result rather than the {@link Flyway} instance, because Boot makes the entity manager factory
+ * depend on every {@code Flyway} bean.
+ * <p>
+ * Databases created before migrations existed have no history table; they are baselined at
+ * version 0 so that every migration still runs once on them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "market.schema-migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationConfig {
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public MigrateResult schemaMigrations(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+}
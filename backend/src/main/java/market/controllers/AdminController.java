@@ -162,4 +162,15 @@ public class AdminController {
             }
         });
     }
+
+    /**
+     * Get listing cache hit/miss/eviction counters
+     * GET /api/admin/cache/listings
+     */
+    @GetMapping("/cache/listings")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getListingCacheStats() {
+        return ApiResponseBuilder.build(() ->
+            adminService.getListingCacheStats()
+        );
+    }
 }
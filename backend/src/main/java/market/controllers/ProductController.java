@@ -2,6 +2,9 @@ package market.controllers;
 
 import market.application.ProductService;
 import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.ListingFacets;
+import market.domain.store.ListingSearchQuery;
 import market.dto.ProductDTO;
 import utils.ApiResponse;
 import utils.ApiResponseBuilder;
@@ -34,6 +37,55 @@ public class ProductController {
         );
     }
 
+    /**
+     * Ranked search over name, description and category, with optional filters and paging;
+     * limit must be positive and is capped at {@link ListingCursor#MAX_PAGE_SIZE}
+     * GET /api/products/search/ranked?query={text}&storeId=&category=&minPrice=&maxPrice=&offset=0&limit=20
+     */
+    @GetMapping("/search/ranked")
+    public ResponseEntity<ApiResponse<List<Listing>>> searchProductsRanked(
+            @RequestParam String query,
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponseBuilder.build(() ->
+            productService.search(new ListingSearchQuery(query, false, storeId, category, minPrice, maxPrice, offset,
+                    ListingCursor.pageSize(limit)))
+        );
+    }
+
+    /**
+     * Facet counts (category, store, price bucket) over all results of a ranked search
+     * GET /api/products/search/ranked/facets?query={text}&storeId=&category=&minPrice=&maxPrice=
+     */
+    @GetMapping("/search/ranked/facets")
+    public ResponseEntity<ApiResponse<ListingFacets>> searchFacets(
+            @RequestParam String query,
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        return ApiResponseBuilder.build(() ->
+            productService.searchFacets(new ListingSearchQuery(query, false, storeId, category, minPrice, maxPrice, 0, 0))
+        );
+    }
+
+    /**
+     * Facet counts (category, store, price bucket) of the catalog, optionally within a store and/or category
+     * GET /api/products/facets?storeId=&category=
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ListingFacets>> getFacets(
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category) {
+        return ApiResponseBuilder.build(() ->
+            productService.getFacets(storeId, category)
+        );
+    }
+
     /**
      * Search products by product ID
      * GET /api/products/id/{productId}
@@ -80,6 +132,76 @@ public class ProductController {
         );
     }
 
+    /**
+     * Get products in a price range (ascending), optionally within a store and/or category
+     * GET /api/products/price/range?minPrice=&maxPrice=&storeId=&category=&limit=20
+     */
+    @GetMapping("/price/range")
+    public ResponseEntity<ApiResponse<List<Listing>>> getProductsInPriceRange(
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponseBuilder.build(() ->
+            productService.getByPriceRange(storeId, category, minPrice, maxPrice, limit)
+        );
+    }
+
+    /**
+     * Get the N cheapest products, optionally within a store and/or category
+     * GET /api/products/price/cheapest?n=10&storeId=&category=
+     */
+    @GetMapping("/price/cheapest")
+    public ResponseEntity<ApiResponse<List<Listing>>> getCheapestProducts(
+            @RequestParam(defaultValue = "10") int n,
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category) {
+        return ApiResponseBuilder.build(() ->
+            productService.getCheapest(storeId, category, n)
+        );
+    }
+
+    /**
+     * Get the N most expensive products, optionally within a store and/or category
+     * GET /api/products/price/most-expensive?n=10&storeId=&category=
+     */
+    @GetMapping("/price/most-expensive")
+    public ResponseEntity<ApiResponse<List<Listing>>> getMostExpensiveProducts(
+            @RequestParam(defaultValue = "10") int n,
+            @RequestParam(required = false) String storeId,
+            @RequestParam(required = false) String category) {
+        return ApiResponseBuilder.build(() ->
+            productService.getMostExpensive(storeId, category, n)
+        );
+    }
+
+    /**
+     * Get one page of products sorted by price (ascending), keyset-paginated
+     * GET /api/products/sorted/price/page?cursor={nextCursor}&size=20
+     */
+    @GetMapping("/sorted/price/page")
+    public ResponseEntity<ApiResponse<ProductDTO.ListingPage>> getProductsSortedByPricePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponseBuilder.build(() ->
+            productService.getSortedByPricePage(cursor, size)
+        );
+    }
+
+    /**
+     * Get one page of products sorted by name (ascending), keyset-paginated
+     * GET /api/products/sorted/name/page?cursor={nextCursor}&size=20
+     */
+    @GetMapping("/sorted/name/page")
+    public ResponseEntity<ApiResponse<ProductDTO.ListingPage>> getProductsSortedByNamePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponseBuilder.build(() ->
+            productService.getSortedByNamePage(cursor, size)
+        );
+    }
+
     /**
      * Get specific product listing by listing ID
      * GET /api/products/listing/{listingId}
@@ -1,8 +1,11 @@
 package market.controllers;
 
+import market.application.IdempotencyService;
 import market.application.PurchaseService;
 import market.dto.PurchaseDTO.*;
+import market.domain.purchase.CheckoutOrder;
 import market.domain.purchase.Purchase;
+import market.domain.purchase.StockReservation;
 import market.middleware.TokenUtils;
 import market.application.AuthService;
 import io.jsonwebtoken.Claims;
@@ -14,6 +17,8 @@ import utils.ApiResponseBuilder;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for Purchase operations in BGU Market
@@ -30,6 +35,9 @@ public class PurchaseController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     /**
      * Helper method to extract username from JWT token
      */
@@ -49,12 +57,36 @@ public class PurchaseController {
         return username;
     }
 
+    /**
+     * Runs the action once per Idempotency-Key of the user; a retry with the same key gets the
+     * first response back. Without a key the action simply runs.
+     */
+    private <T> ResponseEntity<ApiResponse<T>> idempotent(String idempotencyKey, String scope, Object request,
+                                                          Function<String, T> decode,
+                                                          Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        String username;
+        try {
+            username = extractUsernameFromToken();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.fail(e.getMessage()));
+        }
+        return idempotencyService.execute(scope, username, idempotencyKey, request, decode, action);
+    }
+
     /**
      * Execute a regular purchase from user's shopping cart
      * POST /api/purchases/execute
+     * With ?async=true, returns the order ID once the stock is taken; payment and shipment
+     * continue in the background (429 if too many checkouts are in progress)
+     * With an Idempotency-Key header, a retry returns the first attempt's response instead of buying again
      */
     @PostMapping("/execute")
-    public ResponseEntity<ApiResponse<String>> executePurchase(@RequestBody ExecutePurchaseRequest request) {
+    public ResponseEntity<ApiResponse<String>> executePurchase(@RequestBody ExecutePurchaseRequest request,
+                                                               @RequestParam(defaultValue = "false") boolean async,
+                                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         System.out.println("Executing purchase");
         String token = TokenUtils.getToken();
 
@@ -63,21 +95,80 @@ public class PurchaseController {
         if (token == null) {
             return ResponseEntity.ok(ApiResponse.fail("No authentication token provided"));
         }
-        return ApiResponseBuilder.build(() ->
-            purchaseService.executePurchaseByUsername(
-                token,
-                request.paymentDetails(),
-                request.shippingAddress()
-            )
-        );
+        return idempotent(idempotencyKey, "purchase", request + ";async=" + async, data -> data, () -> {
+            if (async) {
+                return ApiResponseBuilder.build(() ->
+                    purchaseService.submitPurchaseByUsername(
+                        token,
+                        request.paymentDetails(),
+                        request.shippingAddress(),
+                        request.priceQuotes()
+                    )
+                );
+            }
+            return ApiResponseBuilder.build(() ->
+                purchaseService.executePurchaseByUsername(
+                    token,
+                    request.paymentDetails(),
+                    request.shippingAddress(),
+                    request.priceQuotes()
+                )
+            );
+        });
+    }
+
+    /**
+     * Get the status of one of the user's checkout orders
+     * GET /api/purchases/orders/{orderId}
+     */
+    @GetMapping("/orders/{orderId}")
+    public ResponseEntity<ApiResponse<OrderStatusResponse>> getOrderStatus(@PathVariable String orderId) {
+        return ApiResponseBuilder.build(() -> {
+            CheckoutOrder order = purchaseService.getOrder(extractUsernameFromToken(), orderId);
+            return new OrderStatusResponse(order.getOrderId(), order.getStatus().name(), order.getTotalPrice(),
+                    order.getCreatedAt(), order.getPurchaseId(), order.getFailureReason(), order.toStockMap());
+        });
+    }
+
+    /**
+     * Hold the stock of the user's cart while they check out
+     * POST /api/purchases/reservations
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<ApiResponse<ReservationResponse>> reserveCart(@RequestBody(required = false) ReserveCartRequest request) {
+        return ApiResponseBuilder.build(() -> {
+            String username = extractUsernameFromToken();
+            StockReservation reservation = purchaseService.reserveCart(username, request == null ? null : request.ttlSeconds());
+            return new ReservationResponse(reservation.getReservationId(), reservation.getExpiresAt(), reservation.toStockMap());
+        });
+    }
+
+    /**
+     * Release the user's cart reservation, returning the stock to the listings
+     * DELETE /api/purchases/reservations
+     */
+    @DeleteMapping("/reservations")
+    public ResponseEntity<ApiResponse<Boolean>> releaseReservation() {
+        return ApiResponseBuilder.build(() -> purchaseService.releaseCartReservation(extractUsernameFromToken()));
+    }
+
+    /**
+     * Units currently held by reservations, per listing of a store
+     * GET /api/purchases/reservations/store/{storeId}
+     */
+    @GetMapping("/reservations/store/{storeId}")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> getReservedQuantities(@PathVariable String storeId) {
+        return ApiResponseBuilder.build(() -> purchaseService.getReservedQuantities(storeId));
     }
 
     /**
      * Submit an auction offer
      * POST /api/purchases/auction/offer
+     * Accepts an Idempotency-Key header, like /execute
      */
     @PostMapping("/auction/offer")
-    public ResponseEntity<ApiResponse<Void>> submitAuctionOffer(@RequestBody AuctionOfferRequest request) {
+    public ResponseEntity<ApiResponse<Void>> submitAuctionOffer(@RequestBody AuctionOfferRequest request,
+                                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         // Validate request
         if (request == null) {
             return ResponseEntity.ok(ApiResponse.fail("Request body cannot be null"));
@@ -104,7 +195,7 @@ public class PurchaseController {
             return ResponseEntity.ok(ApiResponse.fail("Payment details are required"));
         }
 
-        return ApiResponseBuilder.build(() -> {
+        return idempotent(idempotencyKey, "offer", request, data -> null, () -> ApiResponseBuilder.build(() -> {
             String username = extractUsernameFromToken();
             purchaseService.submitOffer(
                 String.valueOf(request.storeId()),
@@ -115,7 +206,7 @@ public class PurchaseController {
                 request.paymentDetails()
             );
             return null;
-        });
+        }));
     }
 
     /**
@@ -195,9 +286,11 @@ public class PurchaseController {
     /**
      * Submit a bid
      * POST /api/purchases/bid/submit
+     * Accepts an Idempotency-Key header, like /execute
      */
     @PostMapping("/bid/submit")
-    public ResponseEntity<ApiResponse<Void>> submitBid(@RequestBody BidSubmissionRequest request) {
+    public ResponseEntity<ApiResponse<Void>> submitBid(@RequestBody BidSubmissionRequest request,
+                                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         // Validate request
         if (request == null) {
             return ResponseEntity.ok(ApiResponse.fail("Request body cannot be null"));
@@ -224,7 +317,7 @@ public class PurchaseController {
             return ResponseEntity.ok(ApiResponse.fail("Payment details are required"));
         }
 
-        return ApiResponseBuilder.build(() -> {
+        return idempotent(idempotencyKey, "bid", request, data -> null, () -> ApiResponseBuilder.build(() -> {
             String username = extractUsernameFromToken();
             purchaseService.submitBid(
                 String.valueOf(request.storeId()),
@@ -235,7 +328,7 @@ public class PurchaseController {
                 request.paymentDetails() // Use actual payment details from request
             );
             return null;
-        });
+        }));
     }
 
     /**
@@ -1,5 +1,6 @@
 package market.controllers;
 
+import market.application.ListingImportReader;
 import market.application.StoreService;
 import market.domain.store.StoreDTO;
 import market.domain.store.Listing;
@@ -8,9 +9,11 @@ import market.dto.ProductDTO;
 import utils.ApiResponse;
 import utils.ApiResponseBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -210,6 +213,55 @@ public class StoreController {
         );
     }
 
+    /**
+     * Change prices of all listings in a store (optionally one category) by a percentage
+     * PUT /api/stores/listings/bulk/price
+     */
+    @PutMapping("/listings/bulk/price")
+    public ResponseEntity<ApiResponse<Integer>> adjustListingPrices(@RequestBody ProductDTO.BulkPriceEditRequest request) {
+        return ApiResponseBuilder.build(() ->
+            storeService.adjustListingPrices(
+                request.userName(),
+                request.storeID(),
+                request.category(),
+                request.percent()
+            )
+        );
+    }
+
+    /**
+     * Add (or remove) stock for all listings in a store (optionally one category)
+     * PUT /api/stores/listings/bulk/quantity
+     */
+    @PutMapping("/listings/bulk/quantity")
+    public ResponseEntity<ApiResponse<Integer>> adjustListingQuantities(@RequestBody ProductDTO.BulkQuantityEditRequest request) {
+        return ApiResponseBuilder.build(() ->
+            storeService.adjustListingQuantities(
+                request.userName(),
+                request.storeID(),
+                request.category(),
+                request.delta()
+            )
+        );
+    }
+
+    /**
+     * Bulk import listings from a CSV or NDJSON request body, streamed and written in batches
+     * POST /api/stores/{storeID}/listings/import?userName={userName}&format=csv|ndjson
+     * (format defaults to NDJSON for JSON content types, CSV otherwise)
+     */
+    @PostMapping("/{storeID}/listings/import")
+    public ResponseEntity<ApiResponse<ProductDTO.ListingImportReport>> importListings(
+            @PathVariable String storeID,
+            @RequestParam String userName,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) {
+        return ApiResponseBuilder.build(() ->
+            storeService.importListings(userName, storeID, body, ListingImportReader.Format.of(format, contentType))
+        );
+    }
+
     /**
      * Edit listing product name
      * PUT /api/stores/listings/name
@@ -258,6 +310,22 @@ public class StoreController {
         );
     }
 
+    /**
+     * Split a listing's stock over sub-counters for a high-contention sale (shards 0 or 1 turns it off)
+     * PUT /api/stores/listings/stock-shards
+     */
+    @PutMapping("/listings/stock-shards")
+    public ResponseEntity<ApiResponse<Boolean>> setListingStockShards(@RequestBody ProductDTO.StockShardsRequest request) {
+        return ApiResponseBuilder.build(() ->
+            storeService.setListingStockShards(
+                request.userName(),
+                request.storeID(),
+                request.listingId(),
+                request.shards()
+            )
+        );
+    }
+
     /**
      * Edit listing category
      * PUT /api/stores/listings/category
@@ -299,6 +367,16 @@ public class StoreController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get discounted unit prices of every active listing in a store at once
+     * GET /api/stores/{storeID}/price-sheet
+     */
+    @GetMapping("/{storeID}/price-sheet")
+    public ResponseEntity<ApiResponse<ProductDTO.PriceSheet>> getPriceSheet(@PathVariable String storeID) {
+        ApiResponse<ProductDTO.PriceSheet> response = storeService.getPriceSheet(storeID);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get store bag total price (without discounts)
      * POST /api/stores/{storeID}/bag/price
@@ -323,6 +401,18 @@ public class StoreController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Price a store bag and get a signed, short-lived quote of the result
+     * POST /api/stores/{storeID}/bag/quote
+     */
+    @PostMapping("/{storeID}/bag/quote")
+    public ResponseEntity<ApiResponse<ProductDTO.BagQuoteResponse>> getStoreBagQuote(
+            @PathVariable String storeID,
+            @RequestBody Map<String, Integer> productsToQuantity) {
+        ApiResponse<ProductDTO.BagQuoteResponse> response = storeService.getStoreBagQuote(storeID, productsToQuantity);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Check if user is owner
      * GET /api/stores/{storeID}/owners/{userID}/check
@@ -384,6 +474,19 @@ public class StoreController {
         );
     }
 
+    /**
+     * Get one page of the catalog grouped by store, keyset-paginated by product name
+     * GET /api/stores/info/page?cursor={nextCursor}&size=20
+     */
+    @GetMapping("/info/page")
+    public ResponseEntity<ApiResponse<market.dto.StoreDTO.StoreInfoPage>> getInformationAboutStoresAndProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponseBuilder.build(() ->
+            storeService.getInformationAboutStoresAndProductsPage(cursor, size)
+        );
+    }
+
     /**
      * Get listing repository
      * GET /api/stores/listings/repository
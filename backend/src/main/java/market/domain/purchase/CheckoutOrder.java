@@ -0,0 +1,182 @@
+package market.domain.purchase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * The persisted state of one regular checkout.
+ * <p>
+ * A checkout takes the stock and creates the order in one short transaction, then talks to
+ * the payment and shipment services outside any transaction, and records each outcome as a
+ * status change:
+ * <pre>
+ * PENDING_PAYMENT ──paid──▶ PAID ──shipped──▶ COMPLETED
+ *        │                    │
+ *        └──────failed────────┴──▶ CANCELLED (stock restored)
+ * </pre>
+ * Steps that must eventually run even if the server stops mid-checkout are recorded in the
+ * outbox ({@link CheckoutOutboxEvent}) together with the status change that requires them.
+ */
+@Entity
+@Table(name = "checkout_orders")
+public class CheckoutOrder {
+
+    public enum Status {
+        PENDING_PAYMENT, PAID, COMPLETED, CANCELLED;
+
+        public boolean isFinal() {
+            return this == COMPLETED || this == CANCELLED;
+        }
+    }
+
+    @Id
+    @Column(name = "order_id")
+    private String orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "checkout_order_items", joinColumns = @JoinColumn(name = "order_id"))
+    private List<PurchasedProduct> items = new ArrayList<>();
+
+    @Column(name = "total_price", nullable = false)
+    private double totalPrice;
+
+    @Column(name = "shipping_address")
+    private String shippingAddress;
+
+    @Column(name = "contact_info")
+    private String contactInfo;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    // The payment provider's transaction ID, to cancel the payment by
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    @Column(name = "purchase_id")
+    private String purchaseId;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    // Concurrent status changes (a request and the outbox relay) must not both commit
+    @Version
+    private Long version;
+
+    protected CheckoutOrder() {}
+
+    public CheckoutOrder(String userId, List<PurchasedProduct> items, double totalPrice,
+                         String shippingAddress, String contactInfo, long createdAt) {
+        this.orderId = UUID.randomUUID().toString();
+        this.userId = userId;
+        this.status = Status.PENDING_PAYMENT;
+        this.items = new ArrayList<>(items);
+        this.totalPrice = totalPrice;
+        this.shippingAddress = shippingAddress;
+        this.contactInfo = contactInfo;
+        this.createdAt = createdAt;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public List<PurchasedProduct> getItems() {
+        return items;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public String getContactInfo() {
+        return contactInfo;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public String getPurchaseId() {
+        return purchaseId;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public synchronized void markPaid(String paymentId) {
+        requireStatus(Status.PENDING_PAYMENT);
+        status = Status.PAID;
+        this.paymentId = paymentId;
+    }
+
+    public synchronized void markCompleted(String purchaseId) {
+        requireStatus(Status.PAID);
+        this.status = Status.COMPLETED;
+        this.purchaseId = purchaseId;
+    }
+
+    public synchronized void markCancelled(String reason) {
+        if (status.isFinal()) {
+            throw new IllegalStateException("Order " + orderId + " is already " + status);
+        }
+        this.status = Status.CANCELLED;
+        this.failureReason = reason;
+    }
+
+    /**
+     * @return The ordered quantities per listing, grouped by store ID.
+     */
+    public Map<String, Map<String, Integer>> toStockMap() {
+        Map<String, Map<String, Integer>> stockMap = new HashMap<>();
+        for (PurchasedProduct item : items) {
+            stockMap.computeIfAbsent(item.getStoreId(), k -> new HashMap<>()).merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return stockMap;
+    }
+
+    private void requireStatus(Status expected) {
+        if (status != expected) {
+            throw new IllegalStateException("Order " + orderId + " is " + status + ", expected " + expected);
+        }
+    }
+}
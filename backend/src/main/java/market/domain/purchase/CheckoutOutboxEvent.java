@@ -0,0 +1,106 @@
+package market.domain.purchase;
+
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A checkout step that still has to run, written in the same transaction as the order status
+ * change that requires it. The outbox relay runs due events until they succeed, so a step is
+ * not lost when the server stops or an external call fails.
+ */
+@Entity
+@Table(name = "checkout_outbox")
+public class CheckoutOutboxEvent {
+
+    public enum Type {
+        /** Cancel the order if it is still waiting for payment (the checkout stopped mid-payment). */
+        PAYMENT_TIMEOUT,
+        /** Ship a paid order, then complete it. */
+        SHIP,
+        /** Cancel a paid order that could not be shipped: cancel the payment and give the stock back. */
+        COMPENSATE
+    }
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(name = "order_id", nullable = false)
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private Type type;
+
+    /** Earliest time (epoch milliseconds) the event may run; pushed forward while it runs and after failures. */
+    @Column(name = "due_at", nullable = false)
+    private long dueAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "done", nullable = false)
+    private boolean done;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    protected CheckoutOutboxEvent() {}
+
+    public CheckoutOutboxEvent(String orderId, Type type, long dueAt) {
+        this.eventId = UUID.randomUUID().toString();
+        this.orderId = orderId;
+        this.type = type;
+        this.dueAt = dueAt;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    // State changes used by the in-memory repository; the JPA repository issues guarded UPDATEs instead.
+
+    public void claim(long leaseUntil) {
+        this.dueAt = leaseUntil;
+        this.attempts++;
+    }
+
+    public void reschedule(long dueAt, String error) {
+        this.dueAt = dueAt;
+        this.lastError = error;
+    }
+
+    public void markDone() {
+        this.done = true;
+    }
+}
@@ -0,0 +1,8 @@
+package market.domain.purchase;
+
+import java.util.Optional;
+
+public interface ICheckoutOrderRepository {
+    CheckoutOrder save(CheckoutOrder order);
+    Optional<CheckoutOrder> findById(String orderId);
+}
@@ -0,0 +1,34 @@
+package market.domain.purchase;
+
+import java.util.List;
+
+public interface ICheckoutOutboxRepository {
+    CheckoutOutboxEvent save(CheckoutOutboxEvent event);
+
+    /**
+     * @return Up to {@code limit} pending events due at or before {@code now}, earliest first.
+     */
+    List<CheckoutOutboxEvent> findDue(long now, int limit);
+
+    /**
+     * Claims a due event for one runner: pushes its due time to {@code leaseUntil} and counts the
+     * attempt, but only if it is still pending and due at {@code now}. Another runner that read the
+     * same event therefore cannot claim it until the lease runs out.
+     *
+     * @return {@code true} if this caller claimed the event.
+     */
+    boolean claim(String eventId, long now, long leaseUntil);
+
+    /**
+     * Schedules another attempt of a claimed event.
+     */
+    void reschedule(String eventId, long dueAt, String error);
+
+    void markDone(String eventId);
+
+    /**
+     * Marks the pending events of the given type for an order as done, e.g. the payment timeout
+     * once the payment succeeded.
+     */
+    void cancelPending(String orderId, CheckoutOutboxEvent.Type type);
+}
@@ -0,0 +1,32 @@
+package market.domain.purchase;
+
+import java.util.Optional;
+
+public interface IIdempotencyRepository {
+
+    /**
+     * Stores a new in-progress record unless a record with the same key exists and has not
+     * expired at {@code now}; an expired one is replaced. When several callers race for one key,
+     * exactly one claims it. The claim is committed on its own, before the request runs.
+     *
+     * @return {@code true} if this caller claimed the key.
+     */
+    boolean claim(IdempotencyRecord record, long now);
+
+    Optional<IdempotencyRecord> findById(String recordKey);
+
+    /**
+     * Stores the response of a claimed request and keeps it until {@code expiresAt}.
+     */
+    void complete(String recordKey, int httpStatus, boolean success, String responseData, String responseError, long expiresAt);
+
+    /**
+     * Drops a claim whose request should be allowed to run again (e.g. it failed with a server error).
+     */
+    void release(String recordKey);
+
+    /**
+     * @return The number of records that expired at or before {@code now} and were deleted.
+     */
+    int deleteExpired(long now);
+}
@@ -5,6 +5,12 @@ import java.util.List;
 public interface IPurchaseRepository {
     void save(Purchase purchase);
 
+    /**
+     * Saves new purchases together, so that a persistent implementation can write them and their
+     * products in batched inserts.
+     */
+    void saveAll(List<Purchase> purchases);
+
     List<Purchase> getPurchasesByUser(String userId);
 
     List<Purchase> getPurchasesByStore(String storeId);
@@ -0,0 +1,29 @@
+package market.domain.purchase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface IStockReservationRepository {
+    StockReservation save(StockReservation reservation);
+    Optional<StockReservation> findById(String reservationId);
+    Optional<StockReservation> findByUserId(String userId);
+
+    /**
+     * Removes a reservation and returns it. When several callers race to remove the same
+     * reservation (a purchase confirming it, the sweeper expiring it), exactly one gets it back.
+     *
+     * @return The removed reservation, or empty if it was already gone.
+     */
+    Optional<StockReservation> remove(String reservationId);
+
+    /**
+     * @return IDs of the reservations that expired at or before {@code now} (epoch milliseconds).
+     */
+    List<String> findExpiredIds(long now);
+
+    /**
+     * @return Units currently held per listing ID of the store; listings without holds are omitted.
+     */
+    Map<String, Integer> getReservedQuantities(String storeId);
+}
@@ -0,0 +1,112 @@
+package market.domain.purchase;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The outcome of a request sent with an {@code Idempotency-Key}, so that a retry with the same key
+ * gets the stored response instead of running the purchase, bid or offer again.
+ * <p>
+ * A record is claimed before the request runs ({@code completed = false}) and holds the response
+ * once it finished. While in progress it expires after a short lock time, so a request that died
+ * mid-way does not block its key forever; a completed record expires after the retention time.
+ */
+@Entity
+@Table(name = "idempotency_records")
+public class IdempotencyRecord {
+
+    /** Longest accepted {@code Idempotency-Key} header. */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    /** Scope, user and client key; see {@link #keyOf}. */
+    @Id
+    @Column(name = "record_key", length = 320)
+    private String recordKey;
+
+    /** Hash of the request body, to reject a key reused for a different request. */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "http_status", nullable = false)
+    private int httpStatus;
+
+    @Column(name = "success", nullable = false)
+    private boolean success;
+
+    @Column(name = "response_data", length = 4000)
+    private String responseData;
+
+    @Column(name = "response_error", length = 4000)
+    private String responseError;
+
+    /** Epoch milliseconds after which the record no longer counts and may be replaced. */
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    protected IdempotencyRecord() {}
+
+    public IdempotencyRecord(String recordKey, String requestHash, long expiresAt) {
+        this.recordKey = recordKey;
+        this.requestHash = requestHash;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return The record key of a client key: keys are per endpoint and per user, so two users
+     *         (or a purchase and a bid) never share an outcome by picking the same key.
+     */
+    public static String keyOf(String scope, String userId, String idempotencyKey) {
+        return scope + ":" + userId + ":" + idempotencyKey;
+    }
+
+    public String getRecordKey() {
+        return recordKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getResponseData() {
+        return responseData;
+    }
+
+    public String getResponseError() {
+        return responseError;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    // Used by the in-memory repository; the JPA repository issues an UPDATE instead.
+    public void complete(int httpStatus, boolean success, String responseData, String responseError, long expiresAt) {
+        this.completed = true;
+        this.httpStatus = httpStatus;
+        this.success = success;
+        this.responseData = responseData;
+        this.responseError = responseError;
+        this.expiresAt = expiresAt;
+    }
+}
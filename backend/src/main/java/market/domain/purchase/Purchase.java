@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.util.UUID;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,6 +18,8 @@ import java.util.List;
 @Table(name = "purchases")
 public class Purchase {
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     @Id
     @Column(name = "purchase_id", nullable = false, unique = true)
     private String purchaseId;
@@ -42,7 +45,7 @@ public class Purchase {
 
     public Purchase(String userId, List<PurchasedProduct> products, double totalPrice,
                     String shippingAddress, String contactInfo) {
-        this.purchaseId = UUID.randomUUID().toString(); //for the JPA
+        this.purchaseId = newPurchaseId(); //for the JPA
         this.userId = userId;
         this.products = products;
         this.totalPrice = totalPrice;
@@ -78,4 +81,16 @@ public class Purchase {
     public String getPurchaseId() {
         return purchaseId;
     }
+
+    /**
+     * A time-ordered UUID (version 7 layout): 48 bits of epoch milliseconds, then random bits.
+     * New purchases sort after older ones, so their primary key inserts append to the end of the
+     * index instead of landing on random pages as a random UUID would.
+     */
+    static String newPurchaseId() {
+        long millis = System.currentTimeMillis();
+        long high = (millis << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+        long low = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(high, low).toString();
+    }
 }
@@ -9,6 +9,21 @@ import java.util.List;
 public class RegularPurchase {
 
     public Purchase purchase(String userId, List<PurchasedProduct> purchasedItems, String shippingAddress, String paymentDetails, double totalDiscountPrice, IPaymentService paymentService, IShipmentService shipmentService) throws IllegalArgumentException, RuntimeException {
+        double total = total(purchasedItems, totalDiscountPrice);
+        ApiResponse<String> paymentResponse = paymentService.processPayment(paymentDetails);
+        if (!paymentResponse.isSuccess() || paymentResponse.getData() == null || paymentResponse.getData().isBlank()) {
+            throw new RuntimeException("Payment failed for user: " + userId);
+        }
+        double totalWeight = calculateTotalWeight(purchasedItems); 
+        shipmentService.ship(shippingAddress, userId, totalWeight);
+        return new Purchase(userId, purchasedItems, total, shippingAddress, paymentDetails);
+    }
+
+    /**
+     * @return The price of the items minus the discount, never negative.
+     * @throws IllegalArgumentException if there are no items.
+     */
+    public static double total(List<PurchasedProduct> purchasedItems, double totalDiscountPrice) {
         double total = 0.0;
         if(purchasedItems == null || purchasedItems.isEmpty()) {
             throw new IllegalArgumentException("Items list cannot be null or empty");
@@ -20,16 +35,10 @@ public class RegularPurchase {
         if(total < 0) {
             total = 0; // Ensure total is not negative
         }
-        ApiResponse<Boolean> paymentResponse = paymentService.processPayment(paymentDetails);
-        if (!paymentResponse.isSuccess() || paymentResponse.getData() == null || !paymentResponse.getData()) {
-            throw new RuntimeException("Payment failed for user: " + userId);
-        }
-        double totalWeight = calculateTotalWeight(purchasedItems); 
-        shipmentService.ship(shippingAddress, userId, totalWeight);
-        return new Purchase(userId, purchasedItems, total, shippingAddress, paymentDetails);
+        return total;
     }
 
-    private double calculateTotalWeight(List<PurchasedProduct> products) {
+    public static double calculateTotalWeight(List<PurchasedProduct> products) {
         return products.size(); // Assuming each product has a weight of 1 for simplicity
     }
 }
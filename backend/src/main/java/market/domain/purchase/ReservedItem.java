@@ -0,0 +1,39 @@
+package market.domain.purchase;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units of one listing held by a {@link StockReservation}.
+ */
+@NoArgsConstructor
+@Embeddable
+public class ReservedItem {
+    @Column(name = "store_id", nullable = false)
+    private String storeId;
+
+    @Column(name = "listing_id", nullable = false)
+    private String listingId;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    public ReservedItem(String storeId, String listingId, int quantity) {
+        this.storeId = storeId;
+        this.listingId = listingId;
+        this.quantity = quantity;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
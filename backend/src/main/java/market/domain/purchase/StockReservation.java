@@ -0,0 +1,90 @@
+package market.domain.purchase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+
+/**
+ * A time-bounded hold on stock for a user's cart.
+ * <p>
+ * The held units are already taken from the listings when the reservation is created, so a
+ * checkout that confirms it cannot run out of stock. A reservation ends in exactly one of two
+ * ways: it is confirmed by a purchase (the units stay sold), or it is released, either
+ * explicitly or by the sweeper after {@link #getExpiresAt()} (the units go back to the listings).
+ */
+@Entity
+@Table(name = "stock_reservations")
+public class StockReservation {
+    @Id
+    @Column(name = "reservation_id")
+    private String reservationId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    /** Expiry time in epoch milliseconds. */
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "stock_reservation_items", joinColumns = @JoinColumn(name = "reservation_id"))
+    private List<ReservedItem> items = new ArrayList<>();
+
+    protected StockReservation() {}
+
+    /**
+     * @param userId    The user holding the stock.
+     * @param stockMap  Quantities per listing, grouped by store ID (the shape used by
+     *                  {@link market.domain.store.IListingRepository#updateOrRestoreStock}).
+     * @param expiresAt Expiry time in epoch milliseconds.
+     */
+    public StockReservation(String userId, Map<String, Map<String, Integer>> stockMap, long expiresAt) {
+        this.reservationId = UUID.randomUUID().toString();
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        stockMap.forEach((storeId, listings) ->
+            listings.forEach((listingId, quantity) -> items.add(new ReservedItem(storeId, listingId, quantity))));
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public List<ReservedItem> getItems() {
+        return items;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    /**
+     * @return The held quantities per listing, grouped by store ID.
+     */
+    public Map<String, Map<String, Integer>> toStockMap() {
+        Map<String, Map<String, Integer>> stockMap = new HashMap<>();
+        for (ReservedItem item : items) {
+            stockMap.computeIfAbsent(item.getStoreId(), k -> new HashMap<>()).put(item.getListingId(), item.getQuantity());
+        }
+        return stockMap;
+    }
+}
@@ -1,8 +1,11 @@
 package market.domain.store;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.data.domain.Slice;
+
 /**
  * Repository interface for managing and querying {@link Listing} entities.
  * This abstraction allows for flexible implementation of listing-related logic,
@@ -18,6 +21,14 @@ public interface IListingRepository {
      */
     Listing getListingById(String listingId);
 
+    /**
+     * Retrieves several listings in one round trip.
+     *
+     * @param listingIds The IDs to look up; duplicates are ignored.
+     * @return The found listings keyed by listing ID. Unknown IDs are absent from the map.
+     */
+    Map<String, Listing> getListingsByIds(Collection<String> listingIds);
+
     /**
      * Retrieves all listings for the given store.
      *
@@ -49,6 +60,56 @@ public interface IListingRepository {
      */
     List<Listing> getAllListings();
 
+    /**
+     * Returns one page of the catalog ordered by price, then listing ID (both ascending).
+     * Paging is keyset-based: the next page starts strictly after the given cursor, so the cost of
+     * a page does not grow with its depth.
+     *
+     * @param after    The cursor of the last listing on the previous page, or {@code null} for the first page.
+     * @param pageSize The maximum number of listings to return.
+     * @return The page content; {@link Slice#hasNext()} tells whether more listings follow.
+     */
+    Slice<Listing> getListingsPageByPrice(ListingCursor after, int pageSize);
+
+    /**
+     * Returns one page of the catalog ordered by product name, then listing ID (both ascending).
+     *
+     * @param after    The cursor of the last listing on the previous page, or {@code null} for the first page.
+     * @param pageSize The maximum number of listings to return.
+     * @return The page content; {@link Slice#hasNext()} tells whether more listings follow.
+     */
+    Slice<Listing> getListingsPageByName(ListingCursor after, int pageSize);
+
+    /**
+     * Runs a ranked text search over the listings, backed by an inverted index
+     * that is kept in sync with every add, remove and edit made through this repository.
+     *
+     * @param query The search text, filters and paging parameters.
+     * @return The matching listings for the requested page, best match first.
+     */
+    List<Listing> searchListings(ListingSearchQuery query);
+
+    /**
+     * Runs a price-ordered query (price range or top-N cheapest / most expensive), backed by a
+     * sorted index partitioned by store and category that is kept in sync with every add, remove
+     * and price or category edit made through this repository.
+     *
+     * @param query The filters, price range, direction and limit.
+     * @return The matching listings in price order, ties broken by listing ID.
+     */
+    List<Listing> getListingsByPrice(ListingPriceQuery query);
+
+    /**
+     * Returns category, store and price-bucket counts of the active listings matching the filters.
+     * The counts are maintained incrementally on every add, remove, edit, enable and disable, so a
+     * call costs O(number of facet values), not O(number of listings).
+     *
+     * @param storeId  Only this store, or {@code null} for all stores.
+     * @param category Only this category (case-insensitive), or {@code null} for all categories.
+     * @return The facet counts.
+     */
+    ListingFacets getFacetCounts(String storeId, String category);
+
     /**
      * Adds a new listing to the repository.
      *
@@ -58,6 +119,17 @@ public interface IListingRepository {
      */
     String addListing(Listing listing);
 
+    /**
+     * Adds a batch of new listings in one write; the persistent implementation sends the inserts
+     * as JDBC batches. Listing IDs are not checked against the store one by one, since freshly
+     * constructed listings get random UUIDs.
+     *
+     * @param listings The listings to add.
+     * @return The number of listings added.
+     * @throws IllegalArgumentException if a listing with the same ID already exists.
+     */
+    int addListings(List<Listing> listings);
+
     /**
      * Removes a listing by its ID.
      *
@@ -69,10 +141,44 @@ public interface IListingRepository {
     List<Listing> getListingsByProductIdAndStore(String productId, String storeId);
     List<Listing> getListingsByProductNameAndStore(String productName, String storeId);
     boolean updateOrRestoreStock(Map<String, Map<String, Integer>> listForUpdateStock, boolean isRestore);
+
+    /**
+     * Switches a listing to or from high-contention mode. With {@code shards} of 2 or more its stock is
+     * split over that many sub-counters, so concurrent purchases take units from different counters
+     * (stealing from the others when theirs runs out) instead of all updating one. With 0 or 1 the
+     * stock is folded back into a single counter. The total stock does not change.
+     *
+     * @param listingId The listing to switch.
+     * @param shards    The number of sub-counters, from 0 to {@link Listing#MAX_STOCK_SHARDS}.
+     * @throws IllegalArgumentException if the listing does not exist or {@code shards} is out of range.
+     */
+    void setStockShards(String listingId, int shards);
     List<Listing> getListingsByCategory(String category);
     List<Listing> getListingsByCategoryAndStore(String category, String storeId);
     void disableListingsByStoreId(String storeId);
     void enableListingsByStoreId(String storeId);
+
+    /**
+     * Changes the price of every active listing of a store by the same percentage, as one set-based update.
+     * The percentage is applied with 0.01% resolution and prices are rounded to two decimals.
+     *
+     * @param storeId  The store whose listings are updated.
+     * @param category Only listings in this category (case-insensitive), or {@code null} for the whole store.
+     * @param percent  The change in percent, e.g. {@code 10} for +10% or {@code -25} for 25% off; must be above -100.
+     * @return The number of listings updated.
+     */
+    int adjustPricesByPercent(String storeId, String category, double percent);
+
+    /**
+     * Adds the same amount to the stock of every active listing of a store, as one set-based update.
+     * A negative amount removes stock; no listing goes below zero.
+     *
+     * @param storeId  The store whose listings are updated.
+     * @param category Only listings in this category (case-insensitive), or {@code null} for the whole store.
+     * @param delta    The number of units to add (or remove, if negative).
+     * @return The number of listings updated.
+     */
+    int adjustQuantities(String storeId, String category, int delta);
     double calculateStoreBagWithoutDiscount(Map<String, Integer> prodsToQuantity) throws Exception;
     double ProductPrice(String listingId) throws Exception;
     boolean editPriceForListing(String listingId, Double newPrice)throws Exception;
@@ -1,6 +1,8 @@
 package market.domain.store;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for managing listings in a store.
@@ -16,6 +18,14 @@ public interface IStoreProductsManager {
      */
     String addListing(Listing listing);
 
+    /**
+     * Adds a batch of new listings to the store's catalog in one write.
+     *
+     * @param listings The listings to add; all must belong to this store and have fresh IDs.
+     * @return The number of listings added.
+     */
+    int addListings(List<Listing> listings);
+
     /**
      * Removes a listing from the store based on its ID.
      *
@@ -32,6 +42,14 @@ public interface IStoreProductsManager {
      */
     Listing getListingById(String listingId);
 
+    /**
+     * Retrieves several listings of this store in one round trip, e.g. all items of a store bag.
+     *
+     * @param listingIds IDs of the listings.
+     * @return The found listings keyed by listing ID; IDs that are unknown or belong to another store are absent.
+     */
+    Map<String, Listing> getListingsByIds(Collection<String> listingIds);
+
     /**
      * Retrieves all listings associated with a specific product name.
      *
@@ -89,6 +107,28 @@ Boolean editProductQuantity(String listingId, int newQuantity) throws Exception;
 
 Boolean editProductCategory(String listingId, String newCategory) throws Exception;
 
+/**
+ * Changes the price of all active listings in the store (or in one of its categories) by a percentage.
+ *
+ * @return The number of listings updated.
+ */
+int adjustPricesByPercent(String category, double percent);
+
+/**
+ * Adds (or, if negative, removes) stock for all active listings in the store (or in one of its categories).
+ *
+ * @return The number of listings updated.
+ */
+int adjustQuantities(String category, int delta);
+
+/**
+ * Splits a listing's stock over {@code shards} sub-counters for high-contention sales, or folds it
+ * back into one counter when {@code shards} is 0 or 1.
+ *
+ * @throws IllegalArgumentException if the listing is not in this store or {@code shards} is out of range.
+ */
+void setStockShards(String listingId, int shards);
+
 
 }
 
@@ -1,8 +1,13 @@
 package market.domain.store;
 
 import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import org.hibernate.annotations.Formula;
 import org.springframework.stereotype.Controller;
 
 import jakarta.persistence.*;
@@ -36,8 +41,39 @@ public class Listing {
     @Column(name = "product_description", nullable = true)
     private  String productDescription;  // Product description
     
+    // Volatile and updated through QUANTITY so that stock can be taken with a lock-free CAS.
     @Column(name = "quantity_available", nullable = false)
-    private int quantityAvailable;            // Stock for this listing
+    private volatile int quantityAvailable;   // Stock for this listing
+
+    private static final VarHandle QUANTITY;
+    static {
+        try {
+            QUANTITY = MethodHandles.lookup().findVarHandle(Listing.class, "quantityAvailable", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /*
+     * High-contention mode: the stock is split over stockShards sub-counters so that concurrent buyers
+     * take units from different counters instead of all racing on quantityAvailable. The listing's own
+     * counter stays part of the total and is the last place a buyer looks. The JPA repository keeps the
+     * sub-counters as listing_stock_shards rows (their sum is read into shardedQuantity on load), the
+     * in-memory repository keeps them in shardCounters.
+     */
+    public static final int MAX_STOCK_SHARDS = 64;
+
+    @Column(name = "stock_shards")
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private Integer stockShards;
+
+    @Formula("(CASE WHEN stock_shards > 0 THEN (SELECT COALESCE(SUM(s.quantity), 0) FROM listing_stock_shards s WHERE s.listing_id = listing_id) ELSE 0 END)")
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int shardedQuantity;
+
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private volatile AtomicIntegerArray shardCounters;
     
     @Column(name = "purchase_type", nullable = false)
     @Enumerated(EnumType.STRING) 
@@ -91,13 +127,198 @@ public class Listing {
      * @throws Exception if not enough stock or invalid purchase.
      */
     public boolean purchase(int quantityRequested) throws Exception {
-        if (quantityRequested > quantityAvailable) {
+        if (!tryTakeStock(quantityRequested)) {
             throw new Exception("Not enough stock available for listing " + listingId);
         }
-        quantityAvailable -= quantityRequested;
         return true;
     }
 
+    /**
+     * Atomically takes {@code quantity} units if that many are available (compare-and-set,
+     * no lock). Stock never goes below zero, however many threads race on the listing.
+     *
+     * @param quantity Number of units to take; must not be negative.
+     * @return {@code true} if the units were taken, {@code false} if stock was insufficient.
+     */
+    public boolean tryTakeStock(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Cannot take a negative quantity from listing " + listingId);
+        }
+        AtomicIntegerArray shards = shardCounters;
+        if (shards != null) {
+            return tryTakeSharded(shards, quantity);
+        }
+        int current;
+        do {
+            current = (int) QUANTITY.getVolatile(this);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!QUANTITY.compareAndSet(this, current, current - quantity));
+        return true;
+    }
+
+    // Starts at a random shard and steals from the following ones (then the listing's own counter)
+    // when it runs short; whatever was taken is given back if the total still falls short.
+    private boolean tryTakeSharded(AtomicIntegerArray shards, int quantity) {
+        int n = shards.length();
+        int home = ThreadLocalRandom.current().nextInt(n);
+        int[] taken = new int[n];
+        int remaining = quantity;
+        for (int k = 0; k < n && remaining > 0; k++) {
+            int i = (home + k) % n;
+            taken[i] = takeUpTo(shards, i, remaining);
+            remaining -= taken[i];
+        }
+        int fromOwn = remaining > 0 ? takeOwnUpTo(remaining) : 0;
+        remaining -= fromOwn;
+        if (remaining == 0) {
+            return true;
+        }
+        for (int i = 0; i < n; i++) {
+            if (taken[i] > 0) {
+                addToShard(shards, i, taken[i]);
+            }
+        }
+        QUANTITY.getAndAdd(this, fromOwn);
+        return false;
+    }
+
+    private static int takeUpTo(AtomicIntegerArray shards, int i, int max) {
+        int current;
+        int take;
+        do {
+            current = shards.get(i);
+            take = Math.min(current, max);
+            if (take <= 0) {
+                return 0;
+            }
+        } while (!shards.compareAndSet(i, current, current - take));
+        return take;
+    }
+
+    private int takeOwnUpTo(int max) {
+        int current;
+        int take;
+        do {
+            current = (int) QUANTITY.getVolatile(this);
+            take = Math.min(current, max);
+            if (take <= 0) {
+                return 0;
+            }
+        } while (!QUANTITY.compareAndSet(this, current, current - take));
+        return take;
+    }
+
+    // Units added to a shard array that shardStock has just replaced are moved to the listing's own counter
+    private void addToShard(AtomicIntegerArray shards, int i, int quantity) {
+        shards.addAndGet(i, quantity);
+        if (shardCounters != shards) {
+            int moved = shards.getAndSet(i, 0);
+            if (moved != 0) {
+                QUANTITY.getAndAdd(this, moved);
+            }
+        }
+    }
+
+    private boolean addToRandomShard(int quantity) {
+        AtomicIntegerArray shards = shardCounters;
+        if (shards == null) {
+            return false;
+        }
+        addToShard(shards, ThreadLocalRandom.current().nextInt(shards.length()), quantity);
+        return true;
+    }
+
+    /**
+     * Splits the stock over {@code shards} in-memory counters, or folds it back into the listing's own
+     * counter when {@code shards} is below 2. Used by the in-memory repository; buyers racing with the
+     * switch may briefly see less stock, but no unit is lost.
+     */
+    public synchronized void shardStock(int shards) {
+        layOutStock(drainStock(), shards);
+    }
+
+    // Empties every counter and returns the units they held
+    private int drainStock() {
+        AtomicIntegerArray old = shardCounters;
+        shardCounters = null;
+        int total = (int) QUANTITY.getAndSet(this, 0);
+        if (old != null) {
+            for (int i = 0; i < old.length(); i++) {
+                total += old.getAndSet(i, 0);
+            }
+        }
+        return total;
+    }
+
+    private void layOutStock(int total, int shards) {
+        if (shards < 2) {
+            stockShards = 0;
+            QUANTITY.getAndAdd(this, total);
+            return;
+        }
+        stockShards = shards;
+        shardCounters = new AtomicIntegerArray(spreadStock(total, shards));
+    }
+
+    /**
+     * Records the shard layout written by the JPA repository: {@code shards} listing_stock_shards rows
+     * holding {@code shardedQuantity} units, and {@code ownQuantity} units left on the listing itself.
+     */
+    public void setStockLayout(int shards, int ownQuantity, int shardedQuantity) {
+        if (ownQuantity < 0 || shardedQuantity < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        this.stockShards = shards;
+        this.quantityAvailable = ownQuantity;
+        this.shardedQuantity = shardedQuantity;
+    }
+
+    /**
+     * Splits {@code total} units as evenly as possible over {@code shards} counters.
+     */
+    public static int[] spreadStock(int total, int shards) {
+        int[] spread = new int[shards];
+        for (int i = 0; i < shards; i++) {
+            spread[i] = total / shards + (i < total % shards ? 1 : 0);
+        }
+        return spread;
+    }
+
+    /**
+     * Atomically adds {@code delta} units (removes them if negative), without going below zero.
+     *
+     * @return The new quantity.
+     */
+    public int addStockClamped(int delta) {
+        if (shardCounters != null) {
+            if (delta >= 0) {
+                addToRandomShard(delta);
+            } else {
+                takeClampedSharded(-delta);
+            }
+            return getQuantityAvailable();
+        }
+        int current;
+        int next;
+        do {
+            current = (int) QUANTITY.getVolatile(this);
+            next = (int) Math.max(0, Math.min(Integer.MAX_VALUE, (long) current + delta));
+        } while (!QUANTITY.compareAndSet(this, current, next));
+        return next;
+    }
+
+    private void takeClampedSharded(int quantity) {
+        int remaining = quantity - takeOwnUpTo(quantity);
+        AtomicIntegerArray shards = shardCounters;
+        if (shards != null) {
+            for (int i = 0; i < shards.length() && remaining > 0; i++) {
+                remaining -= takeUpTo(shards, i, remaining);
+            }
+        }
+    }
+
         /**
      * Attempts to restore a quantity to this listing.
      *
@@ -109,7 +330,9 @@ public class Listing {
         if (quantityRequested < 0) {
             throw new Exception("Cannot restore a negative quantity for listing " + listingId);
         }
-        quantityAvailable += quantityRequested;
+        if (!addToRandomShard(quantityRequested)) {
+            QUANTITY.getAndAdd(this, quantityRequested);
+        }
         return true;
     }
 
@@ -142,9 +365,34 @@ public class Listing {
     }
 
     public int getQuantityAvailable() {
+        return quantityAvailable + shardTotal();
+    }
+
+    private int shardTotal() {
+        int total = shardedQuantity;
+        AtomicIntegerArray shards = shardCounters;
+        if (shards != null) {
+            for (int i = 0; i < shards.length(); i++) {
+                total += shards.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The units held by the listing's own counter, leaving out its stock shards.
+     */
+    public int unshardedQuantity() {
         return quantityAvailable;
     }
 
+    /**
+     * @return The number of stock shards, or 0 when the listing keeps a single counter.
+     */
+    public int getStockShards() {
+        return stockShards == null ? 0 : stockShards;
+    }
+
     public PurchaseType getPurchaseType() {
         return purchaseType;
     }
@@ -188,6 +436,13 @@ public class Listing {
         if (newQuantity < 0) {
             throw new IllegalArgumentException("Quantity must be non-negative");
         }
+        if (shardCounters != null) {
+            synchronized (this) {
+                drainStock();
+                layOutStock(newQuantity, getStockShards());
+            }
+            return;
+        }
         this.quantityAvailable = newQuantity;
     }
 
@@ -195,5 +450,28 @@ public class Listing {
         this.category = (newCategory != null) ? newCategory : "";
     }
 
+    /**
+     * Returns a detached field-by-field copy of this listing, including its version.
+     * Used by caches so that callers never share a mutable instance.
+     */
+    public Listing copy() {
+        Listing copy = new Listing();
+        copy.listingId = listingId;
+        copy.storeId = storeId;
+        copy.productId = productId;
+        copy.productName = productName;
+        copy.productDescription = productDescription;
+        copy.quantityAvailable = quantityAvailable;
+        copy.stockShards = stockShards;
+        // A copy is a snapshot: in-memory shard counters are folded into its sharded total
+        copy.shardedQuantity = shardTotal();
+        copy.purchaseType = purchaseType;
+        copy.price = price;
+        copy.category = category;
+        copy.active = active;
+        copy.version = version;
+        return copy;
+    }
+
 
 }
@@ -0,0 +1,83 @@
+package market.domain.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position inside a sorted listing catalog.
+ * <p>
+ * A cursor holds the sort key (price or product name) and the listing ID of the last row
+ * returned, so the next page starts right after it with an indexed range lookup instead of
+ * skipping over all previous rows. The listing ID breaks ties between equal sort keys.
+ * Clients receive it as an opaque URL-safe token.
+ *
+ * @param sortKey   The sort key of the last returned listing.
+ * @param listingId The ID of the last returned listing.
+ */
+public record ListingCursor(String sortKey, String listingId) {
+
+    /** Largest page a catalog endpoint will return, whatever the client asks for. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final char SEPARATOR = '\n';
+
+    public ListingCursor {
+        if (sortKey == null || listingId == null) {
+            throw new IllegalArgumentException("Cursor key and listing ID must not be null");
+        }
+    }
+
+    public static ListingCursor after(Listing listing, boolean byPrice) {
+        String key = byPrice ? Double.toString(listing.getPrice()) : listing.getProductName();
+        return new ListingCursor(key, listing.getListingId());
+    }
+
+    /**
+     * Validates a requested page size and caps it at {@link #MAX_PAGE_SIZE}.
+     */
+    public static int pageSize(int requested) {
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * @return The sort key as a price; fails if the cursor was not produced by a price-sorted page.
+     */
+    public double price() {
+        try {
+            return Double.parseDouble(sortKey);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + listingId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token The token, or {@code null}/blank for the first page.
+     * @return The decoded cursor, or {@code null} for the first page.
+     */
+    public static ListingCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new ListingCursor(raw.substring(0, split), raw.substring(split + 1));
+    }
+}
@@ -0,0 +1,92 @@
+package market.domain.store;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Facet counts for a set of active listings: how many fall in each category, each store and
+ * each price bucket. Categories are lower-cased; listings without a category are counted under
+ * {@value #UNCATEGORIZED}.
+ *
+ * @param total        Number of listings counted.
+ * @param categories   Count per (lower-cased) category, sorted by name.
+ * @param stores       Count per store ID, sorted by ID.
+ * @param priceBuckets Count per price bucket, in ascending price order; see {@link #priceBucket}.
+ */
+public record ListingFacets(
+    long total,
+    Map<String, Long> categories,
+    Map<String, Long> stores,
+    Map<String, Long> priceBuckets
+) {
+
+    public static final String UNCATEGORIZED = "uncategorized";
+
+    /** Lower bounds of the price buckets; the last bucket is open-ended. */
+    private static final double[] BUCKET_BOUNDS = {0, 10, 25, 50, 100, 250, 500, 1000};
+    private static final String[] BUCKET_LABELS = {
+        "0-10", "10-25", "25-50", "50-100", "100-250", "250-500", "500-1000", "1000+"
+    };
+
+    /**
+     * @return The label of the bucket holding {@code price}; lower bounds are inclusive.
+     */
+    public static String priceBucket(double price) {
+        int i = BUCKET_BOUNDS.length - 1;
+        while (i > 0 && price < BUCKET_BOUNDS[i]) {
+            i--;
+        }
+        return BUCKET_LABELS[i];
+    }
+
+    public static String categoryKey(String category) {
+        return category == null || category.isBlank() ? UNCATEGORIZED : category.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds facets from raw counters, dropping zero counts and ordering the maps for display.
+     */
+    public static ListingFacets of(long total, Map<String, Long> categories, Map<String, Long> stores, Map<String, Long> priceBuckets) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (String label : BUCKET_LABELS) {
+            Long count = priceBuckets.get(label);
+            if (count != null && count > 0) {
+                buckets.put(label, count);
+            }
+        }
+        return new ListingFacets(total, nonZero(categories), nonZero(stores), buckets);
+    }
+
+    /**
+     * Counts the active listings of an already computed result set, e.g. search results.
+     */
+    public static ListingFacets of(Collection<Listing> listings) {
+        long total = 0;
+        Map<String, Long> categories = new TreeMap<>();
+        Map<String, Long> stores = new TreeMap<>();
+        Map<String, Long> buckets = new TreeMap<>();
+        for (Listing l : listings) {
+            if (!Boolean.TRUE.equals(l.isActive())) {
+                continue;
+            }
+            total++;
+            categories.merge(categoryKey(l.getCategory()), 1L, Long::sum);
+            stores.merge(l.getStoreId(), 1L, Long::sum);
+            buckets.merge(priceBucket(l.getPrice()), 1L, Long::sum);
+        }
+        return of(total, categories, stores, buckets);
+    }
+
+    private static Map<String, Long> nonZero(Map<String, Long> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        counts.forEach((k, v) -> {
+            if (v > 0) {
+                result.put(k, v);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package market.domain.store;
+
+/**
+ * Parameters for a price-ordered listing query: a price range, a top-N cheapest or a
+ * top-N most expensive lookup, optionally restricted to a store and/or a category.
+ * A {@code null} filter means "no filter".
+ *
+ * @param storeId    Restrict results to this store.
+ * @param category   Restrict results to this category (case-insensitive).
+ * @param minPrice   Minimum unit price (inclusive).
+ * @param maxPrice   Maximum unit price (inclusive).
+ * @param descending If {@code true}, the most expensive listings come first.
+ * @param limit      Maximum number of results to return ({@code <= 0} means unlimited).
+ */
+public record ListingPriceQuery(
+    String storeId,
+    String category,
+    Double minPrice,
+    Double maxPrice,
+    boolean descending,
+    int limit
+) {
+
+    public ListingPriceQuery {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+    }
+
+    /**
+     * Every listing, cheapest first.
+     */
+    public static ListingPriceQuery all() {
+        return new ListingPriceQuery(null, null, null, null, false, 0);
+    }
+
+    /**
+     * The {@code n} cheapest listings matching the filters.
+     */
+    public static ListingPriceQuery cheapest(String storeId, String category, int n) {
+        return new ListingPriceQuery(storeId, category, null, null, false, n);
+    }
+
+    /**
+     * The {@code n} most expensive listings matching the filters.
+     */
+    public static ListingPriceQuery mostExpensive(String storeId, String category, int n) {
+        return new ListingPriceQuery(storeId, category, null, null, true, n);
+    }
+}
@@ -0,0 +1,52 @@
+package market.domain.store;
+
+/**
+ * Parameters for a ranked listing search.
+ * <p>
+ * The text is matched as a case-insensitive substring against the product name and,
+ * unless {@code nameOnly} is set, also against the description and category.
+ * All other fields are optional filters: a {@code null} value means "no filter".
+ *
+ * @param text      Free text to look for (required, non-blank).
+ * @param nameOnly  If {@code true}, only the product name is searched.
+ * @param storeId   Restrict results to this store.
+ * @param category  Restrict results to this category (case-insensitive).
+ * @param minPrice  Minimum unit price (inclusive).
+ * @param maxPrice  Maximum unit price (inclusive).
+ * @param offset    Number of ranked results to skip.
+ * @param limit     Maximum number of results to return ({@code <= 0} means unlimited).
+ */
+public record ListingSearchQuery(
+    String text,
+    boolean nameOnly,
+    String storeId,
+    String category,
+    Double minPrice,
+    Double maxPrice,
+    int offset,
+    int limit
+) {
+
+    public ListingSearchQuery {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must be non-negative");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+    }
+
+    /**
+     * Name-only search across all stores, without paging.
+     */
+    public static ListingSearchQuery byName(String text) {
+        return new ListingSearchQuery(text, true, null, null, null, null, 0, 0);
+    }
+
+    /**
+     * Name-only search inside a single store, without paging.
+     */
+    public static ListingSearchQuery byNameInStore(String text, String storeId) {
+        return new ListingSearchQuery(text, true, storeId, null, null, null, 0, 0);
+    }
+}
@@ -0,0 +1,67 @@
+package market.domain.store;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One sub-counter of a listing's stock in high-contention mode (see {@link Listing#getStockShards()}).
+ * Buyers update different rows, so they do not all queue on the listing row's lock.
+ */
+@Entity
+@Table(name = "listing_stock_shards")
+public class ListingStockShard {
+
+    @Id
+    @Column(name = "shard_id")
+    private String shardId;
+
+    @Column(name = "listing_id", nullable = false)
+    private String listingId;
+
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    protected ListingStockShard() {}
+
+    public ListingStockShard(String listingId, int shardIndex, int quantity) {
+        this.shardId = idOf(listingId, shardIndex);
+        this.listingId = listingId;
+        this.shardIndex = shardIndex;
+        this.quantity = quantity;
+    }
+
+    /**
+     * @return The ID of a listing's shard, so that a shard can be updated without loading it first.
+     */
+    public static String idOf(String listingId, int shardIndex) {
+        return listingId + "#" + shardIndex;
+    }
+
+    public String getShardId() {
+        return shardId;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,176 @@
+package market.domain.store.Policies;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import market.domain.store.IStoreProductsManager;
+import market.domain.store.Listing;
+
+/**
+ * One store bag with its listings resolved and aggregated, for purchase policies and discounts.
+ * <p>
+ * A snapshot is built once per bag and then read by every policy, so the listings are looked up
+ * once and quantities per product and category and the gross total are summed once. It copies
+ * what the policies read from each listing (price, product ID, category), so later changes to a
+ * listing do not show through. Items keep the bag's iteration order, and sums are taken in that
+ * order, so results are exactly those of summing over the bag map.
+ */
+public final class BasketSnapshot {
+
+    /**
+     * A bag entry whose listing was found.
+     */
+    public record Item(String listingId, String productId, String category, double price, int quantity) {
+
+        /**
+         * @return Price times quantity.
+         */
+        public double subtotal() {
+            return price * quantity;
+        }
+    }
+
+    private final Map<String, Integer> quantities;
+    private final List<Item> items;
+    private final Set<String> missingListings;
+    private final int totalQuantity;
+    private final double total;
+    private final Map<String, List<Item>> itemsByProduct;
+    private final Map<String, List<Item>> itemsByCategory;
+    private final Map<String, Integer> quantityByProduct;
+    private final Map<String, Integer> quantityByCategory;
+
+    private BasketSnapshot(Map<String, Integer> bag, Map<String, Listing> listings) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        List<Item> items = new ArrayList<>(bag.size());
+        Set<String> missing = new LinkedHashSet<>();
+        Map<String, List<Item>> byProduct = new HashMap<>();
+        // Categories are matched ignoring case, as the policies compare them with equalsIgnoreCase
+        Map<String, List<Item>> byCategory = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, Integer> productQuantities = new HashMap<>();
+        Map<String, Integer> categoryQuantities = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        int totalQuantity = 0;
+        double total = 0.0;
+        for (Map.Entry<String, Integer> entry : bag.entrySet()) {
+            quantities.put(entry.getKey(), entry.getValue());
+            totalQuantity += entry.getValue();
+            Listing listing = listings.get(entry.getKey());
+            if (listing == null) {
+                missing.add(entry.getKey());
+                continue;
+            }
+            Item item = new Item(entry.getKey(), listing.getProductId(), listing.getCategory(), listing.getPrice(), entry.getValue());
+            items.add(item);
+            total += item.subtotal();
+            if (item.productId() != null) {
+                byProduct.computeIfAbsent(item.productId(), k -> new ArrayList<>()).add(item);
+                productQuantities.merge(item.productId(), item.quantity(), Integer::sum);
+            }
+            if (item.category() != null) {
+                byCategory.computeIfAbsent(item.category(), k -> new ArrayList<>()).add(item);
+                categoryQuantities.merge(item.category(), item.quantity(), Integer::sum);
+            }
+        }
+        this.quantities = Collections.unmodifiableMap(quantities);
+        this.items = List.copyOf(items);
+        this.missingListings = Collections.unmodifiableSet(missing);
+        this.totalQuantity = totalQuantity;
+        this.total = total;
+        byProduct.replaceAll((k, v) -> List.copyOf(v));
+        byCategory.replaceAll((k, v) -> List.copyOf(v));
+        this.itemsByProduct = Collections.unmodifiableMap(byProduct);
+        this.itemsByCategory = Collections.unmodifiableMap(byCategory);
+        this.quantityByProduct = Collections.unmodifiableMap(productQuantities);
+        this.quantityByCategory = Collections.unmodifiableMap(categoryQuantities);
+    }
+
+    /**
+     * @param bag      Quantity per listing ID.
+     * @param listings The bag's listings by ID, as already loaded; entries not in the bag are ignored.
+     */
+    public static BasketSnapshot of(Map<String, Integer> bag, Map<String, Listing> listings) {
+        return new BasketSnapshot(bag, listings);
+    }
+
+    /**
+     * Resolves the bag's listings through {@code productManager} and snapshots them.
+     */
+    public static BasketSnapshot of(Map<String, Integer> bag, IStoreProductsManager productManager) {
+        return new BasketSnapshot(bag, productManager.getListingsByIds(bag.keySet()));
+    }
+
+    /**
+     * @return Quantity per listing ID, in the bag's order, including listings that were not found.
+     */
+    public Map<String, Integer> quantities() {
+        return quantities;
+    }
+
+    /**
+     * @return The quantity of a bag entry, by listing ID, or 0.
+     */
+    public int quantityOf(String listingId) {
+        return quantities.getOrDefault(listingId, 0);
+    }
+
+    public boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    /**
+     * @return The entries whose listing was found, in the bag's order.
+     */
+    public List<Item> items() {
+        return items;
+    }
+
+    /**
+     * @return Listing IDs of the bag whose listing was not found.
+     */
+    public Set<String> missingListings() {
+        return missingListings;
+    }
+
+    /**
+     * @return The sum of all quantities in the bag, found or not.
+     */
+    public int totalQuantity() {
+        return totalQuantity;
+    }
+
+    /**
+     * @return The gross price of the found items.
+     */
+    public double total() {
+        return total;
+    }
+
+    /**
+     * @return The found items of a product, in the bag's order.
+     */
+    public List<Item> itemsOfProduct(String productId) {
+        return productId == null ? List.of() : itemsByProduct.getOrDefault(productId, List.of());
+    }
+
+    /**
+     * @return The found items whose category equals {@code category} ignoring case, in the bag's order.
+     */
+    public List<Item> itemsOfCategory(String category) {
+        return category == null ? List.of() : itemsByCategory.getOrDefault(category, List.of());
+    }
+
+    public int quantityOfProduct(String productId) {
+        return productId == null ? 0 : quantityByProduct.getOrDefault(productId, 0);
+    }
+
+    public int quantityOfCategory(String category) {
+        return category == null ? 0 : quantityByCategory.getOrDefault(category, 0);
+    }
+}
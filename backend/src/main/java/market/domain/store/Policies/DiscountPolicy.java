@@ -6,6 +6,15 @@ import market.dto.PolicyDTO;
 import java.util.Map;
 
 public interface DiscountPolicy {
-    double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager);
+    double calculateDiscount(BasketSnapshot basket);
+
+    /**
+     * Snapshots the bag and calculates its discount; evaluating several policies on one bag
+     * should share a {@link BasketSnapshot} instead.
+     */
+    default double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+        return calculateDiscount(BasketSnapshot.of(listings, productManager));
+    }
+
     PolicyDTO.AddDiscountRequest toDTO();
 }
@@ -1,10 +1,8 @@
 package market.domain.store.Policies;
 
 import jakarta.persistence.*;
-import market.domain.store.IStoreProductsManager;
 import market.domain.store.Store;
 import market.dto.PolicyDTO;
-import java.util.Map;
 
 /**
  * Base JPA class for discount policies so that they can be persisted per store.
@@ -26,7 +24,7 @@ public abstract class DiscountPolicyEntity implements DiscountPolicy {
     public void setStore(Store store) { this.store = store; }
 
     @Override
-    public abstract double calculateDiscount(Map<String,Integer> listings, IStoreProductsManager pm);
+    public abstract double calculateDiscount(BasketSnapshot basket);
 
     @Override
     public abstract PolicyDTO.AddDiscountRequest toDTO();
@@ -2,10 +2,9 @@ package market.domain.store.Policies.Discounts;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicy;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.domain.store.Policies.Discounts.DiscountCombinationType;
@@ -65,16 +64,16 @@ public class CompositeDiscountPolicy extends DiscountPolicyEntity {
     }
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public double calculateDiscount(BasketSnapshot basket) {
         double result = 0.0;
 
         if (combinationType == DiscountCombinationType.SUM) {
             for (DiscountPolicy policy : policies) {
-                result += policy.calculateDiscount(listings, productManager);
+                result += policy.calculateDiscount(basket);
             }
         } else if (combinationType == DiscountCombinationType.MAXIMUM) {
             for (DiscountPolicy policy : policies) {
-                double discount = policy.calculateDiscount(listings, productManager);
+                double discount = policy.calculateDiscount(basket);
                 if (discount > result) {
                     result = discount;
                 }
@@ -122,4 +121,8 @@ public class CompositeDiscountPolicy extends DiscountPolicyEntity {
     public int hashCode() {
         return Objects.hash(combinationType, policies);
     }
-}
\ No newline at end of file
+
+    public DiscountCombinationType getCombinationType() {
+        return combinationType;
+    }
+}
@@ -1,10 +1,13 @@
 package market.domain.store.Policies.Discounts;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.List;
 
-import market.domain.store.IStoreProductsManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicy;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.domain.store.Policies.Discounts.Conditions.DiscountCondition;
@@ -14,12 +17,18 @@ import market.dto.PolicyDTO;
 @jakarta.persistence.Table(name = "discount_conditional")
 public class ConditionalDiscountPolicy extends DiscountPolicyEntity {
 
+    // Shared by every instance; readers and writers are immutable and thread-safe
+    private static final ObjectMapper CONDITION_MAPPER = new ObjectMapper();
+    private static final ObjectReader CONDITION_READER = CONDITION_MAPPER.readerFor(PolicyDTO.DiscountCondition.class);
+    private static final ObjectWriter CONDITION_WRITER = CONDITION_MAPPER.writerFor(PolicyDTO.DiscountCondition.class);
+
     /**
      * The condition that must be satisfied for the discount to apply. We persist it as a
      * JSON string because DiscountCondition is an interface with multiple implementations.
+     * Parsed from the JSON on first use after a load.
      */
     @jakarta.persistence.Transient
-    private DiscountCondition condition;
+    private volatile DiscountCondition condition;
 
     @jakarta.persistence.Lob
     @jakarta.persistence.Column(name = "condition_json", columnDefinition = "TEXT")
@@ -44,9 +53,10 @@ public class ConditionalDiscountPolicy extends DiscountPolicyEntity {
     }
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        if (condition != null && condition.isSatisfied(listings, productManager)) {
-            return discount.calculateDiscount(listings, productManager);
+    public double calculateDiscount(BasketSnapshot basket) {
+        DiscountCondition condition = getCondition();
+        if (condition != null && condition.isSatisfied(basket)) {
+            return discount.calculateDiscount(basket);
         }
         return 0.0;
     }
@@ -60,7 +70,7 @@ public class ConditionalDiscountPolicy extends DiscountPolicyEntity {
             innerDto.scopeId(),    // scopeId from inner discount
             innerDto.value(),      // discount value
             innerDto.couponCode(), // coupon code (if any)
-            condition.toDTO(),     // the condition DTO for this conditional discount
+            getCondition().toDTO(), // the condition DTO for this conditional discount
             List.of(innerDto),     // subDiscounts — include the inner discount
             null                   // combinationType — not applicable for conditional
         );
@@ -71,12 +81,12 @@ public class ConditionalDiscountPolicy extends DiscountPolicyEntity {
         if (this == obj) return true; // Same object reference
         if (obj == null || getClass() != obj.getClass()) return false; // Different class or null object
         ConditionalDiscountPolicy that = (ConditionalDiscountPolicy) obj;
-        return condition.equals(that.condition) && discount.equals(that.discount); // Compare fields
+        return getCondition().equals(that.getCondition()) && discount.equals(that.discount); // Compare fields
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(condition, discount); // Hash based on fields
+        return Objects.hash(getCondition(), discount); // Hash based on fields
     }
 
     /* ----------- JSON (de)serialization hooks ----------- */
@@ -86,24 +96,34 @@ public class ConditionalDiscountPolicy extends DiscountPolicyEntity {
     private void serializeCondition() {
         if (condition != null) {
             try {
-                this.conditionJson = new com.fasterxml.jackson.databind.ObjectMapper()
-                        .writeValueAsString(condition.toDTO());
+                this.conditionJson = CONDITION_WRITER.writeValueAsString(condition.toDTO());
             } catch (Exception e) {
                 throw new RuntimeException("Failed to serialize DiscountCondition", e);
             }
         }
     }
 
-    @jakarta.persistence.PostLoad
-    private void deserializeCondition() {
-        if (conditionJson != null && (condition == null)) {
-            try {
-                var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                market.dto.PolicyDTO.DiscountCondition dto = mapper.readValue(conditionJson, market.dto.PolicyDTO.DiscountCondition.class);
-                this.condition = market.domain.store.Policies.Discounts.Conditions.ConditionFactory.fromDTO(dto);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to deserialize DiscountCondition", e);
-            }
+    // Not a @PostLoad hook: stores whose policy handler is cached never read the condition of a reloaded entity
+    private DiscountCondition deserializeCondition() {
+        try {
+            PolicyDTO.DiscountCondition dto = CONDITION_READER.readValue(conditionJson);
+            return market.domain.store.Policies.Discounts.Conditions.ConditionFactory.fromDTO(dto);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to deserialize DiscountCondition", e);
         }
     }
-}
\ No newline at end of file
+
+    public DiscountCondition getCondition() {
+        DiscountCondition current = condition;
+        if (current == null && conditionJson != null) {
+            // Parsing twice under a race is harmless; conditions are immutable
+            current = deserializeCondition();
+            condition = current;
+        }
+        return current;
+    }
+
+    public DiscountPolicy getDiscount() {
+        return discount;
+    }
+}
@@ -1,7 +1,6 @@
 package market.domain.store.Policies.Discounts.Conditions;
 
-import market.domain.store.IStoreProductsManager;
-import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
 import market.dto.PolicyDTO;
 
 import java.util.Collections;
@@ -30,17 +29,8 @@ public class BasketTotalCondition implements DiscountCondition {
     }
 
     @Override
-    public boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        double total = 0.0;
-
-        for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-            Listing listing = productManager.getListingById(entry.getKey());
-            if (listing != null) {
-                total += listing.getPrice() * entry.getValue();
-            }
-        }
-
-        return total >= minTotal;
+    public boolean isSatisfied(BasketSnapshot basket) {
+        return basket.total() >= minTotal;
     }
     
     @Override
@@ -52,4 +42,8 @@ public class BasketTotalCondition implements DiscountCondition {
             null                         // no logic operator
         );
     }
-}
\ No newline at end of file
+
+    public double getMinTotal() {
+        return minTotal;
+    }
+}
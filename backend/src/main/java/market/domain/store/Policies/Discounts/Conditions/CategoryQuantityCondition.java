@@ -3,8 +3,7 @@ package market.domain.store.Policies.Discounts.Conditions;
 import java.util.Collections;
 import java.util.Map;
 
-import market.domain.store.IStoreProductsManager;
-import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
 import market.dto.PolicyDTO;
 
 public class CategoryQuantityCondition implements DiscountCondition {
@@ -31,17 +30,8 @@ public class CategoryQuantityCondition implements DiscountCondition {
     }
 
     @Override
-    public boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        int count = 0;
-
-        for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-            Listing listing = productManager.getListingById(entry.getKey());
-            if (listing != null && listing.getCategory().equalsIgnoreCase(category)) {
-                count += entry.getValue();
-            }
-        }
-
-        return count >= minQuantity;
+    public boolean isSatisfied(BasketSnapshot basket) {
+        return basket.quantityOfCategory(category) >= minQuantity;
     }
 
     @Override
@@ -56,4 +46,12 @@ public class CategoryQuantityCondition implements DiscountCondition {
             null                              // no logic operator
         );
     }
-}
\ No newline at end of file
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getMinQuantity() {
+        return minQuantity;
+    }
+}
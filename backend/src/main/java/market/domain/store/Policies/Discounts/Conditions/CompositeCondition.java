@@ -2,7 +2,7 @@ package market.domain.store.Policies.Discounts.Conditions;
 
 import java.util.Map;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.dto.PolicyDTO;
 
 import java.util.List;
@@ -20,11 +20,11 @@ public class CompositeCondition implements DiscountCondition {
     }
 
     @Override
-    public boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public boolean isSatisfied(BasketSnapshot basket) {
         return switch (operator) {
-            case AND -> conditions.stream().allMatch(c -> c.isSatisfied(listings, productManager));
-            case OR -> conditions.stream().anyMatch(c -> c.isSatisfied(listings, productManager));
-            case XOR -> conditions.stream().filter(c -> c.isSatisfied(listings, productManager)).count() == 1;
+            case AND -> conditions.stream().allMatch(c -> c.isSatisfied(basket));
+            case OR -> conditions.stream().anyMatch(c -> c.isSatisfied(basket));
+            case XOR -> conditions.stream().filter(c -> c.isSatisfied(basket)).count() == 1;
         };
     }
 
@@ -41,4 +41,12 @@ public class CompositeCondition implements DiscountCondition {
             operator.name()        // logic operator as string: AND, OR, XOR
         );
     }
-}
\ No newline at end of file
+
+    public List<DiscountCondition> getConditions() {
+        return conditions;
+    }
+
+    public LogicOperator getOperator() {
+        return operator;
+    }
+}
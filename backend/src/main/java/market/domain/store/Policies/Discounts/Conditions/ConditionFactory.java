@@ -15,7 +15,8 @@ public class ConditionFactory {
                     (String) dto.params().get("productId"),
                     ((Number) dto.params().get("minQuantity")).intValue()
                 );
-            case "PRODUCT_CATEGORY_CONTAINS" ->
+            // CategoryQuantityCondition.toDTO writes CATEGORY_QUANTITY_AT_LEAST
+            case "PRODUCT_CATEGORY_CONTAINS", "CATEGORY_QUANTITY_AT_LEAST" ->
                 ConditionFactory.categoryQuantityAtLeast(
                     (String) dto.params().get("category"),
                     ((Number) dto.params().getOrDefault("minQuantity", 1)).intValue()
@@ -3,9 +3,18 @@ package market.domain.store.Policies.Discounts.Conditions;
 import java.util.Map;
 
 import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.dto.PolicyDTO;
 
 public interface DiscountCondition {
-    boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager);
+    boolean isSatisfied(BasketSnapshot basket);
+
+    /**
+     * Snapshots the bag and checks the condition on it.
+     */
+    default boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager) {
+        return isSatisfied(BasketSnapshot.of(listings, productManager));
+    }
+
     PolicyDTO.DiscountCondition toDTO();
 }
@@ -3,7 +3,7 @@ package market.domain.store.Policies.Discounts.Conditions;
 import java.util.Collections;
 import java.util.Map;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.dto.PolicyDTO;
 
 public class ProductQuantityCondition implements DiscountCondition {
@@ -17,9 +17,9 @@ public class ProductQuantityCondition implements DiscountCondition {
     }
 
     @Override
-    public boolean isSatisfied(Map<String, Integer> listings, IStoreProductsManager productManager) {
-
-        return listings.getOrDefault(productId, 0) >= minQuantity;
+    public boolean isSatisfied(BasketSnapshot basket) {
+        // Keyed by the bag's own keys (listing IDs)
+        return basket.quantityOf(productId) >= minQuantity;
     }
 
     @Override
@@ -34,4 +34,12 @@ public class ProductQuantityCondition implements DiscountCondition {
             null                     // no logic operator
         );
     }
-}
\ No newline at end of file
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getMinQuantity() {
+        return minQuantity;
+    }
+}
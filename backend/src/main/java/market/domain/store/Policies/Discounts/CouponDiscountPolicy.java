@@ -1,13 +1,12 @@
 package market.domain.store.Policies.Discounts;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicy;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
-import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -42,7 +41,7 @@ public class CouponDiscountPolicy extends DiscountPolicyEntity {
     }
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings,IStoreProductsManager productManager) {
+    public double calculateDiscount(BasketSnapshot basket) {
         if (couponUsed) {
             return discountAmount;
         }
@@ -1,12 +1,11 @@
 package market.domain.store.Policies.Discounts;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
-import java.util.Map;
 import java.util.Objects;
 
 // The default policy: no discount
@@ -16,7 +15,7 @@ public class DefaultDiscountPolicy extends DiscountPolicyEntity {
     public DefaultDiscountPolicy() {}
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public double calculateDiscount(BasketSnapshot basket) {
         return 0;
     }
 
@@ -0,0 +1,391 @@
+package market.domain.store.Policies.Discounts;
+
+import java.util.List;
+import java.util.Map;
+
+import market.domain.store.IStoreProductsManager;
+import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
+import market.domain.store.Policies.DiscountPolicy;
+import market.domain.store.Policies.Discounts.Conditions.BasketTotalCondition;
+import market.domain.store.Policies.Discounts.Conditions.CategoryQuantityCondition;
+import market.domain.store.Policies.Discounts.Conditions.CompositeCondition;
+import market.domain.store.Policies.Discounts.Conditions.DiscountCondition;
+import market.domain.store.Policies.Discounts.Conditions.LogicOperator;
+import market.domain.store.Policies.Discounts.Conditions.ProductQuantityCondition;
+
+/**
+ * A discount policy tree compiled for evaluation.
+ * <p>
+ * The tree is walked once, when the plan is compiled, into closures that read a
+ * {@link BasketSnapshot}: targeted nodes only visit the snapshot's items of their product or
+ * category, and conditions read its aggregates. The arithmetic and the order of the items are the
+ * same as in the policies themselves, so a plan returns exactly what the tree would.
+ * <p>
+ * Policies without a compiled form (coupons, the default policy, or any other implementation)
+ * are evaluated as they are, when the plan runs, so state such as a submitted coupon is honoured.
+ * <p>
+ * {@link #unitDiscounts} prices one unit of each of many listings at once. It evaluates every
+ * node over arrays holding all the listings, instead of running the tree once per one-item bag.
+ */
+public final class DiscountPlan {
+
+    private interface Node {
+        double discount(BasketSnapshot basket);
+    }
+
+    private interface Check {
+        boolean test(BasketSnapshot basket);
+    }
+
+    private interface UnitNode {
+        double[] discounts(Units units);
+    }
+
+    private interface UnitCheck {
+        boolean[] test(Units units);
+    }
+
+    private final DiscountPolicy policy;
+    private final Node root;
+    // Compiled on the first unitDiscounts call; most plans only ever price bags
+    private volatile UnitNode unitRoot;
+
+    private DiscountPlan(DiscountPolicy policy) {
+        this.policy = policy;
+        this.root = node(policy);
+    }
+
+    public static DiscountPlan compile(CompositeDiscountPolicy root) {
+        return new DiscountPlan(root);
+    }
+
+    /**
+     * @return The discount of the compiled tree, equal to its {@code calculateDiscount} on the same bag.
+     */
+    public double calculateDiscount(BasketSnapshot basket) {
+        return root.discount(basket);
+    }
+
+    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+        return calculateDiscount(BasketSnapshot.of(listings, productManager));
+    }
+
+    /**
+     * @return For each listing, in order, the discount of the compiled tree on a bag of one unit of
+     *         that listing alone, equal to its {@code calculateDiscount} on that bag.
+     */
+    public double[] unitDiscounts(List<Listing> listings) {
+        UnitNode unit = unitRoot;
+        if (unit == null) {
+            unit = unitNode(policy);
+            unitRoot = unit;
+        }
+        return unit.discounts(new Units(listings));
+    }
+
+    /* ----------- Compilation ----------- */
+
+    private Node node(DiscountPolicy policy) {
+        if (policy instanceof CompositeDiscountPolicy composite) {
+            return compileComposite(composite);
+        }
+        if (policy instanceof ConditionalDiscountPolicy conditional) {
+            return compileConditional(conditional);
+        }
+        if (policy instanceof PercentageTargetedDiscount percentage) {
+            return compilePercentage(percentage);
+        }
+        if (policy instanceof FixedDiscountPolicy fixed) {
+            return compileFixed(fixed);
+        }
+        return policy::calculateDiscount;
+    }
+
+    private Node compileComposite(CompositeDiscountPolicy composite) {
+        List<Node> children = composite.getPolicies().stream().map(this::node).toList();
+        DiscountCombinationType type = composite.getCombinationType();
+        return basket -> {
+            double result = 0.0;
+            if (type == DiscountCombinationType.SUM) {
+                for (Node child : children) {
+                    result += child.discount(basket);
+                }
+            } else if (type == DiscountCombinationType.MAXIMUM) {
+                for (Node child : children) {
+                    double discount = child.discount(basket);
+                    if (discount > result) {
+                        result = discount;
+                    }
+                }
+            }
+            if (result < 0.0) {
+                result = 0.0;
+            }
+            return result;
+        };
+    }
+
+    private Node compileConditional(ConditionalDiscountPolicy conditional) {
+        if (conditional.getCondition() == null) {
+            return basket -> 0.0;
+        }
+        Check condition = check(conditional.getCondition());
+        Node inner = node(conditional.getDiscount());
+        return basket -> condition.test(basket) ? inner.discount(basket) : 0.0;
+    }
+
+    private Node compilePercentage(PercentageTargetedDiscount policy) {
+        DiscountTargetType targetType = policy.getTargetType();
+        String targetId = policy.getTargetId();
+        double percentage = policy.getPercentage();
+        return basket -> {
+            double discount = 0.0;
+            for (BasketSnapshot.Item item : items(basket, targetType, targetId)) {
+                discount += item.subtotal() * (percentage / 100.0);
+            }
+            return discount;
+        };
+    }
+
+    private Node compileFixed(FixedDiscountPolicy policy) {
+        DiscountTargetType targetType = policy.getTargetType();
+        String targetId = policy.getTargetId();
+        double fixedAmount = policy.getFixedAmount();
+        if (targetType == DiscountTargetType.STORE) {
+            // Applied once to the whole bag
+            return basket -> Math.min(basket.isEmpty() ? 0.0 : fixedAmount, basket.total());
+        }
+        return basket -> {
+            double discount = 0.0;
+            double totalPrice = 0.0;
+            for (BasketSnapshot.Item item : items(basket, targetType, targetId)) {
+                totalPrice += item.subtotal();
+                discount += fixedAmount * item.quantity();
+            }
+            return Math.min(discount, totalPrice);
+        };
+    }
+
+    private static List<BasketSnapshot.Item> items(BasketSnapshot basket, DiscountTargetType targetType, String targetId) {
+        return switch (targetType) {
+            case STORE -> basket.items();
+            case PRODUCT -> basket.itemsOfProduct(targetId);
+            case CATEGORY -> basket.itemsOfCategory(targetId);
+        };
+    }
+
+    private Check check(DiscountCondition condition) {
+        if (condition instanceof BasketTotalCondition total) {
+            double minTotal = total.getMinTotal();
+            return basket -> basket.total() >= minTotal;
+        }
+        if (condition instanceof CategoryQuantityCondition category) {
+            String targetId = category.getCategory();
+            int minQuantity = category.getMinQuantity();
+            return basket -> basket.quantityOfCategory(targetId) >= minQuantity;
+        }
+        if (condition instanceof ProductQuantityCondition product) {
+            // Keyed by the bag's own keys, as the condition itself is
+            String productId = product.getProductId();
+            int minQuantity = product.getMinQuantity();
+            return basket -> basket.quantityOf(productId) >= minQuantity;
+        }
+        if (condition instanceof CompositeCondition composite) {
+            List<Check> checks = composite.getConditions().stream().map(this::check).toList();
+            return switch (composite.getOperator()) {
+                case AND -> basket -> checks.stream().allMatch(c -> c.test(basket));
+                case OR -> basket -> checks.stream().anyMatch(c -> c.test(basket));
+                case XOR -> basket -> checks.stream().filter(c -> c.test(basket)).count() == 1;
+            };
+        }
+        return condition::isSatisfied;
+    }
+
+    /* ----------- Unit prices ----------- */
+
+    // One unit of each listing, as separate bags, laid out by column
+    private static final class Units {
+
+        private final List<Listing> listings;
+        private final int size;
+        private final double[] prices;
+        private final BasketSnapshot[] baskets;
+
+        private Units(List<Listing> listings) {
+            this.listings = listings;
+            this.size = listings.size();
+            this.prices = new double[size];
+            for (int i = 0; i < size; i++) {
+                prices[i] = listings.get(i).getPrice();
+            }
+            this.baskets = new BasketSnapshot[size];
+        }
+
+        // The one-unit bag of a listing, for policies without a compiled form
+        private BasketSnapshot basket(int i) {
+            if (baskets[i] == null) {
+                Listing listing = listings.get(i);
+                baskets[i] = BasketSnapshot.of(Map.of(listing.getListingId(), 1), Map.of(listing.getListingId(), listing));
+            }
+            return baskets[i];
+        }
+
+        // Whether the listing is among the snapshot's items for the target, as BasketSnapshot matches them
+        private boolean matches(int i, DiscountTargetType targetType, String targetId) {
+            Listing listing = listings.get(i);
+            return switch (targetType) {
+                case STORE -> true;
+                case PRODUCT -> targetId != null && targetId.equals(listing.getProductId());
+                case CATEGORY -> targetId != null && listing.getCategory() != null
+                        && String.CASE_INSENSITIVE_ORDER.compare(listing.getCategory(), targetId) == 0;
+            };
+        }
+    }
+
+    private UnitNode unitNode(DiscountPolicy policy) {
+        if (policy instanceof CompositeDiscountPolicy composite) {
+            List<UnitNode> children = composite.getPolicies().stream().map(this::unitNode).toList();
+            DiscountCombinationType type = composite.getCombinationType();
+            return units -> {
+                double[] result = new double[units.size];
+                for (UnitNode child : children) {
+                    double[] discounts = child.discounts(units);
+                    for (int i = 0; i < units.size; i++) {
+                        if (type == DiscountCombinationType.SUM) {
+                            result[i] += discounts[i];
+                        } else if (type == DiscountCombinationType.MAXIMUM && discounts[i] > result[i]) {
+                            result[i] = discounts[i];
+                        }
+                    }
+                }
+                for (int i = 0; i < units.size; i++) {
+                    if (result[i] < 0.0) {
+                        result[i] = 0.0;
+                    }
+                }
+                return result;
+            };
+        }
+        if (policy instanceof ConditionalDiscountPolicy conditional) {
+            if (conditional.getCondition() == null) {
+                return units -> new double[units.size];
+            }
+            UnitCheck condition = unitCheck(conditional.getCondition());
+            UnitNode inner = unitNode(conditional.getDiscount());
+            return units -> {
+                boolean[] satisfied = condition.test(units);
+                double[] discounts = inner.discounts(units);
+                for (int i = 0; i < units.size; i++) {
+                    if (!satisfied[i]) {
+                        discounts[i] = 0.0;
+                    }
+                }
+                return discounts;
+            };
+        }
+        if (policy instanceof PercentageTargetedDiscount percentage) {
+            DiscountTargetType targetType = percentage.getTargetType();
+            String targetId = percentage.getTargetId();
+            double rate = percentage.getPercentage() / 100.0;
+            return units -> {
+                double[] discounts = new double[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    if (units.matches(i, targetType, targetId)) {
+                        discounts[i] = units.prices[i] * rate;
+                    }
+                }
+                return discounts;
+            };
+        }
+        if (policy instanceof FixedDiscountPolicy fixed) {
+            DiscountTargetType targetType = fixed.getTargetType();
+            String targetId = fixed.getTargetId();
+            double fixedAmount = fixed.getFixedAmount();
+            return units -> {
+                double[] discounts = new double[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    if (units.matches(i, targetType, targetId)) {
+                        // Capped at the price of the one unit
+                        discounts[i] = Math.min(fixedAmount, units.prices[i]);
+                    }
+                }
+                return discounts;
+            };
+        }
+        return units -> {
+            double[] discounts = new double[units.size];
+            for (int i = 0; i < units.size; i++) {
+                discounts[i] = policy.calculateDiscount(units.basket(i));
+            }
+            return discounts;
+        };
+    }
+
+    private UnitCheck unitCheck(DiscountCondition condition) {
+        if (condition instanceof BasketTotalCondition total) {
+            double minTotal = total.getMinTotal();
+            return units -> {
+                boolean[] satisfied = new boolean[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    satisfied[i] = units.prices[i] >= minTotal;
+                }
+                return satisfied;
+            };
+        }
+        if (condition instanceof CategoryQuantityCondition category) {
+            String targetId = category.getCategory();
+            int minQuantity = category.getMinQuantity();
+            return units -> {
+                boolean[] satisfied = new boolean[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    satisfied[i] = (units.matches(i, DiscountTargetType.CATEGORY, targetId) ? 1 : 0) >= minQuantity;
+                }
+                return satisfied;
+            };
+        }
+        if (condition instanceof ProductQuantityCondition product) {
+            // Keyed by the bag's own keys, as the condition itself is
+            String productId = product.getProductId();
+            int minQuantity = product.getMinQuantity();
+            return units -> {
+                boolean[] satisfied = new boolean[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    satisfied[i] = (units.listings.get(i).getListingId().equals(productId) ? 1 : 0) >= minQuantity;
+                }
+                return satisfied;
+            };
+        }
+        if (condition instanceof CompositeCondition composite) {
+            List<UnitCheck> checks = composite.getConditions().stream().map(this::unitCheck).toList();
+            LogicOperator operator = composite.getOperator();
+            return units -> {
+                int[] counts = new int[units.size];
+                for (UnitCheck check : checks) {
+                    boolean[] satisfied = check.test(units);
+                    for (int i = 0; i < units.size; i++) {
+                        if (satisfied[i]) {
+                            counts[i]++;
+                        }
+                    }
+                }
+                boolean[] result = new boolean[units.size];
+                for (int i = 0; i < units.size; i++) {
+                    result[i] = switch (operator) {
+                        case AND -> counts[i] == checks.size();
+                        case OR -> counts[i] > 0;
+                        case XOR -> counts[i] == 1;
+                    };
+                }
+                return result;
+            };
+        }
+        return units -> {
+            boolean[] satisfied = new boolean[units.size];
+            for (int i = 0; i < units.size; i++) {
+                satisfied[i] = condition.isSatisfied(units.basket(i));
+            }
+            return satisfied;
+        };
+    }
+}
@@ -1,10 +1,9 @@
 package market.domain.store.Policies.Discounts;
 
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
-import market.domain.store.IStoreProductsManager;
-import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
@@ -35,46 +34,25 @@ public class FixedDiscountPolicy extends DiscountPolicyEntity {
     }
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public double calculateDiscount(BasketSnapshot basket) {
         double discount = 0.0;
         double totalPrice = 0.0;
 
         // First, calculate the total price of relevant items
-        switch (targetType) {
-            case STORE -> {
-                // Calculate total price of entire order
-                for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-                    Listing listing = productManager.getListingById(entry.getKey());
-                    if (listing != null) {
-                        totalPrice += listing.getPrice() * entry.getValue();
-                    }
-                }
-                // Apply fixed discount once to the entire store order
-                if (!listings.isEmpty()) {
-                    discount = fixedAmount;
-                }
+        if (targetType == DiscountTargetType.STORE) {
+            // Apply fixed discount once to the entire store order
+            totalPrice = basket.total();
+            if (!basket.isEmpty()) {
+                discount = fixedAmount;
             }
-            case PRODUCT -> {
-                // Calculate total price and discount for the specific product
-                for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-                    Listing listing = productManager.getListingById(entry.getKey());
-                    if (listing != null && listing.getProductId().equals(targetId)) {
-                        double itemTotal = listing.getPrice() * entry.getValue();
-                        totalPrice += itemTotal;
-                        discount += fixedAmount * entry.getValue();
-                    }
-                }
-            }
-            case CATEGORY -> {
-                // Calculate total price and discount for items in the category
-                for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-                    Listing listing = productManager.getListingById(entry.getKey());
-                    if (listing != null && listing.getCategory().equalsIgnoreCase(targetId)) {
-                        double itemTotal = listing.getPrice() * entry.getValue();
-                        totalPrice += itemTotal;
-                        discount += fixedAmount * entry.getValue();
-                    }
-                }
+        } else {
+            // Calculate total price and discount for the specific product or category
+            List<BasketSnapshot.Item> items = targetType == DiscountTargetType.PRODUCT
+                    ? basket.itemsOfProduct(targetId)
+                    : basket.itemsOfCategory(targetId);
+            for (BasketSnapshot.Item item : items) {
+                totalPrice += item.subtotal();
+                discount += fixedAmount * item.quantity();
             }
         }
 
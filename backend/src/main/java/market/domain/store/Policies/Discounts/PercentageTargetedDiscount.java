@@ -1,10 +1,9 @@
 package market.domain.store.Policies.Discounts;
 
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
-import market.domain.store.IStoreProductsManager;
-import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
@@ -32,26 +31,19 @@ public class PercentageTargetedDiscount extends DiscountPolicyEntity {
     }
 
     @Override
-    public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public double calculateDiscount(BasketSnapshot basket) {
         double discount = 0.0;
-
-        for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-            Listing listing = productManager.getListingById(entry.getKey());
-            if (listing == null) continue;
-
-            if (matches(listing)) {
-                discount += listing.getPrice() * entry.getValue() * (percentage / 100.0);
-            }
+        for (BasketSnapshot.Item item : targets(basket)) {
+            discount += item.subtotal() * (percentage / 100.0);
         }
-
         return discount;
     }
 
-    private boolean matches(Listing listing) {
+    private List<BasketSnapshot.Item> targets(BasketSnapshot basket) {
         return switch (targetType) {
-            case STORE -> true;
-            case PRODUCT -> listing.getProductId().equals(targetId);
-            case CATEGORY -> listing.getCategory().equalsIgnoreCase(targetId);
+            case STORE -> basket.items();
+            case PRODUCT -> basket.itemsOfProduct(targetId);
+            case CATEGORY -> basket.itemsOfCategory(targetId);
         };
     }
 
@@ -88,4 +80,8 @@ public class PercentageTargetedDiscount extends DiscountPolicyEntity {
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         return result;
     }
-}
\ No newline at end of file
+
+    public DiscountTargetType getTargetType() { return targetType; }
+    public String getTargetId() { return targetId; }
+    public double getPercentage() { return percentage; }
+}
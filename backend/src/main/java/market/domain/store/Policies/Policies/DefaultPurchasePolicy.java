@@ -1,12 +1,11 @@
 package market.domain.store.Policies.Policies;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.PurchasePolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
-import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -16,7 +15,7 @@ public class DefaultPurchasePolicy extends PurchasePolicyEntity {
     public DefaultPurchasePolicy() {}
 
     @Override
-    public boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager) {
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
         return true;
     }
     
@@ -1,13 +1,12 @@
 package market.domain.store.Policies.Policies;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.PurchasePolicy;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import market.domain.store.Policies.PurchasePolicyEntity;
 
-import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -26,8 +25,8 @@ public class MaxItemsPurchasePolicy extends PurchasePolicyEntity {
     }
 
     @Override
-    public boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        return listings.values().stream().mapToInt(Integer::intValue).sum() <= maxItems;
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
+        return basket.totalQuantity() <= maxItems;
     }
 
     @Override
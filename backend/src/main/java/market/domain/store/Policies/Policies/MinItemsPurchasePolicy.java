@@ -1,12 +1,11 @@
 package market.domain.store.Policies.Policies;
 
-import market.domain.store.IStoreProductsManager;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.PurchasePolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
-import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -25,8 +24,8 @@ public class MinItemsPurchasePolicy extends PurchasePolicyEntity {
     }
 
     @Override
-    public boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        return listings.values().stream().mapToInt(Integer::intValue).sum() >= minItems;
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
+        return basket.totalQuantity() >= minItems;
     }
 
 
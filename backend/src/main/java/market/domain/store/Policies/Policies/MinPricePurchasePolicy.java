@@ -1,13 +1,11 @@
 package market.domain.store.Policies.Policies;
 
-import market.domain.store.IStoreProductsManager;
-import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.PurchasePolicyEntity;
 import market.dto.PolicyDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
-import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -26,17 +24,11 @@ public class MinPricePurchasePolicy extends PurchasePolicyEntity {
     }
 
     @Override
-    public boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        Listing l;
-        double price = 0;
-        for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-            l = productManager.getListingById(entry.getKey());
-            if(l == null) {
-                throw new IllegalArgumentException("Listing " + entry.getKey() + " not found");
-            }
-            price += entry.getValue() * l.getPrice();
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
+        if (!basket.missingListings().isEmpty()) {
+            throw new IllegalArgumentException("Listing " + basket.missingListings().iterator().next() + " not found");
         }
-        return price >= minPrice;
+        return basket.total() >= minPrice;
     }
 
     @Override
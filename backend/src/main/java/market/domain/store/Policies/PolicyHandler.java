@@ -1,19 +1,26 @@
 package market.domain.store.Policies;
 
 import market.domain.store.IStoreProductsManager;
+import market.domain.store.Listing;
 import market.domain.store.Store;
 import market.domain.store.Policies.Discounts.CompositeDiscountPolicy;
 import market.domain.store.Policies.Discounts.DiscountCombinationType;
+import market.domain.store.Policies.Discounts.DiscountPlan;
 import market.domain.store.Policies.Policies.DefaultPurchasePolicy;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PolicyHandler {
 
     private List<PurchasePolicy> policies;
     private CompositeDiscountPolicy discountPolicy;
+    // discountPolicy compiled on first use; recompiled once discountRevision moves past it
+    private record CompiledDiscounts(long revision, DiscountPlan plan) {}
+    private final AtomicLong discountRevision = new AtomicLong();
+    private volatile CompiledDiscounts compiledDiscounts;
 
     public PolicyHandler() {
         policies = new ArrayList<>();
@@ -46,10 +53,12 @@ public class PolicyHandler {
     // Add a new discount policy
     public void addDiscountPolicy(DiscountPolicy discount) {
         discountPolicy.addPolicy(discount);
+        discountRevision.incrementAndGet();
     }
 
     public void removeDiscountPolicy(DiscountPolicy discount) {
         discountPolicy.removePolicy(discount);
+        discountRevision.incrementAndGet();
     }
 
     public List<DiscountPolicy> getDiscountPolicies() {
@@ -58,8 +67,12 @@ public class PolicyHandler {
 
     // Check if purchase is allowed (all policies must approve)
     public boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager ) {
+        return isPurchaseAllowed(BasketSnapshot.of(listings, productManager));
+    }
+
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
         for (PurchasePolicy policy : policies) {
-            if (!policy.isPurchaseAllowed(listings, productManager)) {
+            if (!policy.isPurchaseAllowed(basket)) {
                 return false;
             }
         }
@@ -68,17 +81,14 @@ public class PolicyHandler {
 
     // Calculate total discount
     public double calculateDiscount(Map<String, Integer> listings, IStoreProductsManager productManager) {
-        // Calculate the total price of all items in the cart
-        double totalPrice = 0.0;
-        for (Map.Entry<String, Integer> entry : listings.entrySet()) {
-            var listing = productManager.getListingById(entry.getKey());
-            if (listing != null) {
-                totalPrice += listing.getPrice() * entry.getValue();
-            }
-        }
-        
+        return calculateDiscount(BasketSnapshot.of(listings, productManager));
+    }
+
+    public double calculateDiscount(BasketSnapshot basket) {
+        double totalPrice = basket.total();
+
         // Calculate the discount from all policies
-        double discount = discountPolicy.calculateDiscount(listings, productManager);
+        double discount = discountPlan().calculateDiscount(basket);
         
         // Ensure discount is non-negative and doesn't exceed total price
         discount = Math.max(0.0, discount); // No negative discounts
@@ -87,6 +97,29 @@ public class PolicyHandler {
         return discount;
     }
 
+    /**
+     * @return For each listing, in order, the discount on a bag of one unit of it alone, as
+     *         {@link #calculateDiscount} gives for that bag; all listings are evaluated together.
+     */
+    public double[] calculateUnitDiscounts(List<Listing> listings) {
+        double[] discounts = discountPlan().unitDiscounts(listings);
+        for (int i = 0; i < discounts.length; i++) {
+            // Same bounds as a bag of one: non-negative and at most the unit price
+            discounts[i] = Math.min(Math.max(0.0, discounts[i]), listings.get(i).getPrice());
+        }
+        return discounts;
+    }
+
+    private DiscountPlan discountPlan() {
+        long revision = discountRevision.get();
+        CompiledDiscounts compiled = compiledDiscounts;
+        if (compiled == null || compiled.revision() != revision) {
+            compiled = new CompiledDiscounts(revision, DiscountPlan.compile(discountPolicy));
+            compiledDiscounts = compiled;
+        }
+        return compiled.plan();
+    }
+
     public List<PurchasePolicy> getPolicies() {
         return policies;
     }
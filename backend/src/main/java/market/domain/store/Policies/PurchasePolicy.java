@@ -6,6 +6,15 @@ import market.domain.store.IStoreProductsManager;
 import market.dto.PolicyDTO;
 
 public interface PurchasePolicy {
-    boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager);
+    boolean isPurchaseAllowed(BasketSnapshot basket);
+
+    /**
+     * Snapshots the bag and checks it; checking several policies on one bag should share a
+     * {@link BasketSnapshot} instead.
+     */
+    default boolean isPurchaseAllowed(Map<String, Integer> listings, IStoreProductsManager productManager) {
+        return isPurchaseAllowed(BasketSnapshot.of(listings, productManager));
+    }
+
     PolicyDTO.AddPurchasePolicyRequest toDTO();
 }
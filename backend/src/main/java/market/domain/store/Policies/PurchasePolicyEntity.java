@@ -1,10 +1,8 @@
 package market.domain.store.Policies;
 
 import jakarta.persistence.*;
-import market.domain.store.IStoreProductsManager;
 import market.domain.store.Store;
 import market.dto.PolicyDTO;
-import java.util.Map;
 
 /**
  * Base JPA class for every concrete purchase policy.
@@ -31,7 +29,7 @@ public abstract class PurchasePolicyEntity implements PurchasePolicy {
     /* The two methods from PurchasePolicy remain abstract – subclasses already
        provide their implementations. */
     @Override
-    public abstract boolean isPurchaseAllowed(Map<String,Integer> listings, IStoreProductsManager productManager);
+    public abstract boolean isPurchaseAllowed(BasketSnapshot basket);
 
     @Override
     public abstract PolicyDTO.AddPurchasePolicyRequest toDTO();
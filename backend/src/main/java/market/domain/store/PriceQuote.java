@@ -0,0 +1,72 @@
+package market.domain.store;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The priced contents of one store bag, as evaluated by the store's policies at a point in time.
+ * <p>
+ * A quote still holds at checkout while the bag is unchanged, every listing in it has the same
+ * price, product ID and category (the only listing fields the policies read) and the store's
+ * {@link Store#getPolicyVersion() policy version} is the same: the purchase policies and
+ * discounts would then give the same result, so they need not run again. Listing versions are
+ * not compared, because every sale bumps them without changing what the policies see.
+ *
+ * @param items     Quantity per listing ID.
+ * @param listings  What the policies read from each listing when it was quoted, per listing ID.
+ * @param discount  The bag's discount, as returned by {@link Store#calculateStoreBagWithDiscount}.
+ * @param allowed   Whether the store's purchase policies allowed the bag.
+ * @param expiresAt Epoch milliseconds after which the quote is not honoured.
+ */
+public record PriceQuote(String storeId, Map<String, Integer> items, Map<String, QuotedListing> listings,
+                         long policyVersion, double discount, boolean allowed, long expiresAt) {
+
+    /** The fields of a listing that purchase and discount policies depend on. */
+    public record QuotedListing(String productId, String category, double price) {
+
+        public static QuotedListing of(Listing listing) {
+            return new QuotedListing(listing.getProductId(), listing.getCategory(), listing.getPrice());
+        }
+
+        public boolean matches(Listing listing) {
+            return listing != null && Double.compare(price, listing.getPrice()) == 0
+                    && Objects.equals(productId, listing.getProductId())
+                    && Objects.equals(category, listing.getCategory());
+        }
+    }
+
+    /**
+     * @param listings The bag's listings; a listing that is missing is not quoted, so the quote never holds.
+     */
+    public static PriceQuote of(String storeId, Map<String, Integer> bag, Map<String, Listing> listings,
+                                long policyVersion, double discount, boolean allowed, long expiresAt) {
+        Map<String, QuotedListing> quoted = new HashMap<>();
+        for (String listingId : bag.keySet()) {
+            Listing listing = listings.get(listingId);
+            if (listing != null) {
+                quoted.put(listingId, QuotedListing.of(listing));
+            }
+        }
+        return new PriceQuote(storeId, Map.copyOf(bag), quoted, policyVersion, discount, allowed, expiresAt);
+    }
+
+    /**
+     * @param listings The bag's listings as loaded for this checkout.
+     * @return {@code true} if the quote can be used for the bag instead of evaluating the policies.
+     */
+    public boolean holdsFor(String storeId, Map<String, Integer> bag, Map<String, Listing> listings,
+                            long policyVersion, long now) {
+        if (now >= expiresAt || !allowed || this.policyVersion != policyVersion
+                || !this.storeId.equals(storeId) || !items.equals(bag)) {
+            return false;
+        }
+        for (String listingId : bag.keySet()) {
+            QuotedListing quoted = this.listings.get(listingId);
+            if (quoted == null || !quoted.matches(listings.get(listingId))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
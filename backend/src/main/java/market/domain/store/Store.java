@@ -11,11 +11,13 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import market.domain.purchase.PurchaseType;
+import market.domain.store.Policies.BasketSnapshot;
 import market.domain.store.Policies.DiscountPolicy;
 import market.domain.store.Policies.PolicyHandler;
 import market.domain.store.Policies.PurchasePolicy;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -51,6 +53,12 @@ public class Store {
     @Column(name = "founder_id", nullable = false)
     private String founderID;
 
+    /** Bumped on every purchase or discount policy change, so that price quotes issued before it are not honoured. */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "policy_version")
+    private Long policyVersion;
+
     @Transient
     private HashMap<String,String> ownerToWhoAssignedHim;
     @Transient
@@ -64,6 +72,11 @@ public class Store {
     private IStoreProductsManager storeProductsManager;
     @Transient
     private PolicyHandler policyHandler;
+    /** Whether {@link #policyHandler} is shared with other loads of this store and must be copied before it changes. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean policyHandlerShared;
     @Transient
     private final Object ownershipLock = new Object();
 
@@ -181,17 +194,16 @@ public class Store {
         }
     }
 
-    public void initializeAfterLoad(IListingRepository listingRepository) {
-        /* fresh services */
-        this.storeProductsManager = new StoreProductManager(this.storeID, listingRepository);
-        this.policyHandler        = new PolicyHandler();
-
-        /* --- NEW: sync persisted policies into the in-memory handler --- */
+    /**
+     * Builds a policy handler from the persisted purchase and discount policies.
+     */
+    public PolicyHandler hydratePolicyHandler() {
+        PolicyHandler handler = new PolicyHandler();
         // 1) Purchase policies
         if (this.purchasePolicies != null) {
             for (market.domain.store.Policies.PurchasePolicy pp : this.purchasePolicies) {
                 try {
-                    this.policyHandler.addPurchasePolicy(pp);
+                    handler.addPurchasePolicy(pp);
                 } catch (IllegalArgumentException ignored) {
                     // Policy already present (e.g., default policy) – safe to ignore
                 }
@@ -201,12 +213,28 @@ public class Store {
         if (this.discountPolicies != null) {
             for (market.domain.store.Policies.DiscountPolicy dp : this.discountPolicies) {
                 try {
-                    this.policyHandler.addDiscountPolicy(dp);
+                    handler.addDiscountPolicy(dp);
                 } catch (IllegalArgumentException ignored) {
                     // already present
                 }
             }
         }
+        return handler;
+    }
+
+    public void initializeAfterLoad(IListingRepository listingRepository) {
+        initializeAfterLoad(listingRepository, null);
+    }
+
+    /**
+     * @param sharedPolicyHandler A handler already hydrated from this store's persisted policies at its
+     *                            current policy version, shared with other loads; {@code null} to hydrate one.
+     */
+    public void initializeAfterLoad(IListingRepository listingRepository, PolicyHandler sharedPolicyHandler) {
+        /* fresh services */
+        this.storeProductsManager = new StoreProductManager(this.storeID, listingRepository);
+        this.policyHandler        = sharedPolicyHandler != null ? sharedPolicyHandler : hydratePolicyHandler();
+        this.policyHandlerShared  = sharedPolicyHandler != null;
 
         /* clear & rebuild the in-memory graphs */
         this.ownerToAssignedOwners   = new HashMap<>();
@@ -805,6 +833,34 @@ public class Store {
         return storeProductsManager.addListing(newListing);
     }
 
+    /**
+     * Checks that the user may add listings to the store right now.
+     *
+     * @param userID User ID trying to add.
+     * @throws Exception if user lacks permission or the store is closed.
+     */
+    public void checkCanManageListings(String userID) throws Exception {
+        if (!checkProductsPermission(userID))
+            throw new Exception("User " + userID + " doesn't have permission to ADD listing!");
+        storeClosedExeption();//actions are available only when open
+    }
+
+    /**
+     * Adds a batch of new listings to the store, e.g. one chunk of a bulk import.
+     * The user must have permission to edit products.
+     *
+     * @param userID User ID trying to add.
+     * @param listings Listings built for this store.
+     * @return The number of listings added.
+     * @throws Exception if user lacks permission or the store is closed.
+     */
+    public int addNewListings(String userID, List<Listing> listings) throws Exception {
+        checkCanManageListings(userID);
+        if (listings.isEmpty())
+            return 0;
+        return storeProductsManager.addListings(listings);
+    }
+
 
     /**
      * Removes a listing from the store.
@@ -859,6 +915,54 @@ public class Store {
         return storeProductsManager.editProductCategory(listingId, newCategory);
     }
 
+    /**
+     * Changes the price of all active listings in the store, or only in one category, by a percentage.
+     *
+     * @param userID   ID of the user performing the edit.
+     * @param category Category to restrict to, or {@code null} for the whole store.
+     * @param percent  The change in percent (e.g. 10 for +10%).
+     * @return The number of listings updated.
+     * @throws Exception if user lacks permission or the store is closed.
+     */
+    public int adjustListingPrices(String userID, String category, double percent) throws Exception {
+        if (!checkProductsPermission(userID))
+            throw new Exception("User " + userID + " doesn't have permission to EDIT listing!");
+        storeClosedExeption();
+        return storeProductsManager.adjustPricesByPercent(category, percent);
+    }
+
+    /**
+     * Adds (or removes) the same amount of stock to all active listings in the store, or only in one category.
+     *
+     * @param userID   ID of the user performing the edit.
+     * @param category Category to restrict to, or {@code null} for the whole store.
+     * @param delta    Units to add; negative to remove (stock never goes below zero).
+     * @return The number of listings updated.
+     * @throws Exception if user lacks permission or the store is closed.
+     */
+    public int adjustListingQuantities(String userID, String category, int delta) throws Exception {
+        if (!checkProductsPermission(userID))
+            throw new Exception("User " + userID + " doesn't have permission to EDIT listing!");
+        storeClosedExeption();
+        return storeProductsManager.adjustQuantities(category, delta);
+    }
+
+    /**
+     * Switches a listing to or from high-contention mode, where its stock is split over
+     * {@code shards} sub-counters (0 or 1 for a single counter).
+     *
+     * @param userID    ID of the user performing the edit.
+     * @param listingId ID of the listing.
+     * @param shards    Number of sub-counters.
+     * @throws Exception if user lacks permission or the store is closed.
+     */
+    public void setListingStockShards(String userID, String listingId, int shards) throws Exception {
+        if (!checkProductsPermission(userID))
+            throw new Exception("User " + userID + " doesn't have permission to EDIT listing!");
+        storeClosedExeption();
+        storeProductsManager.setStockShards(listingId, shards);
+    }
+
     /**
      * Purchases quantity from a specific listing.
      *
@@ -907,11 +1011,12 @@ public class Store {
             throw new Exception("User " + userID + " doesn't have permission to ADD policy!");
         }
         storeClosedExeption();//actions are available only when open
-        policyHandler.addPurchasePolicy(policy);
+        ownPolicyHandler().addPurchasePolicy(policy);
         if (policy instanceof market.domain.store.Policies.PurchasePolicyEntity entity) {
             entity.setStore(this);
             purchasePolicies.add(entity);
         }
+        policiesChanged();
         return true;
     }
 
@@ -929,11 +1034,12 @@ public class Store {
             throw new Exception("User " + userID + " doesn't have permission to ADD policy!");
         }
         storeClosedExeption();//actions are available only when open
-        policyHandler.removePurchasePolicy(policy);
+        ownPolicyHandler().removePurchasePolicy(policy);
         if (policy instanceof market.domain.store.Policies.PurchasePolicyEntity entity) {
             purchasePolicies.remove(entity);
             entity.setStore(null);
         }
+        policiesChanged();
         return true;
     }
 
@@ -966,11 +1072,12 @@ public class Store {
             throw new Exception("User " + userId + " doesn't have permission to ADD discount!");
         }
         storeClosedExeption();//actions are available only when open
-        policyHandler.addDiscountPolicy(discountPolicy);
+        ownPolicyHandler().addDiscountPolicy(discountPolicy);
         if (discountPolicy instanceof market.domain.store.Policies.DiscountPolicyEntity entity) {
             entity.setStore(this);
             discountPolicies.add(entity);
         }
+        policiesChanged();
         return true;
     }
 
@@ -989,11 +1096,12 @@ public class Store {
             throw new Exception("User " + userID + " doesn't have permission to REMOVE discount!");
         }
         storeClosedExeption();//actions are available only when open
-        policyHandler.removeDiscountPolicy(discountPolicy);
+        ownPolicyHandler().removeDiscountPolicy(discountPolicy);
         if (discountPolicy instanceof market.domain.store.Policies.DiscountPolicyEntity entity) {
             discountPolicies.remove(entity);
             entity.setStore(null);
         }
+        policiesChanged();
         return true;
     }
 
@@ -1014,21 +1122,43 @@ public class Store {
     }
 
 
+    /**
+     * Resolves a bag's listings of this store once, for the policy checks and prices of one checkout.
+     */
+    public BasketSnapshot snapshotBag(Map<String, Integer> prodsToQuantity) {
+        return BasketSnapshot.of(prodsToQuantity, this.storeProductsManager);
+    }
+
+    /**
+     * Snapshots a bag from listings the caller already loaded; listings of other stores are left out.
+     */
+    public BasketSnapshot snapshotBag(Map<String, Integer> prodsToQuantity, Map<String, Listing> listings) {
+        Map<String, Listing> own = new HashMap<>();
+        listings.forEach((id, l) -> {
+            if (l != null && this.storeID.equals(l.getStoreId())) {
+                own.put(id, l);
+            }
+        });
+        return BasketSnapshot.of(prodsToQuantity, own);
+    }
+
     public double calculateStoreBagWithDiscount(Map<String,Integer> prodsToQuantity){
-        return policyHandler.calculateDiscount(prodsToQuantity, this.storeProductsManager);
+        return calculateStoreBagWithDiscount(snapshotBag(prodsToQuantity));
+    }
+
+    public double calculateStoreBagWithDiscount(BasketSnapshot basket) {
+        return policyHandler.calculateDiscount(basket);
     }
 
     public double calculateStoreBagWithoutDiscount(Map<String,Integer> prodsToQuantity) throws Exception {
-        double result = 0.0;
-        Listing l;
-        for (Map.Entry<String, Integer> entry : prodsToQuantity.entrySet()) {
-            l = storeProductsManager.getListingById(entry.getKey());
-            if(l==null){
-                throw new Exception("Listing " + l + " not found");
-            }
-            result += l.getPrice() * entry.getValue();
+        return calculateStoreBagWithoutDiscount(snapshotBag(prodsToQuantity));
+    }
+
+    public double calculateStoreBagWithoutDiscount(BasketSnapshot basket) throws Exception {
+        if (!basket.missingListings().isEmpty()) {
+            throw new Exception("Listing " + basket.missingListings().iterator().next() + " not found");
         }
-        return result;
+        return basket.total();
     }
 
     public double ProductPrice(String prodId) throws Exception {
@@ -1047,8 +1177,47 @@ public class Store {
         return price - discount;
     }
 
+    /**
+     * Prices one unit of each of the given listings of this store with its discounts, as
+     * {@link #ProductPriceWithDiscount} does for one listing, evaluating them all together.
+     *
+     * @return The discounted unit prices, in the order of {@code listings}.
+     */
+    public double[] productPricesWithDiscount(List<Listing> listings) {
+        double[] discounts = policyHandler.calculateUnitDiscounts(listings);
+        double[] prices = new double[discounts.length];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = listings.get(i).getPrice() - discounts[i];
+        }
+        return prices;
+    }
+
     public boolean isPurchaseAllowed(Map<String, Integer> listings) {
-        return policyHandler.isPurchaseAllowed(listings, this.storeProductsManager);
+        return isPurchaseAllowed(snapshotBag(listings));
+    }
+
+    public boolean isPurchaseAllowed(BasketSnapshot basket) {
+        return policyHandler.isPurchaseAllowed(basket);
+    }
+
+    /**
+     * @return The version of the store's purchase and discount policies; changes whenever one is added or removed.
+     */
+    public long getPolicyVersion() {
+        return policyVersion == null ? 0 : policyVersion;
+    }
+
+    // Copies a shared handler before the policies change, so other loads of the store keep theirs
+    private PolicyHandler ownPolicyHandler() {
+        if (policyHandlerShared) {
+            policyHandler = hydratePolicyHandler();
+            policyHandlerShared = false;
+        }
+        return policyHandler;
+    }
+
+    private void policiesChanged() {
+        policyVersion = getPolicyVersion() + 1;
     }
 
 
@@ -1326,5 +1495,6 @@ public class Store {
 
     public void setPolicyHandler(PolicyHandler policyHandler) {
         this.policyHandler = policyHandler;
+        this.policyHandlerShared = false;
     }
 }
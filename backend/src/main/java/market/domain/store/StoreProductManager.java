@@ -1,6 +1,8 @@
 package market.domain.store;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages the collection of listings (products for sale) for a specific store.
@@ -32,6 +34,16 @@ public class StoreProductManager implements IStoreProductsManager {
         return listingRepository.addListing(listing);
     }
 
+    @Override
+    public int addListings(List<Listing> listings) {
+        for (Listing listing : listings) {
+            if (!listing.getStoreId().equals(this.storeId)) {
+                throw new IllegalArgumentException("Listing storeId does not match StoreProductManager storeId!");
+            }
+        }
+        return listingRepository.addListings(listings);
+    }
+
     @Override
     public boolean removeListing(String listingId) {
         Listing listing = listingRepository.getListingById(listingId);
@@ -47,6 +59,13 @@ public class StoreProductManager implements IStoreProductsManager {
         return (listing != null && listing.getStoreId().equals(this.storeId)) ? listing : null;
     }
 
+    @Override
+    public Map<String, Listing> getListingsByIds(Collection<String> listingIds) {
+        Map<String, Listing> listings = listingRepository.getListingsByIds(listingIds);
+        listings.values().removeIf(l -> !l.getStoreId().equals(this.storeId));
+        return listings;
+    }
+
     @Override
     public List<Listing> getListingsByProductName(String productName) {
         return listingRepository.getListingsByProductNameAndStore(productName, storeId);
@@ -68,7 +87,8 @@ public class StoreProductManager implements IStoreProductsManager {
         if (listing == null || !listing.getStoreId().equals(this.storeId)) {
             throw new Exception("Listing with ID " + listingId + " not found in store " + storeId);
         }
-        return listing.purchase(quantity);
+        // Go through the repository so the change is persisted even if the listing above is a cached copy.
+        return listingRepository.updateOrRestoreStock(Map.of(storeId, Map.of(listingId, quantity)), false);
     }
 
 
@@ -107,5 +127,23 @@ public class StoreProductManager implements IStoreProductsManager {
         listingRepository.editProductCategory(listingId, newCategory);
         return true;
     }
+
+    @Override
+    public int adjustPricesByPercent(String category, double percent) {
+        return listingRepository.adjustPricesByPercent(storeId, category, percent);
+    }
+
+    @Override
+    public int adjustQuantities(String category, int delta) {
+        return listingRepository.adjustQuantities(storeId, category, delta);
+    }
+
+    @Override
+    public void setStockShards(String listingId, int shards) {
+        if (getListingById(listingId) == null) {
+            throw new IllegalArgumentException("Listing " + listingId + " not found in store " + storeId);
+        }
+        listingRepository.setStockShards(listingId, shards);
+    }
     
 }
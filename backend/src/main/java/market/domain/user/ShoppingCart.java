@@ -86,6 +86,26 @@ public class ShoppingCart {
         }
     }
 
+    /**
+     * Removes the quantities of a completed purchase from the shopping cart.
+     * Unlike {@link #removeProduct}, this never fails: the cart may have changed since checkout,
+     * so products no longer in it are skipped and no more than the current quantity is removed.
+     *
+     * @param purchased Purchased quantities, by store ID and then product ID
+     */
+    public void removePurchased(Map<String, Map<String, Integer>> purchased) {
+        purchased.forEach((storeId, products) -> {
+            StoreBag bag = storeBags.get(storeId);
+            if (bag == null) {
+                return;
+            }
+            products.forEach(bag::removeProduct);
+            if (bag.getProductQuantities().isEmpty()) {
+                storeBags.remove(storeId);
+            }
+        });
+    }
+
     /**
      * Gets a specific store bag from the shopping cart.
      *
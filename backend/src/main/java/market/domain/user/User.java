@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.util.UUID;
+import java.util.Map;
 import org.springframework.stereotype.Controller;
 import java.beans.ConstructorProperties;
 import market.infrastructure.converters.ShoppingCartConverter;
@@ -95,6 +96,16 @@ public class User {
         shoppingCart.removeProduct(storeId, productName, qty);
     }
 
+    /**
+     * Removes the quantities of a completed purchase from the user's shopping cart,
+     * leaving whatever was added to it since checkout.
+     *
+     * @param purchased Purchased quantities, by store ID and then product ID
+     */
+    public void removePurchasedFromCart(Map<String, Map<String, Integer>> purchased) {
+        shoppingCart.removePurchased(purchased);
+    }
+
     /**
      * Clears the user's shopping cart by replacing it with a new empty cart.
      */
@@ -1,5 +1,9 @@
 package market.dto;
 
+import java.util.List;
+
+import market.domain.store.Listing;
+
 public class ProductDTO {
     
     public record AddListingRequest(
@@ -34,6 +38,13 @@ public class ProductDTO {
         String listingId,
         int newQuantity
     ) {}
+
+    public record StockShardsRequest(
+        String userName,
+        String storeID,
+        String listingId,
+        int shards
+    ) {}
     
     public record AddListingResponse(
         String productId,
@@ -60,4 +71,75 @@ public class ProductDTO {
         boolean success,
         String message
     ) {}
-} 
\ No newline at end of file
+
+    public record BulkPriceEditRequest(
+        String userName,
+        String storeID,
+        String category,
+        double percent
+    ) {}
+
+    public record BulkQuantityEditRequest(
+        String userName,
+        String storeID,
+        String category,
+        int delta
+    ) {}
+
+    public record ListingPage(
+        List<Listing> listings,
+        String nextCursor,
+        boolean hasNext
+    ) {}
+
+    /** One row of a CSV or NDJSON listing import; every field arrives as text or JSON and is validated later. */
+    public record ListingImportRow(
+        String productId,
+        String productName,
+        String category,
+        String description,
+        String quantity,
+        String price,
+        String purchaseType
+    ) {}
+
+    public record ListingImportError(
+        long line,
+        String message
+    ) {}
+
+    public record ListingImportReport(
+        int imported,
+        int failed,
+        List<ListingImportError> errors,
+        boolean errorsTruncated
+    ) {}
+
+    /** A priced bag and its signed quote; send {@code quote} back with the purchase to skip re-pricing. */
+    public record BagQuoteResponse(
+        String storeId,
+        double price,
+        double discount,
+        double finalPrice,
+        boolean allowed,
+        long expiresAt,
+        String quote
+    ) {}
+
+    /** One unit of a listing, priced with the store's discounts as a bag of its own. */
+    public record PriceSheetEntry(
+        String listingId,
+        String productId,
+        String productName,
+        String category,
+        double price,
+        double discountedPrice
+    ) {}
+
+    /** Discounted unit prices of every active listing of a store, as of its {@code policyVersion}. */
+    public record PriceSheet(
+        String storeId,
+        long policyVersion,
+        List<PriceSheetEntry> entries
+    ) {}
+}
@@ -2,17 +2,19 @@ package market.dto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DTOs for Purchase-related API operations
  */
 public class PurchaseDTO {
     
-    // Regular Purchase
+    // Regular Purchase; priceQuotes are optional quote tokens from POST /api/stores/{storeID}/bag/quote
     public record ExecutePurchaseRequest(
         int userId,
         String paymentDetails,
-        String shippingAddress
+        String shippingAddress,
+        List<String> priceQuotes
     ) {}
     
     // Auction Operations
@@ -97,4 +99,25 @@ public class PurchaseDTO {
         int totalPurchases,
         double totalSpent
     ) {}
-} 
\ No newline at end of file
+
+    // Stock Reservations
+    public record ReserveCartRequest(
+        Long ttlSeconds
+    ) {}
+
+    public record ReservationResponse(
+        String reservationId,
+        long expiresAt,
+        Map<String, Map<String, Integer>> items
+    ) {}
+
+    public record OrderStatusResponse(
+        String orderId,
+        String status,
+        double totalPrice,
+        long createdAt,
+        String purchaseId,
+        String failureReason,
+        Map<String, Map<String, Integer>> items
+    ) {}
+}
@@ -1,5 +1,8 @@
 package market.dto;
 
+import java.util.List;
+import java.util.Map;
+
 public class StoreDTO {
     
     public record CreateStoreRequest(
@@ -56,4 +59,10 @@ public class StoreDTO {
         boolean success,
         String message
     ) {}
-} 
\ No newline at end of file
+
+    public record StoreInfoPage(
+        List<Map<String, Object>> stores,
+        String nextCursor,
+        boolean hasNext
+    ) {}
+}
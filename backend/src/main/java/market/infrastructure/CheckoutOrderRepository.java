@@ -0,0 +1,24 @@
+package market.infrastructure;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import market.domain.purchase.CheckoutOrder;
+import market.domain.purchase.ICheckoutOrderRepository;
+
+public class CheckoutOrderRepository implements ICheckoutOrderRepository {
+
+    private final Map<String, CheckoutOrder> byId = new ConcurrentHashMap<>();
+
+    @Override
+    public CheckoutOrder save(CheckoutOrder order) {
+        byId.put(order.getOrderId(), order);
+        return order;
+    }
+
+    @Override
+    public Optional<CheckoutOrder> findById(String orderId) {
+        return Optional.ofNullable(byId.get(orderId));
+    }
+}
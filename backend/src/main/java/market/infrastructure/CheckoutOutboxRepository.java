@@ -0,0 +1,67 @@
+package market.infrastructure;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import market.domain.purchase.CheckoutOutboxEvent;
+import market.domain.purchase.ICheckoutOutboxRepository;
+
+public class CheckoutOutboxRepository implements ICheckoutOutboxRepository {
+
+    private final Map<String, CheckoutOutboxEvent> byId = new LinkedHashMap<>();
+
+    @Override
+    public synchronized CheckoutOutboxEvent save(CheckoutOutboxEvent event) {
+        byId.put(event.getEventId(), event);
+        return event;
+    }
+
+    @Override
+    public synchronized List<CheckoutOutboxEvent> findDue(long now, int limit) {
+        return byId.values().stream()
+                .filter(e -> !e.isDone() && e.getDueAt() <= now)
+                .sorted(Comparator.comparingLong(CheckoutOutboxEvent::getDueAt))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized boolean claim(String eventId, long now, long leaseUntil) {
+        CheckoutOutboxEvent event = byId.get(eventId);
+        if (event == null || event.isDone() || event.getDueAt() > now) {
+            return false;
+        }
+        event.claim(leaseUntil);
+        return true;
+    }
+
+    @Override
+    public synchronized void reschedule(String eventId, long dueAt, String error) {
+        CheckoutOutboxEvent event = byId.get(eventId);
+        if (event != null) {
+            event.reschedule(dueAt, error);
+        }
+    }
+
+    @Override
+    public synchronized void markDone(String eventId) {
+        CheckoutOutboxEvent event = byId.remove(eventId);
+        if (event != null) {
+            event.markDone();
+        }
+    }
+
+    @Override
+    public synchronized void cancelPending(String orderId, CheckoutOutboxEvent.Type type) {
+        byId.values().removeIf(e -> {
+            if (e.getOrderId().equals(orderId) && e.getType() == type) {
+                e.markDone();
+                return true;
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package market.infrastructure.IJpaRepository;
+
+import market.domain.purchase.CheckoutOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ICheckoutOrderJpaRepository extends JpaRepository<CheckoutOrder, String> {
+}
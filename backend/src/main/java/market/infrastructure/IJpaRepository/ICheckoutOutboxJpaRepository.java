@@ -0,0 +1,37 @@
+package market.infrastructure.IJpaRepository;
+
+import market.domain.purchase.CheckoutOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ICheckoutOutboxJpaRepository extends JpaRepository<CheckoutOutboxEvent, String> {
+
+    @Query("SELECT e FROM CheckoutOutboxEvent e WHERE e.done = false AND e.dueAt <= :now ORDER BY e.dueAt ASC")
+    List<CheckoutOutboxEvent> findDue(@Param("now") long now, Pageable pageable);
+
+    // Guarded claim: only one runner's UPDATE matches while the event is due.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CheckoutOutboxEvent e SET e.dueAt = :leaseUntil, e.attempts = e.attempts + 1 " +
+           "WHERE e.eventId = :id AND e.done = false AND e.dueAt <= :now")
+    int claim(@Param("id") String eventId, @Param("now") long now, @Param("leaseUntil") long leaseUntil);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CheckoutOutboxEvent e SET e.dueAt = :dueAt, e.lastError = :error WHERE e.eventId = :id")
+    int reschedule(@Param("id") String eventId, @Param("dueAt") long dueAt, @Param("error") String error);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CheckoutOutboxEvent e SET e.done = true WHERE e.eventId = :id")
+    int markDone(@Param("id") String eventId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CheckoutOutboxEvent e SET e.done = true " +
+           "WHERE e.orderId = :orderId AND e.type = :type AND e.done = false")
+    int cancelPending(@Param("orderId") String orderId, @Param("type") CheckoutOutboxEvent.Type type);
+}
@@ -0,0 +1,33 @@
+package market.infrastructure.IJpaRepository;
+
+import market.domain.purchase.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IIdempotencyJpaRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // A plain INSERT, so a second claim of the same key fails on the primary key instead of
+    // being merged into the existing row as save() would.
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_records (record_key, request_hash, completed, http_status, success, expires_at) " +
+                   "VALUES (:key, :hash, FALSE, 0, FALSE, :expiresAt)", nativeQuery = true)
+    int insertClaim(@Param("key") String recordKey, @Param("hash") String requestHash, @Param("expiresAt") long expiresAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :key AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String recordKey, @Param("now") long now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.completed = true, r.httpStatus = :status, r.success = :success, " +
+           "r.responseData = :data, r.responseError = :error, r.expiresAt = :expiresAt WHERE r.recordKey = :key")
+    int complete(@Param("key") String recordKey, @Param("status") int httpStatus, @Param("success") boolean success,
+                 @Param("data") String responseData, @Param("error") String responseError, @Param("expiresAt") long expiresAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -2,14 +2,19 @@
 package market.infrastructure.IJpaRepository;
 
 import market.domain.store.Listing;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Modifying;
 
+import jakarta.persistence.LockModeType;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IListingJpaRepository extends JpaRepository<Listing, String> {
@@ -23,9 +28,73 @@ public interface IListingJpaRepository extends JpaRepository<Listing, String> {
     List<Listing> findByStoreIdAndCategory(String storeId, String category);
     List<Listing> findByStoreIdAndActiveTrue(String storeId);
     
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Listing l WHERE l.listingId = :id")
+    Optional<Listing> findByIdForUpdate(@Param("id") String listingId);
+
     @Query("SELECT l FROM Listing l WHERE l.category = :category AND l.storeId = :storeId")
     List<Listing> getListingsByCategoryAndStore(String category, @Param("storeId") String storeId);
 
+    // Keyset pages: ORDER BY matches the cursor columns so the database can seek instead of OFFSET-scanning.
+    @Query("SELECT l FROM Listing l ORDER BY l.price ASC, l.listingId ASC")
+    Slice<Listing> findFirstPageByPrice(Pageable pageable);
+
+    @Query("SELECT l FROM Listing l WHERE l.price > :price OR (l.price = :price AND l.listingId > :id) " +
+           "ORDER BY l.price ASC, l.listingId ASC")
+    Slice<Listing> findPageByPriceAfter(@Param("price") double price, @Param("id") String listingId, Pageable pageable);
+
+    @Query("SELECT l FROM Listing l ORDER BY l.productName ASC, l.listingId ASC")
+    Slice<Listing> findFirstPageByName(Pageable pageable);
+
+    @Query("SELECT l FROM Listing l WHERE l.productName > :name OR (l.productName = :name AND l.listingId > :id) " +
+           "ORDER BY l.productName ASC, l.listingId ASC")
+    Slice<Listing> findPageByNameAfter(@Param("name") String productName, @Param("id") String listingId, Pageable pageable);
+
+    @Query("SELECT l.listingId FROM Listing l WHERE l.storeId = :storeId")
+    List<String> findIdsByStoreId(@Param("storeId") String storeId);
+
+    @Query("SELECT l.listingId FROM Listing l WHERE l.storeId = :storeId AND l.active = true " +
+           "AND (:category IS NULL OR LOWER(l.category) = LOWER(:category))")
+    List<String> findActiveIdsByStoreIdAndCategory(@Param("storeId") String storeId, @Param("category") String category);
+
+    @Query("SELECT l.listingId FROM Listing l WHERE l.storeId = :storeId AND l.active = true AND l.stockShards > 0 " +
+           "AND (:category IS NULL OR LOWER(l.category) = LOWER(:category)) ORDER BY l.listingId")
+    List<String> findActiveShardedIdsByStoreIdAndCategory(@Param("storeId") String storeId, @Param("category") String category);
+
+    // Set-based updates: one statement per call, bumping the version so concurrent entity saves fail optimistically.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Listing l SET l.active = :active, l.version = COALESCE(l.version, 0) + 1 " +
+           "WHERE l.storeId = :storeId AND l.active <> :active")
+    int updateActiveByStoreId(@Param("storeId") String storeId, @Param("active") boolean active);
+
+    // The change is passed as integer basis points: Hibernate renders a double parameter in arithmetic
+    // as cast(? as float($p)), which H2 rejects.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Listing l SET l.price = ROUND(l.price * (10000 + :basisPoints) / 10000, 2), l.version = COALESCE(l.version, 0) + 1 " +
+           "WHERE l.storeId = :storeId AND l.active = true " +
+           "AND (:category IS NULL OR LOWER(l.category) = LOWER(:category))")
+    int scalePrices(@Param("storeId") String storeId, @Param("category") String category, @Param("basisPoints") int basisPoints);
+
+    // Only listings with a single counter: the stock of a sharded listing is mostly in its shard rows.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Listing l SET l.quantityAvailable = CASE WHEN l.quantityAvailable + :delta < 0 THEN 0 " +
+           "ELSE l.quantityAvailable + :delta END, l.version = COALESCE(l.version, 0) + 1 " +
+           "WHERE l.storeId = :storeId AND l.active = true AND (l.stockShards IS NULL OR l.stockShards = 0) " +
+           "AND (:category IS NULL OR LOWER(l.category) = LOWER(:category))")
+    int addToQuantities(@Param("storeId") String storeId, @Param("category") String category, @Param("delta") int delta);
+
+    // Guarded stock changes: the WHERE clause is the stock check, so a returned count of 0 means the
+    // listing is missing, belongs to another store, or (for a decrement) has too little stock.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Listing l SET l.quantityAvailable = l.quantityAvailable - :quantity, l.version = COALESCE(l.version, 0) + 1 " +
+           "WHERE l.listingId = :id AND l.storeId = :storeId AND l.quantityAvailable >= :quantity")
+    int decrementStock(@Param("id") String listingId, @Param("storeId") String storeId, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Listing l SET l.quantityAvailable = l.quantityAvailable + :quantity, l.version = COALESCE(l.version, 0) + 1 " +
+           "WHERE l.listingId = :id AND l.storeId = :storeId")
+    int incrementStock(@Param("id") String listingId, @Param("storeId") String storeId, @Param("quantity") int quantity);
+
     @Modifying
     @Query("UPDATE Listing l SET l.productDescription = :desc WHERE l.listingId = :id")
     void updateDescriptionWithoutVersion(@Param("id") String listingId, @Param("desc") String description);
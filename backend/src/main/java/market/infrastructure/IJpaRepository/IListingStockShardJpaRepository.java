@@ -0,0 +1,35 @@
+package market.infrastructure.IJpaRepository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import market.domain.store.ListingStockShard;
+
+@Repository
+public interface IListingStockShardJpaRepository extends JpaRepository<ListingStockShard, String> {
+
+    // Scalar so that the quantities are read from the database, not from entities already in the persistence context.
+    @Query("SELECT s.quantity FROM ListingStockShard s WHERE s.listingId = :listingId ORDER BY s.shardIndex")
+    List<Integer> findQuantitiesByListingId(@Param("listingId") String listingId);
+
+    // Taken when the shard layout changes, so that no buyer takes from a row while it is rewritten.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ListingStockShard s WHERE s.listingId = :listingId ORDER BY s.shardIndex")
+    List<ListingStockShard> findByListingIdForUpdate(@Param("listingId") String listingId);
+
+    // Guarded like IListingJpaRepository.decrementStock: 0 rows means the shard is missing or too low.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ListingStockShard s SET s.quantity = s.quantity - :quantity WHERE s.shardId = :shardId AND s.quantity >= :quantity")
+    int take(@Param("shardId") String shardId, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ListingStockShard s SET s.quantity = s.quantity + :quantity WHERE s.shardId = :shardId")
+    int add(@Param("shardId") String shardId, @Param("quantity") int quantity);
+}
@@ -0,0 +1,31 @@
+package market.infrastructure.IJpaRepository;
+
+import market.domain.purchase.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IStockReservationJpaRepository extends JpaRepository<StockReservation, String> {
+
+    Optional<StockReservation> findFirstByUserIdOrderByExpiresAtDesc(String userId);
+
+    // Row lock held until commit, so a concurrent remover blocks and then finds the row gone.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.reservationId = :id")
+    Optional<StockReservation> findByIdForUpdate(@Param("id") String reservationId);
+
+    @Query("SELECT r.reservationId FROM StockReservation r WHERE r.expiresAt <= :now")
+    List<String> findExpiredIds(@Param("now") long now);
+
+    @Query("SELECT i.listingId, SUM(i.quantity) FROM StockReservation r JOIN r.items i " +
+           "WHERE i.storeId = :storeId GROUP BY i.listingId")
+    List<Object[]> sumReservedByListing(@Param("storeId") String storeId);
+}
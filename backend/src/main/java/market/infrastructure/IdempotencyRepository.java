@@ -0,0 +1,49 @@
+package market.infrastructure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import market.domain.purchase.IIdempotencyRepository;
+import market.domain.purchase.IdempotencyRecord;
+
+public class IdempotencyRepository implements IIdempotencyRepository {
+
+    private final Map<String, IdempotencyRecord> byKey = new HashMap<>();
+
+    @Override
+    public synchronized boolean claim(IdempotencyRecord record, long now) {
+        IdempotencyRecord current = byKey.get(record.getRecordKey());
+        if (current != null && !current.isExpired(now)) {
+            return false;
+        }
+        byKey.put(record.getRecordKey(), record);
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<IdempotencyRecord> findById(String recordKey) {
+        return Optional.ofNullable(byKey.get(recordKey));
+    }
+
+    @Override
+    public synchronized void complete(String recordKey, int httpStatus, boolean success, String responseData,
+                                      String responseError, long expiresAt) {
+        IdempotencyRecord record = byKey.get(recordKey);
+        if (record != null) {
+            record.complete(httpStatus, success, responseData, responseError, expiresAt);
+        }
+    }
+
+    @Override
+    public synchronized void release(String recordKey) {
+        byKey.remove(recordKey);
+    }
+
+    @Override
+    public synchronized int deleteExpired(long now) {
+        int before = byKey.size();
+        byKey.values().removeIf(r -> r.isExpired(now));
+        return before - byKey.size();
+    }
+}
@@ -0,0 +1,174 @@
+package market.infrastructure;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import market.domain.store.Listing;
+
+/**
+ * Bounded read-through cache of listings keyed by listing ID.
+ * <p>
+ * Entries expire {@code ttl} after they were loaded. Once {@code maxSize} is exceeded, entries
+ * are evicted approximately least-recently-used (see {@link SampledEviction}), so no call takes a
+ * lock shared by all listings. The cache only ever holds detached copies: callers get
+ * their own copy on every hit, so mutating a returned listing never leaks into the cache.
+ * <p>
+ * Staleness is guarded in three ways:
+ * <ul>
+ *   <li>an entry is never replaced by a snapshot with a lower {@code @Version};</li>
+ *   <li>a load that started before an invalidation of its listing is dropped rather than cached
+ *       (see {@link #stamp} / {@link #putIfUnchanged}); stamps are striped by listing ID, so an
+ *       invalidation only drops racing loads of listings in the same stripe;</li>
+ *   <li>while a transaction holds an uncommitted write to a listing ({@link #beginWrite} ..
+ *       {@link #endWrite}), that listing is neither served from nor stored in the cache.</li>
+ * </ul>
+ */
+public class ListingCache {
+
+    /** Point-in-time cache counters. */
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    private static final int STAMP_STRIPES = 64;
+
+    private static final class Entry {
+        final Listing listing;
+        final long version;
+        final long expiresAtNanos;
+        volatile long lastAccessNanos;
+
+        Entry(Listing listing, long version, long nowNanos, long ttlNanos) {
+            this.listing = listing;
+            this.version = version;
+            this.expiresAtNanos = nowNanos + ttlNanos;
+            this.lastAccessNanos = nowNanos;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLongArray invalidations = new AtomicLongArray(STAMP_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ListingCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    ListingCache(int maxSize, Duration ttl, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @return A copy of the cached listing, or {@code null} on a miss.
+     */
+    public Listing get(String listingId) {
+        Entry entry = entries.get(listingId);
+        if (entry == null || pendingWrites.containsKey(listingId)) {
+            misses.increment();
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (now - entry.expiresAtNanos >= 0) {
+            if (entries.remove(listingId, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        entry.lastAccessNanos = now;
+        hits.increment();
+        return entry.listing.copy();
+    }
+
+    /**
+     * Returns a token to take before loading a listing from the database.
+     * Pass it to {@link #putIfUnchanged} so that a load racing with a write is not cached.
+     */
+    public long stamp(String listingId) {
+        return invalidations.get(stripe(listingId));
+    }
+
+    /**
+     * Caches a freshly loaded listing, unless its listing was invalidated since {@code stamp}
+     * was taken, the listing has an uncommitted write in flight, or a newer version is already cached.
+     */
+    public void putIfUnchanged(Listing listing, long stamp) {
+        if (listing == null) {
+            return;
+        }
+        String listingId = listing.getListingId();
+        long version = listing.getVersion() == null ? -1 : listing.getVersion();
+        boolean[] added = new boolean[1];
+        // Checked under the key's bin lock, which invalidate() takes after bumping the stamp
+        entries.compute(listingId, (id, current) -> {
+            if (stamp != invalidations.get(stripe(id)) || pendingWrites.containsKey(id)
+                    || (current != null && current.version > version)) {
+                return current;
+            }
+            added[0] = current == null;
+            return new Entry(listing.copy(), version, clock.getAsLong(), ttlNanos);
+        });
+        if (added[0]) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Marks a listing as being written by an open transaction and drops its entry.
+     * Must be paired with {@link #endWrite} once the transaction completes.
+     */
+    public void beginWrite(String listingId) {
+        pendingWrites.merge(listingId, 1, Integer::sum);
+        invalidate(listingId);
+    }
+
+    /**
+     * Ends a write started with {@link #beginWrite}, whether it committed or rolled back,
+     * and drops whatever was cached for the listing meanwhile.
+     */
+    public void endWrite(String listingId) {
+        pendingWrites.computeIfPresent(listingId, (k, n) -> n > 1 ? n - 1 : null);
+        invalidate(listingId);
+    }
+
+    public void invalidate(String listingId) {
+        invalidations.incrementAndGet(stripe(listingId));
+        entries.remove(listingId);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private static int stripe(String listingId) {
+        int h = listingId.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private void evictOverflow() {
+        long now = clock.getAsLong();
+        evictions.add(SampledEviction.evictOverflow(entries, maxSize,
+                e -> e.lastAccessNanos, e -> now - e.expiresAtNanos >= 0));
+    }
+}
@@ -0,0 +1,119 @@
+package market.infrastructure;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import market.domain.store.Listing;
+import market.domain.store.ListingFacets;
+
+/**
+ * Facet counters (category, store, price bucket) over the active listings, kept up to date
+ * incrementally.
+ * <p>
+ * Counters are kept per filter the catalog can be browsed by: everything, one store, one
+ * category, and one store/category pair. Each write moves a listing's contribution from its
+ * old counters to its new ones, and a read copies the counters of a single filter, so both
+ * cost O(number of facet values) regardless of the catalog size. Inactive listings are
+ * tracked but not counted, so enabling or disabling a listing only moves counters.
+ */
+public class ListingFacetIndex {
+
+    /** A store/category combination; {@code null} components mean "any". */
+    private record Partition(String storeId, String category) {}
+
+    private record Entry(String storeId, String category, String bucket, boolean active) {}
+
+    private static final class Counts {
+        long total;
+        final Map<String, Long> categories = new HashMap<>();
+        final Map<String, Long> stores = new HashMap<>();
+        final Map<String, Long> buckets = new HashMap<>();
+
+        boolean isEmpty() {
+            return total == 0;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<Partition, Counts> partitions = new HashMap<>();
+
+    /**
+     * Adds a listing, or moves its counts if it was already indexed.
+     *
+     * @param listing The listing to index.
+     */
+    public void index(Listing listing) {
+        index(listing.getListingId(), listing.getStoreId(), listing.getCategory(), listing.getPrice(),
+              Boolean.TRUE.equals(listing.isActive()));
+    }
+
+    /**
+     * Adds or replaces a listing from explicit field values.
+     * Used by write paths that update the database without touching the loaded entity.
+     */
+    public synchronized void index(String listingId, String storeId, String category, double price, boolean active) {
+        Entry entry = new Entry(storeId, ListingFacets.categoryKey(category), ListingFacets.priceBucket(price), active);
+        Entry old = entries.put(listingId, entry);
+        if (old != null) {
+            count(old, -1);
+        }
+        count(entry, 1);
+    }
+
+    /**
+     * Removes a listing from the counts.
+     *
+     * @param listingId The ID of the listing to remove.
+     */
+    public synchronized void remove(String listingId) {
+        Entry old = entries.remove(listingId);
+        if (old != null) {
+            count(old, -1);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        partitions.clear();
+    }
+
+    /**
+     * Returns the facet counts of the active listings matching the filters.
+     *
+     * @param storeId  Only listings of this store, or {@code null} for all stores.
+     * @param category Only listings in this category (case-insensitive), or {@code null} for all categories.
+     */
+    public synchronized ListingFacets facets(String storeId, String category) {
+        Counts counts = partitions.get(new Partition(storeId, category == null ? null : ListingFacets.categoryKey(category)));
+        if (counts == null) {
+            return ListingFacets.of(0, Map.of(), Map.of(), Map.of());
+        }
+        return ListingFacets.of(counts.total, counts.categories, counts.stores, counts.buckets);
+    }
+
+    private void count(Entry entry, long delta) {
+        if (!entry.active()) {
+            return;
+        }
+        for (Partition p : List.of(
+                new Partition(null, null),
+                new Partition(entry.storeId(), null),
+                new Partition(null, entry.category()),
+                new Partition(entry.storeId(), entry.category()))) {
+            Counts counts = partitions.computeIfAbsent(p, k -> new Counts());
+            counts.total += delta;
+            bump(counts.categories, entry.category(), delta);
+            bump(counts.stores, entry.storeId(), delta);
+            bump(counts.buckets, entry.bucket(), delta);
+            if (counts.isEmpty()) {
+                partitions.remove(p);
+            }
+        }
+    }
+
+    // Adds delta to a counter, dropping it when it reaches zero.
+    private static void bump(Map<String, Long> counters, String key, long delta) {
+        counters.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
@@ -0,0 +1,163 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import market.domain.store.Listing;
+import market.domain.store.ListingPriceQuery;
+
+/**
+ * In-process sorted index of listings by (price, listing ID).
+ * <p>
+ * Every listing is linked into four concurrent skip lists: the whole catalog, its store, its
+ * (lower-cased) category, and its store/category pair. A query picks the partition that matches
+ * its filters exactly and walks the requested price range from either end, so a range or top-N
+ * lookup costs O(log n + k) and never scans listings outside the result.
+ * <p>
+ * Writers are serialized on an internal lock; readers are lock-free and see each listing either
+ * at its old or at its new position while it is being re-indexed.
+ */
+public class ListingPriceIndex {
+
+    private record Key(double price, String listingId) {}
+
+    private static final Comparator<Key> ORDER = Comparator.comparingDouble(Key::price).thenComparing(Key::listingId);
+
+    /** A store/category combination; {@code null} components mean "any". */
+    private record Partition(String storeId, String category) {}
+
+    private record Entry(String listingId, String storeId, String category, double price) {
+        Key key() {
+            return new Key(price, listingId);
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Partition, NavigableSet<Key>> partitions = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    /**
+     * Adds a listing to the index, replacing any previous snapshot with the same ID.
+     *
+     * @param listing The listing to index.
+     */
+    public void index(Listing listing) {
+        index(listing.getListingId(), listing.getStoreId(), listing.getCategory(), listing.getPrice());
+    }
+
+    /**
+     * Adds or replaces a listing snapshot from explicit field values.
+     * Used by write paths that update the database without touching the loaded entity.
+     */
+    public void index(String listingId, String storeId, String category, double price) {
+        Entry entry = new Entry(listingId, storeId, normalize(category), price);
+        synchronized (writeLock) {
+            Entry old = entries.put(listingId, entry);
+            if (old != null) {
+                unlink(old);
+            }
+            link(entry);
+        }
+    }
+
+    /**
+     * Removes a listing from the index.
+     *
+     * @param listingId The ID of the listing to remove.
+     */
+    public void remove(String listingId) {
+        synchronized (writeLock) {
+            Entry old = entries.remove(listingId);
+            if (old != null) {
+                unlink(old);
+            }
+        }
+    }
+
+    /**
+     * Drops every indexed listing.
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            entries.clear();
+            partitions.clear();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Runs a price-ordered query.
+     *
+     * @param query The filters, price range, direction and limit.
+     * @return The IDs of the matching listings in price order (ties broken by listing ID).
+     */
+    public List<String> query(ListingPriceQuery query) {
+        NavigableSet<Key> partition = partitions.get(new Partition(query.storeId(), normalize(query.category())));
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        NavigableSet<Key> range = partition;
+        if (query.minPrice() != null) {
+            range = range.tailSet(new Key(query.minPrice(), ""), true);
+        }
+        if (query.maxPrice() != null) {
+            // Every ID sorts after "", so this bound excludes exactly the prices above maxPrice.
+            range = range.headSet(new Key(Math.nextUp(query.maxPrice()), ""), false);
+        }
+        if (query.descending()) {
+            range = range.descendingSet();
+        }
+
+        int limit = query.limit() > 0 ? query.limit() : Integer.MAX_VALUE;
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        for (Key key : range) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(key.listingId());
+        }
+        return result;
+    }
+
+    private void link(Entry entry) {
+        Key key = entry.key();
+        for (Partition p : partitionsOf(entry)) {
+            partitions.computeIfAbsent(p, k -> new ConcurrentSkipListSet<>(ORDER)).add(key);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        Key key = entry.key();
+        for (Partition p : partitionsOf(entry)) {
+            NavigableSet<Key> keys = partitions.get(p);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    partitions.remove(p);
+                }
+            }
+        }
+    }
+
+    private static List<Partition> partitionsOf(Entry entry) {
+        return List.of(
+            new Partition(null, null),
+            new Partition(entry.storeId(), null),
+            new Partition(null, entry.category()),
+            new Partition(entry.storeId(), entry.category())
+        );
+    }
+
+    private static String normalize(String category) {
+        return category == null ? null : category.toLowerCase(Locale.ROOT);
+    }
+}
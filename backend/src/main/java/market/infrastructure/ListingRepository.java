@@ -1,32 +1,162 @@
 package market.infrastructure;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
 import market.domain.store.IListingRepository;
 import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.ListingFacets;
+import market.domain.store.ListingPriceQuery;
+import market.domain.store.ListingSearchQuery;
 
 /**
  * In-memory implementation of the {@link IListingRepository} interface.
- * Stores listings in maps grouped by listing ID, store ID, product ID, and product name.
+ * Stores listings in maps grouped by listing ID, store ID, product ID, product name and
+ * (lower-cased) category. The secondary maps hold listing IDs and are updated under a single
+ * index lock on every add, remove, rename and re-categorization, so each lookup costs
+ * O(results) instead of a scan over the whole catalog. Text search, price-ordered queries and
+ * facet counts are served by a {@link ListingSearchIndex}, a {@link ListingPriceIndex} and a
+ * {@link ListingFacetIndex} maintained the same way.
  */
 public class ListingRepository implements IListingRepository {
 
    private final Map<String, Listing> listingsById = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> idsByStoreId = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> idsByProductId = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> idsByProductName = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> idsByCategory = new ConcurrentHashMap<>();
+   private final Object indexLock = new Object();
+   private final ListingSearchIndex searchIndex = new ListingSearchIndex();
+   private final ListingPriceIndex priceIndex = new ListingPriceIndex();
+   private final ListingFacetIndex facetIndex = new ListingFacetIndex();
 
     @Override
     public String addListing(Listing listing) {
-        listingsById.put(listing.getListingId(), listing);
+        synchronized (indexLock) {
+            Listing old = listingsById.put(listing.getListingId(), listing);
+            if (old != null) {
+                unindex(old);
+            }
+            index(listing);
+            searchIndex.index(listing);
+            priceIndex.index(listing);
+            facetIndex.index(listing);
+        }
         return listing.getListingId();
     }
 
+    @Override
+    public int addListings(List<Listing> listings) {
+        synchronized (indexLock) {
+            for (Listing listing : listings) {
+                if (listingsById.containsKey(listing.getListingId())) {
+                    throw new IllegalArgumentException("Listing ID already exists: " + listing.getListingId());
+                }
+            }
+            listings.forEach(this::addListing);
+        }
+        return listings.size();
+    }
+
     @Override
     public boolean removeListing(String listingId) {
-        return listingsById.remove(listingId) != null;
+        synchronized (indexLock) {
+            Listing removed = listingsById.remove(listingId);
+            if (removed == null) {
+                return false;
+            }
+            unindex(removed);
+            searchIndex.remove(listingId);
+            priceIndex.remove(listingId);
+            facetIndex.remove(listingId);
+            return true;
+        }
+    }
+
+    private void index(Listing l) {
+        link(idsByStoreId, l.getStoreId(), l.getListingId());
+        link(idsByProductId, l.getProductId(), l.getListingId());
+        link(idsByProductName, l.getProductName(), l.getListingId());
+        link(idsByCategory, categoryKey(l.getCategory()), l.getListingId());
+    }
+
+    private void unindex(Listing l) {
+        unlink(idsByStoreId, l.getStoreId(), l.getListingId());
+        unlink(idsByProductId, l.getProductId(), l.getListingId());
+        unlink(idsByProductName, l.getProductName(), l.getListingId());
+        unlink(idsByCategory, categoryKey(l.getCategory()), l.getListingId());
+    }
+
+    private static void link(Map<String, Set<String>> index, String key, String listingId) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(listingId);
+        }
+    }
+
+    private static void unlink(Map<String, Set<String>> index, String key, String listingId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(listingId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.toLowerCase(Locale.ROOT);
+    }
+
+    // Resolves the listings behind an index entry, optionally keeping only one store.
+    private List<Listing> resolve(Set<String> ids, String storeId) {
+        List<Listing> result = new ArrayList<>();
+        if (ids == null) {
+            return result;
+        }
+        for (String id : ids) {
+            Listing l = listingsById.get(id);
+            if (l != null && (storeId == null || storeId.equals(l.getStoreId()))) {
+                result.add(l);
+            }
+        }
+        return result;
+    }
+
+    // Store-scoped lookup: walk whichever of the two index entries is smaller.
+    private List<Listing> resolveInStore(Set<String> ids, String storeId) {
+        Set<String> storeIds = idsByStoreId.get(storeId);
+        if (ids == null || storeIds == null) {
+            return new ArrayList<>();
+        }
+        if (storeIds.size() < ids.size()) {
+            List<Listing> result = new ArrayList<>();
+            for (String id : storeIds) {
+                Listing l = listingsById.get(id);
+                if (l != null && ids.contains(id)) {
+                    result.add(l);
+                }
+            }
+            return result;
+        }
+        return resolve(ids, storeId);
     }
 
     @Override
@@ -34,18 +164,26 @@ public class ListingRepository implements IListingRepository {
         return listingsById.get(listingId);
     }
 
+    @Override
+    public Map<String, Listing> getListingsByIds(Collection<String> listingIds) {
+        Map<String, Listing> result = new HashMap<>();
+        for (String listingId : listingIds) {
+            Listing l = listingsById.get(listingId);
+            if (l != null) {
+                result.put(listingId, l);
+            }
+        }
+        return result;
+    }
+
     @Override
     public List<Listing> getListingsByProductId(String productId) {
-        return listingsById.values().stream()
-                .filter(l -> l.getProductId().equals(productId))
-                .collect(Collectors.toList());
+        return resolve(idsByProductId.get(productId), null);
     }
 
     @Override
     public List<Listing> getListingsByProductName(String productName) {
-        return listingsById.values().stream()
-                .filter(l -> l.getProductName().equals(productName))
-                .collect(Collectors.toList());
+        return resolve(idsByProductName.get(productName), null);
     }
 
     @Override
@@ -53,25 +191,90 @@ public class ListingRepository implements IListingRepository {
         return new ArrayList<>(listingsById.values());
     }
 
+    private static final Comparator<Listing> BY_PRICE =
+        Comparator.comparingDouble(Listing::getPrice).thenComparing(Listing::getListingId);
+    private static final Comparator<Listing> BY_NAME =
+        Comparator.comparing(Listing::getProductName).thenComparing(Listing::getListingId);
+
+    @Override
+    public Slice<Listing> getListingsPageByPrice(ListingCursor after, int pageSize) {
+        Predicate<Listing> isAfter = l -> true;
+        if (after != null) {
+            double price = after.price();
+            isAfter = l -> l.getPrice() > price
+                || (l.getPrice() == price && l.getListingId().compareTo(after.listingId()) > 0);
+        }
+        return page(BY_PRICE, isAfter, pageSize);
+    }
+
+    @Override
+    public Slice<Listing> getListingsPageByName(ListingCursor after, int pageSize) {
+        Predicate<Listing> isAfter = l -> true;
+        if (after != null) {
+            isAfter = l -> {
+                int cmp = l.getProductName().compareTo(after.sortKey());
+                return cmp > 0 || (cmp == 0 && l.getListingId().compareTo(after.listingId()) > 0);
+            };
+        }
+        return page(BY_NAME, isAfter, pageSize);
+    }
+
+    // Picks the pageSize smallest listings after the cursor, plus one to detect a following page.
+    private Slice<Listing> page(Comparator<Listing> order, Predicate<Listing> isAfter, int pageSize) {
+        List<Listing> content = listingsById.values().stream()
+            .filter(isAfter)
+            .sorted(order)
+            .limit(pageSize + 1L)
+            .collect(Collectors.toCollection(ArrayList::new));
+        boolean hasNext = content.size() > pageSize;
+        if (hasNext) {
+            content.remove(pageSize);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    @Override
+    public List<Listing> searchListings(ListingSearchQuery query) {
+        List<Listing> result = new ArrayList<>();
+        for (String listingId : searchIndex.search(query)) {
+            Listing l = listingsById.get(listingId);
+            if (l != null) {
+                result.add(l);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Listing> getListingsByPrice(ListingPriceQuery query) {
+        List<Listing> result = new ArrayList<>();
+        for (String listingId : priceIndex.query(query)) {
+            Listing l = listingsById.get(listingId);
+            if (l != null) {
+                result.add(l);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ListingFacets getFacetCounts(String storeId, String category) {
+        return facetIndex.facets(storeId, category);
+    }
+
     @Override
     public List<Listing> getListingsByProductIdAndStore(String productId, String storeId) {
-        return listingsById.values().stream()
-                .filter(l -> l.getProductId().equals(productId) && l.getStoreId().equals(storeId))
-                .collect(Collectors.toList());
+        return resolveInStore(idsByProductId.get(productId), storeId);
     }
 
     @Override
     public List<Listing> getListingsByProductNameAndStore(String productName, String storeId) {
-        return listingsById.values().stream()
-                .filter(l -> l.getProductName().equals(productName) && l.getStoreId().equals(storeId))
-                .collect(Collectors.toList());
+        return resolveInStore(idsByProductName.get(productName), storeId);
     }
 
     @Override
     public List<Listing> getListingsByStoreId(String storeId) {
-        return listingsById.values().stream()
-                .filter(l -> l.getStoreId().equals(storeId))
-                .collect(Collectors.toList());
+        return resolve(idsByStoreId.get(storeId), null);
     }
 
     
@@ -80,122 +283,142 @@ public class ListingRepository implements IListingRepository {
         if (stockMap == null || stockMap.isEmpty()) {
             return false;
         }
-    
-        // Collect listings and sort by ID to avoid deadlocks
-        List<Listing> toLock = new ArrayList<>();
+
+        Map<Listing, Integer> quantities = new LinkedHashMap<>();
         for (String storeId : stockMap.keySet()) {
             Map<String, Integer> listingUpdates = stockMap.get(storeId);
             if (listingUpdates == null) throw new IllegalArgumentException("Missing listings for store " + storeId);
-    
-            for (String listingId : listingUpdates.keySet()) {
-                Listing l = getListingById(listingId);
+
+            for (Map.Entry<String, Integer> update : listingUpdates.entrySet()) {
+                Listing l = getListingById(update.getKey());
                 if (l == null || !l.getStoreId().equals(storeId))
-                    throw new IllegalArgumentException("Invalid listing: " + listingId + " for store: " + storeId);
-                toLock.add(l);
+                    throw new IllegalArgumentException("Invalid listing: " + update.getKey() + " for store: " + storeId);
+                if (update.getValue() == null || update.getValue() < 0)
+                    throw new IllegalArgumentException("Invalid quantity for listing: " + update.getKey());
+                quantities.put(l, update.getValue());
             }
         }
-    
-        toLock.sort(Comparator.comparing(Listing::getListingId));
-    
-        // Lock all listings in sorted order
-        List<Object> locks = toLock.stream().map(l -> (Object) l).distinct().toList();
-        synchronizedLocks(locks, () -> {
-            if(!isRestore) {
-                // Check stock availability for purchase
-                for (Listing listing : toLock) {
-                    int requestedQuantity = stockMap.get(listing.getStoreId()).get(listing.getListingId());
-    
-                    if (listing.getQuantityAvailable() < requestedQuantity)
-                        throw new RuntimeException("Not enough stock for listing: " + listing.getListingId());
-                }
-            }
-            // Check stock availability and perform the appropriate action (update or restore)
-            for (Listing listing : toLock) {
-                int quantity = stockMap.get(listing.getStoreId()).get(listing.getListingId());
-                if (!isRestore) {
-                    // Perform purchase
-                    try {
-                        listing.purchase(quantity);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Unexpected error during purchase of " + listing.getListingId(), e);
-                    }
-                } else {
-                    // For restoring stock, just restore the stock
-                    try {
-                        listing.restore(quantity);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Unexpected error during restore of " + listing.getListingId(), e);
-                    }
+
+        if (isRestore) {
+            quantities.forEach((listing, quantity) -> listing.addStockClamped(quantity));
+            return true;
+        }
+
+        // Optimistic all-or-nothing: take each item with a CAS and give back what was taken if one falls short.
+        // No listing is ever locked, so a large cart never blocks buyers of the same items.
+        List<Map.Entry<Listing, Integer>> taken = new ArrayList<>(quantities.size());
+        for (Map.Entry<Listing, Integer> item : quantities.entrySet()) {
+            if (!item.getKey().tryTakeStock(item.getValue())) {
+                for (Map.Entry<Listing, Integer> t : taken) {
+                    t.getKey().addStockClamped(t.getValue());
                 }
+                throw new RuntimeException("Not enough stock for listing: " + item.getKey().getListingId());
             }
-        });
-    
+            taken.add(item);
+        }
         return true;
     }
 
-    // Utility method to synchronize on multiple objects
-    private void synchronizedLocks(List<Object> locks, Runnable criticalSection) {
-        synchronizedRecursive(locks, 0, criticalSection);
-    }
-    
-    private void synchronizedRecursive(List<Object> locks, int index, Runnable criticalSection) {
-        if (index == locks.size()) {
-            criticalSection.run();
-            return;
+
+    @Override
+    public void setStockShards(String listingId, int shards) {
+        if (shards < 0 || shards > Listing.MAX_STOCK_SHARDS) {
+            throw new IllegalArgumentException("Stock shards must be between 0 and " + Listing.MAX_STOCK_SHARDS);
         }
-        synchronized (locks.get(index)) {
-            synchronizedRecursive(locks, index + 1, criticalSection);
+        Listing l = getListingById(listingId);
+        if (l == null) {
+            throw new IllegalArgumentException("Listing not found: " + listingId);
         }
+        l.shardStock(shards);
     }
 
-
     @Override
     public List<Listing> getListingsByCategory(String category) {
-        return listingsById.values().stream()
-                .filter(l -> l.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        if (category == null) {
+            return new ArrayList<>();
+        }
+        return resolve(idsByCategory.get(categoryKey(category)), null);
     }
 
     @Override
     public List<Listing> getListingsByCategoryAndStore(String category, String storeId) {
-        return listingsById.values().stream()
-                .filter(l -> l.getCategory().equalsIgnoreCase(category) && l.getStoreId().equals(storeId))
-                .collect(Collectors.toList());
+        if (category == null) {
+            return new ArrayList<>();
+        }
+        return resolveInStore(idsByCategory.get(categoryKey(category)), storeId);
     }
 
 
     @Override
     public void disableListingsByStoreId(String storeId) {
-        listingsById.values().stream()
-            .filter(l -> l.getStoreId().equals(storeId))
+        getListingsByStoreId(storeId)
             .forEach(l -> {
                 synchronized (l) {
                     l.disable();
+                    facetIndex.index(l);
                 }
             });
     }
     
     @Override
     public void enableListingsByStoreId(String storeId) {
-        listingsById.values().stream()
-            .filter(l -> l.getStoreId().equals(storeId))
+        getListingsByStoreId(storeId)
             .forEach(l -> {
                 synchronized (l) {
                     l.enable();
+                    facetIndex.index(l);
                 }
             });
     }
 
     
 
+    @Override
+    public int adjustPricesByPercent(String storeId, String category, double percent) {
+        if (!(percent > -100)) {
+            throw new IllegalArgumentException("Price change must be above -100%");
+        }
+        double factor = (10000 + Math.round(percent * 100)) / 10000.0;
+        int updated = 0;
+        for (Listing l : bulkEditTargets(storeId, category)) {
+            synchronized (l) {
+                l.setPrice(Math.round(l.getPrice() * factor * 100) / 100.0);
+                searchIndex.index(l);
+                priceIndex.index(l);
+                facetIndex.index(l);
+            }
+            updated++;
+        }
+        return updated;
+    }
+
+    @Override
+    public int adjustQuantities(String storeId, String category, int delta) {
+        int updated = 0;
+        for (Listing l : bulkEditTargets(storeId, category)) {
+            l.addStockClamped(delta);
+            updated++;
+        }
+        return updated;
+    }
+
+    private List<Listing> bulkEditTargets(String storeId, String category) {
+        List<Listing> targets = category == null
+            ? getListingsByStoreId(storeId)
+            : getListingsByCategoryAndStore(category, storeId);
+        targets.removeIf(l -> !Boolean.TRUE.equals(l.isActive()));
+        return targets;
+    }
+
     @Override//
     public double calculateStoreBagWithoutDiscount(Map<String, Integer> prodsToQuantity) throws Exception {
         double result = 0.0;
+        Map<String, Listing> listings = getListingsByIds(prodsToQuantity.keySet());
         for (Map.Entry<String, Integer> entry : prodsToQuantity.entrySet()) {
             String listingId = entry.getKey();
             int quantity = entry.getValue();
 
-            Listing l = getListingById(listingId);
+            Listing l = listings.get(listingId);
             if (l == null || !Boolean.TRUE.equals(l.isActive())) {
                 throw new Exception("Listing " + listingId + " not found or inactive.");
             }
@@ -225,6 +448,9 @@ public class ListingRepository implements IListingRepository {
 
         synchronized (l) {
             l.setPrice(newPrice);
+            searchIndex.index(l);
+            priceIndex.index(l);
+            facetIndex.index(l);
         }
         return true;
     }
@@ -234,8 +460,14 @@ public class ListingRepository implements IListingRepository {
         Listing l = getListingById(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
-        synchronized (l) {
-            l.setProductName(newName);
+        synchronized (indexLock) {
+            synchronized (l) {
+                String oldName = l.getProductName();
+                l.setProductName(newName);
+                unlink(idsByProductName, oldName, listingId);
+                link(idsByProductName, l.getProductName(), listingId);
+                searchIndex.index(l);
+            }
         }
     }
 
@@ -246,6 +478,7 @@ public class ListingRepository implements IListingRepository {
             throw new Exception("Listing " + listingId + " not found or inactive.");
         synchronized (l) {
             l.setProductDescription(newDescription);
+            searchIndex.index(l);
         }
     }
 
@@ -264,8 +497,16 @@ public class ListingRepository implements IListingRepository {
         Listing l = getListingById(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
-        synchronized (l) {
-            l.setCategory(newCategory);
+        synchronized (indexLock) {
+            synchronized (l) {
+                String oldCategory = l.getCategory();
+                l.setCategory(newCategory);
+                unlink(idsByCategory, categoryKey(oldCategory), listingId);
+                link(idsByCategory, categoryKey(l.getCategory()), listingId);
+                searchIndex.index(l);
+                priceIndex.index(l);
+                facetIndex.index(l);
+            }
         }
     }
 
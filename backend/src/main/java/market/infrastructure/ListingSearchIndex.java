@@ -0,0 +1,263 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import market.domain.store.Listing;
+import market.domain.store.ListingSearchQuery;
+
+/**
+ * In-process n-gram inverted index over listing name, description and category.
+ * <p>
+ * Every field value is lower-cased and split into all of its 1-, 2- and 3-character grams.
+ * A substring query is answered by picking the smallest posting set among the query's grams
+ * and verifying each candidate against the stored field values, so a lookup costs
+ * O(candidates) instead of O(catalog). Verification keeps the result exact: a listing is
+ * returned only if the field really contains the query text.
+ * <p>
+ * Writers are serialized on an internal lock; readers are lock-free and always verify against
+ * the latest indexed snapshot of a listing.
+ */
+public class ListingSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int PREFIX_BONUS = 1;
+    private static final int EXACT_NAME_BONUS = 2;
+
+    /** Snapshot of the searchable fields of a listing. */
+    private record Entry(String listingId, String storeId, String name, String description, String category, double price) {}
+
+    private record Hit(Entry entry, int score) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> nameGrams = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> textGrams = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    /**
+     * Adds a listing to the index, replacing any previous snapshot with the same ID.
+     *
+     * @param listing The listing to index.
+     */
+    public void index(Listing listing) {
+        index(listing.getListingId(), listing.getStoreId(), listing.getProductName(),
+              listing.getProductDescription(), listing.getCategory(), listing.getPrice());
+    }
+
+    /**
+     * Adds or replaces a listing snapshot from explicit field values.
+     * Used by write paths that update the database without touching the loaded entity.
+     */
+    public void index(String listingId, String storeId, String productName, String productDescription, String category, double price) {
+        Entry entry = new Entry(
+            listingId,
+            storeId,
+            normalize(productName),
+            normalize(productDescription),
+            normalize(category),
+            price
+        );
+        synchronized (writeLock) {
+            Entry old = entries.put(entry.listingId(), entry);
+            if (old != null) {
+                unlink(old);
+            }
+            link(entry);
+        }
+    }
+
+    /**
+     * Removes a listing from the index.
+     *
+     * @param listingId The ID of the listing to remove.
+     */
+    public void remove(String listingId) {
+        synchronized (writeLock) {
+            Entry old = entries.remove(listingId);
+            if (old != null) {
+                unlink(old);
+            }
+        }
+    }
+
+    /**
+     * Drops every indexed listing.
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            entries.clear();
+            nameGrams.clear();
+            textGrams.clear();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String listingId) {
+        return entries.containsKey(listingId);
+    }
+
+    /**
+     * Runs a ranked search.
+     * Results are ordered by score (name matches first, then category, then description),
+     * then by product name and listing ID so that paging is stable.
+     *
+     * @param query The search parameters.
+     * @return The IDs of the matching listings for the requested page, best match first.
+     */
+    public List<String> search(ListingSearchQuery query) {
+        if (query == null || query.text() == null || query.text().isBlank()) {
+            return Collections.emptyList();
+        }
+        String text = normalize(query.text());
+        String category = query.category() == null ? null : normalize(query.category());
+
+        Set<String> candidates = new HashSet<>(smallestPosting(nameGrams, text));
+        if (!query.nameOnly()) {
+            candidates.addAll(smallestPosting(textGrams, text));
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (String id : candidates) {
+            Entry entry = entries.get(id);
+            if (entry == null || !passesFilters(entry, query, category)) {
+                continue;
+            }
+            int score = score(entry, text, query.nameOnly());
+            if (score > 0) {
+                hits.add(new Hit(entry, score));
+            }
+        }
+
+        hits.sort(Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(h -> h.entry().name())
+            .thenComparing(h -> h.entry().listingId()));
+
+        int from = Math.min(query.offset(), hits.size());
+        int to = query.limit() > 0 ? Math.min(hits.size(), from + query.limit()) : hits.size();
+        List<String> result = new ArrayList<>(to - from);
+        for (Hit hit : hits.subList(from, to)) {
+            result.add(hit.entry().listingId());
+        }
+        return result;
+    }
+
+    private boolean passesFilters(Entry entry, ListingSearchQuery query, String category) {
+        if (query.storeId() != null && !query.storeId().equals(entry.storeId())) {
+            return false;
+        }
+        if (category != null && !category.equals(entry.category())) {
+            return false;
+        }
+        if (query.minPrice() != null && entry.price() < query.minPrice()) {
+            return false;
+        }
+        return query.maxPrice() == null || entry.price() <= query.maxPrice();
+    }
+
+    private int score(Entry entry, String text, boolean nameOnly) {
+        int score = 0;
+        if (entry.name().contains(text)) {
+            score += NAME_WEIGHT;
+            if (isPrefixMatch(entry.name(), text)) score += PREFIX_BONUS;
+            if (entry.name().equals(text)) score += EXACT_NAME_BONUS;
+        }
+        if (nameOnly) {
+            return score;
+        }
+        if (entry.category().contains(text)) {
+            score += CATEGORY_WEIGHT;
+            if (isPrefixMatch(entry.category(), text)) score += PREFIX_BONUS;
+        }
+        if (entry.description().contains(text)) {
+            score += DESCRIPTION_WEIGHT;
+        }
+        return score;
+    }
+
+    // True if the text starts the value or one of its words.
+    private static boolean isPrefixMatch(String value, String text) {
+        return value.startsWith(text) || value.contains(" " + text);
+    }
+
+    private static Set<String> smallestPosting(Map<String, Set<String>> postings, String text) {
+        Set<String> smallest = null;
+        for (String gram : grams(text, Math.min(MAX_GRAM, text.length()))) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        return smallest == null ? Collections.emptySet() : smallest;
+    }
+
+    private void link(Entry entry) {
+        for (String gram : allGrams(entry.name())) {
+            nameGrams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(entry.listingId());
+        }
+        for (String gram : textGramsOf(entry)) {
+            textGrams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(entry.listingId());
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (String gram : allGrams(entry.name())) {
+            removePosting(nameGrams, gram, entry.listingId());
+        }
+        for (String gram : textGramsOf(entry)) {
+            removePosting(textGrams, gram, entry.listingId());
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> postings, String gram, String listingId) {
+        Set<String> ids = postings.get(gram);
+        if (ids != null) {
+            ids.remove(listingId);
+            if (ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> textGramsOf(Entry entry) {
+        Set<String> grams = allGrams(entry.description());
+        grams.addAll(allGrams(entry.category()));
+        return grams;
+    }
+
+    private static Set<String> allGrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            grams.addAll(grams(value, n));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String value, int n) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + n <= value.length(); i++) {
+            grams.add(value.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
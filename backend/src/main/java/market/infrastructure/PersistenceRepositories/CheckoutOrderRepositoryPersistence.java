@@ -0,0 +1,31 @@
+package market.infrastructure.PersistenceRepositories;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.CheckoutOrder;
+import market.domain.purchase.ICheckoutOrderRepository;
+import market.infrastructure.IJpaRepository.ICheckoutOrderJpaRepository;
+
+@Primary
+@Repository
+@Transactional
+public class CheckoutOrderRepositoryPersistence implements ICheckoutOrderRepository {
+
+    @Autowired
+    private ICheckoutOrderJpaRepository orderJpaRepository;
+
+    @Override
+    public CheckoutOrder save(CheckoutOrder order) {
+        return orderJpaRepository.save(order);
+    }
+
+    @Override
+    public Optional<CheckoutOrder> findById(String orderId) {
+        return orderJpaRepository.findById(orderId);
+    }
+}
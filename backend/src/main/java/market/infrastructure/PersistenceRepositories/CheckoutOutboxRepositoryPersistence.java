@@ -0,0 +1,52 @@
+package market.infrastructure.PersistenceRepositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.CheckoutOutboxEvent;
+import market.domain.purchase.ICheckoutOutboxRepository;
+import market.infrastructure.IJpaRepository.ICheckoutOutboxJpaRepository;
+
+@Primary
+@Repository
+@Transactional
+public class CheckoutOutboxRepositoryPersistence implements ICheckoutOutboxRepository {
+
+    @Autowired
+    private ICheckoutOutboxJpaRepository outboxJpaRepository;
+
+    @Override
+    public CheckoutOutboxEvent save(CheckoutOutboxEvent event) {
+        return outboxJpaRepository.save(event);
+    }
+
+    @Override
+    public List<CheckoutOutboxEvent> findDue(long now, int limit) {
+        return outboxJpaRepository.findDue(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public boolean claim(String eventId, long now, long leaseUntil) {
+        return outboxJpaRepository.claim(eventId, now, leaseUntil) == 1;
+    }
+
+    @Override
+    public void reschedule(String eventId, long dueAt, String error) {
+        outboxJpaRepository.reschedule(eventId, dueAt, error);
+    }
+
+    @Override
+    public void markDone(String eventId) {
+        outboxJpaRepository.markDone(eventId);
+    }
+
+    @Override
+    public void cancelPending(String orderId, CheckoutOutboxEvent.Type type) {
+        outboxJpaRepository.cancelPending(orderId, type);
+    }
+}
@@ -0,0 +1,67 @@
+package market.infrastructure.PersistenceRepositories;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import market.domain.purchase.IIdempotencyRepository;
+import market.domain.purchase.IdempotencyRecord;
+import market.infrastructure.IJpaRepository.IIdempotencyJpaRepository;
+
+@Primary
+@Repository
+@Transactional
+public class IdempotencyRepositoryPersistence implements IIdempotencyRepository {
+
+    @Autowired
+    private IIdempotencyJpaRepository idempotencyJpaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean claim(IdempotencyRecord record, long now) {
+        // A transaction of its own: the claim must be visible to a concurrent retry before the
+        // request runs, and a duplicate key has to roll back only the claim.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return Boolean.TRUE.equals(tx.execute(status -> {
+                idempotencyJpaRepository.deleteIfExpired(record.getRecordKey(), now);
+                return idempotencyJpaRepository.insertClaim(record.getRecordKey(), record.getRequestHash(), record.getExpiresAt()) == 1;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findById(String recordKey) {
+        return idempotencyJpaRepository.findById(recordKey);
+    }
+
+    @Override
+    public void complete(String recordKey, int httpStatus, boolean success, String responseData,
+                         String responseError, long expiresAt) {
+        idempotencyJpaRepository.complete(recordKey, httpStatus, success, responseData, responseError, expiresAt);
+    }
+
+    @Override
+    public void release(String recordKey) {
+        idempotencyJpaRepository.deleteById(recordKey);
+    }
+
+    @Override
+    public int deleteExpired(long now) {
+        return idempotencyJpaRepository.deleteExpired(now);
+    }
+}
@@ -1,20 +1,40 @@
 package market.infrastructure.PersistenceRepositories;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
 
 import market.domain.store.IListingRepository;
 import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.ListingFacets;
+import market.domain.store.ListingPriceQuery;
+import market.domain.store.ListingSearchQuery;
+import market.domain.store.ListingStockShard;
+import market.infrastructure.ListingCache;
+import market.infrastructure.ListingFacetIndex;
+import market.infrastructure.ListingPriceIndex;
+import market.infrastructure.ListingSearchIndex;
 import market.infrastructure.IJpaRepository.IListingJpaRepository;
+import market.infrastructure.IJpaRepository.IListingStockShardJpaRepository;
 
 @Primary
 @Repository
@@ -23,20 +43,54 @@ public class ListingRepositoryPersistence implements IListingRepository {
 
     @Autowired
     private IListingJpaRepository listingJpaRepository;
-    
-   
+
+    @Autowired
+    private IListingStockShardJpaRepository stockShardJpaRepository;
+
+    // Read-through cache for getListingById; every write below goes through written(...).
+    @Autowired
+    private ListingCache listingCache;
+
+    // Built from the table once at startup, before any write can reach this repository,
+    // then kept in sync by every write below after it commits.
+    private final ListingSearchIndex searchIndex = new ListingSearchIndex();
+    private final ListingPriceIndex priceIndex = new ListingPriceIndex();
+    private final ListingFacetIndex facetIndex = new ListingFacetIndex();
+
+    @PostConstruct
+    void loadIndexes() {
+        listingJpaRepository.findAll().forEach(this::reindex);
+    }
 
     @Override
     public String addListing(Listing listing) {
         Listing savedListing = listingJpaRepository.save(listing);
+        written(savedListing.getListingId());
+        afterCommit(() -> reindex(savedListing));
         return savedListing.getListingId();
     }
 
+    @Override
+    public int addListings(List<Listing> listings) {
+        // New entities are persisted (no select-before-insert) and flushed together at commit;
+        // hibernate.jdbc.batch_size and order_inserts turn that flush into JDBC batches.
+        List<Listing> saved = listingJpaRepository.saveAll(listings);
+        saved.forEach(l -> written(l.getListingId()));
+        afterCommit(() -> saved.forEach(this::reindex));
+        return saved.size();
+    }
+
     @Override
     public boolean removeListing(String listingId) {
         Optional<Listing> listing = listingJpaRepository.findById(listingId);
         if (listing.isPresent()) {
             listingJpaRepository.delete(listing.get());
+            written(listingId);
+            afterCommit(() -> {
+                searchIndex.remove(listingId);
+                priceIndex.remove(listingId);
+                facetIndex.remove(listingId);
+            });
             return true;
         }
         return false;
@@ -44,6 +98,54 @@ public class ListingRepositoryPersistence implements IListingRepository {
 
     @Override
     public Listing getListingById(String listingId) {
+        Listing cached = listingCache.get(listingId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = listingCache.stamp(listingId);
+        Listing loaded = listingJpaRepository.findById(listingId).orElse(null);
+        listingCache.putIfUnchanged(loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public Map<String, Listing> getListingsByIds(Collection<String> listingIds) {
+        Map<String, Listing> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String listingId : listingIds) {
+            if (result.containsKey(listingId) || missing.contains(listingId)) {
+                continue;
+            }
+            Listing cached = listingCache.get(listingId);
+            if (cached != null) {
+                result.put(listingId, cached);
+            } else {
+                missing.add(listingId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // One WHERE listing_id IN (...) query for everything the cache did not have.
+            Map<String, Long> stamps = new HashMap<>();
+            for (String listingId : missing) {
+                stamps.put(listingId, listingCache.stamp(listingId));
+            }
+            for (Listing l : listingJpaRepository.findAllById(missing)) {
+                listingCache.putIfUnchanged(l, stamps.get(l.getListingId()));
+                result.put(l.getListingId(), l);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of the listing cache.
+     */
+    public ListingCache.Stats getCacheStats() {
+        return listingCache.stats();
+    }
+
+    // Write paths load the managed entity directly, never a cached copy.
+    private Listing loadForWrite(String listingId) {
         return listingJpaRepository.findById(listingId).orElse(null);
     }
 
@@ -70,6 +172,93 @@ public class ListingRepositoryPersistence implements IListingRepository {
                 .collect(Collectors.toList());
     }   
 
+    @Override
+    public Slice<Listing> getListingsPageByPrice(ListingCursor after, int pageSize) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        return after == null
+            ? listingJpaRepository.findFirstPageByPrice(page)
+            : listingJpaRepository.findPageByPriceAfter(after.price(), after.listingId(), page);
+    }
+
+    @Override
+    public Slice<Listing> getListingsPageByName(ListingCursor after, int pageSize) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        return after == null
+            ? listingJpaRepository.findFirstPageByName(page)
+            : listingJpaRepository.findPageByNameAfter(after.sortKey(), after.listingId(), page);
+    }
+
+    @Override
+    public List<Listing> searchListings(ListingSearchQuery query) {
+        return inIndexOrder(searchIndex.search(query));
+    }
+
+    @Override
+    public List<Listing> getListingsByPrice(ListingPriceQuery query) {
+        return inIndexOrder(priceIndex.query(query));
+    }
+
+    @Override
+    public ListingFacets getFacetCounts(String storeId, String category) {
+        return facetIndex.facets(storeId, category);
+    }
+
+    private List<Listing> inIndexOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Listing> byId = getListingsByIds(ids);
+        List<Listing> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Listing l = byId.get(id);
+            if (l != null) {
+                result.add(l);
+            }
+        }
+        return result;
+    }
+
+    private void reindex(Listing l) {
+        searchIndex.index(l);
+        priceIndex.index(l);
+        facetIndex.index(l);
+    }
+
+    /**
+     * Keeps the listing out of the cache until the current transaction completes, then drops
+     * whatever the cache holds for it, whether the write committed or rolled back.
+     */
+    private void written(String listingId) {
+        listingCache.beginWrite(listingId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    listingCache.endWrite(listingId);
+                }
+            });
+        } else {
+            listingCache.endWrite(listingId);
+        }
+    }
+
+    /**
+     * Runs the action once the current transaction commits, so that in-process
+     * structures never observe writes that are later rolled back.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     @Override
     public List<Listing> getListingsByProductIdAndStore(String productId, String storeId) {
         return listingJpaRepository.findByStoreIdAndProductId(storeId, productId);
@@ -96,237 +285,151 @@ public class ListingRepositoryPersistence implements IListingRepository {
     }
 
 
-    // @Override
-    // public boolean updateOrRestoreStock(Map<String, Map<String, Integer>> stockMap, boolean isRestore) {
-    //     if (stockMap == null || stockMap.isEmpty()) {
-    //         return false;
-    //     }
-
-    //     // Collect and validate all listings
-    //     List<Listing> toProcess = new ArrayList<>();
-    //     for (String storeId : stockMap.keySet()) {
-    //         Map<String, Integer> listingUpdates = stockMap.get(storeId);
-    //         if (listingUpdates == null) {
-    //             throw new IllegalArgumentException("Missing listings for store " + storeId);
-    //         }
-
-    //         for (String listingId : listingUpdates.keySet()) {
-    //             Listing l = getListingById(listingId);
-    //             if (l == null || !l.getStoreId().equals(storeId)) {
-    //                 throw new IllegalArgumentException("Invalid listing: " + listingId + " for store: " + storeId);
-    //             }
-    //             toProcess.add(l);
-    //         }
-    //     }
-
-    //     // Sort to have a consistent order (not strictly needed anymore, but harmless)
-    //     toProcess.sort(Comparator.comparing(Listing::getListingId));
-
-    //     // Execute business logic
-    //     for (Listing listing : toProcess) {
-    //         int quantity = stockMap.get(listing.getStoreId()).get(listing.getListingId());
-
-    //         if (!isRestore) {
-    //             // Check stock availability first
-    //             if (listing.getQuantityAvailable() < quantity) {
-    //                 throw new RuntimeException("Not enough stock for listing: " + listing.getListingId());
-    //             }
-    //             try {
-    //                 listing.purchase(quantity);
-    //             } catch (Exception e) {
-    //                 throw new RuntimeException("Unexpected error during purchase of " + listing.getListingId(), e);
-    //             }
-    //         } else {
-    //             try {
-    //                 listing.restore(quantity);
-    //             } catch (Exception e) {
-    //                 throw new RuntimeException("Unexpected error during restore of " + listing.getListingId(), e);
-    //             }
-    //         }
-    //     }
-
-    //     // Attempt to save all listings — this is where optimistic locking takes effect
-    //     try {
-    //         for (Listing listing : toProcess) {
-    //             listingJpaRepository.save(listing);
-    //         }
-    //     } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
-    //         throw new RuntimeException("One or more products were updated during. Please refresh your cart and try again.", e);
-
-    //     }
-
-    //     return true;
-    // }
-
-    // @Override
-    // public boolean updateOrRestoreStock(Map<String, Map<String, Integer>> stockMap, boolean isRestore) {
-    //     if (stockMap == null || stockMap.isEmpty()) {
-    //         return false;
-    //     }
-
-    //     int maxRetries = 100;
-    //     for (int attempt = 1; attempt <= maxRetries; attempt++) {
-    //         try {
-    //             performStockUpdate(stockMap, isRestore);
-    //             return true;
-    //         } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
-    //             if (attempt == maxRetries) {
-    //                 throw new RuntimeException("Purchase failed after multiple attempts due to concurrent modifications. Please refresh your cart and try again.", e);
-    //             }
-    //             try {
-    //                 Thread.sleep(50L * attempt); // Optional backoff
-    //             } catch (InterruptedException ignored) {}
-    //         } catch (RuntimeException e) {
-    //             // Don't retry for real issues like not enough stock
-    //             throw e;
-    //         }
-    //     }
-
-    //     return false; // Should never reach here
-    // }
-
-
-    // private void performStockUpdate(Map<String, Map<String, Integer>> stockMap, boolean isRestore) {
-    //     List<Listing> toProcess = new ArrayList<>();
-    //     for (String storeId : stockMap.keySet()) {
-    //         Map<String, Integer> listingUpdates = stockMap.get(storeId);
-    //         if (listingUpdates == null) {
-    //             throw new IllegalArgumentException("Missing listings for store " + storeId);
-    //         }
-
-    //         for (String listingId : listingUpdates.keySet()) {
-    //             Listing l = getListingById(listingId);
-    //             if (l == null || !l.getStoreId().equals(storeId)) {
-    //                 throw new IllegalArgumentException("Invalid listing: " + listingId + " for store: " + storeId);
-    //             }
-    //             toProcess.add(l);
-    //         }
-    //     }
-
-    //     toProcess.sort(Comparator.comparing(Listing::getListingId));
-
-    //     for (Listing listing : toProcess) {
-    //         int quantity = stockMap.get(listing.getStoreId()).get(listing.getListingId());
-
-    //         if (!isRestore) {
-    //             if (listing.getQuantityAvailable() < quantity) {
-    //                 throw new RuntimeException("Not enough stock for listing: " + listing.getListingId());
-    //             }
-    //             try {
-    //                 listing.purchase(quantity);
-    //             } catch (Exception e) {
-    //                 throw new RuntimeException("Unexpected error during purchase of " + listing.getListingId(), e);
-    //             }
-    //         } else {
-    //             try {
-    //                 listing.restore(quantity);
-    //             } catch (Exception e) {
-    //                 throw new RuntimeException("Unexpected error during restore of " + listing.getListingId(), e);
-    //             }
-    //         }
-    //     }
-
-    //     for (Listing listing : toProcess) {
-    //         listingJpaRepository.save(listing);  // optimistic locking kicks in here
-    //     }
-    // }
-
+    /**
+     * Changes stock with one guarded UPDATE per item instead of load/modify/save with retries.
+     * A decrement only matches while enough stock is left, so the database does the check and the
+     * write atomically and concurrent buyers never conflict on an entity version. Items are applied
+     * in listing-ID order so two carts always take row locks in the same order, and the first item
+     * that does not match throws, rolling back the whole cart with the transaction.
+     * Listings in high-contention mode update one of their shard rows instead of the listing row.
+     */
     @Override
     public boolean updateOrRestoreStock(Map<String, Map<String, Integer>> stockMap, boolean isRestore) {
         if (stockMap == null || stockMap.isEmpty()) {
             return false;
         }
 
-        int maxRetries = 5;
-        
-        for (int attempt = 1; attempt <= maxRetries; attempt++)
-        {
-            
-            try {
-                List<Listing> toProcess = new ArrayList<>();
-
-                // Reload listings fresh every attempt
-                for (String storeId : stockMap.keySet()) {
-                    Map<String, Integer> listingUpdates = stockMap.get(storeId);
-                    if (listingUpdates == null) {
-                        throw new IllegalArgumentException("Missing listings for store " + storeId);
-                    }
-
-                    for (String listingId : listingUpdates.keySet()) {
-                        Listing l = getListingById(listingId);
-                        if (l == null || !l.getStoreId().equals(storeId)) {
-                            throw new IllegalArgumentException("Invalid listing: " + listingId + " for store: " + storeId);
-                        }
-                        toProcess.add(l);
-                    }
-                }
-
-                toProcess.sort(Comparator.comparing(Listing::getListingId));
-
-                // Perform the purchase/restore
-                for (Listing listing : toProcess) {
-                    int quantity = stockMap.get(listing.getStoreId()).get(listing.getListingId());
-
-                    if (!isRestore) {
-                        if (listing.getQuantityAvailable() < quantity) {
-                            throw new RuntimeException("Not enough stock for listing: " + listing.getListingId());
-                        }
-                        listing.purchase(quantity);
-                    } else {
-                        listing.restore(quantity);
-                    }
-                }
-
-                // Try to persist
-                for (Listing listing : toProcess) {
-                    listingJpaRepository.save(listing);  // triggers optimistic locking
+        Map<String, String> storeByListing = new TreeMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (String storeId : stockMap.keySet()) {
+            Map<String, Integer> listingUpdates = stockMap.get(storeId);
+            if (listingUpdates == null) {
+                throw new IllegalArgumentException("Missing listings for store " + storeId);
+            }
+            for (Map.Entry<String, Integer> update : listingUpdates.entrySet()) {
+                if (update.getValue() == null || update.getValue() < 0) {
+                    throw new IllegalArgumentException("Invalid quantity for listing: " + update.getKey());
                 }
+                storeByListing.put(update.getKey(), storeId);
+                quantities.put(update.getKey(), update.getValue());
+            }
+        }
 
-                return true;
-
-            } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
-                // Retry if version conflict
-                if (attempt == maxRetries) {
-                    throw new RuntimeException("Purchase failed after multiple attempts due to concurrent modifications. Please refresh your cart and try again.", e);
+        for (Map.Entry<String, String> item : storeByListing.entrySet()) {
+            String listingId = item.getKey();
+            String storeId = item.getValue();
+            int quantity = quantities.get(listingId);
+            int shards = stockShardsOf(listingId, storeId);
+            int updated;
+            if (shards > 0) {
+                updated = isRestore
+                        ? restoreSharded(listingId, storeId, shards, quantity)
+                        : takeSharded(listingId, storeId, shards, quantity);
+            } else {
+                updated = isRestore
+                        ? listingJpaRepository.incrementStock(listingId, storeId, quantity)
+                        : listingJpaRepository.decrementStock(listingId, storeId, quantity);
+            }
+            if (updated == 0) {
+                Listing l = loadForWrite(listingId);
+                if (l == null || !storeId.equals(l.getStoreId())) {
+                    throw new IllegalArgumentException("Invalid listing: " + listingId + " for store: " + storeId);
                 }
-                try {
-                    Thread.sleep(20L * attempt + (long)(Math.random() * 30));  // short exponential backoff
-                } catch (InterruptedException ignored) {}
-            } catch (Exception e) {
-                // Any other error (e.g., not enough stock): fail immediately
-                throw new RuntimeException("Purchase failed, please try again later");
+                throw new RuntimeException("Not enough stock for listing: " + listingId);
             }
+            written(listingId);
         }
+        return true;
+    }
 
-        return false; // should never reach here
+    // Read through the cache: setStockShards invalidates it, and a stale answer only costs a fallback below
+    private int stockShardsOf(String listingId, String storeId) {
+        Listing l = getListingById(listingId);
+        return l == null || !storeId.equals(l.getStoreId()) ? 0 : l.getStockShards();
     }
 
+    /**
+     * Takes the quantity from a random shard, or, when that shard is short, whatever each shard has and
+     * finally the listing row. Partial takes are undone by the transaction rollback if the total falls short.
+     *
+     * @return 1 if the quantity was taken, 0 otherwise.
+     */
+    private int takeSharded(String listingId, String storeId, int shards, int quantity) {
+        int home = ThreadLocalRandom.current().nextInt(shards);
+        if (stockShardJpaRepository.take(ListingStockShard.idOf(listingId, home), quantity) == 1) {
+            return 1;
+        }
+        int remaining = quantity;
+        List<Integer> available = stockShardJpaRepository.findQuantitiesByListingId(listingId);
+        for (int k = 0; k < available.size() && remaining > 0; k++) {
+            int i = (home + k) % available.size();
+            int take = Math.min(remaining, available.get(i));
+            if (take > 0 && stockShardJpaRepository.take(ListingStockShard.idOf(listingId, i), take) == 1) {
+                remaining -= take;
+            }
+        }
+        return remaining == 0 ? 1 : listingJpaRepository.decrementStock(listingId, storeId, remaining);
+    }
 
+    private int restoreSharded(String listingId, String storeId, int shards, int quantity) {
+        String shardId = ListingStockShard.idOf(listingId, ThreadLocalRandom.current().nextInt(shards));
+        // The shard is gone if the listing was switched back to a single counter meanwhile
+        return stockShardJpaRepository.add(shardId, quantity) == 1
+                ? 1
+                : listingJpaRepository.incrementStock(listingId, storeId, quantity);
+    }
 
-     // Utility method to synchronize on multiple objects
-    private void synchronizedLocks(List<Object> locks, Runnable criticalSection) {
-        synchronizedRecursive(locks, 0, criticalSection);
+    /**
+     * Rewrites the shard rows with the listing and its shards locked, so no purchase runs in between.
+     * Existing rows are updated in place and surplus rows deleted, which never reuses the ID of a
+     * deleted row within the flush.
+     */
+    @Override
+    public void setStockShards(String listingId, int shards) {
+        if (shards < 0 || shards > Listing.MAX_STOCK_SHARDS) {
+            throw new IllegalArgumentException("Stock shards must be between 0 and " + Listing.MAX_STOCK_SHARDS);
+        }
+        Listing l = listingJpaRepository.findByIdForUpdate(listingId)
+                .orElseThrow(() -> new IllegalArgumentException("Listing not found: " + listingId));
+        List<ListingStockShard> rows = stockShardJpaRepository.findByListingIdForUpdate(listingId);
+        int total = l.unshardedQuantity() + rows.stream().mapToInt(ListingStockShard::getQuantity).sum();
+        layOutShards(l, rows, shards, total);
     }
-    
-    private void synchronizedRecursive(List<Object> locks, int index, Runnable criticalSection) {
-        if (index == locks.size()) {
-            criticalSection.run();
-            return;
+
+    private void layOutShards(Listing l, List<ListingStockShard> rows, int shards, int total) {
+        int[] spread = shards < 2 ? new int[0] : Listing.spreadStock(total, shards);
+        boolean[] present = new boolean[spread.length];
+        for (ListingStockShard row : rows) {
+            if (row.getShardIndex() < spread.length) {
+                row.setQuantity(spread[row.getShardIndex()]);
+                present[row.getShardIndex()] = true;
+            } else {
+                stockShardJpaRepository.delete(row);
+            }
+        }
+        for (int i = 0; i < spread.length; i++) {
+            if (!present[i]) {
+                stockShardJpaRepository.save(new ListingStockShard(l.getListingId(), i, spread[i]));
+            }
         }
-        synchronized (locks.get(index)) {
-            synchronizedRecursive(locks, index + 1, criticalSection);
+        if (spread.length == 0) {
+            l.setStockLayout(0, total, 0);
+        } else {
+            l.setStockLayout(shards, 0, total);
         }
+        listingJpaRepository.save(l);
+        written(l.getListingId());
     }
 
-
        @Override//
     public double calculateStoreBagWithoutDiscount(Map<String, Integer> prodsToQuantity) throws Exception {
         double result = 0.0;
+        Map<String, Listing> listings = getListingsByIds(prodsToQuantity.keySet());
         for (Map.Entry<String, Integer> entry : prodsToQuantity.entrySet()) {
             String listingId = entry.getKey();
             int quantity = entry.getValue();
 
-            Listing l = getListingById(listingId);
+            Listing l = listings.get(listingId);
             if (l == null || !Boolean.TRUE.equals(l.isActive())) {
                 throw new Exception("Listing " + listingId + " not found or inactive.");
             }
@@ -338,26 +441,58 @@ public class ListingRepositoryPersistence implements IListingRepository {
 
     @Override
     public void disableListingsByStoreId(String storeId) {
-        listingJpaRepository.findAll().stream()
-            .filter(l -> l.getStoreId().equals(storeId))
-            .forEach(l -> {
-                synchronized (l) {
-                    l.disable();
-                    listingJpaRepository.save(l);
-                }
-            });
+        setActiveByStoreId(storeId, false);
     }
 
     @Override
     public void enableListingsByStoreId(String storeId) {
-        listingJpaRepository.findAll().stream()
-            .filter(l -> l.getStoreId().equals(storeId))
-            .forEach(l -> {
-                synchronized (l) {
-                    l.enable();
-                    listingJpaRepository.save(l);
-                }
-            });
+        setActiveByStoreId(storeId, true);
+    }
+
+    private void setActiveByStoreId(String storeId, boolean active) {
+        listingJpaRepository.updateActiveByStoreId(storeId, active);
+        List<String> ids = listingJpaRepository.findIdsByStoreId(storeId);
+        ids.forEach(this::written);
+        afterCommit(() -> {
+            // The bulk update bypassed the persistence context, so take the flag from the argument.
+            listingJpaRepository.findAllById(ids).forEach(l -> facetIndex.index(
+                    l.getListingId(), l.getStoreId(), l.getCategory(), l.getPrice(), active));
+        });
+    }
+
+    @Override
+    public int adjustPricesByPercent(String storeId, String category, double percent) {
+        if (!(percent > -100)) {
+            throw new IllegalArgumentException("Price change must be above -100%");
+        }
+        int updated = listingJpaRepository.scalePrices(storeId, category, (int) Math.round(percent * 100));
+        // Selected after the update: the filter does not depend on price, so no updated row is missed.
+        List<String> ids = listingJpaRepository.findActiveIdsByStoreIdAndCategory(storeId, category);
+        ids.forEach(this::written);
+        afterCommit(() -> listingJpaRepository.findAllById(ids).forEach(this::reindex));
+        return updated;
+    }
+
+    /**
+     * Single-counter listings are updated by one set-based UPDATE. A sharded listing's new total,
+     * clamped at zero, is laid out again over its shard rows with the rows locked, as
+     * {@link #editProductQuantity} does, so no units are left behind on the shards.
+     */
+    @Override
+    public int adjustQuantities(String storeId, String category, int delta) {
+        int updated = listingJpaRepository.addToQuantities(storeId, category, delta);
+        for (String listingId : listingJpaRepository.findActiveShardedIdsByStoreIdAndCategory(storeId, category)) {
+            Listing l = listingJpaRepository.findByIdForUpdate(listingId).orElse(null);
+            if (l == null || l.getStockShards() == 0) {
+                continue;
+            }
+            List<ListingStockShard> rows = stockShardJpaRepository.findByListingIdForUpdate(listingId);
+            long total = l.unshardedQuantity() + rows.stream().mapToLong(ListingStockShard::getQuantity).sum();
+            layOutShards(l, rows, l.getStockShards(), (int) Math.max(0, Math.min(Integer.MAX_VALUE, total + delta)));
+            updated++;
+        }
+        listingJpaRepository.findActiveIdsByStoreIdAndCategory(storeId, category).forEach(this::written);
+        return updated;
     }
 
     @Override//
@@ -375,7 +510,7 @@ public class ListingRepositoryPersistence implements IListingRepository {
         if (newPrice < 0)
             throw new IllegalArgumentException("Illegal price for listing: " + listingId);
 
-        Listing l = getListingById(listingId);
+        Listing l = loadForWrite(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive())) 
             throw new Exception("Listing " + listingId + " not found or inactive.");
 
@@ -383,44 +518,67 @@ public class ListingRepositoryPersistence implements IListingRepository {
             l.setPrice(newPrice);
             listingJpaRepository.save(l);
         }
+        written(listingId);
+        afterCommit(() -> reindex(l));
         return true;
     }
 
 
      @Override
     public void editProductName(String listingId, String newName) throws Exception {
-        Listing l = getListingById(listingId);
+        Listing l = loadForWrite(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
-        listingJpaRepository.updateNameWithoutVersion(listingId, newName); 
+        listingJpaRepository.updateNameWithoutVersion(listingId, newName);
+        written(listingId);
+        afterCommit(() -> searchIndex.index(listingId, l.getStoreId(), newName,
+                l.getProductDescription(), l.getCategory(), l.getPrice()));
     }
 
     @Override
     public void editProductDescription(String listingId, String newDescription) throws Exception {
-        Listing l = getListingById(listingId);
+        Listing l = loadForWrite(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
         listingJpaRepository.updateDescriptionWithoutVersion(listingId, newDescription);
-        
+        written(listingId);
+        afterCommit(() -> searchIndex.index(listingId, l.getStoreId(), l.getProductName(),
+                newDescription, l.getCategory(), l.getPrice()));
     }
 
     @Override
     public void editProductQuantity(String listingId, int newQuantity) throws Exception {
-        Listing l = getListingById(listingId);
+        Listing l = loadForWrite(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
+        if (l.getStockShards() > 0) {
+            if (newQuantity < 0) {
+                throw new IllegalArgumentException("Quantity must be non-negative");
+            }
+            l = listingJpaRepository.findByIdForUpdate(listingId).orElseThrow();
+            layOutShards(l, stockShardJpaRepository.findByListingIdForUpdate(listingId), l.getStockShards(), newQuantity);
+            return;
+        }
         synchronized (l) {
             l.setQuantityAvailable(newQuantity);
             listingJpaRepository.save(l);
         }
+        written(listingId);
     }
 
     @Override
     public void editProductCategory(String listingId, String newCategory) throws Exception {
-        Listing l = getListingById(listingId);
+        Listing l = loadForWrite(listingId);
         if (l == null || !Boolean.TRUE.equals(l.isActive()))
             throw new Exception("Listing " + listingId + " not found or inactive.");
         listingJpaRepository.updateCategoryWithoutVersion(listingId, newCategory);
+        written(listingId);
+        afterCommit(() -> {
+            searchIndex.index(listingId, l.getStoreId(), l.getProductName(),
+                    l.getProductDescription(), newCategory, l.getPrice());
+            priceIndex.index(listingId, l.getStoreId(), newCategory, l.getPrice());
+            facetIndex.index(listingId, l.getStoreId(), newCategory, l.getPrice(), true);
+        });
         }
     }
 
@@ -1,5 +1,7 @@
 package market.infrastructure.PersistenceRepositories;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import market.domain.purchase.IPurchaseRepository;
 import market.domain.purchase.Purchase;
@@ -21,9 +23,24 @@ public class PurchaseRepositoryPersistence implements IPurchaseRepository {
     @Autowired
     private IPurchaseJpaRepository purchaseJpaRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Purchases are never updated, so they are persisted directly: {@code JpaRepository.save}
+     * would merge them, which selects the purchase and its products before inserting them.
+     * The inserts are written at flush time, batched per table (see hibernate.jdbc.batch_size).
+     */
     @Override
     public void save(Purchase purchase) {
-        purchaseJpaRepository.save(purchase);
+        entityManager.persist(purchase);
+    }
+
+    @Override
+    public void saveAll(List<Purchase> purchases) {
+        for (Purchase purchase : purchases) {
+            entityManager.persist(purchase);
+        }
     }
 
     /**
@@ -0,0 +1,63 @@
+package market.infrastructure.PersistenceRepositories;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.IStockReservationRepository;
+import market.domain.purchase.StockReservation;
+import market.infrastructure.IJpaRepository.IStockReservationJpaRepository;
+
+@Primary
+@Repository
+@Transactional
+public class StockReservationRepositoryPersistence implements IStockReservationRepository {
+
+    @Autowired
+    private IStockReservationJpaRepository reservationJpaRepository;
+
+    @Override
+    public StockReservation save(StockReservation reservation) {
+        return reservationJpaRepository.save(reservation);
+    }
+
+    @Override
+    public Optional<StockReservation> findById(String reservationId) {
+        return reservationJpaRepository.findById(reservationId);
+    }
+
+    @Override
+    public Optional<StockReservation> findByUserId(String userId) {
+        return reservationJpaRepository.findFirstByUserIdOrderByExpiresAtDesc(userId);
+    }
+
+    @Override
+    public Optional<StockReservation> remove(String reservationId) {
+        Optional<StockReservation> reservation = reservationJpaRepository.findByIdForUpdate(reservationId);
+        reservation.ifPresent(r -> {
+            reservationJpaRepository.delete(r);
+            reservationJpaRepository.flush();
+        });
+        return reservation;
+    }
+
+    @Override
+    public List<String> findExpiredIds(long now) {
+        return reservationJpaRepository.findExpiredIds(now);
+    }
+
+    @Override
+    public Map<String, Integer> getReservedQuantities(String storeId) {
+        Map<String, Integer> result = new HashMap<>();
+        for (Object[] row : reservationJpaRepository.sumReservedByListing(storeId)) {
+            result.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import market.domain.store.IListingRepository;
+import market.domain.store.Policies.PolicyHandler;
+import market.infrastructure.PolicyHandlerCache;
 import java.util.HashMap;
 import java.util.ArrayList;
 
@@ -28,12 +30,25 @@ public class StoreRepositoryPersistance implements IStoreRepository {
     @Autowired
     private IListingRepository listingRepository;
 
+    @Autowired(required = false)
+    private PolicyHandlerCache policyHandlerCache;
+
+    // Reuses the store's hydrated policy handler while its policy version is unchanged
+    private void initializeAfterLoad(Store store) {
+        if (policyHandlerCache == null) {
+            store.initializeAfterLoad(listingRepository);
+            return;
+        }
+        PolicyHandler handler = policyHandlerCache.get(store.getStoreID(), store.getPolicyVersion(), store::hydratePolicyHandler);
+        store.initializeAfterLoad(listingRepository, handler);
+    }
+
 
     @Override
     public Store getStoreByID(String storeID) {
         Store store = storeJpaRepository.findById(storeID).orElse(null);
         if (store != null) {
-            store.initializeAfterLoad(listingRepository);
+            initializeAfterLoad(store);
         }
         return store;
     }
@@ -58,7 +73,7 @@ public class StoreRepositoryPersistance implements IStoreRepository {
     public Store getStoreByName(String storeName) {
         Store store = storeJpaRepository.findByName(storeName).orElse(null);
         if (store != null) {
-            store.initializeAfterLoad(listingRepository);
+            initializeAfterLoad(store);
         }
         return store;
     }
@@ -92,7 +107,7 @@ public class StoreRepositoryPersistance implements IStoreRepository {
         Map<String, List<market.domain.Role.Role>> result = new HashMap<>();
 
         for (Store store : stores) {
-            store.initializeAfterLoad(listingRepository); 
+            initializeAfterLoad(store);
 
             List<market.domain.Role.Role> roles = new ArrayList<>();
 
@@ -117,7 +132,7 @@ public class StoreRepositoryPersistance implements IStoreRepository {
     public List<Store> getAllActiveStores() {
         List<Store> stores = storeJpaRepository.findByActiveTrue();
         for (Store store : stores) {
-            store.initializeAfterLoad(listingRepository); 
+            initializeAfterLoad(store);
         }
         return stores;
     }
@@ -126,7 +141,7 @@ public class StoreRepositoryPersistance implements IStoreRepository {
     public List<Store> getAllStores() {
         List<Store> stores = storeJpaRepository.findAll();
         for (Store store : stores) {
-            store.initializeAfterLoad(listingRepository); 
+            initializeAfterLoad(store); 
         }
         return stores;
     }
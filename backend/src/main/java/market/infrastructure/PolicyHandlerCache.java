@@ -0,0 +1,100 @@
+package market.infrastructure;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import market.domain.store.Policies.PolicyHandler;
+
+/**
+ * Bounded cache of hydrated {@link PolicyHandler}s keyed by store ID.
+ * <p>
+ * Each entry remembers the store's policy version it was built from, and is only served for a
+ * store loaded at that same version, so a handler built from policies that have since changed
+ * is never returned, even if it was cached by a load that raced with the change. Policy changes
+ * also {@link #invalidate} the store's entry, so the next load rebuilds it right away.
+ * <p>
+ * Lookups take no shared lock; past {@code maxSize} stores, entries are evicted approximately
+ * least-recently-used (see {@link SampledEviction}).
+ * <p>
+ * Cached handlers are shared between requests and must be treated as read-only; a store copies
+ * its handler before changing its policies.
+ */
+public class PolicyHandlerCache {
+
+    /** Point-in-time cache counters. */
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    private static final class Entry {
+        final long version;
+        final PolicyHandler handler;
+        volatile long lastAccessNanos;
+
+        Entry(long version, PolicyHandler handler, long nowNanos) {
+            this.version = version;
+            this.handler = handler;
+            this.lastAccessNanos = nowNanos;
+        }
+    }
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PolicyHandlerCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    PolicyHandlerCache(int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the handler cached for the store at {@code version}, or hydrates one with
+     * {@code hydrate} and caches it. Hydration runs outside of any lock.
+     */
+    public PolicyHandler get(String storeId, long version, Supplier<PolicyHandler> hydrate) {
+        Entry entry = entries.get(storeId);
+        if (entry != null && entry.version == version) {
+            entry.lastAccessNanos = clock.getAsLong();
+            hits.increment();
+            return entry.handler;
+        }
+        misses.increment();
+        PolicyHandler handler = hydrate.get();
+        boolean[] added = new boolean[1];
+        entries.compute(storeId, (id, current) -> {
+            // Never replace a handler of a newer version with one loaded before it
+            if (current != null && current.version > version) {
+                return current;
+            }
+            added[0] = current == null;
+            return new Entry(version, handler, clock.getAsLong());
+        });
+        if (added[0]) {
+            evictions.add(SampledEviction.evictOverflow(entries, maxSize, e -> e.lastAccessNanos, e -> false));
+        }
+        return handler;
+    }
+
+    public void invalidate(String storeId) {
+        entries.remove(storeId);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+}
@@ -0,0 +1,99 @@
+package market.infrastructure;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import market.dto.ProductDTO;
+
+/**
+ * Bounded cache of store price sheets keyed by store ID.
+ * <p>
+ * A sheet is computed from a store's listings and policies, so writes to either must
+ * {@link #invalidate} the store's entry. A sheet computed before an invalidation is dropped
+ * rather than cached (see {@link #stamp} / {@link #putIfUnchanged}). Past {@code maxSize} stores,
+ * entries are evicted approximately least-recently-used (see {@link SampledEviction}).
+ */
+public class PriceSheetCache {
+
+    private static final int STAMP_STRIPES = 64;
+
+    private static final class Entry {
+        final ProductDTO.PriceSheet sheet;
+        volatile long lastAccessNanos;
+
+        Entry(ProductDTO.PriceSheet sheet, long nowNanos) {
+            this.sheet = sheet;
+            this.lastAccessNanos = nowNanos;
+        }
+    }
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray invalidations = new AtomicLongArray(STAMP_STRIPES);
+
+    public PriceSheetCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    PriceSheetCache(int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return The cached sheet of the store, or {@code null} on a miss.
+     */
+    public ProductDTO.PriceSheet get(String storeId) {
+        Entry entry = entries.get(storeId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccessNanos = clock.getAsLong();
+        return entry.sheet;
+    }
+
+    /**
+     * Returns a token to take before computing a store's sheet.
+     * Pass it to {@link #putIfUnchanged} so that a sheet racing with a write is not cached.
+     */
+    public long stamp(String storeId) {
+        return invalidations.get(stripe(storeId));
+    }
+
+    /**
+     * Caches a sheet, unless its store was invalidated since {@code stamp} was taken.
+     */
+    public void putIfUnchanged(String storeId, ProductDTO.PriceSheet sheet, long stamp) {
+        boolean[] added = new boolean[1];
+        // Checked under the key's bin lock, which invalidate() takes after bumping the stamp
+        entries.compute(storeId, (id, current) -> {
+            if (stamp != invalidations.get(stripe(id))) {
+                return current;
+            }
+            added[0] = current == null;
+            return new Entry(sheet, clock.getAsLong());
+        });
+        if (added[0]) {
+            SampledEviction.evictOverflow(entries, maxSize, e -> e.lastAccessNanos, e -> false);
+        }
+    }
+
+    public void invalidate(String storeId) {
+        invalidations.incrementAndGet(stripe(storeId));
+        entries.remove(storeId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static int stripe(String storeId) {
+        int h = storeId.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+}
@@ -16,6 +16,11 @@ public class PurchaseRepository implements IPurchaseRepository {
         allPurchases.add(purchase);
     }
 
+    @Override
+    public void saveAll(List<Purchase> purchases) {
+        allPurchases.addAll(purchases);
+    }
+
     @Override
     public List<Purchase> getPurchasesByUser(String userId) {
         List<Purchase> result = new ArrayList<>();
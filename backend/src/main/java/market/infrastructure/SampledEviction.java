@@ -0,0 +1,57 @@
+package market.infrastructure;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate least-recently-used eviction for the caches of this package, which keep their
+ * entries in a {@link ConcurrentHashMap} so that lookups never take a shared lock.
+ * <p>
+ * Instead of keeping entries in access order, each eviction looks at a small sample of entries
+ * and drops the one used longest ago, or the first expired one it comes across.
+ */
+final class SampledEviction {
+
+    static final int SAMPLE_SIZE = 8;
+
+    private SampledEviction() {
+    }
+
+    /**
+     * Evicts entries until at most {@code maxSize} are left. Other threads may add and evict
+     * meanwhile; every thread that added an entry calls this afterwards, so the map settles
+     * within its bound.
+     *
+     * @param lastAccess When an entry was last used; lower values are evicted first.
+     * @param expired    Entries to evict right away when sampled.
+     * @return The number of entries this call evicted.
+     */
+    static <V> int evictOverflow(ConcurrentHashMap<String, V> entries, int maxSize,
+                                 ToLongFunction<V> lastAccess, Predicate<V> expired) {
+        int evicted = 0;
+        while (entries.size() > maxSize) {
+            Map.Entry<String, V> victim = null;
+            Iterator<Map.Entry<String, V>> it = entries.entrySet().iterator();
+            for (int i = 0; i < SAMPLE_SIZE && it.hasNext(); i++) {
+                Map.Entry<String, V> candidate = it.next();
+                if (expired.test(candidate.getValue())) {
+                    victim = candidate;
+                    break;
+                }
+                if (victim == null || lastAccess.applyAsLong(candidate.getValue()) < lastAccess.applyAsLong(victim.getValue())) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            if (entries.remove(victim.getKey(), victim.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+}
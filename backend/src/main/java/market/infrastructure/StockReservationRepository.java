@@ -0,0 +1,67 @@
+package market.infrastructure;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import market.domain.purchase.IStockReservationRepository;
+import market.domain.purchase.ReservedItem;
+import market.domain.purchase.StockReservation;
+
+public class StockReservationRepository implements IStockReservationRepository {
+
+    private final Map<String, StockReservation> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> idByUser = new ConcurrentHashMap<>();
+
+    @Override
+    public StockReservation save(StockReservation reservation) {
+        byId.put(reservation.getReservationId(), reservation);
+        idByUser.put(reservation.getUserId(), reservation.getReservationId());
+        return reservation;
+    }
+
+    @Override
+    public Optional<StockReservation> findById(String reservationId) {
+        return Optional.ofNullable(byId.get(reservationId));
+    }
+
+    @Override
+    public Optional<StockReservation> findByUserId(String userId) {
+        String id = idByUser.get(userId);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public Optional<StockReservation> remove(String reservationId) {
+        // ConcurrentHashMap.remove is atomic, so only one racing caller gets the reservation
+        StockReservation removed = byId.remove(reservationId);
+        if (removed != null) {
+            idByUser.remove(removed.getUserId(), reservationId);
+        }
+        return Optional.ofNullable(removed);
+    }
+
+    @Override
+    public List<String> findExpiredIds(long now) {
+        return byId.values().stream()
+                .filter(r -> r.isExpired(now))
+                .map(StockReservation::getReservationId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, Integer> getReservedQuantities(String storeId) {
+        Map<String, Integer> result = new HashMap<>();
+        for (StockReservation r : byId.values()) {
+            for (ReservedItem item : r.getItems()) {
+                if (item.getStoreId().equals(storeId)) {
+                    result.merge(item.getListingId(), item.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package utils;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 
 public class ApiResponseBuilder {
@@ -10,6 +11,9 @@ public class ApiResponseBuilder {
         try {
             T result = supplier.get();
             return ResponseEntity.ok(ApiResponse.ok(result));
+        } catch (RejectedExecutionException e) {
+            // The server is at capacity for this operation; the client may retry later
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ApiResponse.fail(e.getMessage()));
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ApiResponse.fail(e.getMessage()));
         } catch (Exception e) {
@@ -0,0 +1,27 @@
+-- Secondary indexes for the repository queries on the request path.
+-- Tables are created by Hibernate (ddl-auto=update); this file must stay portable
+-- between MySQL and H2, so it uses plain CREATE INDEX only.
+
+-- listings: findByStoreId, findByStoreIdAndProductId (and the store-wide bulk updates)
+CREATE INDEX idx_listings_store_product ON listings (store_id, product_id);
+-- listings: findByStoreIdAndCategory, findByStoreIdAndProductName
+CREATE INDEX idx_listings_store_category ON listings (store_id, category);
+CREATE INDEX idx_listings_store_name ON listings (store_id, product_name);
+-- listings: findByProductId, findByCategory
+CREATE INDEX idx_listings_product ON listings (product_id);
+CREATE INDEX idx_listings_category ON listings (category);
+-- listings: findByProductName and the keyset-paginated catalog (sort key, listing_id)
+CREATE INDEX idx_listings_name ON listings (product_name, listing_id);
+CREATE INDEX idx_listings_price ON listings (price, listing_id);
+
+-- purchased_products: IPurchaseJpaRepository.findByStoreId joins on store_id
+CREATE INDEX idx_purchased_products_store ON purchased_products (store_id, purchase_id);
+-- purchases: findByUserId
+CREATE INDEX idx_purchases_user ON purchases (user_id);
+
+-- store_roles: IStoreJpaRepository.findStoresByUserId joins on user_id
+CREATE INDEX idx_store_roles_user ON store_roles (user_id, store_id);
+
+-- auction_entities / bid_entities: findByStoreIdAndProductId
+CREATE INDEX idx_auction_entities_store_product ON auction_entities (store_id, product_id);
+CREATE INDEX idx_bid_entities_store_product ON bid_entities (store_id, product_id);
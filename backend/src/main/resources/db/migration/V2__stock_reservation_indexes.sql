@@ -0,0 +1,8 @@
+-- Indexes for stock reservations (cart holds); same portability rules as V1.
+
+-- stock_reservations: the expiry sweeper's findExpiredIds
+CREATE INDEX idx_stock_reservations_expires ON stock_reservations (expires_at);
+-- stock_reservations: findByUserId (one hold per user's cart)
+CREATE INDEX idx_stock_reservations_user ON stock_reservations (user_id);
+-- stock_reservation_items: reserved quantities per listing of a store
+CREATE INDEX idx_stock_reservation_items_store ON stock_reservation_items (store_id, listing_id);
@@ -0,0 +1,6 @@
+-- Indexes for the checkout saga; same portability rules as V1.
+
+-- checkout_outbox: the relay's findDue (pending events by due time)
+CREATE INDEX idx_checkout_outbox_due ON checkout_outbox (done, due_at);
+-- checkout_outbox: cancelPending (e.g. the payment timeout once an order is paid)
+CREATE INDEX idx_checkout_outbox_order ON checkout_outbox (order_id, type);
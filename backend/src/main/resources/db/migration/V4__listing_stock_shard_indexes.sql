@@ -0,0 +1,4 @@
+-- Indexes for high-contention listings; same portability rules as V1.
+
+-- listing_stock_shards: the shard total read with every listing load, and a listing's shard quantities
+CREATE INDEX idx_listing_stock_shards_listing ON listing_stock_shards (listing_id, shard_index);
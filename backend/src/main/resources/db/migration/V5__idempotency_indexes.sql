@@ -0,0 +1,4 @@
+-- Indexes for idempotency records; same portability rules as V1.
+
+-- idempotency_records: the sweeper's deleteExpired
+CREATE INDEX idx_idempotency_records_expires ON idempotency_records (expires_at);
@@ -0,0 +1,117 @@
+package market.application;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.CheckoutOrder;
+import market.domain.purchase.PurchaseType;
+import market.domain.purchase.PurchasedProduct;
+import market.domain.store.Listing;
+import market.infrastructure.CheckoutOrderRepository;
+import market.infrastructure.CheckoutOutboxRepository;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.PurchaseRepository;
+import market.infrastructure.UserRepository;
+import utils.ApiResponse;
+
+public class CheckoutDispatcherTests {
+
+    private final CountDownLatch paymentGate = new CountDownLatch(1);
+    private ListingRepository listings;
+    private IShipmentService shipment;
+    private CheckoutSaga saga;
+    private CheckoutDispatcher dispatcher;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        listings = new ListingRepository();
+        IPaymentService payment = mock(IPaymentService.class);
+        shipment = mock(IShipmentService.class);
+        // Payments wait on the gate, so submitted checkouts stay in flight until it opens
+        when(payment.processPayment(anyString())).thenAnswer(inv -> {
+            paymentGate.await(10, TimeUnit.SECONDS);
+            return ApiResponse.ok("10001");
+        });
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
+        UserRepository users = new UserRepository();
+        users.register("u1", "pw");
+        saga = new CheckoutSaga(new CheckoutOrderRepository(), new CheckoutOutboxRepository(), listings,
+                new PurchaseRepository(), users, payment, shipment, null);
+        dispatcher = new CheckoutDispatcher(saga, 1, 1);
+        listing = new Listing("s1", "p1", "Apple", "Fruit", "desc", 10, PurchaseType.REGULAR, 5);
+        listings.addListing(listing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentGate.countDown();
+        dispatcher.stop();
+    }
+
+    private CheckoutOrder placeOrder(int quantity) {
+        listings.updateOrRestoreStock(Map.of("s1", Map.of(listing.getListingId(), quantity)), false);
+        return saga.begin("u1", List.of(new PurchasedProduct(listing.getListingId(), "Apple", "s1", quantity, 5)),
+                quantity * 5.0, "addr", "card");
+    }
+
+    @Test
+    void testSubmitReturnsBeforePaymentAndCompletesInBackground() throws InterruptedException {
+        CheckoutOrder order = dispatcher.submit(() -> placeOrder(2), "card");
+
+        assertEquals(CheckoutOrder.Status.PENDING_PAYMENT, order.getStatus());
+        assertEquals(8, listing.getQuantityAvailable());
+
+        paymentGate.countDown();
+        verify(shipment, timeout(5000)).ship(anyString(), anyString(), anyDouble());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (order.getStatus() != CheckoutOrder.Status.COMPLETED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(CheckoutOrder.Status.COMPLETED, saga.getOrder(order.getOrderId()).get().getStatus());
+    }
+
+    @Test
+    void testSaturatedPoolRejectsWithoutTakingStock() {
+        // One running and one queued checkout fill a pool of one thread with a queue of one
+        dispatcher.submit(() -> placeOrder(1), "card");
+        dispatcher.submit(() -> placeOrder(1), "card");
+
+        assertThrows(RejectedExecutionException.class, () -> dispatcher.submit(() -> placeOrder(1), "card"));
+        assertEquals(8, listing.getQuantityAvailable());
+
+        paymentGate.countDown();
+        verify(shipment, timeout(5000).times(2)).ship(anyString(), anyString(), anyDouble());
+    }
+
+    @Test
+    void testFailedPlacementReleasesPermit() {
+        dispatcher.stop();
+        dispatcher = new CheckoutDispatcher(saga, 1, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.submit(() -> {
+            throw new IllegalArgumentException("Invalid purchase bag");
+        }, "card"));
+
+        CheckoutOrder order = dispatcher.submit(() -> placeOrder(1), "card");
+        assertTrue(saga.getOrder(order.getOrderId()).isPresent());
+    }
+}
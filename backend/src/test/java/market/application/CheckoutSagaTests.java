@@ -0,0 +1,233 @@
+package market.application;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.CheckoutOrder;
+import market.domain.purchase.CheckoutOutboxEvent;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchaseType;
+import market.domain.purchase.PurchasedProduct;
+import market.domain.store.Listing;
+import market.domain.user.ShoppingCart;
+import market.infrastructure.CheckoutOrderRepository;
+import market.infrastructure.CheckoutOutboxRepository;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.PurchaseRepository;
+import market.infrastructure.UserRepository;
+import utils.ApiResponse;
+
+public class CheckoutSagaTests {
+
+    private static final long PAYMENT_TIMEOUT_SECONDS = 120;
+    private static final long LEASE_SECONDS = 60;
+    private static final String PAYMENT_ID = "48213";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private ListingRepository listings;
+    private PurchaseRepository purchases;
+    private CheckoutOrderRepository orders;
+    private CheckoutOutboxRepository outbox;
+    private IPaymentService payment;
+    private IShipmentService shipment;
+    private NotificationService notifications;
+    private UserRepository users;
+    private CheckoutSaga saga;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        listings = new ListingRepository();
+        purchases = new PurchaseRepository();
+        orders = new CheckoutOrderRepository();
+        outbox = new CheckoutOutboxRepository();
+        payment = mock(IPaymentService.class);
+        shipment = mock(IShipmentService.class);
+        notifications = mock(NotificationService.class);
+        when(payment.processPayment(anyString())).thenReturn(ApiResponse.ok(PAYMENT_ID));
+        when(payment.cancelPayment(anyString())).thenReturn(ApiResponse.ok(null));
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
+        users = new UserRepository();
+        users.register("u1", "pw");
+        saga = new CheckoutSaga(orders, outbox, listings, purchases, users, payment, shipment,
+                notifications, null, null, PAYMENT_TIMEOUT_SECONDS, LEASE_SECONDS, 3, 0, now::get);
+        listing = new Listing("s1", "p1", "Apple", "Fruit", "desc", 10, PurchaseType.REGULAR, 5);
+        listings.addListing(listing);
+    }
+
+    // What PurchaseService does in its first transaction: take the stock, then begin the order
+    private CheckoutOrder placeOrder(int quantity) {
+        listings.updateOrRestoreStock(Map.of("s1", Map.of(listing.getListingId(), quantity)), false);
+        return saga.begin("u1", List.of(new PurchasedProduct(listing.getListingId(), "Apple", "s1", quantity, 5)),
+                quantity * 5.0, "addr", "card");
+    }
+
+    @Test
+    void testSuccessfulCheckoutCompletesOrder() {
+        CheckoutOrder order = placeOrder(3);
+
+        Purchase purchase = saga.complete(order, "card");
+
+        assertEquals(15.0, purchase.getTotalPrice());
+        assertEquals(CheckoutOrder.Status.COMPLETED, order.getStatus());
+        assertEquals(purchase.getPurchaseId(), order.getPurchaseId());
+        assertEquals(1, purchases.getPurchasesByUser("u1").size());
+        assertEquals(7, listing.getQuantityAvailable());
+        assertTrue(outbox.findDue(Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void testCompletionRemovesOnlyPurchasedQuantitiesFromCart() {
+        users.findById("u1").addProductToCart("s1", listing.getListingId(), 5);
+        users.findById("u1").addProductToCart("s2", "other", 1);
+        CheckoutOrder order = placeOrder(3);
+
+        saga.complete(order, "card");
+
+        ShoppingCart cart = users.findById("u1").getShoppingCart();
+        assertEquals(2, cart.getStoreBag("s1").getProductQuantity(listing.getListingId()));
+        assertEquals(1, cart.getStoreBag("s2").getProductQuantity("other"));
+    }
+
+    @Test
+    void testProgressIsPublishedToBuyer() {
+        CheckoutOrder order = saga.place(() -> placeOrder(1));
+        saga.complete(order, "card");
+
+        InOrder progress = inOrder(notifications);
+        progress.verify(notifications).sendNotification("u1", "Order " + order.getOrderId() + ": stock reserved, awaiting payment");
+        progress.verify(notifications).sendNotification("u1", "Order " + order.getOrderId() + ": payment received");
+        progress.verify(notifications).sendNotification("u1", "Order " + order.getOrderId() + ": shipped");
+    }
+
+    @Test
+    void testFailedNotificationDoesNotFailCheckout() {
+        doThrow(new RuntimeException("socket closed")).when(notifications).sendNotification(anyString(), anyString());
+        CheckoutOrder order = saga.place(() -> placeOrder(1));
+
+        saga.complete(order, "card");
+
+        assertEquals(CheckoutOrder.Status.COMPLETED, order.getStatus());
+    }
+
+    @Test
+    void testPaymentFailureCancelsOrderAndRestoresStock() {
+        when(payment.processPayment(anyString())).thenReturn(ApiResponse.fail("declined"));
+        CheckoutOrder order = placeOrder(3);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> saga.complete(order, "card"));
+
+        assertTrue(e.getMessage().contains("Payment failed"));
+        assertEquals(CheckoutOrder.Status.CANCELLED, order.getStatus());
+        verify(notifications).sendNotification(eq("u1"), startsWith("Order " + order.getOrderId() + ": failed"));
+        assertEquals(10, listing.getQuantityAvailable());
+        verify(shipment, never()).ship(anyString(), anyString(), anyDouble());
+        assertTrue(outbox.findDue(Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void testShipmentFailureCancelsPaymentAndRestoresStock() {
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenThrow(new RuntimeException("carrier down"));
+        CheckoutOrder order = placeOrder(3);
+
+        assertThrows(RuntimeException.class, () -> saga.complete(order, "card"));
+
+        assertEquals(CheckoutOrder.Status.CANCELLED, order.getStatus());
+        assertEquals(10, listing.getQuantityAvailable());
+        // Cancelled by the provider's transaction ID, not by the order ID
+        assertEquals(PAYMENT_ID, order.getPaymentId());
+        verify(payment).cancelPayment(PAYMENT_ID);
+        assertTrue(purchases.getPurchasesByUser("u1").isEmpty());
+    }
+
+    @Test
+    void testPaymentThatOutlivesTimeoutIsCancelledByTransactionId() {
+        CheckoutOrder order = placeOrder(3);
+        // The payment timeout fires while the payment is in flight
+        when(payment.processPayment(anyString())).thenAnswer(inv -> {
+            now.addAndGet(PAYMENT_TIMEOUT_SECONDS * 1000);
+            saga.relayDue();
+            return ApiResponse.ok(PAYMENT_ID);
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> saga.complete(order, "card"));
+
+        assertTrue(e.getMessage().contains("timed out"));
+        assertEquals(CheckoutOrder.Status.CANCELLED, order.getStatus());
+        assertEquals(10, listing.getQuantityAvailable());
+        verify(payment).cancelPayment(PAYMENT_ID);
+        verify(payment, never()).cancelPayment(order.getOrderId());
+    }
+
+    @Test
+    void testRelayCancelsOrderAbandonedBeforePayment() {
+        CheckoutOrder order = placeOrder(4);
+
+        now.addAndGet(PAYMENT_TIMEOUT_SECONDS * 1000 - 1);
+        assertEquals(0, saga.relayDue());
+        now.addAndGet(1);
+        assertEquals(1, saga.relayDue());
+
+        assertEquals(CheckoutOrder.Status.CANCELLED, order.getStatus());
+        assertEquals(10, listing.getQuantityAvailable());
+        verify(payment, never()).processPayment(anyString());
+    }
+
+    @Test
+    void testRelayShipsPaidOrderAfterLeaseRunsOut() {
+        CheckoutOrder order = placeOrder(2);
+        // The request thread recorded the payment and claimed the shipment, then stopped
+        order.markPaid(PAYMENT_ID);
+        outbox.cancelPending(order.getOrderId(), CheckoutOutboxEvent.Type.PAYMENT_TIMEOUT);
+        CheckoutOutboxEvent ship = new CheckoutOutboxEvent(order.getOrderId(), CheckoutOutboxEvent.Type.SHIP, now.get());
+        ship.claim(now.get() + LEASE_SECONDS * 1000);
+        outbox.save(ship);
+
+        assertEquals(0, saga.relayDue());
+        now.addAndGet(LEASE_SECONDS * 1000);
+        assertEquals(1, saga.relayDue());
+
+        assertEquals(CheckoutOrder.Status.COMPLETED, order.getStatus());
+        assertEquals(1, purchases.getPurchasesByUser("u1").size());
+        assertEquals(8, listing.getQuantityAvailable());
+    }
+
+    @Test
+    void testRelayRetriesShipmentThenCompensates() {
+        CheckoutOrder order = placeOrder(2);
+        order.markPaid(PAYMENT_ID);
+        outbox.cancelPending(order.getOrderId(), CheckoutOutboxEvent.Type.PAYMENT_TIMEOUT);
+        outbox.save(new CheckoutOutboxEvent(order.getOrderId(), CheckoutOutboxEvent.Type.SHIP, now.get()));
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.fail("no carrier"));
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertEquals(1, saga.relayDue());
+            now.addAndGet(3_600_000);
+        }
+
+        assertEquals(CheckoutOrder.Status.CANCELLED, order.getStatus());
+        assertEquals(10, listing.getQuantityAvailable());
+        verify(payment).cancelPayment(PAYMENT_ID);
+        assertTrue(outbox.findDue(Long.MAX_VALUE, 10).isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package market.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class GroupCommitterTests {
+
+    private final AtomicInteger transactionCount = new AtomicInteger();
+    private final List<GroupCommitter> started = new ArrayList<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+
+    // Runs the callback directly, counting one transaction per call
+    private TransactionTemplate countingTransactions() {
+        TransactionTemplate transactions = mock(TransactionTemplate.class);
+        when(transactions.execute(any())).thenAnswer(invocation -> {
+            transactionCount.incrementAndGet();
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+        return transactions;
+    }
+
+    private GroupCommitter committer(long windowMillis, int maxBatch) {
+        GroupCommitter committer = new GroupCommitter(countingTransactions(), windowMillis, maxBatch);
+        committer.start();
+        started.add(committer);
+        return committer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(GroupCommitter::stop);
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentUnitsShareTransactions() throws Exception {
+        GroupCommitter committer = committer(50, 64);
+        CountDownLatch ready = new CountDownLatch(16);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            int id = i;
+            results.add(callers.submit(() -> {
+                ready.countDown();
+                ready.await();
+                return committer.commit(() -> id * 10);
+            }));
+        }
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i * 10, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(transactionCount.get() < 16, "expected shared transactions, got " + transactionCount.get());
+    }
+
+    @Test
+    void testFailingUnitOnlyFailsItsCaller() throws Exception {
+        GroupCommitter committer = committer(50, 64);
+        CountDownLatch ready = new CountDownLatch(3);
+        AtomicInteger goodRuns = new AtomicInteger();
+        Future<String> first = callers.submit(() -> {
+            ready.countDown();
+            ready.await();
+            return committer.commit(() -> {
+                goodRuns.incrementAndGet();
+                return "first";
+            });
+        });
+        Future<String> bad = callers.submit(() -> {
+            ready.countDown();
+            ready.await();
+            return committer.<String>commit(() -> {
+                throw new IllegalStateException("Checkout order not found");
+            });
+        });
+        Future<String> second = callers.submit(() -> {
+            ready.countDown();
+            ready.await();
+            return committer.commit(() -> "second");
+        });
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(thrown.getCause() instanceof IllegalStateException);
+        assertEquals("Checkout order not found", thrown.getCause().getMessage());
+        assertTrue(goodRuns.get() >= 1);
+    }
+
+    @Test
+    void testBatchNeverExceedsMaxBatch() throws Exception {
+        GroupCommitter committer = committer(200, 4);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            int id = i;
+            results.add(callers.submit(() -> committer.commit(() -> id)));
+        }
+
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(transactionCount.get() >= 3, "batches of at most 4 units, got " + transactionCount.get());
+    }
+
+    @Test
+    void testWithoutWindowUnitRunsOnCallingThread() {
+        GroupCommitter committer = committer(0, 64);
+
+        assertSame(Thread.currentThread(), committer.commit(Thread::currentThread));
+        assertEquals(1, transactionCount.get());
+    }
+}
@@ -0,0 +1,133 @@
+package market.application;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import market.domain.purchase.IdempotencyRecord;
+import market.infrastructure.IdempotencyRepository;
+import utils.ApiResponse;
+
+public class IdempotencyServiceTests {
+
+    private static final long TTL_SECONDS = 3600;
+    private static final long LOCK_SECONDS = 60;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyRepository repository;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new IdempotencyRepository();
+        service = new IdempotencyService(repository, TTL_SECONDS, LOCK_SECONDS, 100, 0, now::get);
+    }
+
+    private ResponseEntity<ApiResponse<String>> purchase(String user, String key, String body) {
+        return service.execute("purchase", user, key, body, data -> data,
+                () -> ResponseEntity.ok(ApiResponse.ok("purchase #" + runs.incrementAndGet())));
+    }
+
+    @Test
+    void testRetryReplaysFirstResponseWithoutRunningAgain() {
+        ResponseEntity<ApiResponse<String>> first = purchase("u1", "k1", "cart");
+        ResponseEntity<ApiResponse<String>> retry = purchase("u1", "k1", "cart");
+
+        assertEquals(1, runs.get());
+        assertEquals("purchase #1", retry.getBody().getData());
+        assertTrue(retry.getBody().isSuccess());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testRetryIsReplayedFromRepositoryAfterRestart() {
+        purchase("u1", "k1", "cart");
+        // A fresh service has an empty in-memory map, like another server or a restart
+        service = new IdempotencyService(repository, TTL_SECONDS, LOCK_SECONDS, 100, 0, now::get);
+
+        assertEquals("purchase #1", purchase("u1", "k1", "cart").getBody().getData());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testKeysArePerUserAndWithoutKeyEveryRequestRuns() {
+        purchase("u1", "k1", "cart");
+        purchase("u2", "k1", "cart");
+        purchase("u1", null, "cart");
+        purchase("u1", null, "cart");
+
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        purchase("u1", "k1", "cart");
+
+        ResponseEntity<ApiResponse<String>> reused = purchase("u1", "k1", "other cart");
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testClientErrorIsReplayedButServerErrorRunsAgain() {
+        ResponseEntity<ApiResponse<Void>> rejected = service.execute("bid", "u1", "k1", "bid", data -> null,
+                () -> { runs.incrementAndGet(); return ResponseEntity.badRequest().body(ApiResponse.fail("Bid too low")); });
+        ResponseEntity<ApiResponse<Void>> replayed = service.execute("bid", "u1", "k1", "bid", data -> null,
+                () -> { runs.incrementAndGet(); return ResponseEntity.ok(ApiResponse.ok(null)); });
+        assertEquals(HttpStatus.BAD_REQUEST, replayed.getStatusCode());
+        assertEquals(rejected.getBody().getError(), replayed.getBody().getError());
+        assertEquals(1, runs.get());
+
+        service.execute("bid", "u1", "k2", "bid", data -> null,
+                () -> { runs.incrementAndGet(); return ResponseEntity.internalServerError().body(ApiResponse.<Void>fail("db down")); });
+        ResponseEntity<ApiResponse<Void>> retried = service.execute("bid", "u1", "k2", "bid", data -> null,
+                () -> { runs.incrementAndGet(); return ResponseEntity.ok(ApiResponse.ok(null)); });
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void testRetryWhileFirstRequestRunsGetsConflict() {
+        ResponseEntity<ApiResponse<String>> outer = service.execute("purchase", "u1", "k1", "cart", data -> data, () -> {
+            ResponseEntity<ApiResponse<String>> inner = purchase("u1", "k1", "cart");
+            assertEquals(HttpStatus.CONFLICT, inner.getStatusCode());
+            return ResponseEntity.ok(ApiResponse.ok("first"));
+        });
+
+        assertEquals("first", outer.getBody().getData());
+        assertEquals(0, runs.get());
+        assertEquals("first", purchase("u1", "k1", "cart").getBody().getData());
+    }
+
+    @Test
+    void testAbandonedClaimAndExpiredOutcomeFreeTheKey() {
+        repository.claim(new IdempotencyRecord(IdempotencyRecord.keyOf("purchase", "u1", "k1"), "x", now.get() + LOCK_SECONDS * 1000), now.get());
+        assertEquals(HttpStatus.CONFLICT, purchase("u1", "k1", "cart").getStatusCode());
+
+        now.addAndGet(LOCK_SECONDS * 1000);
+        assertEquals("purchase #1", purchase("u1", "k1", "cart").getBody().getData());
+
+        now.addAndGet(TTL_SECONDS * 1000);
+        assertEquals(1, service.sweepExpired());
+        assertFalse(repository.findById(IdempotencyRecord.keyOf("purchase", "u1", "k1")).isPresent());
+        assertEquals("purchase #2", purchase("u1", "k1", "cart").getBody().getData());
+    }
+
+    @Test
+    void testOverlongKeyIsRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST, purchase("u1", "k".repeat(IdempotencyRecord.MAX_KEY_LENGTH + 1), "cart").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, purchase("u1", " ", "cart").getStatusCode());
+        assertEquals(0, runs.get());
+    }
+}
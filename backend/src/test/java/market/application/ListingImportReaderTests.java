@@ -0,0 +1,75 @@
+package market.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+
+public class ListingImportReaderTests {
+
+    private static ListingImportReader reader(String content, ListingImportReader.Format format) {
+        return new ListingImportReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, "store1");
+    }
+
+    @Test
+    void testCsvRowsFollowHeaderOrderAndQuoting() throws IOException {
+        ListingImportReader r = reader(
+            "price,productName,productId,quantity,description\n" +
+            "\n" +
+            "9.5,\"Cable, USB-C\",p1,3,\"2m \"\"braided\"\"\"\n", ListingImportReader.Format.CSV);
+
+        ListingImportReader.Row row = r.next();
+        assertTrue(row.isValid());
+        assertEquals(3, row.line());
+        Listing l = row.listing();
+        assertEquals("store1", l.getStoreId());
+        assertEquals("Cable, USB-C", l.getProductName());
+        assertEquals("2m \"braided\"", l.getProductDescription());
+        assertEquals(3, l.getQuantityAvailable());
+        assertEquals(9.5, l.getPrice());
+        assertEquals(PurchaseType.REGULAR, l.getPurchaseType());
+        assertNull(r.next());
+    }
+
+    @Test
+    void testInvalidRowsAreReportedWithoutStoppingTheStream() throws IOException {
+        ListingImportReader r = reader(
+            "{\"productId\":\"p1\",\"productName\":\"A\",\"quantity\":-1,\"price\":5}\n" +
+            "not json\n" +
+            "{\"productId\":\"p2\",\"productName\":\"B\",\"quantity\":2,\"price\":\"5.25\",\"purchaseType\":\"bid\",\"extra\":1}\n",
+            ListingImportReader.Format.NDJSON);
+
+        ListingImportReader.Row negative = r.next();
+        assertFalse(negative.isValid());
+        assertEquals("quantity cannot be negative", negative.error());
+        assertFalse(r.next().isValid());
+        ListingImportReader.Row ok = r.next();
+        assertTrue(ok.isValid());
+        assertEquals(3, ok.line());
+        assertEquals(PurchaseType.BID, ok.listing().getPurchaseType());
+        assertNull(r.next());
+    }
+
+    @Test
+    void testCsvHeaderMustNameRequiredColumns() {
+        ListingImportReader r = reader("productId,productName,price\np1,A,1\n", ListingImportReader.Format.CSV);
+        assertThrows(IllegalArgumentException.class, r::next);
+    }
+
+    @Test
+    void testFormatFromParameterOrContentType() {
+        assertEquals(ListingImportReader.Format.NDJSON, ListingImportReader.Format.of(null, "application/x-ndjson"));
+        assertEquals(ListingImportReader.Format.CSV, ListingImportReader.Format.of("", "text/csv"));
+        assertEquals(ListingImportReader.Format.CSV, ListingImportReader.Format.of("csv", "application/json"));
+        assertThrows(IllegalArgumentException.class, () -> ListingImportReader.Format.of("xml", null));
+    }
+}
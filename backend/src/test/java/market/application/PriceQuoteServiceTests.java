@@ -0,0 +1,171 @@
+package market.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IStoreRepository;
+import market.domain.store.Listing;
+import market.domain.store.PriceQuote;
+import market.domain.store.Policies.BasketSnapshot;
+import market.domain.store.Store;
+import market.domain.user.ShoppingCart;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.PurchaseRepository;
+import market.infrastructure.SuspensionRepository;
+import market.infrastructure.UserRepository;
+import utils.ApiResponse;
+
+public class PriceQuoteServiceTests {
+
+    private static final long TTL_SECONDS = 120;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private PriceQuoteService quotes;
+    private ListingRepository listings;
+    private Listing listing;
+    private Map<String, Integer> bag;
+
+    @BeforeEach
+    void setUp() {
+        quotes = new PriceQuoteService("secret", TTL_SECONDS, now::get);
+        listings = new ListingRepository();
+        listing = new Listing("s1", "p1", "Apple", "Fruit", "desc", 10, PurchaseType.REGULAR, 5);
+        listings.addListing(listing);
+        bag = Map.of(listing.getListingId(), 2);
+    }
+
+    private PriceQuote quote(long policyVersion) {
+        return quotes.quote("s1", bag, Map.of(listing.getListingId(), listing), policyVersion, 1.5, true);
+    }
+
+    @Test
+    void testSignedQuoteVerifiesUntilItExpires() {
+        PriceQuote quote = quote(3);
+        String token = quotes.sign(quote);
+
+        assertEquals(quote, quotes.verify(token).orElseThrow());
+        now.addAndGet(TTL_SECONDS * 1000 - 1);
+        assertTrue(quotes.verify(token).isPresent());
+        now.addAndGet(1);
+        assertFalse(quotes.verify(token).isPresent());
+    }
+
+    @Test
+    void testForgedQuotesAreRejected() {
+        String token = quotes.sign(quote(0));
+        String payload = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+        String cheaper = quotes.sign(quotes.quote("s1", bag, Map.of(listing.getListingId(), listing), 0, 10.0, true));
+
+        assertFalse(quotes.verify(cheaper.substring(0, cheaper.indexOf('.')) + "." + signature).isPresent());
+        assertFalse(quotes.verify(payload + "." + signature.substring(1)).isPresent());
+        assertFalse(new PriceQuoteService("other", TTL_SECONDS, now::get).verify(token).isPresent());
+        assertFalse(quotes.verify("not a quote").isPresent());
+        assertFalse(quotes.verify(payload).isPresent());
+    }
+
+    @Test
+    void testQuotesAreNotSignedWithTheSecretItself() throws Exception {
+        String token = quotes.sign(quote(0));
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        // What anyone knowing the secret (e.g. because it is shared with another signer) could compute
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String forged = token.substring(0, token.indexOf('.')) + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload));
+
+        assertFalse(quotes.verify(forged).isPresent());
+    }
+
+    @Test
+    void testSecretIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceQuoteService(null, TTL_SECONDS, now::get));
+        assertThrows(IllegalArgumentException.class, () -> new PriceQuoteService(" ", TTL_SECONDS, now::get));
+    }
+
+    @Test
+    void testQuotesAreOffWithoutSecret() {
+        ApplicationContextRunner context = new ApplicationContextRunner().withUserConfiguration(PriceQuoteService.class);
+
+        context.run(c -> assertEquals(0, c.getBeansOfType(PriceQuoteService.class).size()));
+        context.withPropertyValues("market.quotes.secret=secret")
+                .run(c -> assertEquals(1, c.getBeansOfType(PriceQuoteService.class).size()));
+    }
+
+    @Test
+    void testQuoteHoldsUntilWhatPoliciesReadChanges() {
+        PriceQuote quote = quotes.verify(quotes.sign(quote(3))).orElseThrow();
+        Map<String, Listing> current = Map.of(listing.getListingId(), listing);
+
+        assertTrue(quotes.holds(quote, "s1", bag, current, 3));
+        // Selling stock does not change the price of the bag
+        listings.updateOrRestoreStock(Map.of("s1", Map.of(listing.getListingId(), 4)), false);
+        assertTrue(quotes.holds(quote, "s1", bag, current, 3));
+
+        assertFalse(quotes.holds(quote, "s1", bag, current, 4));
+        assertFalse(quotes.holds(quote, "s2", bag, current, 3));
+        assertFalse(quotes.holds(quote, "s1", Map.of(listing.getListingId(), 3), current, 3));
+        listing.setPrice(6);
+        assertFalse(quotes.holds(quote, "s1", bag, current, 3));
+    }
+
+    @Test
+    void testCheckoutWithQuoteSkipsPolicyEvaluation() throws Exception {
+        UserRepository users = new UserRepository();
+        users.register("u1", "pw");
+        IPaymentService payment = mock(IPaymentService.class);
+        IShipmentService shipment = mock(IShipmentService.class);
+        when(payment.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
+        PurchaseRepository purchases = new PurchaseRepository();
+        NotificationService notifications = mock(NotificationService.class);
+        CheckoutSaga saga = new CheckoutSaga(new market.infrastructure.CheckoutOrderRepository(),
+                new market.infrastructure.CheckoutOutboxRepository(), listings, purchases, users, payment, shipment, notifications);
+        Store store = spy(new Store("s1", "Fruits", "owner", listings));
+        IStoreRepository stores = mock(IStoreRepository.class);
+        when(stores.getStoreByID("s1")).thenReturn(store);
+        PurchaseService purchaseService = new PurchaseService(stores, purchases, listings, users, payment, shipment,
+                new SuspensionRepository(users), notifications, null, null, null, saga, null, quotes, null);
+
+        String token = quotes.sign(quotes.quote("s1", bag, Map.of(listing.getListingId(), listing), store.getPolicyVersion(), 1.5, true));
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct("s1", listing.getListingId(), 2);
+        Purchase quoted = purchaseService.executePurchase("u1", cart, "addr", "card", List.of(token));
+
+        assertEquals(8.5, quoted.getTotalPrice());
+        verify(store, never()).isPurchaseAllowed(any(BasketSnapshot.class));
+        verify(store, never()).calculateStoreBagWithDiscount(any(BasketSnapshot.class));
+
+        // A forged or stale quote is ignored and the bag is priced as usual
+        purchaseService.executePurchase("u1", cart, "addr", "card", List.of(token + "x"));
+        verify(store, times(1)).isPurchaseAllowed(any(BasketSnapshot.class));
+        verify(store, times(1)).calculateStoreBagWithDiscount(any(BasketSnapshot.class));
+    }
+}
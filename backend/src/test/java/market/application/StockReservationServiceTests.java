@@ -0,0 +1,102 @@
+package market.application;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.purchase.StockReservation;
+import market.domain.store.Listing;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.StockReservationRepository;
+
+public class StockReservationServiceTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private ListingRepository listings;
+    private StockReservationService reservations;
+    private Listing apple;
+    private Listing cable;
+
+    @BeforeEach
+    void setUp() {
+        listings = new ListingRepository();
+        reservations = new StockReservationService(new StockReservationRepository(), listings, 60, 300, 0, now::get);
+        apple = new Listing("s1", "p1", "Apple", "Fruit", "desc", 10, PurchaseType.REGULAR, 1);
+        cable = new Listing("s2", "p2", "Cable", "Electronics", "desc", 3, PurchaseType.REGULAR, 5);
+        listings.addListing(apple);
+        listings.addListing(cable);
+    }
+
+    private Map<String, Map<String, Integer>> cart(int apples, int cables) {
+        return Map.of("s1", Map.of(apple.getListingId(), apples), "s2", Map.of(cable.getListingId(), cables));
+    }
+
+    @Test
+    void testReserveHoldsStockUntilConfirmed() {
+        reservations.reserve("u1", cart(4, 1), null);
+
+        assertEquals(6, apple.getQuantityAvailable());
+        assertEquals(2, cable.getQuantityAvailable());
+        assertEquals(Map.of(apple.getListingId(), 4), reservations.getReservedQuantities("s1"));
+
+        assertTrue(reservations.confirm("u1", cart(4, 1)));
+        assertEquals(6, apple.getQuantityAvailable());
+        assertTrue(reservations.getReservedQuantities("s1").isEmpty());
+        assertFalse(reservations.confirm("u1", cart(4, 1)));
+    }
+
+    @Test
+    void testFailedReservationHoldsNothing() {
+        assertThrows(RuntimeException.class, () -> reservations.reserve("u1", cart(4, 5), null));
+
+        assertEquals(10, apple.getQuantityAvailable());
+        assertEquals(3, cable.getQuantityAvailable());
+        assertTrue(reservations.getReservation("u1").isEmpty());
+    }
+
+    @Test
+    void testSweeperReleasesExpiredReservations() {
+        reservations.reserve("u1", cart(4, 1), 30L);
+        reservations.reserve("u2", Map.of("s1", Map.of(apple.getListingId(), 2)), 120L);
+
+        now.addAndGet(30_000);
+        assertEquals(1, reservations.sweepExpired());
+        assertEquals(8, apple.getQuantityAvailable());
+        assertEquals(3, cable.getQuantityAvailable());
+        assertFalse(reservations.confirm("u1", cart(4, 1)));
+        assertTrue(reservations.getReservation("u2").isPresent());
+    }
+
+    @Test
+    void testConfirmReleasesReservationThatNoLongerMatchesTheCart() {
+        reservations.reserve("u1", cart(4, 1), null);
+
+        assertFalse(reservations.confirm("u1", cart(5, 1)));
+        assertEquals(10, apple.getQuantityAvailable());
+        assertEquals(3, cable.getQuantityAvailable());
+    }
+
+    @Test
+    void testReservingAgainReplacesTheUsersHold() {
+        reservations.reserve("u1", cart(4, 1), null);
+        StockReservation second = reservations.reserve("u1", cart(2, 2), null);
+
+        assertEquals(8, apple.getQuantityAvailable());
+        assertEquals(1, cable.getQuantityAvailable());
+        assertEquals(second.getReservationId(), reservations.getReservation("u1").orElseThrow().getReservationId());
+    }
+
+    @Test
+    void testTtlMustBeWithinLimit() {
+        assertThrows(IllegalArgumentException.class, () -> reservations.reserve("u1", cart(1, 1), 0L));
+        assertThrows(IllegalArgumentException.class, () -> reservations.reserve("u1", cart(1, 1), 301L));
+        assertEquals(10, apple.getQuantityAvailable());
+    }
+}
@@ -0,0 +1,178 @@
+package market.application;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IStoreRepository;
+import market.domain.store.Listing;
+import market.domain.store.Policies.BasketSnapshot;
+import market.domain.store.Store;
+import market.domain.user.ShoppingCart;
+import market.infrastructure.CheckoutOrderRepository;
+import market.infrastructure.CheckoutOutboxRepository;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.PurchaseRepository;
+import market.infrastructure.SuspensionRepository;
+import market.infrastructure.UserRepository;
+import utils.ApiResponse;
+
+public class StoreBagEvaluatorTests {
+
+    private StoreBagEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = new StoreBagEvaluator(4, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        evaluator.stop();
+    }
+
+    @Test
+    void testResultsComeBackInInputOrder() {
+        List<Integer> delays = List.of(60, 0, 30, 10, 0, 20);
+
+        List<String> results = evaluator.evaluateAll(delays, delay -> {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "bag-" + delay;
+        });
+
+        assertEquals(List.of("bag-60", "bag-0", "bag-30", "bag-10", "bag-0", "bag-20"), results);
+    }
+
+    @Test
+    void testSingleBagIsEvaluatedOnCallingThread() {
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, evaluator.evaluateAll(List.of("s1"), bag -> Thread.currentThread()).get(0));
+        List<Thread> threads = evaluator.evaluateAll(List.of("s1", "s2"), bag -> Thread.currentThread());
+        assertTrue(threads.stream().anyMatch(t -> t != caller));
+    }
+
+    @Test
+    void testFirstFailureCancelsTheOtherBags() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        AtomicBoolean slowInterrupted = new AtomicBoolean();
+        CountDownLatch slowFinished = new CountDownLatch(1);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluateAll(List.of("slow", "bad"), bag -> {
+                    if (bag.equals("bad")) {
+                        try {
+                            slowStarted.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IllegalArgumentException("Invalid purchase bag for store: bad");
+                    }
+                    slowStarted.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        slowInterrupted.set(true);
+                    } finally {
+                        slowFinished.countDown();
+                    }
+                    return bag;
+                }));
+
+        assertEquals("Invalid purchase bag for store: bad", thrown.getMessage());
+        assertTrue(slowFinished.await(5, TimeUnit.SECONDS));
+        assertTrue(slowInterrupted.get());
+    }
+
+    @Test
+    void testFullPoolFallsBackToCallingThread() {
+        StoreBagEvaluator small = new StoreBagEvaluator(1, 1);
+        try {
+            Thread caller = Thread.currentThread();
+            List<Thread> threads = small.evaluateAll(List.of(1, 2, 3, 4), bag -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Thread.currentThread();
+            });
+
+            assertEquals(4, threads.size());
+            assertTrue(threads.contains(caller));
+            assertTrue(threads.stream().anyMatch(t -> t != caller));
+            assertNotSame(threads.get(0), caller);
+        } finally {
+            small.stop();
+        }
+    }
+
+    @Test
+    void testCheckoutEvaluatesEveryStoreAndFailsOnRejectedBag() throws Exception {
+        UserRepository users = new UserRepository();
+        users.register("u1", "pw");
+        ListingRepository listings = new ListingRepository();
+        IPaymentService payment = mock(IPaymentService.class);
+        IShipmentService shipment = mock(IShipmentService.class);
+        when(payment.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
+        PurchaseRepository purchases = new PurchaseRepository();
+        NotificationService notifications = mock(NotificationService.class);
+        CheckoutSaga saga = new CheckoutSaga(new CheckoutOrderRepository(), new CheckoutOutboxRepository(),
+                listings, purchases, users, payment, shipment, notifications);
+        IStoreRepository stores = mock(IStoreRepository.class);
+        ShoppingCart cart = new ShoppingCart();
+        Map<String, Listing> byStore = new HashMap<>();
+        Map<String, Store> storesById = new HashMap<>();
+        for (String storeId : List.of("s3", "s1", "s2")) {
+            Listing listing = new Listing(storeId, "p-" + storeId, "Item " + storeId, "Misc", "desc", 5, PurchaseType.REGULAR, 10);
+            listings.addListing(listing);
+            byStore.put(storeId, listing);
+            Store store = spy(new Store(storeId, "Store " + storeId, "owner", listings));
+            storesById.put(storeId, store);
+            when(stores.getStoreByID(storeId)).thenReturn(store);
+            cart.addProduct(storeId, listing.getListingId(), 2);
+        }
+        PurchaseService purchaseService = new PurchaseService(stores, purchases, listings, users, payment, shipment,
+                new SuspensionRepository(users), notifications, null, null, null, saga, null, null, evaluator);
+
+        Purchase purchase = purchaseService.executePurchase("u1", cart, "addr", "card", null);
+
+        assertEquals(60.0, purchase.getTotalPrice());
+        assertEquals(List.of("s1", "s2", "s3"), purchase.getProducts().stream().map(p -> p.getStoreId()).toList());
+
+        // One store rejecting its bag fails the whole checkout and leaves every store's stock alone
+        doReturn(false).when(storesById.get("s2")).isPurchaseAllowed(any(BasketSnapshot.class));
+        assertThrows(IllegalArgumentException.class, () -> purchaseService.executePurchase("u1", cart, "addr", "card", null));
+        for (Listing listing : byStore.values()) {
+            assertEquals(3, listings.getListingById(listing.getListingId()).getQuantityAvailable());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package market.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import market.domain.store.IListingRepository;
+import market.dto.PolicyDTO;
+import market.dto.ProductDTO;
+import market.infrastructure.ListingRepository;
+import market.infrastructure.PriceSheetCache;
+import market.infrastructure.StoreRepository;
+import market.infrastructure.SuspensionRepository;
+import market.infrastructure.UserRepository;
+
+public class StoreServicePriceSheetTests {
+
+    private IListingRepository listings;
+    private StoreService storeService;
+    private StorePoliciesService policies;
+    private String firstStore;
+    private String secondStore;
+    private String firstListing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRepository users = new UserRepository();
+        StoreRepository stores = new StoreRepository();
+        SuspensionRepository suspensions = new SuspensionRepository(users);
+        PriceSheetCache sheets = new PriceSheetCache(1);
+        listings = spy(new ListingRepository());
+        users.register("founder", "pw");
+        storeService = new StoreService(stores, users, listings, suspensions, mock(NotificationService.class), null, sheets);
+        policies = new StorePoliciesService(stores, suspensions, null, sheets);
+        firstStore = storeService.createStore("first", "founder").storeId();
+        secondStore = storeService.createStore("second", "founder").storeId();
+        firstListing = storeService.addNewListing("founder", firstStore, "p1", "Item 1", "Misc", "desc", 5, 10.0, "REGULAR");
+        storeService.addNewListing("founder", secondStore, "p2", "Item 2", "Misc", "desc", 5, 20.0, "REGULAR");
+    }
+
+    private ProductDTO.PriceSheet sheet(String storeId) {
+        return storeService.getPriceSheet(storeId).getData();
+    }
+
+    @Test
+    void testCachedSheetIsServedWithoutReadingListings() {
+        ProductDTO.PriceSheet first = sheet(firstStore);
+        clearInvocations(listings);
+
+        assertSame(first, sheet(firstStore));
+        verify(listings, never()).getListingsByStoreId(anyString());
+    }
+
+    @Test
+    void testListingWriteDropsSheet() {
+        ProductDTO.PriceSheet first = sheet(firstStore);
+
+        storeService.editListingPrice("founder", firstStore, firstListing, 8.0);
+
+        ProductDTO.PriceSheet edited = sheet(firstStore);
+        assertNotSame(first, edited);
+        assertEquals(8.0, edited.entries().get(0).discountedPrice(), 1e-9);
+    }
+
+    @Test
+    void testPolicyWriteDropsSheet() {
+        ProductDTO.PriceSheet first = sheet(firstStore);
+
+        policies.addDiscount(firstStore, "founder",
+                new PolicyDTO.AddDiscountRequest("PERCENTAGE", "STORE", null, 50.0, null, null, null, null));
+
+        ProductDTO.PriceSheet discounted = sheet(firstStore);
+        assertNotSame(first, discounted);
+        assertEquals(5.0, discounted.entries().get(0).discountedPrice(), 1e-9);
+    }
+
+    @Test
+    void testLeastRecentlyUsedSheetIsDroppedPastMaxSize() {
+        ProductDTO.PriceSheet first = sheet(firstStore);
+
+        sheet(secondStore);
+
+        assertNotSame(first, sheet(firstStore));
+    }
+
+    @Test
+    void testClosingStoreDropsItsSheet() {
+        ProductDTO.PriceSheet first = sheet(firstStore);
+
+        storeService.closeStore(firstStore, "founder");
+        storeService.openStore(firstStore, "founder");
+
+        assertNotSame(first, sheet(firstStore));
+    }
+}
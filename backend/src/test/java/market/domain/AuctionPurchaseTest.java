@@ -46,7 +46,7 @@ public class AuctionPurchaseTest {
         AuctionPurchase.setPurchaseRepository(purchaseRepository);
 
         paymentService = mock(IPaymentService.class);
-        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
 
         shipmentService = mock(IShipmentService.class);
         when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
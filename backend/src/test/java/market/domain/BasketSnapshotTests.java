@@ -0,0 +1,152 @@
+package market.domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IListingRepository;
+import market.domain.store.Listing;
+import market.domain.store.Store;
+import market.domain.store.StoreProductManager;
+import market.domain.store.Policies.BasketSnapshot;
+import market.domain.store.Policies.DiscountPolicy;
+import market.domain.store.Policies.Discounts.ConditionalDiscountPolicy;
+import market.domain.store.Policies.Discounts.DiscountTargetType;
+import market.domain.store.Policies.Discounts.FixedDiscountPolicy;
+import market.domain.store.Policies.Discounts.PercentageTargetedDiscount;
+import market.domain.store.Policies.Discounts.Conditions.ConditionFactory;
+import market.domain.store.Policies.Policies.MaxItemsPurchasePolicy;
+import market.domain.store.Policies.Policies.MinPricePurchasePolicy;
+import market.infrastructure.ListingRepository;
+
+public class BasketSnapshotTests {
+
+    private IListingRepository repo;
+    private StoreProductManager productManager;
+    private final List<String> listingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repo = new ListingRepository();
+        productManager = new StoreProductManager("store1", repo);
+        listingIds.add(repo.addListing(new Listing("store1", "P1", "Cheese", "dairy", "desc", 100, PurchaseType.REGULAR, 10.0)));
+        listingIds.add(repo.addListing(new Listing("store1", "P2", "Yogurt", "DAIRY", "desc", 100, PurchaseType.REGULAR, 4.5)));
+        listingIds.add(repo.addListing(new Listing("store1", "P1", "Cheddar", "dairy", "desc", 100, PurchaseType.REGULAR, 20.0)));
+        listingIds.add(repo.addListing(new Listing("store2", "P3", "Bread", "bakery", "desc", 100, PurchaseType.REGULAR, 7.0)));
+    }
+
+    private Map<String, Integer> bag() {
+        Map<String, Integer> bag = new LinkedHashMap<>();
+        bag.put(listingIds.get(0), 2);
+        bag.put(listingIds.get(1), 3);
+        bag.put(listingIds.get(2), 1);
+        return bag;
+    }
+
+    @Test
+    void testAggregatesPerProductAndCategory() {
+        BasketSnapshot basket = BasketSnapshot.of(bag(), productManager);
+
+        assertEquals(2 * 10.0 + 3 * 4.5 + 20.0, basket.total());
+        assertEquals(6, basket.totalQuantity());
+        assertEquals(3, basket.quantityOfProduct("P1"));
+        assertEquals(List.of(listingIds.get(0), listingIds.get(2)),
+                basket.itemsOfProduct("P1").stream().map(BasketSnapshot.Item::listingId).toList());
+        // Categories are matched ignoring case
+        assertEquals(6, basket.quantityOfCategory("Dairy"));
+        assertEquals(3, basket.itemsOfCategory("dairy").size());
+        assertEquals(0, basket.quantityOfCategory("bakery"));
+        assertEquals(3, basket.quantityOf(listingIds.get(1)));
+    }
+
+    @Test
+    void testMissingListingsAreCountedButNotPriced() {
+        Map<String, Integer> bag = bag();
+        bag.put("unknown", 4);
+        // Listings of another store are not resolved through this store's manager
+        bag.put(listingIds.get(3), 1);
+
+        BasketSnapshot basket = BasketSnapshot.of(bag, productManager);
+
+        assertEquals(List.of("unknown", listingIds.get(3)), List.copyOf(basket.missingListings()));
+        assertEquals(11, basket.totalQuantity());
+        assertEquals(3, basket.items().size());
+        assertEquals(53.5, basket.total());
+        assertThrows(IllegalArgumentException.class, () -> new MinPricePurchasePolicy(1).isPurchaseAllowed(basket));
+    }
+
+    @Test
+    void testSnapshotIsImmutable() throws Exception {
+        Map<String, Integer> bag = bag();
+        BasketSnapshot basket = BasketSnapshot.of(bag, productManager);
+        bag.put(listingIds.get(0), 50);
+        repo.editPriceForListing(listingIds.get(0), 99.0);
+
+        assertEquals(2, basket.quantityOf(listingIds.get(0)));
+        assertEquals(53.5, basket.total());
+        assertThrows(UnsupportedOperationException.class, () -> basket.items().clear());
+        assertThrows(UnsupportedOperationException.class, () -> basket.quantities().put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> basket.itemsOfCategory("dairy").clear());
+    }
+
+    @Test
+    void testPoliciesGiveTheSameResultOnSnapshotAndBag() {
+        Map<String, Integer> bag = bag();
+        BasketSnapshot basket = BasketSnapshot.of(bag, productManager);
+        List<DiscountPolicy> discounts = List.of(
+                new PercentageTargetedDiscount("dairy", 15, DiscountTargetType.CATEGORY),
+                new FixedDiscountPolicy("P1", 2.5, DiscountTargetType.PRODUCT),
+                new FixedDiscountPolicy(null, 100, DiscountTargetType.STORE),
+                new ConditionalDiscountPolicy(ConditionFactory.categoryQuantityAtLeast("DAIRY", 6),
+                        new PercentageTargetedDiscount("P2", 50, DiscountTargetType.PRODUCT)));
+
+        for (DiscountPolicy discount : discounts) {
+            assertEquals(discount.calculateDiscount(bag, productManager), discount.calculateDiscount(basket));
+        }
+        assertTrue(new MaxItemsPurchasePolicy(6).isPurchaseAllowed(basket));
+        assertFalse(new MaxItemsPurchasePolicy(5).isPurchaseAllowed(bag, productManager));
+    }
+
+    @Test
+    void testStoreResolvesBagOnceForPoliciesAndDiscounts() throws Exception {
+        Store store = new Store("store1", "Dairy", "owner", repo);
+        StoreProductManager counting = spy(productManager);
+        store.setStoreProductsManager(counting);
+        store.getPolicyHandler().addPurchasePolicy(new MinPricePurchasePolicy(10));
+        store.getPolicyHandler().addDiscountPolicy(new PercentageTargetedDiscount(null, 10, DiscountTargetType.STORE));
+        store.getPolicyHandler().addDiscountPolicy(new ConditionalDiscountPolicy(ConditionFactory.basketTotalAtLeast(50),
+                new FixedDiscountPolicy("dairy", 1, DiscountTargetType.CATEGORY)));
+
+        BasketSnapshot basket = store.snapshotBag(bag());
+        assertTrue(store.isPurchaseAllowed(basket));
+        assertEquals(53.5, store.calculateStoreBagWithoutDiscount(basket));
+        assertEquals(53.5 * 0.1 + 6, store.calculateStoreBagWithDiscount(basket), 1e-9);
+
+        verify(counting, times(1)).getListingsByIds(any());
+    }
+
+    @Test
+    void testStoreSnapshotFromLoadedListingsDropsOtherStores() {
+        Store store = new Store("store1", "Dairy", "owner", repo);
+        Map<String, Integer> bag = bag();
+        bag.put(listingIds.get(3), 1);
+
+        BasketSnapshot basket = store.snapshotBag(bag, repo.getListingsByIds(bag.keySet()));
+
+        assertEquals(List.of(listingIds.get(3)), List.copyOf(basket.missingListings()));
+        assertEquals(53.5, basket.total());
+    }
+}
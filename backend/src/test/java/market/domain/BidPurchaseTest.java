@@ -52,7 +52,7 @@ public class BidPurchaseTest {
         BidPurchase.setBidRepository(bidRepository);
 
         paymentService = mock(IPaymentService.class);
-        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
         BidPurchase.setPaymentService(paymentService);
 
         shipmentService = mock(IShipmentService.class);
@@ -0,0 +1,193 @@
+package market.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IListingRepository;
+import market.domain.store.Listing;
+import market.domain.store.StoreProductManager;
+import market.domain.store.Policies.DiscountPolicy;
+import market.domain.store.Policies.PolicyHandler;
+import market.domain.store.Policies.Discounts.CompositeDiscountPolicy;
+import market.domain.store.Policies.Discounts.ConditionalDiscountPolicy;
+import market.domain.store.Policies.Discounts.CouponDiscountPolicy;
+import market.domain.store.Policies.Discounts.DiscountCombinationType;
+import market.domain.store.Policies.Discounts.DiscountPlan;
+import market.domain.store.Policies.Discounts.DiscountTargetType;
+import market.domain.store.Policies.Discounts.FixedDiscountPolicy;
+import market.domain.store.Policies.Discounts.PercentageTargetedDiscount;
+import market.domain.store.Policies.Discounts.Conditions.ConditionFactory;
+import market.domain.store.Policies.Discounts.Conditions.DiscountCondition;
+import market.infrastructure.ListingRepository;
+
+public class DiscountPlanTests {
+
+    private static final String[] PRODUCTS = {"P1", "P2", "P3", "P4", "missing"};
+    private static final String[] CATEGORIES = {"dairy", "Dairy", "bakery", "fruit", "none"};
+
+    private IListingRepository repo;
+    private StoreProductManager productManager;
+    private final List<String> listingIds = new ArrayList<>();
+    private final Random random = new Random(21);
+
+    @BeforeEach
+    void setUp() {
+        repo = new ListingRepository();
+        productManager = new StoreProductManager("store1", repo);
+        listingIds.add(repo.addListing(new Listing("store1", "P1", "Cheese", "dairy", "desc", 100, PurchaseType.REGULAR, 10.1)));
+        listingIds.add(repo.addListing(new Listing("store1", "P2", "Yogurt", "DAIRY", "desc", 100, PurchaseType.REGULAR, 15.3)));
+        listingIds.add(repo.addListing(new Listing("store1", "P3", "Bread", "bakery", "desc", 100, PurchaseType.REGULAR, 7.7)));
+        listingIds.add(repo.addListing(new Listing("store1", "P4", "Apple", "fruit", "desc", 100, PurchaseType.REGULAR, 0.3)));
+        listingIds.add(repo.addListing(new Listing("store1", "P1", "Cheddar", "dairy", "desc", 100, PurchaseType.REGULAR, 22.9)));
+    }
+
+    private DiscountPolicy randomPolicy(int depth) {
+        int kind = random.nextInt(depth <= 0 ? 3 : 5);
+        DiscountTargetType target = DiscountTargetType.values()[random.nextInt(3)];
+        String targetId = switch (target) {
+            case STORE -> null;
+            case PRODUCT -> PRODUCTS[random.nextInt(PRODUCTS.length)];
+            case CATEGORY -> CATEGORIES[random.nextInt(CATEGORIES.length)];
+        };
+        return switch (kind) {
+            case 0 -> new PercentageTargetedDiscount(targetId, 1 + random.nextInt(60) + random.nextDouble(), target);
+            case 1 -> new FixedDiscountPolicy(targetId, random.nextInt(30) * 0.7, target);
+            case 2 -> {
+                CouponDiscountPolicy coupon = new CouponDiscountPolicy("C", 3.3);
+                if (random.nextBoolean()) {
+                    coupon.submitCoupon("C");
+                }
+                yield coupon;
+            }
+            case 3 -> new ConditionalDiscountPolicy(randomCondition(2), randomPolicy(depth - 1));
+            default -> {
+                CompositeDiscountPolicy composite = new CompositeDiscountPolicy(
+                        random.nextBoolean() ? DiscountCombinationType.SUM : DiscountCombinationType.MAXIMUM);
+                for (int i = 0, n = 1 + random.nextInt(4); i < n; i++) {
+                    try {
+                        composite.addPolicy(randomPolicy(depth - 1));
+                    } catch (IllegalArgumentException duplicate) {
+                        // equal policies are rejected by the composite itself
+                    }
+                }
+                yield composite;
+            }
+        };
+    }
+
+    private DiscountCondition randomCondition(int depth) {
+        return switch (random.nextInt(depth <= 0 ? 3 : 6)) {
+            case 0 -> ConditionFactory.basketTotalAtLeast(random.nextInt(120));
+            case 1 -> ConditionFactory.categoryQuantityAtLeast(CATEGORIES[random.nextInt(CATEGORIES.length)], random.nextInt(6));
+            // Product conditions are keyed by the bag's keys, i.e. listing IDs
+            case 2 -> ConditionFactory.productQuantityAtLeast(listingIds.get(random.nextInt(listingIds.size())), random.nextInt(4));
+            case 3 -> ConditionFactory.and(List.of(randomCondition(depth - 1), randomCondition(depth - 1)));
+            case 4 -> ConditionFactory.or(List.of(randomCondition(depth - 1), randomCondition(depth - 1)));
+            default -> ConditionFactory.xor(List.of(randomCondition(depth - 1), randomCondition(depth - 1), randomCondition(depth - 1)));
+        };
+    }
+
+    private Map<String, Integer> randomBag() {
+        Map<String, Integer> bag = new HashMap<>();
+        for (String id : listingIds) {
+            if (random.nextInt(3) > 0) {
+                bag.put(id, 1 + random.nextInt(5));
+            }
+        }
+        if (random.nextInt(5) == 0) {
+            bag.put("unknown-listing", 2);
+        }
+        return bag;
+    }
+
+    @Test
+    void testPlanMatchesTreeEvaluationExactly() {
+        for (int round = 0; round < 300; round++) {
+            CompositeDiscountPolicy root = new CompositeDiscountPolicy(
+                    random.nextBoolean() ? DiscountCombinationType.SUM : DiscountCombinationType.MAXIMUM);
+            for (int i = 0, n = 1 + random.nextInt(5); i < n; i++) {
+                try {
+                    root.addPolicy(randomPolicy(3));
+                } catch (IllegalArgumentException duplicate) {
+                    // skip
+                }
+            }
+            DiscountPlan plan = DiscountPlan.compile(root);
+            for (int b = 0; b < 10; b++) {
+                Map<String, Integer> bag = randomBag();
+                double expected = root.calculateDiscount(bag, productManager);
+                double actual = plan.calculateDiscount(bag, productManager);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                        "round " + round + ", bag " + bag + ": tree " + expected + ", plan " + actual);
+            }
+        }
+    }
+
+    @Test
+    void testUnitDiscountsMatchOneItemBagsExactly() {
+        List<Listing> listings = listingIds.stream().map(repo::getListingById).toList();
+        for (int round = 0; round < 300; round++) {
+            PolicyHandler handler = new PolicyHandler();
+            for (int i = 0, n = 1 + random.nextInt(4); i < n; i++) {
+                try {
+                    handler.addDiscountPolicy(randomPolicy(3));
+                } catch (IllegalArgumentException duplicate) {
+                    // skip
+                }
+            }
+            double[] unit = handler.calculateUnitDiscounts(listings);
+            for (int i = 0; i < listings.size(); i++) {
+                String id = listingIds.get(i);
+                double expected = handler.calculateDiscount(Map.of(id, 1), productManager);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(unit[i]),
+                        "round " + round + ", listing " + id + ": bag " + expected + ", unit " + unit[i]);
+            }
+        }
+    }
+
+    @Test
+    void testPlanResolvesListingsOnce() {
+        StoreProductManager counting = spy(productManager);
+        CompositeDiscountPolicy root = new CompositeDiscountPolicy(DiscountCombinationType.SUM);
+        root.addPolicy(new PercentageTargetedDiscount("dairy", 10, DiscountTargetType.CATEGORY));
+        root.addPolicy(new FixedDiscountPolicy("P3", 1, DiscountTargetType.PRODUCT));
+        root.addPolicy(new ConditionalDiscountPolicy(ConditionFactory.basketTotalAtLeast(20),
+                new PercentageTargetedDiscount(null, 5, DiscountTargetType.STORE)));
+        Map<String, Integer> bag = Map.of(listingIds.get(0), 2, listingIds.get(1), 1, listingIds.get(2), 3);
+
+        double discount = DiscountPlan.compile(root).calculateDiscount(bag, counting);
+
+        assertEquals(root.calculateDiscount(bag, productManager), discount);
+        verify(counting, times(1)).getListingsByIds(any());
+    }
+
+    @Test
+    void testPolicyHandlerRecompilesWhenDiscountsChange() {
+        PolicyHandler handler = new PolicyHandler();
+        Map<String, Integer> bag = Map.of(listingIds.get(0), 2, listingIds.get(2), 1);
+        assertEquals(0.0, handler.calculateDiscount(bag, productManager));
+
+        PercentageTargetedDiscount tenPercent = new PercentageTargetedDiscount(null, 10, DiscountTargetType.STORE);
+        handler.addDiscountPolicy(tenPercent);
+        assertEquals((10.1 * 2 + 7.7) * 0.1, handler.calculateDiscount(bag, productManager), 1e-9);
+
+        handler.addDiscountPolicy(new FixedDiscountPolicy("bakery", 100, DiscountTargetType.CATEGORY));
+        // The fixed discount is capped at the bakery items' price
+        assertEquals((10.1 * 2 + 7.7) * 0.1 + 7.7, handler.calculateDiscount(bag, productManager), 1e-9);
+
+        handler.removeDiscountPolicy(tenPercent);
+        assertEquals(7.7, handler.calculateDiscount(bag, productManager), 1e-9);
+    }
+}
@@ -96,6 +96,13 @@ public class DiscountPolicyDTOConversionTests {
         assertEquals("Bakery", dto.params().get("category"));
     }
 
+    @Test
+    void testCategoryQuantityConditionRoundTrip() {
+        DiscountCondition cond = new CategoryQuantityCondition("Bakery", 2);
+
+        assertEquals(cond.toDTO(), ConditionFactory.fromDTO(cond.toDTO()).toDTO());
+    }
+
     @Test
     void testCompositeConditionDTO() {
         DiscountCondition cond1 = new ProductQuantityCondition(milk.getProductId(), 2);
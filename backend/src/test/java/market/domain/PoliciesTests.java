@@ -129,7 +129,19 @@ class PoliciesTests {
             return dummyListings.get(listingId);
         }
 
+        @Override
+        public Map<String, Listing> getListingsByIds(java.util.Collection<String> listingIds) {
+            Map<String, Listing> result = new HashMap<>();
+            for (String listingId : listingIds) {
+                if (dummyListings.containsKey(listingId)) {
+                    result.put(listingId, dummyListings.get(listingId));
+                }
+            }
+            return result;
+        }
+
         @Override public String addListing(Listing listing) { return ""; }
+        @Override public int addListings(List<Listing> listings) { return 0; }
         @Override public boolean removeListing(String listingId) { return false; }
         @Override public List<Listing> getListingsByProductName(String productName) { return null; }
         @Override public List<Listing> getListingsByProductId(String productId) { return null; }
@@ -149,5 +161,11 @@ class PoliciesTests {
 
         @Override public Boolean editProductCategory(String listingId, String newCategory) {return true;}
 
+        @Override public int adjustPricesByPercent(String category, double percent) {return 0;}
+
+        @Override public int adjustQuantities(String category, int delta) {return 0;}
+
+        @Override public void setStockShards(String listingId, int shards) {}
+
     }
 }
@@ -50,7 +50,7 @@ class PurchaseServiceTest {
         storeRepository = mock(IStoreRepository.class);
         store = mock(Store.class);
 
-        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
         when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
 
         when(storeRepository.getStoreByID(storeId)).thenReturn(store);
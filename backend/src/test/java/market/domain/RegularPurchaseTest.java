@@ -42,7 +42,7 @@ class RegularPurchaseTest {
         paymentService = mock(IPaymentService.class);
         shipmentService = mock(IShipmentService.class);
 
-        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
         when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
 
         regularPurchase = new RegularPurchase();
@@ -229,4 +229,23 @@ public class ShoppingCartTests {
                    () -> user.removeProductFromCart(TEST_STORE, "nonExistentProduct", 1),
                    "Removing non-existent product should throw exception");
     }
+
+    /**
+     * Tests removing a completed purchase from a cart that changed since checkout.
+     *
+     * Given a cart that no longer holds all of the purchased quantities
+     * When removing the purchase
+     * Then what is left is removed, missing products are skipped and emptied bags are dropped
+     */
+    @Test
+    public void removePurchasedFromCart_changedCart_shouldRemoveWhatIsLeft() {
+        // Arrange
+        user.addProductToCart(TEST_STORE, TEST_PRODUCT, 1);
+
+        // Act
+        user.removePurchasedFromCart(Map.of(TEST_STORE, Map.of(TEST_PRODUCT, 3, "gone", 1), "store2", Map.of("other", 1)));
+
+        // Assert
+        assertNull(user.getShoppingCart().getStoreBag(TEST_STORE), "Emptied StoreBag should be removed");
+    }
 }
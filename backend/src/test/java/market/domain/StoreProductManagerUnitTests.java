@@ -1,6 +1,7 @@
 package market.domain;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -19,9 +20,11 @@ import market.infrastructure.ListingRepository;
 class StoreProductManagerUnitTests {
     private StoreProductManager manager;
 
+    private IListingRepository repo;
+
     @BeforeEach
     void setUp() {
-        IListingRepository repo = new ListingRepository();
+        repo = new ListingRepository();
         manager = new StoreProductManager("store123",repo);
     }
 
@@ -147,4 +150,16 @@ class StoreProductManagerUnitTests {
         });
         assertTrue(e.getMessage().contains("not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetListingsByIdsKeepsOnlyThisStore() {
+        Listing own = createListing("p11", "Mouse");
+        manager.addListing(own);
+        Listing foreign = new Listing("otherStore", "p12", "Pad", "category", "desc", 5, PurchaseType.REGULAR, 10);
+        repo.addListing(foreign);
+
+        Map<String, Listing> result = manager.getListingsByIds(List.of(own.getListingId(), foreign.getListingId(), "missing"));
+
+        assertEquals(Map.of(own.getListingId(), own), result);
+    }
+}
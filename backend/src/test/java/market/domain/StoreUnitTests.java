@@ -233,6 +233,18 @@ class StoreUnitTests {
         assertTrue(ex.getMessage().contains("doesn't have permission"));
     }
 
+    @Test
+    void testCheckCanManageListings() throws Exception {
+        store.addNewOwner(founderID, ownerA);
+        store.addNewManager(ownerA, ownerB);
+
+        store.checkCanManageListings(ownerA);
+        Exception ex = assertThrows(Exception.class, () -> store.checkCanManageListings(ownerB));
+        assertTrue(ex.getMessage().contains("doesn't have permission"));
+        store.closeStore(founderID);
+        assertThrows(Exception.class, () -> store.checkCanManageListings(ownerA));
+    }
+
     @Test
     void testRemoveListingByOwnerSuccess() throws Exception {
         store.addNewOwner(founderID, ownerA);
@@ -665,7 +677,36 @@ void concurrentAddAndRemovePermission_permissionStateConsistent() throws Excepti
     assertTrue(permissions.size() <= 2);
 }
 
+    @Test
+    void testAdjustListingPricesOnlyTouchesCategory() throws Exception {
+        store.addNewOwner(founderID, ownerA);
+        store.addNewListing(ownerA, "p20", "Apple", "Fruit", "Red apple", 10, 10.0, "REGULAR");
+        store.addNewListing(ownerA, "p21", "Banana", "fruit", "Yellow banana", 10, 19.99, "REGULAR");
+        store.addNewListing(ownerA, "p22", "Cable", "Electronic", "USB cable", 10, 30.0, "REGULAR");
+
+        int updated = store.adjustListingPrices(ownerA, "FRUIT", 10);
+
+        assertEquals(2, updated);
+        assertEquals(11.0, store.getListingsByProductName("Apple").get(0).getPrice());
+        assertEquals(21.99, store.getListingsByProductName("Banana").get(0).getPrice());
+        assertEquals(30.0, store.getListingsByProductName("Cable").get(0).getPrice());
+    }
 
+    @Test
+    void testAdjustListingQuantitiesNeverGoesNegative() throws Exception {
+        store.addNewOwner(founderID, ownerA);
+        store.addNewListing(ownerA, "p23", "Mouse", "Electronic", "Wireless mouse", 3, 50.0, "REGULAR");
+        store.addNewListing(ownerA, "p24", "Pad", "Electronic", "Mouse pad", 8, 5.0, "REGULAR");
 
+        assertEquals(2, store.adjustListingQuantities(ownerA, null, -5));
 
+        assertEquals(0, store.getListingsByProductName("Mouse").get(0).getQuantityAvailable());
+        assertEquals(3, store.getListingsByProductName("Pad").get(0).getQuantityAvailable());
+    }
+
+    @Test
+    void testBulkEditRequiresPermission() {
+        assertThrows(Exception.class, () -> store.adjustListingPrices("stranger", null, 10));
+        assertThrows(Exception.class, () -> store.adjustListingQuantities("stranger", null, 1));
+    }
 }
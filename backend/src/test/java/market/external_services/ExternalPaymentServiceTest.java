@@ -24,21 +24,20 @@ public class ExternalPaymentServiceTest {
         // Test payment details format: currency,amount,cardNumber,month,year,holder,ccv
         String paymentDetails = "USD,100.50,1234567890123456,12,2025,John Doe,123";
         
-        ApiResponse<Boolean> result = externalPaymentService.processPayment(paymentDetails);
+        ApiResponse<String> result = externalPaymentService.processPayment(paymentDetails);
         
         // Basic assertions
         assertNotNull(result, "Result should not be null");
         
         if (result.isSuccess()) {
             // Assert successful payment
-            assertTrue(result.getData(), "Payment should return true when successful");
+            assertNotNull(result.getData(), "Payment should return the transaction ID when successful");
             assertNull(result.getError(), "Error should be null on success");
             
             System.out.println("✅ Payment processed successfully: " + result.getData());
             
-            // Test cancellation
-            String mockPaymentId = "txn_" + System.currentTimeMillis();
-            ApiResponse<Void> cancelResult = externalPaymentService.cancelPayment(mockPaymentId);
+            // Test cancellation by the returned transaction ID
+            ApiResponse<Void> cancelResult = externalPaymentService.cancelPayment(result.getData());
             
             assertNotNull(cancelResult, "Cancel result should not be null");
             System.out.println("Cancellation result: " + cancelResult.isSuccess());
@@ -58,7 +57,7 @@ public class ExternalPaymentServiceTest {
         // Test with invalid payment details
         String invalidPaymentDetails = "USD,100.50"; // Missing fields
         
-        ApiResponse<Boolean> result = externalPaymentService.processPayment(invalidPaymentDetails);
+        ApiResponse<String> result = externalPaymentService.processPayment(invalidPaymentDetails);
         
         // This SHOULD fail, so assert failure
         assertNotNull(result, "Result should not be null");
@@ -0,0 +1,151 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import market.application.CheckoutSaga;
+import market.application.NotificationService;
+import market.application.PurchaseService;
+import market.application.StoreBagEvaluator;
+import market.application.External.IPaymentService;
+import market.application.External.IShipmentService;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IListingRepository;
+import market.domain.store.Listing;
+import market.domain.store.Store;
+import market.domain.user.ShoppingCart;
+import market.infrastructure.IJpaRepository.IStoreJpaRepository;
+import market.infrastructure.PersistenceRepositories.StoreRepositoryPersistance;
+import utils.ApiResponse;
+
+/**
+ * Concurrent multi-store checkouts against H2 with a connection pool smaller than the number of
+ * checkouts and bag evaluation threads: store bags are loaded on the evaluation pool, which must
+ * not wait for connections held by the checkouts' stock transactions.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout-connection-pool-tests;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.jpa.show-sql=false"
+})
+@Import({StoreRepositoryPersistance.class, CheckoutConnectionPoolTests.PoolConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CheckoutConnectionPoolTests {
+
+    @TestConfiguration
+    static class PoolConfig {
+        @Bean
+        IListingRepository listingRepository() {
+            return new ListingRepository();
+        }
+
+        @Bean
+        PolicyHandlerCache policyHandlerCache() {
+            return new PolicyHandlerCache(100);
+        }
+    }
+
+    private static final int STORES = 4;
+    private static final int CHECKOUTS = 4;
+
+    @Autowired
+    private StoreRepositoryPersistance stores;
+
+    @Autowired
+    private IStoreJpaRepository jpa;
+
+    @Autowired
+    private IListingRepository listings;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StoreBagEvaluator evaluator;
+    private PurchaseService purchaseService;
+    private final List<String> listingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRepository users = new UserRepository();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            users.register("u" + i, "pw");
+        }
+        for (int s = 0; s < STORES; s++) {
+            String storeId = "pool-store-" + s;
+            stores.addStore(new Store(storeId, "Store " + s, "owner", listings));
+            listingIds.add(listings.addListing(new Listing(storeId, "p" + s, "Item " + s, "Misc", "desc", 100, PurchaseType.REGULAR, 10)));
+        }
+        IPaymentService payment = mock(IPaymentService.class);
+        IShipmentService shipment = mock(IShipmentService.class);
+        when(payment.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
+        when(shipment.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
+        PurchaseRepository purchases = new PurchaseRepository();
+        NotificationService notifications = mock(NotificationService.class);
+        CheckoutSaga saga = new CheckoutSaga(new CheckoutOrderRepository(), new CheckoutOutboxRepository(), listings,
+                purchases, users, payment, shipment, notifications, new TransactionTemplate(transactionManager), null,
+                120, 60, 5, 0);
+        evaluator = new StoreBagEvaluator(STORES, 16);
+        purchaseService = new PurchaseService(stores, purchases, listings, users, payment, shipment,
+                new SuspensionRepository(users), notifications, null, null, null, saga, null, null, evaluator);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        evaluator.stop();
+        jpa.deleteAll();
+    }
+
+    @Test
+    void testConcurrentCheckoutsDoNotStarveBagEvaluation() throws Exception {
+        ExecutorService buyers = Executors.newFixedThreadPool(CHECKOUTS);
+        try {
+            List<Future<Purchase>> checkouts = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                String userId = "u" + i;
+                ShoppingCart cart = new ShoppingCart();
+                for (int s = 0; s < STORES; s++) {
+                    cart.addProduct("pool-store-" + s, listingIds.get(s), 1);
+                }
+                checkouts.add(buyers.submit(() -> purchaseService.executePurchase(userId, cart, "addr", "card", null)));
+            }
+            for (Future<Purchase> checkout : checkouts) {
+                assertEquals(STORES * 10.0, checkout.get(30, TimeUnit.SECONDS).getTotalPrice());
+            }
+        } finally {
+            buyers.shutdownNow();
+        }
+        for (String listingId : listingIds) {
+            assertEquals(100 - CHECKOUTS, listings.getListingById(listingId).getQuantityAvailable());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package market.infrastructure;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.IdempotencyRecord;
+import market.infrastructure.IJpaRepository.IIdempotencyJpaRepository;
+import market.infrastructure.PersistenceRepositories.IdempotencyRepositoryPersistence;
+
+/**
+ * Claims of {@link IdempotencyRepositoryPersistence} against H2, outside a test transaction so
+ * that each claim commits on its own as it does in the app.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import(IdempotencyRepositoryPersistence.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotencyPersistenceTests {
+
+    @Autowired
+    private IdempotencyRepositoryPersistence repository;
+
+    @Autowired
+    private IIdempotencyJpaRepository jpa;
+
+    @AfterEach
+    void cleanUp() {
+        jpa.deleteAll();
+    }
+
+    @Test
+    void testSecondClaimFailsUntilRecordExpires() {
+        assertTrue(repository.claim(new IdempotencyRecord("purchase:u1:k1", "h1", 2000), 1000));
+        assertFalse(repository.claim(new IdempotencyRecord("purchase:u1:k1", "h1", 2500), 1500));
+
+        assertTrue(repository.claim(new IdempotencyRecord("purchase:u1:k1", "h2", 3000), 2000));
+        assertEquals("h2", jpa.findById("purchase:u1:k1").orElseThrow().getRequestHash());
+    }
+
+    @Test
+    void testCompletedRecordKeepsResponse() {
+        repository.claim(new IdempotencyRecord("bid:u1:k1", "h1", 2000), 1000);
+        repository.complete("bid:u1:k1", 400, false, null, "Bid too low", 90_000);
+
+        IdempotencyRecord record = repository.findById("bid:u1:k1").orElseThrow();
+        assertTrue(record.isCompleted());
+        assertEquals(400, record.getHttpStatus());
+        assertEquals("Bid too low", record.getResponseError());
+        assertFalse(repository.claim(new IdempotencyRecord("bid:u1:k1", "h1", 3000), 2000));
+
+        assertEquals(1, repository.deleteExpired(90_000));
+        repository.release("bid:u1:k1");
+        assertFalse(repository.findById("bid:u1:k1").isPresent());
+    }
+
+    @Test
+    void testConcurrentClaimsOfOneKeyHaveOneWinner() throws InterruptedException {
+        int threads = 8;
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (repository.claim(new IdempotencyRecord("purchase:u1:race", "h", 5000), 1000)) {
+                    winners.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1, winners.get());
+    }
+}
@@ -0,0 +1,173 @@
+package market.infrastructure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+
+public class ListingCacheTests {
+
+    private AtomicLong now;
+    private ListingCache cache;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        cache = new ListingCache(2, Duration.ofSeconds(10), now::get);
+        listing = versioned(new Listing("store1", "prod1", "Product1", "category", "desc", 10, PurchaseType.REGULAR, 100), 1L);
+    }
+
+    private static Listing versioned(Listing l, long version) {
+        l.setVersion(version);
+        return l;
+    }
+
+    @Test
+    void testHitReturnsCopyAndCountsStats() {
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+
+        Listing first = cache.get(listing.getListingId());
+        assertNotNull(first);
+        assertNotSame(listing, first);
+        first.setPrice(1);
+        assertEquals(100, cache.get(listing.getListingId()).getPrice());
+
+        assertNull(cache.get("missing"));
+        ListingCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertNull(cache.get(listing.getListingId()));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvictedWhenFull() {
+        Listing second = versioned(new Listing("store1", "prod2", "Product2", "category", "desc", 10, PurchaseType.REGULAR, 200), 1L);
+        Listing third = versioned(new Listing("store2", "prod3", "Product3", "category", "desc", 10, PurchaseType.REGULAR, 300), 1L);
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        now.incrementAndGet();
+        cache.putIfUnchanged(second, cache.stamp(second.getListingId()));
+        now.incrementAndGet();
+        cache.get(listing.getListingId());
+        now.incrementAndGet();
+        cache.putIfUnchanged(third, cache.stamp(third.getListingId()));
+
+        assertNotNull(cache.get(listing.getListingId()));
+        assertNull(cache.get(second.getListingId()));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testLoadRacingWithInvalidationIsNotCached() {
+        long stamp = cache.stamp(listing.getListingId());
+        cache.invalidate(listing.getListingId());
+        cache.putIfUnchanged(listing, stamp);
+
+        assertNull(cache.get(listing.getListingId()));
+    }
+
+    @Test
+    void testInvalidationOfAnotherStripeKeepsRacingLoad() {
+        String listingId = listing.getListingId();
+        String other;
+        int i = 0;
+        do {
+            other = "other-" + i++;
+            long before = cache.stamp(listingId);
+            cache.invalidate(other);
+            if (cache.stamp(listingId) == before) {
+                break;
+            }
+        } while (true);
+
+        long stamp = cache.stamp(listingId);
+        cache.invalidate(other);
+        cache.putIfUnchanged(listing, stamp);
+
+        assertNotNull(cache.get(listingId));
+    }
+
+    @Test
+    void testConcurrentUseStaysWithinMaxSize() throws Exception {
+        ListingCache shared = new ListingCache(16, Duration.ofSeconds(10));
+        List<Listing> catalog = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            catalog.add(versioned(new Listing("store1", "prod" + i, "Product" + i, "category", "desc", 10, PurchaseType.REGULAR, i), 1L));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                workers.add(pool.submit(() -> {
+                    for (int n = 0; n < 5_000; n++) {
+                        Listing l = catalog.get((seed * 31 + n * 7) % catalog.size());
+                        if (shared.get(l.getListingId()) == null) {
+                            shared.putIfUnchanged(l, shared.stamp(l.getListingId()));
+                        }
+                        if (n % 50 == 0) {
+                            shared.invalidate(l.getListingId());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ListingCache.Stats stats = shared.stats();
+        assertTrue(stats.size() <= 16, "size " + stats.size());
+        assertEquals(8 * 5_000, stats.hits() + stats.misses());
+    }
+
+    @Test
+    void testOlderVersionNeverReplacesNewer() {
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        Listing stale = versioned(listing.copy(), 0L);
+        stale.setPrice(50);
+        cache.putIfUnchanged(stale, cache.stamp(stale.getListingId()));
+
+        assertEquals(100, cache.get(listing.getListingId()).getPrice());
+    }
+
+    @Test
+    void testPendingWriteBypassesCacheUntilCompletion() {
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        cache.beginWrite(listing.getListingId());
+
+        assertNull(cache.get(listing.getListingId()));
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        assertNull(cache.get(listing.getListingId()));
+
+        cache.endWrite(listing.getListingId());
+        cache.putIfUnchanged(listing, cache.stamp(listing.getListingId()));
+        assertNotNull(cache.get(listing.getListingId()));
+    }
+}
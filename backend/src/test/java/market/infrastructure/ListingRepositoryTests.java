@@ -13,9 +13,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
 
 import market.domain.purchase.PurchaseType;
 import market.domain.store.Listing;
+import market.domain.store.ListingCursor;
+import market.domain.store.ListingFacets;
+import market.domain.store.ListingPriceQuery;
+import market.domain.store.ListingSearchQuery;
 
 class ListingRepositoryTests {
 
@@ -81,6 +86,17 @@ class ListingRepositoryTests {
         assertTrue(e.getMessage().contains("Not enough stock"));
     }
 
+    @Test
+    void testUpdateStockFailureRollsBackItemsAlreadyTaken() {
+        Map<String, Integer> store1Bag = new java.util.LinkedHashMap<>();
+        store1Bag.put(listing1.getListingId(), 4);
+        store1Bag.put(listing2.getListingId(), 6); // only 5 available
+
+        assertThrows(RuntimeException.class, () -> repository.updateOrRestoreStock(Map.of("store1", store1Bag), false));
+        assertEquals(10, listing1.getQuantityAvailable());
+        assertEquals(5, listing2.getQuantityAvailable());
+    }
+
 
 
     //councurrency tests!!!!!!!!!!!!!!!!!!!!!!
@@ -364,4 +380,300 @@ class ListingRepositoryTests {
     }
 
 
-}
\ No newline at end of file
+
+    @Test
+    void testSearchByNameIsCaseInsensitiveSubstring() {
+        List<Listing> result = repository.searchListings(ListingSearchQuery.byName("DUCT1"));
+        assertEquals(2, result.size());
+        assertTrue(result.contains(listing1));
+        assertTrue(result.contains(listing3));
+    }
+
+    @Test
+    void testSearchByNameInStore() {
+        List<Listing> result = repository.searchListings(ListingSearchQuery.byNameInStore("product", "store2"));
+        assertEquals(1, result.size());
+        assertEquals(listing3, result.get(0));
+    }
+
+    @Test
+    void testSearchFollowsEditsAndRemovals() throws Exception {
+        repository.editProductName(listing2.getListingId(), "Gaming Laptop");
+        assertTrue(repository.searchListings(ListingSearchQuery.byName("product2")).isEmpty());
+        assertEquals(listing2, repository.searchListings(ListingSearchQuery.byName("laptop")).get(0));
+
+        repository.removeListing(listing2.getListingId());
+        assertTrue(repository.searchListings(ListingSearchQuery.byName("laptop")).isEmpty());
+    }
+
+    @Test
+    void testRankedSearchPrefersNameOverDescription() {
+        Listing byDescription = new Listing("store3", "prod9", "Backpack", "bags", "fits a laptop", 3, PurchaseType.REGULAR, 60);
+        Listing byName = new Listing("store3", "prod8", "Laptop Stand", "accessories", "aluminium", 3, PurchaseType.REGULAR, 40);
+        repository.addListing(byDescription);
+        repository.addListing(byName);
+
+        List<Listing> result = repository.searchListings(
+            new ListingSearchQuery("laptop", false, null, null, null, null, 0, 0));
+        assertEquals(List.of(byName, byDescription), result);
+    }
+
+    @Test
+    void testRankedSearchFiltersAndPaging() throws Exception {
+        repository.editPriceForListing(listing3.getListingId(), 500.0);
+
+        List<Listing> cheap = repository.searchListings(
+            new ListingSearchQuery("product", false, null, "CATEGORY", null, 250.0, 0, 0));
+        assertEquals(2, cheap.size());
+        assertFalse(cheap.contains(listing3));
+
+        List<Listing> secondPage = repository.searchListings(
+            new ListingSearchQuery("product", false, null, null, null, null, 1, 1));
+        List<Listing> all = repository.searchListings(
+            new ListingSearchQuery("product", false, null, null, null, null, 0, 0));
+        assertEquals(1, secondPage.size());
+        assertEquals(all.get(1), secondPage.get(0));
+    }
+
+    @Test
+    void testLookupsFollowRenameAndRecategorize() throws Exception {
+        repository.editProductName(listing1.getListingId(), "Renamed");
+        assertTrue(repository.getListingsByProductNameAndStore("Product1", "store1").isEmpty());
+        assertEquals(List.of(listing3), repository.getListingsByProductName("Product1"));
+        assertEquals(List.of(listing1), repository.getListingsByProductNameAndStore("Renamed", "store1"));
+
+        repository.editProductCategory(listing2.getListingId(), "Toys");
+        assertEquals(List.of(listing2), repository.getListingsByCategory("toys"));
+        assertEquals(List.of(listing2), repository.getListingsByCategoryAndStore("TOYS", "store1"));
+        assertEquals(2, repository.getListingsByCategory("CATEGORY").size());
+    }
+
+    @Test
+    void testLookupsDropRemovedListings() {
+        repository.removeListing(listing1.getListingId());
+
+        assertEquals(List.of(listing2), repository.getListingsByStoreId("store1"));
+        assertEquals(List.of(listing3), repository.getListingsByProductId("prod1"));
+        assertTrue(repository.getListingsByProductIdAndStore("prod1", "store1").isEmpty());
+        assertTrue(repository.getListingsByStoreId("unknown").isEmpty());
+    }
+
+    @Test
+    void testPriceKeysetPagingWalksWholeCatalogInOrder() {
+        Slice<Listing> first = repository.getListingsPageByPrice(null, 2);
+        assertEquals(List.of(listing1, listing3), first.getContent());
+        assertTrue(first.hasNext());
+
+        ListingCursor cursor = ListingCursor.decode(ListingCursor.after(listing3, true).encode());
+        Slice<Listing> second = repository.getListingsPageByPrice(cursor, 2);
+        assertEquals(List.of(listing2), second.getContent());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testNameKeysetPagingBreaksTiesByListingId() {
+        Slice<Listing> first = repository.getListingsPageByName(null, 1);
+        Listing firstProduct1 = first.getContent().get(0);
+        assertEquals("Product1", firstProduct1.getProductName());
+
+        Slice<Listing> second = repository.getListingsPageByName(ListingCursor.after(firstProduct1, false), 1);
+        assertEquals("Product1", second.getContent().get(0).getProductName());
+        assertTrue(firstProduct1.getListingId().compareTo(second.getContent().get(0).getListingId()) < 0);
+
+        Slice<Listing> third = repository.getListingsPageByName(ListingCursor.after(second.getContent().get(0), false), 5);
+        assertEquals(List.of(listing2), third.getContent());
+        assertFalse(third.hasNext());
+    }
+
+    @Test
+    void testCursorRejectsGarbageAndCapsPageSize() {
+        assertNull(ListingCursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> ListingCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> ListingCursor.pageSize(0));
+        assertEquals(ListingCursor.MAX_PAGE_SIZE, ListingCursor.pageSize(10_000));
+    }
+
+    @Test
+    void testGetListingsByIdsSkipsUnknownIds() {
+        Map<String, Listing> result = repository.getListingsByIds(List.of(listing1.getListingId(), listing3.getListingId(), "unknown"));
+
+        assertEquals(2, result.size());
+        assertEquals(listing1, result.get(listing1.getListingId()));
+        assertEquals(listing3, result.get(listing3.getListingId()));
+    }
+
+    @Test
+    void testPriceRangeIsInclusiveAndScopedToStore() {
+        assertEquals(List.of(listing1, listing3),
+            repository.getListingsByPrice(new ListingPriceQuery(null, null, 100.0, 150.0, false, 0)));
+        assertEquals(List.of(listing1),
+            repository.getListingsByPrice(new ListingPriceQuery("store1", "CATEGORY", 100.0, 150.0, false, 0)));
+        assertTrue(repository.getListingsByPrice(new ListingPriceQuery(null, "other", null, null, false, 0)).isEmpty());
+    }
+
+    @Test
+    void testTopNCheapestAndMostExpensive() {
+        assertEquals(List.of(listing1, listing3), repository.getListingsByPrice(ListingPriceQuery.cheapest(null, "category", 2)));
+        assertEquals(List.of(listing2), repository.getListingsByPrice(ListingPriceQuery.mostExpensive("store1", null, 1)));
+    }
+
+    @Test
+    void testPriceIndexFollowsEditsAndRemovals() throws Exception {
+        repository.editPriceForListing(listing2.getListingId(), 50.0);
+        repository.editProductCategory(listing3.getListingId(), "Other");
+        repository.removeListing(listing1.getListingId());
+
+        assertEquals(List.of(listing2), repository.getListingsByPrice(ListingPriceQuery.cheapest(null, "category", 10)));
+        assertEquals(List.of(listing3), repository.getListingsByPrice(ListingPriceQuery.cheapest(null, "other", 10)));
+        assertEquals(List.of(listing2, listing3), repository.getListingsByPrice(ListingPriceQuery.all()));
+    }
+
+    @Test
+    void testAddListingsIndexesBatchAndRejectsDuplicates() {
+        Listing a = new Listing("store3", "prod9", "Gadget", "tools", "desc", 1, PurchaseType.REGULAR, 5);
+        Listing b = new Listing("store3", "prod10", "Widget", "tools", "desc", 1, PurchaseType.REGULAR, 7);
+
+        assertEquals(2, repository.addListings(List.of(a, b)));
+        assertEquals(List.of(a, b), repository.getListingsByPrice(ListingPriceQuery.cheapest("store3", null, 10)));
+        assertThrows(IllegalArgumentException.class, () -> repository.addListings(List.of(a)));
+        assertEquals(2, repository.getListingsByStoreId("store3").size());
+    }
+
+    @Test
+    void testFacetCountsPerFilter() {
+        ListingFacets all = repository.getFacetCounts(null, null);
+        assertEquals(3, all.total());
+        assertEquals(Map.of("category", 3L), all.categories());
+        assertEquals(Map.of("store1", 2L, "store2", 1L), all.stores());
+        assertEquals(Map.of("100-250", 3L), all.priceBuckets());
+
+        assertEquals(2, repository.getFacetCounts("store1", "CATEGORY").total());
+        assertEquals(0, repository.getFacetCounts("store3", null).total());
+    }
+
+    @Test
+    void testFacetCountsFollowEditsRemovalsAndDisabling() throws Exception {
+        repository.editPriceForListing(listing1.getListingId(), 5.0);
+        repository.editProductCategory(listing2.getListingId(), null);
+        repository.removeListing(listing3.getListingId());
+
+        ListingFacets facets = repository.getFacetCounts(null, null);
+        assertEquals(Map.of("category", 1L, ListingFacets.UNCATEGORIZED, 1L), facets.categories());
+        assertEquals(Map.of("0-10", 1L, "100-250", 1L), facets.priceBuckets());
+
+        repository.disableListingsByStoreId("store1");
+        assertEquals(0, repository.getFacetCounts(null, null).total());
+        assertTrue(repository.getFacetCounts(null, null).stores().isEmpty());
+        repository.enableListingsByStoreId("store1");
+        assertEquals(Map.of("store1", 2L), repository.getFacetCounts(null, null).stores());
+    }
+
+    @Test
+    void testPriceBucketBoundsAreInclusiveBelow() {
+        assertEquals("0-10", ListingFacets.priceBucket(0));
+        assertEquals("10-25", ListingFacets.priceBucket(10));
+        assertEquals("1000+", ListingFacets.priceBucket(5000));
+    }
+
+    @Test
+    void testConcurrentMultiItemCartsNeverOversell() throws InterruptedException {
+        Listing a = new Listing("storeY", "pA", "A", "category", "desc", 50, PurchaseType.REGULAR, 1);
+        Listing b = new Listing("storeY", "pB", "B", "category", "desc", 30, PurchaseType.REGULAR, 1);
+        repository.addListing(a);
+        repository.addListing(b);
+        int numThreads = 80;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(numThreads);
+        AtomicInteger successCount = new AtomicInteger(0);
+
+        for (int i = 0; i < numThreads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    Map<String, Integer> bag = Map.of(a.getListingId(), 1, b.getListingId(), 1);
+                    repository.updateOrRestoreStock(Map.of("storeY", bag), false);
+                    successCount.incrementAndGet();
+                } catch (Exception e) {
+                    // expected once B is sold out
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertEquals(30, successCount.get());
+        assertEquals(0, b.getQuantityAvailable());
+        assertEquals(20, a.getQuantityAvailable());
+    }
+
+    @Test
+    void testShardedStockKeepsTotalAndStealsAcrossShards() throws Exception {
+        String id = listing1.getListingId();
+        repository.setStockShards(id, 4);
+
+        assertEquals(4, listing1.getStockShards());
+        assertEquals(10, listing1.getQuantityAvailable());
+        assertEquals(0, listing1.unshardedQuantity());
+
+        // No single shard holds 7 of the 10 units
+        repository.updateOrRestoreStock(Map.of("store1", Map.of(id, 7)), false);
+        assertEquals(3, listing1.getQuantityAvailable());
+        assertThrows(RuntimeException.class, () -> repository.updateOrRestoreStock(Map.of("store1", Map.of(id, 4)), false));
+        assertEquals(3, listing1.getQuantityAvailable());
+        repository.updateOrRestoreStock(Map.of("store1", Map.of(id, 2)), true);
+        assertEquals(5, listing1.getQuantityAvailable());
+
+        repository.editProductQuantity(id, 12);
+        assertEquals(12, listing1.getQuantityAvailable());
+        assertEquals(4, listing1.getStockShards());
+
+        repository.setStockShards(id, 0);
+        assertEquals(0, listing1.getStockShards());
+        assertEquals(12, listing1.unshardedQuantity());
+    }
+
+    @Test
+    void testStockShardsOutOfRangeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> repository.setStockShards(listing1.getListingId(), -1));
+        assertThrows(IllegalArgumentException.class, () -> repository.setStockShards(listing1.getListingId(), Listing.MAX_STOCK_SHARDS + 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.setStockShards("missing", 4));
+    }
+
+    @Test
+    void testConcurrentBuyersNeverOversellShardedListing() throws InterruptedException {
+        Listing hot = new Listing("storeZ", "pH", "Hot", "category", "desc", 200, PurchaseType.REGULAR, 1);
+        repository.addListing(hot);
+        repository.setStockShards(hot.getListingId(), 8);
+        int numThreads = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(numThreads);
+        AtomicInteger successCount = new AtomicInteger(0);
+
+        for (int i = 0; i < numThreads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int attempt = 0; attempt < 5; attempt++) {
+                        try {
+                            repository.updateOrRestoreStock(Map.of("storeZ", Map.of(hot.getListingId(), 1)), false);
+                            successCount.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            // expected once sold out
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertEquals(200, successCount.get());
+        assertEquals(0, hot.getQuantityAvailable());
+    }
+}
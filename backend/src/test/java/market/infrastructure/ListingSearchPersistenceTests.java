@@ -0,0 +1,80 @@
+package market.infrastructure;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+import market.domain.store.ListingSearchQuery;
+import market.infrastructure.IJpaRepository.IListingJpaRepository;
+import market.infrastructure.PersistenceRepositories.ListingRepositoryPersistence;
+
+/**
+ * Search, price and facet indexes of {@link ListingRepositoryPersistence} against H2: every write
+ * path reaches the indexes once it commits, whether or not they were queried before.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing-search-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import({ListingRepositoryPersistence.class, ListingSearchPersistenceTests.CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ListingSearchPersistenceTests {
+
+    @TestConfiguration
+    static class CacheConfig {
+        @Bean
+        ListingCache listingCache() {
+            return new ListingCache(100, Duration.ofSeconds(30));
+        }
+    }
+
+    @Autowired
+    private ListingRepositoryPersistence repository;
+
+    @Autowired
+    private IListingJpaRepository jpa;
+
+    @AfterEach
+    void cleanUp() {
+        jpa.findAll().forEach(l -> repository.removeListing(l.getListingId()));
+    }
+
+    private static Listing lamp(String productId) {
+        return new Listing("s1", productId, "Desk Lamp " + productId, "Lighting", "desc", 5, PurchaseType.REGULAR, 30);
+    }
+
+    private int lampsFound() {
+        return repository.searchListings(ListingSearchQuery.byName("lamp")).size();
+    }
+
+    @Test
+    void testSingleAndBatchAddsAreIndexedAlike() {
+        repository.addListings(List.of(lamp("p1"), lamp("p2")));
+        assertEquals(2, lampsFound());
+
+        repository.addListing(lamp("p3"));
+        assertEquals(3, lampsFound());
+        assertEquals(3, repository.getFacetCounts("s1", null).total());
+
+        repository.addListings(List.of(lamp("p4")));
+        assertEquals(4, lampsFound());
+    }
+}
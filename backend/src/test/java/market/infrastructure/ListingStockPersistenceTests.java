@@ -0,0 +1,243 @@
+package market.infrastructure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+import market.infrastructure.IJpaRepository.IListingJpaRepository;
+import market.infrastructure.IJpaRepository.IListingStockShardJpaRepository;
+import market.infrastructure.PersistenceRepositories.ListingRepositoryPersistence;
+
+/**
+ * Stock updates of {@link ListingRepositoryPersistence} against H2. Tests run outside a test
+ * transaction so each repository call commits or rolls back on its own, as it does in the app.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing-stock-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import({ListingRepositoryPersistence.class, ListingStockPersistenceTests.CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ListingStockPersistenceTests {
+
+    @TestConfiguration
+    static class CacheConfig {
+        @Bean
+        ListingCache listingCache() {
+            return new ListingCache(100, Duration.ofSeconds(30));
+        }
+    }
+
+    @Autowired
+    private ListingRepositoryPersistence repository;
+
+    @Autowired
+    private IListingJpaRepository jpa;
+
+    @Autowired
+    private IListingStockShardJpaRepository shardJpa;
+
+    @AfterEach
+    void cleanUp() {
+        shardJpa.deleteAll();
+        jpa.deleteAll();
+    }
+
+    private String addListing(String storeId, String productId, int quantity) {
+        return repository.addListing(new Listing(storeId, productId, productId, "cat", "desc", quantity, PurchaseType.REGULAR, 10));
+    }
+
+    private int stockOf(String listingId) {
+        return jpa.findById(listingId).orElseThrow().getQuantityAvailable();
+    }
+
+    @Test
+    void testDecrementAndRestore() {
+        String id = addListing("s1", "p1", 5);
+
+        assertTrue(repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 3)), false));
+        assertEquals(2, stockOf(id));
+        assertTrue(repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 3)), true));
+        assertEquals(5, stockOf(id));
+    }
+
+    @Test
+    void testCartIsAllOrNothing() {
+        String plenty = addListing("s1", "p1", 10);
+        String scarce = addListing("s2", "p2", 1);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> repository.updateOrRestoreStock(
+                Map.of("s1", Map.of(plenty, 4), "s2", Map.of(scarce, 2)), false));
+        assertTrue(e.getMessage().contains("Not enough stock"));
+        assertEquals(10, stockOf(plenty));
+        assertEquals(1, stockOf(scarce));
+    }
+
+    @Test
+    void testListingOfAnotherStoreIsRejected() {
+        String id = addListing("s1", "p1", 5);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.updateOrRestoreStock(Map.of("s2", Map.of(id, 1)), false));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.updateOrRestoreStock(Map.of("s1", Map.of("missing", 1)), false));
+        assertEquals(5, stockOf(id));
+    }
+
+    @Test
+    void testShardedStockIsSummedOnLoadAndStolenAcrossShards() throws Exception {
+        String id = addListing("s1", "p1", 10);
+        repository.setStockShards(id, 4);
+
+        Listing loaded = jpa.findById(id).orElseThrow();
+        assertEquals(4, loaded.getStockShards());
+        assertEquals(0, loaded.unshardedQuantity());
+        assertEquals(10, loaded.getQuantityAvailable());
+        assertEquals(4, shardJpa.findQuantitiesByListingId(id).size());
+
+        // No single shard holds 7 of the 10 units
+        assertTrue(repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 7)), false));
+        assertEquals(3, stockOf(id));
+        assertThrows(RuntimeException.class, () -> repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 4)), false));
+        assertEquals(3, stockOf(id));
+        assertTrue(repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 2)), true));
+        assertEquals(5, stockOf(id));
+        assertEquals(5, repository.getListingById(id).getQuantityAvailable());
+
+        repository.editProductQuantity(id, 12);
+        assertEquals(12, stockOf(id));
+
+        repository.setStockShards(id, 0);
+        loaded = jpa.findById(id).orElseThrow();
+        assertEquals(0, loaded.getStockShards());
+        assertEquals(12, loaded.unshardedQuantity());
+        assertTrue(shardJpa.findQuantitiesByListingId(id).isEmpty());
+    }
+
+    @Test
+    void testStoreWideAdjustmentReachesStockShards() {
+        String sharded = addListing("s1", "p1", 10);
+        String single = addListing("s1", "p2", 10);
+        repository.setStockShards(sharded, 4);
+
+        assertEquals(2, repository.adjustQuantities("s1", null, -7));
+        assertEquals(3, stockOf(sharded));
+        assertEquals(3, shardJpa.findQuantitiesByListingId(sharded).stream().mapToInt(Integer::intValue).sum());
+        assertEquals(3, stockOf(single));
+        // The removed units can no longer be bought
+        assertThrows(RuntimeException.class, () -> repository.updateOrRestoreStock(Map.of("s1", Map.of(sharded, 4)), false));
+
+        assertEquals(2, repository.adjustQuantities("s1", "cat", -5));
+        assertEquals(0, stockOf(sharded));
+        assertEquals(0, stockOf(single));
+
+        assertEquals(2, repository.adjustQuantities("s1", null, 6));
+        assertEquals(6, stockOf(sharded));
+        assertEquals(4, shardJpa.findQuantitiesByListingId(sharded).size());
+        assertEquals(6, repository.getListingById(sharded).getQuantityAvailable());
+    }
+
+    @Test
+    void testConcurrentBuyersNeverOversellShardedListing() throws InterruptedException {
+        String id = addListing("s1", "p1", 40);
+        repository.setStockShards(id, 8);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        repository.updateOrRestoreStock(Map.of("s1", Map.of(id, 1)), false);
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // out of stock
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40, sold.get());
+        assertEquals(0, stockOf(id));
+    }
+
+    @Test
+    void testConcurrentBuyersNeverOversell() throws InterruptedException {
+        String a = addListing("s1", "p1", 20);
+        String b = addListing("s1", "p2", 20);
+        int buyers = 8;
+        int attemptsPerBuyer = 10;
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int t = 0; t < buyers; t++) {
+            // Half the buyers list the items in reverse order; the repository must still not deadlock.
+            Map<String, Integer> cart = t % 2 == 0 ? Map.of(a, 1, b, 1) : Map.of(b, 1, a, 1);
+            tasks.add(() -> {
+                for (int i = 0; i < attemptsPerBuyer; i++) {
+                    try {
+                        repository.updateOrRestoreStock(Map.of("s1", cart), false);
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // out of stock
+                    }
+                }
+            });
+        }
+        for (Runnable task : tasks) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(20, sold.get());
+        assertEquals(0, stockOf(a));
+        assertEquals(0, stockOf(b));
+    }
+}
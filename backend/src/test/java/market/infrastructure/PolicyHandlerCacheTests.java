@@ -0,0 +1,118 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import market.domain.store.Policies.PolicyHandler;
+
+public class PolicyHandlerCacheTests {
+
+    private final AtomicInteger hydrations = new AtomicInteger();
+
+    private PolicyHandler hydrate() {
+        hydrations.incrementAndGet();
+        return new PolicyHandler();
+    }
+
+    @Test
+    void testHandlerIsReusedWhileVersionIsUnchanged() {
+        PolicyHandlerCache cache = new PolicyHandlerCache(10);
+
+        PolicyHandler first = cache.get("s1", 3, this::hydrate);
+        PolicyHandler second = cache.get("s1", 3, this::hydrate);
+
+        assertSame(first, second);
+        assertEquals(1, hydrations.get());
+        assertEquals(new PolicyHandlerCache.Stats(1, 1, 0, 1), cache.stats());
+    }
+
+    @Test
+    void testNewVersionRehydrates() {
+        PolicyHandlerCache cache = new PolicyHandlerCache(10);
+        PolicyHandler v1 = cache.get("s1", 1, this::hydrate);
+
+        PolicyHandler v2 = cache.get("s1", 2, this::hydrate);
+
+        assertNotSame(v1, v2);
+        assertSame(v2, cache.get("s1", 2, this::hydrate));
+        assertEquals(2, hydrations.get());
+    }
+
+    @Test
+    void testLoadOfOlderVersionDoesNotReplaceNewerHandler() {
+        PolicyHandlerCache cache = new PolicyHandlerCache(10);
+        PolicyHandler v2 = cache.get("s1", 2, this::hydrate);
+
+        // A load that read the store before its policies changed
+        PolicyHandler stale = cache.get("s1", 1, this::hydrate);
+
+        assertNotSame(v2, stale);
+        assertSame(v2, cache.get("s1", 2, this::hydrate));
+    }
+
+    @Test
+    void testInvalidateDropsOnlyThatStore() {
+        PolicyHandlerCache cache = new PolicyHandlerCache(10);
+        PolicyHandler s1 = cache.get("s1", 1, this::hydrate);
+        PolicyHandler s2 = cache.get("s2", 1, this::hydrate);
+
+        cache.invalidate("s1");
+
+        assertNotSame(s1, cache.get("s1", 1, this::hydrate));
+        assertSame(s2, cache.get("s2", 1, this::hydrate));
+    }
+
+    @Test
+    void testLeastRecentlyUsedStoreIsEvicted() {
+        AtomicLong now = new AtomicLong();
+        PolicyHandlerCache cache = new PolicyHandlerCache(2, now::incrementAndGet);
+        PolicyHandler s1 = cache.get("s1", 0, this::hydrate);
+        cache.get("s2", 0, this::hydrate);
+        cache.get("s1", 0, this::hydrate);
+
+        cache.get("s3", 0, this::hydrate);
+
+        assertSame(s1, cache.get("s1", 0, this::hydrate));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    void testConcurrentLoadsStayWithinMaxSize() throws Exception {
+        PolicyHandlerCache cache = new PolicyHandlerCache(8);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                workers.add(pool.submit(() -> {
+                    for (int n = 0; n < 5_000; n++) {
+                        String storeId = "s" + (seed * 31 + n * 7) % 40;
+                        cache.get(storeId, 0, PolicyHandler::new);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        PolicyHandlerCache.Stats stats = cache.stats();
+        assertTrue(stats.size() <= 8, "size " + stats.size());
+        assertEquals(8 * 5_000, stats.hits() + stats.misses());
+    }
+}
@@ -0,0 +1,60 @@
+package market.infrastructure;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import market.dto.ProductDTO;
+
+public class PriceSheetCacheTests {
+
+    private final AtomicLong now = new AtomicLong();
+    private final PriceSheetCache cache = new PriceSheetCache(2, now::incrementAndGet);
+
+    private static ProductDTO.PriceSheet sheet(String storeId) {
+        return new ProductDTO.PriceSheet(storeId, 0, List.of());
+    }
+
+    @Test
+    void testSheetIsServedUntilInvalidated() {
+        ProductDTO.PriceSheet s1 = sheet("s1");
+        cache.putIfUnchanged("s1", s1, cache.stamp("s1"));
+
+        assertSame(s1, cache.get("s1"));
+        cache.invalidate("s1");
+        assertNull(cache.get("s1"));
+    }
+
+    @Test
+    void testSheetRacingWithInvalidationIsNotCached() {
+        long stamp = cache.stamp("s1");
+        cache.invalidate("s1");
+        cache.putIfUnchanged("s1", sheet("s1"), stamp);
+
+        assertNull(cache.get("s1"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedStoreIsEvicted() {
+        ProductDTO.PriceSheet s1 = sheet("s1");
+        cache.putIfUnchanged("s1", s1, cache.stamp("s1"));
+        cache.putIfUnchanged("s2", sheet("s2"), cache.stamp("s2"));
+        cache.get("s1");
+
+        cache.putIfUnchanged("s3", sheet("s3"), cache.stamp("s3"));
+
+        assertSame(s1, cache.get("s1"));
+        assertNull(cache.get("s2"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testCacheSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceSheetCache(0));
+    }
+}
@@ -0,0 +1,163 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import market.domain.purchase.Purchase;
+import market.domain.purchase.PurchasedProduct;
+import market.infrastructure.IJpaRepository.IPurchaseJpaRepository;
+import market.infrastructure.PersistenceRepositories.PurchaseRepositoryPersistence;
+
+/**
+ * Purchase writes of {@link PurchaseRepositoryPersistence} against H2, outside a test
+ * transaction so that each write commits as it does in the app.
+ * <p>
+ * {@link #benchmarkPurchaseInserts} compares one transaction per purchase, saved with
+ * {@code JpaRepository.save} (a merge) or persisted, against purchases saved together in one
+ * transaction. Skipped by default; run with
+ * {@code mvn test -Dtest=PurchasePersistenceTests -Dbenchmarks=true}.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:purchase-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(PurchaseRepositoryPersistence.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PurchasePersistenceTests {
+
+    private static final int PRODUCTS_PER_PURCHASE = 3;
+
+    @Autowired
+    private PurchaseRepositoryPersistence repository;
+
+    @Autowired
+    private IPurchaseJpaRepository jpa;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate transactions;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactions = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jpa.deleteAll();
+    }
+
+    private static Purchase purchase(String userId, int index) {
+        List<PurchasedProduct> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS_PER_PURCHASE; i++) {
+            products.add(new PurchasedProduct("l" + i, "Product " + i, "s" + (index % 4), 1 + i, 10.0));
+        }
+        return new Purchase(userId, products, 60.0, "addr", "contact");
+    }
+
+    @Test
+    void testPurchasesSavedTogetherAreInsertedInBatches() {
+        List<Purchase> purchases = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            purchases.add(purchase("u1", i));
+        }
+        statistics.clear();
+
+        transactions.executeWithoutResult(status -> repository.saveAll(purchases));
+
+        assertEquals(50, statistics.getEntityInsertCount());
+        // Persisted without loading anything first, and written as one batch per table
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+        List<Purchase> saved = repository.getPurchasesByUser("u1");
+        assertEquals(50, saved.size());
+        saved.forEach(p -> assertEquals(PRODUCTS_PER_PURCHASE, p.getProducts().size()));
+        assertEquals(purchases.stream().filter(p -> p.getProducts().get(0).getStoreId().equals("s1")).count(),
+                repository.getPurchasesByStore("s1").size());
+    }
+
+    @Test
+    void testPurchaseIdsFollowCreationOrder() throws InterruptedException {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(purchase("u1", i).getPurchaseId());
+            Thread.sleep(2);
+        }
+
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(Comparator.naturalOrder());
+        assertEquals(ids, sorted);
+        assertEquals(5, ids.stream().distinct().count());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmarkPurchaseInserts() {
+        int count = 2_000;
+        int groupSize = 64;
+        // Warm up both paths
+        transactions.executeWithoutResult(status -> jpa.save(purchase("warmup", 0)));
+        transactions.executeWithoutResult(status -> repository.saveAll(List.of(purchase("warmup", 1), purchase("warmup", 2))));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Purchase p = purchase("single", i);
+            transactions.executeWithoutResult(status -> jpa.save(p));
+        }
+        double merged = count / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Purchase p = purchase("persisted", i);
+            transactions.executeWithoutResult(status -> repository.save(p));
+        }
+        double persisted = count / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i += groupSize) {
+            List<Purchase> group = new ArrayList<>();
+            for (int j = i; j < Math.min(count, i + groupSize); j++) {
+                group.add(purchase("grouped", j));
+            }
+            transactions.executeWithoutResult(status -> repository.saveAll(group));
+        }
+        double grouped = count / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("[purchase-inserts] %d purchases x %d products: merged one per transaction %.0f/s, "
+                + "persisted one per transaction %.0f/s, %d per transaction %.0f/s (x%.2f)%n",
+                count, PRODUCTS_PER_PURCHASE, merged, persisted, groupSize, grouped, grouped / merged);
+        assertEquals(count, repository.getPurchasesByUser("grouped").size());
+    }
+}
@@ -0,0 +1,127 @@
+package market.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import market.config.SchemaMigrationConfig;
+
+/**
+ * Runs EXPLAIN on H2 for the SQL behind the hot repository queries and checks that each
+ * one is answered from an index created by the db/migration scripts rather than a table scan.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-index-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import(SchemaMigrationConfig.class)
+public class SchemaIndexTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private void assertUsesIndex(String sql, String... indexes) {
+        String plan = String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class)).toUpperCase();
+        boolean usesIndex = Arrays.stream(indexes).anyMatch(index -> plan.contains("PUBLIC." + index.toUpperCase()));
+        assertTrue(usesIndex, "Expected one of " + Arrays.toString(indexes) + " in plan:\n" + plan);
+    }
+
+    @Test
+    void testListingsByStoreUseStoreIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.store_id = 's1'",
+                "idx_listings_store_product", "idx_listings_store_category", "idx_listings_store_name");
+    }
+
+    @Test
+    void testListingsByStoreAndProductUseCompositeIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.store_id = 's1' AND l.product_id = 'p1'",
+                "idx_listings_store_product");
+    }
+
+    @Test
+    void testListingsByStoreAndCategoryUseCompositeIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.store_id = 's1' AND l.category = 'Fruit'",
+                "idx_listings_store_category");
+    }
+
+    @Test
+    void testListingsByCategoryUseCategoryIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.category = 'Fruit'", "idx_listings_category");
+    }
+
+    @Test
+    void testListingsByProductUseProductIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.product_id = 'p1'", "idx_listings_product");
+    }
+
+    @Test
+    void testPriceKeysetPageUsesPriceIndex() {
+        assertUsesIndex("SELECT * FROM listings l WHERE l.price > 10.0 OR (l.price = 10.0 AND l.listing_id > 'x') "
+                + "ORDER BY l.price, l.listing_id FETCH FIRST 21 ROWS ONLY", "idx_listings_price");
+    }
+
+    @Test
+    void testPurchasesByStoreUsePurchasedProductsIndex() {
+        assertUsesIndex("SELECT DISTINCT p.* FROM purchases p JOIN purchased_products pp ON p.purchase_id = pp.purchase_id "
+                + "WHERE pp.store_id = 's1'", "idx_purchased_products_store");
+    }
+
+    @Test
+    void testPurchasesByUserUseUserIndex() {
+        assertUsesIndex("SELECT * FROM purchases p WHERE p.user_id = 'u1'", "idx_purchases_user");
+    }
+
+    @Test
+    void testStoresByUserUseStoreRolesIndex() {
+        assertUsesIndex("SELECT s.* FROM stores s JOIN store_roles r ON s.store_id = r.store_id WHERE r.user_id = 'u1'",
+                "idx_store_roles_user");
+    }
+
+    @Test
+    void testAuctionByStoreAndProductUsesCompositeIndex() {
+        assertUsesIndex("SELECT * FROM auction_entities a WHERE a.store_id = 's1' AND a.product_id = 'p1'",
+                "idx_auction_entities_store_product");
+    }
+
+    @Test
+    void testExpiredReservationsUseExpiryIndex() {
+        assertUsesIndex("SELECT r.reservation_id FROM stock_reservations r WHERE r.expires_at <= 1000",
+                "idx_stock_reservations_expires");
+    }
+
+    @Test
+    void testReservedQuantitiesByStoreUseItemsIndex() {
+        assertUsesIndex("SELECT i.listing_id, SUM(i.quantity) FROM stock_reservation_items i WHERE i.store_id = 's1' GROUP BY i.listing_id",
+                "idx_stock_reservation_items_store");
+    }
+
+    @Test
+    void testDueOutboxEventsUseDueIndex() {
+        assertUsesIndex("SELECT * FROM checkout_outbox e WHERE e.done = FALSE AND e.due_at <= 1000 ORDER BY e.due_at",
+                "idx_checkout_outbox_due");
+    }
+
+    @Test
+    void testShardTotalUsesListingIndex() {
+        assertUsesIndex("SELECT COALESCE(SUM(s.quantity), 0) FROM listing_stock_shards s WHERE s.listing_id = 'l1'",
+                "idx_listing_stock_shards_listing");
+    }
+
+    @Test
+    void testExpiredIdempotencyRecordsUseExpiryIndex() {
+        assertUsesIndex("SELECT r.record_key FROM idempotency_records r WHERE r.expires_at <= 1000",
+                "idx_idempotency_records_expires");
+    }
+}
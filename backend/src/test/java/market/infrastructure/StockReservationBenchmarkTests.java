@@ -0,0 +1,143 @@
+package market.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import market.domain.purchase.PurchaseType;
+import market.domain.store.Listing;
+
+/**
+ * Contention benchmark for multi-listing stock reservation: the CAS-based
+ * {@link ListingRepository#updateOrRestoreStock} against the nested-monitor approach it replaced
+ * (sort, lock every listing, check, then decrement).
+ * <p>
+ * Skipped by default; run with {@code mvn test -Dtest=StockReservationBenchmarkTests -Dbenchmarks=true}.
+ * Both engines are also checked for overselling: units sold plus units left must equal the initial stock.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class StockReservationBenchmarkTests {
+
+    private static final String STORE = "bench-store";
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int HOT_LISTINGS = 32;
+    private static final int INITIAL_STOCK = 1_000_000;
+    private static final long DURATION_MILLIS = 2_000;
+
+    private interface Engine {
+        void buy(Map<Listing, Integer> cart);
+    }
+
+    @Test
+    void benchmarkSmallCarts() throws InterruptedException {
+        compare("carts of 1-4 items", 1, 4);
+    }
+
+    @Test
+    void benchmarkLargeCartsMixedWithSmallOnes() throws InterruptedException {
+        compare("carts of 1-32 items", 1, HOT_LISTINGS);
+    }
+
+    private void compare(String scenario, int minItems, int maxItems) throws InterruptedException {
+        double monitor = run(minItems, maxItems, (repo, listings) -> StockReservationBenchmarkTests::buyWithMonitors);
+        double cas = run(minItems, maxItems, (repo, listings) -> cart -> repo.updateOrRestoreStock(toStockMap(cart), false));
+        System.out.printf("[stock-reservation] %s, %d threads: monitors %.0f carts/s, CAS %.0f carts/s (x%.2f)%n",
+                scenario, THREADS, monitor, cas, cas / monitor);
+    }
+
+    private interface EngineFactory {
+        Engine create(ListingRepository repo, List<Listing> listings);
+    }
+
+    private double run(int minItems, int maxItems, EngineFactory factory) throws InterruptedException {
+        ListingRepository repo = new ListingRepository();
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < HOT_LISTINGS; i++) {
+            Listing l = new Listing(STORE, "p" + i, "P" + i, "bench", "desc", INITIAL_STOCK, PurchaseType.REGULAR, 1);
+            repo.addListing(l);
+            listings.add(l);
+        }
+        Engine engine = factory.create(repo, listings);
+        Map<Listing, AtomicLong> sold = new HashMap<>();
+        listings.forEach(l -> sold.put(l, new AtomicLong()));
+        AtomicLong carts = new AtomicLong();
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    while (System.currentTimeMillis() < deadline) {
+                        Map<Listing, Integer> cart = new LinkedHashMap<>();
+                        int items = random.nextInt(minItems, maxItems + 1);
+                        while (cart.size() < items) {
+                            cart.put(listings.get(random.nextInt(HOT_LISTINGS)), 1 + random.nextInt(3));
+                        }
+                        try {
+                            engine.buy(cart);
+                            cart.forEach((l, q) -> sold.get(l).addAndGet(q));
+                            carts.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            // out of stock; not expected with this much stock, but never counted as sold
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        for (Listing l : listings) {
+            assertEquals(INITIAL_STOCK, l.getQuantityAvailable() + sold.get(l).get(), "oversold " + l.getListingId());
+        }
+        return carts.get() * 1000.0 / DURATION_MILLIS;
+    }
+
+    private static Map<String, Map<String, Integer>> toStockMap(Map<Listing, Integer> cart) {
+        Map<String, Integer> bag = new HashMap<>();
+        cart.forEach((l, q) -> bag.put(l.getListingId(), q));
+        return Map.of(STORE, bag);
+    }
+
+    // The replaced approach: lock all listings in ID order, check every item, then decrement.
+    private static void buyWithMonitors(Map<Listing, Integer> cart) {
+        List<Listing> toLock = new ArrayList<>(cart.keySet());
+        toLock.sort(Comparator.comparing(Listing::getListingId));
+        lockAll(toLock, 0, () -> {
+            for (Listing l : toLock) {
+                if (l.getQuantityAvailable() < cart.get(l))
+                    throw new RuntimeException("Not enough stock for listing: " + l.getListingId());
+            }
+            for (Listing l : toLock) {
+                l.setQuantityAvailable(l.getQuantityAvailable() - cart.get(l));
+            }
+        });
+    }
+
+    private static void lockAll(List<Listing> locks, int index, Runnable criticalSection) {
+        if (index == locks.size()) {
+            criticalSection.run();
+            return;
+        }
+        synchronized (locks.get(index)) {
+            lockAll(locks, index + 1, criticalSection);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package market.infrastructure;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import market.application.StockReservationService;
+import market.domain.purchase.StockReservation;
+import market.domain.store.IListingRepository;
+import market.infrastructure.IJpaRepository.IStockReservationJpaRepository;
+import market.infrastructure.PersistenceRepositories.StockReservationRepositoryPersistence;
+
+/**
+ * Releases of {@link StockReservationService} against H2, outside a test transaction as on the
+ * sweeper thread: a release whose stock restore fails must keep the reservation row.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-reservation-release-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import(StockReservationRepositoryPersistence.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockReservationReleasePersistenceTests {
+
+    @Autowired
+    private StockReservationRepositoryPersistence repository;
+
+    @Autowired
+    private IStockReservationJpaRepository jpa;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private IListingRepository listings;
+    private StockReservationService reservations;
+    private StockReservation expired;
+
+    @BeforeEach
+    void setUp() {
+        listings = mock(IListingRepository.class);
+        reservations = new StockReservationService(repository, listings, 60, 300, 0,
+                new TransactionTemplate(transactionManager));
+        expired = repository.save(new StockReservation("u1", Map.of("s1", Map.of("l1", 2)), 1));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jpa.deleteAll();
+    }
+
+    @Test
+    void testFailedRestoreKeepsExpiredReservation() {
+        doThrow(new RuntimeException("version conflict")).when(listings).updateOrRestoreStock(anyMap(), eq(true));
+
+        assertEquals(0, reservations.sweepExpired());
+
+        assertTrue(jpa.findById(expired.getReservationId()).isPresent());
+    }
+
+    @Test
+    void testFailedRestoreKeepsReservationReleasedForUser() {
+        doThrow(new RuntimeException("connection lost")).when(listings).updateOrRestoreStock(anyMap(), eq(true));
+
+        assertThrows(RuntimeException.class, () -> reservations.releaseForUser("u1"));
+
+        assertTrue(jpa.findById(expired.getReservationId()).isPresent());
+    }
+
+    @Test
+    void testSweepRemovesReservationOnceStockIsRestored() {
+        assertEquals(1, reservations.sweepExpired());
+
+        assertTrue(jpa.findById(expired.getReservationId()).isEmpty());
+    }
+}
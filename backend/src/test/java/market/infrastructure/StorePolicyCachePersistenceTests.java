@@ -0,0 +1,141 @@
+package market.infrastructure;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import market.application.StorePoliciesService;
+import market.domain.purchase.PurchaseType;
+import market.domain.store.IListingRepository;
+import market.domain.store.Listing;
+import market.domain.store.Store;
+import market.domain.store.Policies.PolicyHandler;
+import market.domain.store.Policies.Policies.MaxItemsPurchasePolicy;
+import market.dto.PolicyDTO;
+import market.infrastructure.IJpaRepository.IStoreJpaRepository;
+import market.infrastructure.PersistenceRepositories.StoreRepositoryPersistance;
+
+/**
+ * Store loads of {@link StoreRepositoryPersistance} sharing hydrated policy handlers through
+ * {@link PolicyHandlerCache}, against H2 and outside a test transaction, as in the app.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:store-policy-cache-tests;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@Import({StoreRepositoryPersistance.class, StorePolicyCachePersistenceTests.CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StorePolicyCachePersistenceTests {
+
+    @TestConfiguration
+    static class CacheConfig {
+        @Bean
+        IListingRepository listingRepository() {
+            return new ListingRepository();
+        }
+
+        @Bean
+        PolicyHandlerCache policyHandlerCache() {
+            return new PolicyHandlerCache(100);
+        }
+    }
+
+    private static final String STORE_ID = "policy-cache-store";
+
+    @Autowired
+    private StoreRepositoryPersistance stores;
+
+    @Autowired
+    private IStoreJpaRepository jpa;
+
+    @Autowired
+    private IListingRepository listings;
+
+    @Autowired
+    private PolicyHandlerCache cache;
+
+    private StorePoliciesService policies;
+    private String listingId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache.invalidateAll();
+        stores.addStore(new Store(STORE_ID, "Cached", "owner", listings));
+        listingId = listings.addListing(new Listing(STORE_ID, "P1", "Milk", "dairy", "desc", 50, PurchaseType.REGULAR, 10.0));
+        policies = new StorePoliciesService(stores, new SuspensionRepository(new UserRepository()), cache, null);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jpa.deleteAll();
+    }
+
+    private static PolicyDTO.AddDiscountRequest tenPercentOnDairyFromTwenty() {
+        PolicyDTO.DiscountCondition condition = new PolicyDTO.DiscountCondition(
+                "BASKET_TOTAL_AT_LEAST", Map.of("minTotal", 20), List.of(), null);
+        PolicyDTO.AddDiscountRequest inner = new PolicyDTO.AddDiscountRequest(
+                "PERCENTAGE", "CATEGORY", "dairy", 10, null, null, null, null);
+        return new PolicyDTO.AddDiscountRequest("CONDITIONAL", "CATEGORY", "dairy", 10, null, condition, List.of(inner), null);
+    }
+
+    @Test
+    void testLoadsShareOneHydratedHandler() {
+        long misses = cache.stats().misses();
+        PolicyHandler first = stores.getStoreByID(STORE_ID).getPolicyHandler();
+        PolicyHandler second = stores.getStoreByID(STORE_ID).getPolicyHandler();
+
+        assertSame(first, second);
+        assertEquals(misses + 1, cache.stats().misses());
+    }
+
+    @Test
+    void testPolicyChangeIsSeenByTheNextLoad() {
+        PolicyHandler before = stores.getStoreByID(STORE_ID).getPolicyHandler();
+
+        policies.addDiscount(STORE_ID, "owner", tenPercentOnDairyFromTwenty());
+
+        Store reloaded = stores.getStoreByID(STORE_ID);
+        assertNotSame(before, reloaded.getPolicyHandler());
+        // The conditional discount's condition was read back from its JSON
+        assertEquals(3.0, reloaded.calculateStoreBagWithDiscount(Map.of(listingId, 3)), 1e-9);
+        assertEquals(0.0, reloaded.calculateStoreBagWithDiscount(Map.of(listingId, 1)));
+        // The handler the other loads hold was not changed
+        assertEquals(0.0, before.calculateDiscount(Map.of(listingId, 3), reloaded.getStoreProductsManager()));
+        assertEquals(1, before.getDiscountPolicies().size() + before.getPolicies().size());
+
+        policies.removeDiscount(STORE_ID, "owner", tenPercentOnDairyFromTwenty());
+        assertEquals(0.0, stores.getStoreByID(STORE_ID).calculateStoreBagWithDiscount(Map.of(listingId, 3)));
+    }
+
+    @Test
+    void testPolicyChangeCopiesTheSharedHandler() throws Exception {
+        Store store = stores.getStoreByID(STORE_ID);
+        PolicyHandler shared = store.getPolicyHandler();
+
+        store.addPolicy("owner", new MaxItemsPurchasePolicy(2));
+
+        assertNotSame(shared, store.getPolicyHandler());
+        assertEquals(1, shared.getPolicies().size());
+        assertEquals(2, store.getPolicyHandler().getPolicies().size());
+        assertSame(shared, stores.getStoreByID(STORE_ID).getPolicyHandler());
+    }
+}
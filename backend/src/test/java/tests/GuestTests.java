@@ -19,8 +19,10 @@ import market.domain.user.IUserRepository;
 import market.domain.user.ShoppingCart;
 import market.domain.user.User;
 import market.dto.PolicyDTO;
+import market.dto.ProductDTO;
 import market.middleware.TokenUtils;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -438,7 +440,7 @@ public class GuestTests extends AcceptanceTestBase {
             int quantity=5;
             String listingId=storeService.addNewListing(MANAGER1, storeId, "p1", "Notebook", "writing", "Simple notebook", quantity, 25.0, "REGULAR");
             //Step 2: Stub the payment and shipment services to simulate success
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true)); 
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001")); 
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("SHIP123")); 
             //Step 3: Generate a token for GUEST and set it as the current token
             IUserRepository userRep = userService.getUserRepository();
@@ -474,7 +476,7 @@ public class GuestTests extends AcceptanceTestBase {
             int quantity=5;
             String listingId=storeService.addNewListing(MANAGER1, storeId, "p1", "Notebook", "writing", "Simple notebook", quantity, 25.0, "REGULAR");
             //Step 2: Stub the payment and shipment services to simulate success (even though stock will fail)
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true)); 
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001")); 
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("SHIP123"));
             //Step 3: Generate a token for GUEST and set it as the current token
             IUserRepository userRep = userService.getUserRepository();
@@ -555,7 +557,7 @@ public class GuestTests extends AcceptanceTestBase {
             String token = authService.generateToken(guest);
             TokenUtils.setMockToken(token);  // Set the token for the guest
             String listingIdOfGvina = storeService.addNewListing(MANAGER1, storeId, "123", "Gvina", "food", "Gvina", 10, 5.0, "REGULAR");
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true)); 
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001")); 
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("SHIP123")); 
             userService.addProductToCart(storeId, listingIdOfGvina, 2);
             // Step 4: Retrieve the guest's shopping cart and ensure the product was added with the correct quantity
@@ -603,7 +605,7 @@ public class GuestTests extends AcceptanceTestBase {
             TokenUtils.setMockToken(token);
 
             String listingIdOfGvina = storeService.addNewListing(MANAGER1, storeId, "123", "Gvina", "food", "Gvina", 10, 5.0, "REGULAR");
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true)); 
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001")); 
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("SHIP123")); 
             userService.addProductToCart(storeId, listingIdOfGvina, 2);
             // Step 4: Retrieve the guest's shopping cart and ensure the product was added with the correct quantity
@@ -790,4 +792,47 @@ public class GuestTests extends AcceptanceTestBase {
         assertEquals(16.0, discountedPrice, 0.01, "Should apply both discounts: ($5 + $3) × 2 = $16");
         assertEquals(24.0, discount, 0.01, "Final price should be $24");
     }
+
+    @Test
+    void guest_price_sheet_matches_discounted_product_prices() {
+        String cheeseId = storeService.addNewListing(
+            MANAGER1, storeId, "sheet-cheese", "Sheet Cheese", "Dairy", "Cheese", 10, 30.0, "REGULAR"
+        );
+        String breadId = storeService.addNewListing(
+            MANAGER1, storeId, "sheet-bread", "Sheet Bread", "Bakery", "Bread", 10, 12.0, "REGULAR"
+        );
+        PolicyDTO.AddDiscountRequest dairyDiscount = new PolicyDTO.AddDiscountRequest(
+            "PERCENTAGE", "CATEGORY", "Dairy", 20.0, null, null, null, null
+        );
+        assertTrue(storePoliciesService.addDiscount(storeId, MANAGER1, dairyDiscount));
+
+        ApiResponse<ProductDTO.PriceSheet> response = storeService.getPriceSheet(storeId);
+        assertTrue(response.isSuccess(), response.getError());
+        ProductDTO.PriceSheet sheet = response.getData();
+        for (ProductDTO.PriceSheetEntry entry : sheet.entries()) {
+            assertEquals(storeService.getProductDiscountedPrice(storeId, entry.listingId()).getData(), entry.discountedPrice(), 1e-9);
+        }
+        Map<String, Double> prices = new HashMap<>();
+        sheet.entries().forEach(e -> prices.put(e.listingId(), e.discountedPrice()));
+        assertEquals(24.0, prices.get(cheeseId), 1e-9);
+        assertEquals(12.0, prices.get(breadId), 1e-9);
+
+        // Nothing changed: the same sheet is served
+        assertSame(sheet, storeService.getPriceSheet(storeId).getData());
+
+        // A price edit is seen by the next sheet
+        assertTrue(storeService.editListingPrice(MANAGER1, storeId, breadId, 10.0));
+        ProductDTO.PriceSheet edited = storeService.getPriceSheet(storeId).getData();
+        assertNotSame(sheet, edited);
+        edited.entries().stream().filter(e -> e.listingId().equals(breadId))
+            .forEach(e -> assertEquals(10.0, e.discountedPrice(), 1e-9));
+
+        // So is a new discount
+        PolicyDTO.AddDiscountRequest bakeryDiscount = new PolicyDTO.AddDiscountRequest(
+            "FIXED", "CATEGORY", "Bakery", 3.0, null, null, null, null
+        );
+        assertTrue(storePoliciesService.addDiscount(storeId, MANAGER1, bakeryDiscount));
+        storeService.getPriceSheet(storeId).getData().entries().stream().filter(e -> e.listingId().equals(breadId))
+            .forEach(e -> assertEquals(7.0, e.discountedPrice(), 1e-9));
+    }
 }
\ No newline at end of file
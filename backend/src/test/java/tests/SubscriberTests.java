@@ -289,7 +289,7 @@ class SubscriberTests extends AcceptanceTestBase {
                 10,
                 1000.0,
                 "REGULAR");
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true)); 
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001")); 
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId")); 
             // Generate token and inject
             String token = authService.generateToken(user1);
@@ -428,7 +428,7 @@ class SubscriberTests extends AcceptanceTestBase {
             TokenUtils.setMockToken(token);
             
             // Configure mocks for successful bid
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
             
             double bidAmount = 1200.0; // Bid below list price
@@ -476,7 +476,7 @@ class SubscriberTests extends AcceptanceTestBase {
         TokenUtils.setMockToken(token);
         
         // Configure mocks
-        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+        when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
         when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
         
         // Attempt to submit an invalid bid (negative amount)
@@ -517,7 +517,7 @@ class SubscriberTests extends AcceptanceTestBase {
             TokenUtils.setMockToken(token);
             
             // Configure mocks for payment and shipping
-            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok(true));
+            when(paymentService.processPayment(anyString())).thenReturn(ApiResponse.ok("10001"));
             when(shipmentService.ship(anyString(), anyString(), anyDouble())).thenReturn(ApiResponse.ok("trackingId"));
             
             // Open auction for the item - this creates the listing internally